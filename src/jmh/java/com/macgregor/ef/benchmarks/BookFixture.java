@@ -0,0 +1,54 @@
+package com.macgregor.ef.benchmarks;
+
+import com.macgregor.ef.TranslationStore;
+import com.macgregor.ef.XmlPOJOExtractor;
+import com.macgregor.ef.exceptions.DataLoadException;
+import com.macgregor.ef.model.canonical.*;
+import com.macgregor.ef.model.ekkor.*;
+
+import java.util.List;
+
+/**
+ * The models benchmarks run against, extracted from the real 1.9.5 books. Paths are relative to the project root, so
+ * benchmarks have to be run from there.
+ */
+public enum BookFixture {
+    UNIT("unitbook.xml", "//unit", UnitXML.class, Unit.class),
+    UNIT_SKILL("unitbook.xml", "//unitSkill", UnitSkillXML.class, UnitSkill.class),
+    PET("petbook.xml", "//pet", PetXML.class, Pet.class),
+    PET_SKILL("petbook.xml", "//petSkill", PetSkillXML.class, PetSkill.class),
+    ARTIFACT("treasurebook.xml", "//treasure", ArtifactXML.class, Artifact.class),
+    ARTIFACT_SET("treasurebook.xml", "//treasureSet", ArtifactSetXML.class, ArtifactSet.class);
+
+    private final String uri;
+    private final String xpath;
+    private final Class<?> xmlModel;
+    private final Class<?> canonicalModel;
+
+    BookFixture(String book, String xpath, Class<?> xmlModel, Class<?> canonicalModel){
+        this.uri = TranslationStore.DEFAULT_BOOK_DIRECTORY + "/" + book;
+        this.xpath = xpath;
+        this.xmlModel = xmlModel;
+        this.canonicalModel = canonicalModel;
+    }
+
+    public String getUri() {
+        return uri;
+    }
+
+    public String getXpath() {
+        return xpath;
+    }
+
+    public Class<?> getXmlModel() {
+        return xmlModel;
+    }
+
+    public Class<?> getCanonicalModel() {
+        return canonicalModel;
+    }
+
+    public List<?> extract(XmlPOJOExtractor extractor) throws DataLoadException {
+        return extractor.extract(uri, xpath, xmlModel);
+    }
+}
@@ -0,0 +1,55 @@
+package com.macgregor.ef.benchmarks;
+
+import com.macgregor.ef.TranslationStore;
+import com.macgregor.ef.XmlPOJOExtractor;
+import com.macgregor.ef.converters.CanonicalModelConverter;
+import com.macgregor.ef.converters.MethodHandleAccessorFactory;
+import com.macgregor.ef.converters.ReflectiveAccessorFactory;
+import com.macgregor.ef.converters.TranslationFieldConverter;
+import com.macgregor.ef.exceptions.CanonicalConversionException;
+import com.macgregor.ef.exceptions.DataLoadException;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CanonicalModelConverter.convert() of every extracted model of one type, translated into English. Runs with the
+ * generated converters and with the reflective conversion plans they replace, the plans reading and writing fields
+ * through either ReflectiveAccessorFactory or the accessors MethodHandleAccessorFactory spins. The accessors make no
+ * difference to the generated converters.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ConverterBenchmark {
+
+    @Param
+    public BookFixture fixture;
+
+    @Param({"true", "false"})
+    public boolean generated;
+
+    @Param({"false", "true"})
+    public boolean methodHandles;
+
+    private CanonicalModelConverter converter;
+    private List<?> models;
+
+    @Setup
+    public void setUp() throws DataLoadException {
+        converter = new CanonicalModelConverter(new TranslationFieldConverter(TranslationStore.defaults().getTranslator(Locale.ENGLISH)),
+                methodHandles ? new MethodHandleAccessorFactory() : new ReflectiveAccessorFactory());
+        converter.setUseGeneratedConverters(generated);
+        models = fixture.extract(new XmlPOJOExtractor());
+    }
+
+    @Benchmark
+    public void convert(Blackhole blackhole) throws CanonicalConversionException {
+        for(Object model : models){
+            blackhole.consume(converter.convert(model));
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.macgregor.ef.benchmarks;
+
+import com.macgregor.ef.XmlPOJOExtractor;
+import com.macgregor.ef.exceptions.DataLoadException;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * XmlPOJOExtractor.extract() of every record of one type from its book, with both extraction modes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ExtractorBenchmark {
+
+    @Param
+    public BookFixture fixture;
+
+    @Param
+    public XmlPOJOExtractor.Mode mode;
+
+    private XmlPOJOExtractor extractor;
+
+    @Setup
+    public void setUp() {
+        extractor = new XmlPOJOExtractor(mode);
+    }
+
+    @Benchmark
+    public List<?> extract() throws DataLoadException {
+        return fixture.extract(extractor);
+    }
+}
@@ -0,0 +1,71 @@
+package com.macgregor.ef.benchmarks;
+
+import com.macgregor.ef.converters.CanonicalFieldConverter;
+import com.macgregor.ef.converters.ValueConverterRegistry;
+import com.macgregor.ef.exceptions.CanonicalConversionException;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CanonicalFieldConverter on values shaped like the ones in the books, with and without primitive backed lists.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class FieldConverterBenchmark {
+
+    @Param({"true", "false"})
+    public boolean primitiveLists;
+
+    // state fields rather than constants so the JIT cant fold the conversions away
+    public String integer = "2147";
+    public String decimal = "0.125";
+    public String bool = "true";
+    public String integers = "100,200,300,400,500,600,700,800,900,1000";
+    public String decimals = "0.1#0.25#0.5#1.0#1.5#2.0";
+    public String strings = "UNIT_NAME_1|UNIT_NAME_2|UNIT_NAME_3|UNIT_NAME_4";
+
+    private CanonicalFieldConverter converter;
+
+    @Setup
+    public void setUp() {
+        converter = new CanonicalFieldConverter(ValueConverterRegistry.defaults(), primitiveLists);
+    }
+
+    @Benchmark
+    public Object convertInteger() throws CanonicalConversionException {
+        return converter.convert(integer, Integer.class);
+    }
+
+    @Benchmark
+    public Object convertDouble() throws CanonicalConversionException {
+        return converter.convert(decimal, Double.class);
+    }
+
+    @Benchmark
+    public Object convertBoolean() throws CanonicalConversionException {
+        return converter.convert(bool, Boolean.class);
+    }
+
+    @Benchmark
+    public int convertInt() throws CanonicalConversionException {
+        return converter.convertInt(integer, 0);
+    }
+
+    @Benchmark
+    public List<Object> convertIntegerCollection() throws CanonicalConversionException {
+        return converter.convertCollection(integers, Integer.class);
+    }
+
+    @Benchmark
+    public List<Object> convertDoubleCollection() throws CanonicalConversionException {
+        return converter.convertCollection(decimals, Double.class);
+    }
+
+    @Benchmark
+    public List<Object> convertStringCollection() throws CanonicalConversionException {
+        return converter.convertCollection(strings, String.class);
+    }
+}
@@ -0,0 +1,113 @@
+package com.macgregor.ef.benchmarks;
+
+import com.macgregor.ef.EndlessFrontierDataLoader;
+import com.macgregor.ef.TranslationStore;
+import com.macgregor.ef.exceptions.DataLoadException;
+import com.macgregor.ef.incremental.FingerprintStore;
+import com.macgregor.ef.model.canonical.*;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.Configuration;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * EndlessFrontierDataLoader.persistModels() of every converted model of one type into an empty in-memory H2 database,
+ * with each of the loader's persist modes. The table, and the fingerprints of incremental persists, are emptied before
+ * every invocation, outside of the measurement.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class PersistBenchmark {
+
+    @Param
+    public BookFixture fixture;
+
+    @Param({"session", "batched", "direct", "incremental"})
+    public String persistMode;
+
+    private final FingerprintStore fingerprintStore = new FingerprintStore();
+    private SessionFactory sessionFactory;
+    private EndlessFrontierDataLoader dataLoader;
+    private List<?> models;
+
+    @Setup
+    public void setUp() throws DataLoadException {
+        sessionFactory = new Configuration()
+                .setProperty("hibernate.connection.driver_class", "org.h2.Driver")
+                .setProperty("hibernate.connection.url", "jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1")
+                .setProperty("hibernate.connection.username", "sa")
+                .setProperty("hibernate.connection.password", "")
+                .setProperty("hibernate.dialect", "org.hibernate.dialect.H2Dialect")
+                .setProperty("hibernate.hbm2ddl.auto", "create-drop")
+                .setProperty("hibernate.id.new_generator_mappings", "false")
+                .setProperty("hibernate.jdbc.batch_size", "50")
+                .setProperty("hibernate.order_inserts", "true")
+                .addAnnotatedClass(Unit.class)
+                .addAnnotatedClass(UnitSkill.class)
+                .addAnnotatedClass(Pet.class)
+                .addAnnotatedClass(PetSkill.class)
+                .addAnnotatedClass(Artifact.class)
+                .addAnnotatedClass(ArtifactSet.class)
+                .addAnnotatedClass(Translation.class)
+                .addAnnotatedClass(Tribe.class)
+                .buildSessionFactory();
+
+        dataLoader = new EndlessFrontierDataLoader(sessionFactory, TranslationStore.defaults(), Locale.ENGLISH);
+        switch (persistMode){
+            case "batched":
+                dataLoader.setPersistBatchSize(50);
+                break;
+            case "direct":
+                dataLoader.setDirectPersist(true);
+                break;
+            case "incremental":
+                dataLoader.setIncremental(true);
+                break;
+            default:
+                break;
+        }
+        models = convert(fixture.getXmlModel(), fixture.getCanonicalModel());
+    }
+
+    /**
+     * Also forgets the fingerprints of the type, otherwise incremental persists after the first would find every model
+     * unchanged and measure skipping them rather than writing them.
+     */
+    @Setup(Level.Invocation)
+    public void emptyTable() {
+        try (Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+            session.createQuery("delete from " + fixture.getCanonicalModel().getSimpleName()).executeUpdate();
+            session.doWork(connection -> {
+                fingerprintStore.createTableIfMissing(connection);
+                fingerprintStore.clear(connection, fixture.getCanonicalModel().getName());
+            });
+            session.getTransaction().commit();
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        sessionFactory.close();
+    }
+
+    @Benchmark
+    public void persist() {
+        persist(models, fixture.getCanonicalModel());
+    }
+
+    private <T, U> List<U> convert(Class<T> xmlModel, Class<U> canonicalModel) throws DataLoadException {
+        return dataLoader.convertToCanonicalModels(dataLoader.loadXmlData(fixture.getUri(), fixture.getXpath(), xmlModel),
+                xmlModel, canonicalModel);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> void persist(List<?> canonicalModels, Class<T> type){
+        dataLoader.persistModels((List<T>) canonicalModels, type);
+    }
+}
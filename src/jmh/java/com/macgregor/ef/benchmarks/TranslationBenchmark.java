@@ -0,0 +1,53 @@
+package com.macgregor.ef.benchmarks;
+
+import com.macgregor.ef.TranslationStore;
+import com.macgregor.ef.XmlPOJOExtractor;
+import com.macgregor.ef.annotations.Translate;
+import com.macgregor.ef.converters.TranslationFieldConverter;
+import com.macgregor.ef.exceptions.CanonicalConversionException;
+import com.macgregor.ef.exceptions.DataLoadException;
+import org.apache.commons.lang3.reflect.FieldUtils;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.lang.reflect.Field;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building the translation key of, and translating, every @Translate field of one extracted model.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TranslationBenchmark {
+
+    @Param({"UNIT", "PET", "ARTIFACT"})
+    public BookFixture fixture;
+
+    private TranslationFieldConverter translator;
+    private Object model;
+    private List<Field> fields;
+
+    @Setup
+    public void setUp() throws DataLoadException {
+        translator = new TranslationFieldConverter(TranslationStore.defaults().getTranslator(Locale.ENGLISH));
+        model = fixture.extract(new XmlPOJOExtractor()).get(0);
+        fields = FieldUtils.getFieldsListWithAnnotation(fixture.getXmlModel(), Translate.class);
+    }
+
+    @Benchmark
+    public void getFieldKey(Blackhole blackhole) throws CanonicalConversionException {
+        for(Field field : fields){
+            blackhole.consume(translator.getFieldKey(model, field));
+        }
+    }
+
+    @Benchmark
+    public void translate(Blackhole blackhole) throws CanonicalConversionException {
+        for(Field field : fields){
+            blackhole.consume(translator.convert(model, field));
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.macgregor.ef;
+
+/**
+ * A model that could not be converted to its canonical model: where it was in the extracted input, the model itself
+ * and why conversion failed.
+ */
+public class ConversionFailure {
+    private final int index;
+    private final Object model;
+    private final Exception cause;
+
+    public ConversionFailure(int index, Object model, Exception cause){
+        this.index = index;
+        this.model = model;
+        this.cause = cause;
+    }
+
+    /**
+     * @return position of the model among those passed in for conversion
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    public Object getModel() {
+        return model;
+    }
+
+    public Exception getCause() {
+        return cause;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s #%d: %s", model.getClass().getSimpleName(), index, cause.getMessage());
+    }
+}
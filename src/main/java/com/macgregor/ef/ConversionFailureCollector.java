@@ -0,0 +1,39 @@
+package com.macgregor.ef;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Collects ConversionFailures from any number of converting threads. Failures are reported in input order regardless
+ * of the order they were recorded in.
+ */
+public class ConversionFailureCollector {
+    private final ConcurrentLinkedQueue<ConversionFailure> failures = new ConcurrentLinkedQueue<>();
+
+    public void add(ConversionFailure failure){
+        failures.add(failure);
+    }
+
+    public void add(int index, Object model, Exception cause){
+        add(new ConversionFailure(index, model, cause));
+    }
+
+    /**
+     * @return a snapshot of the failures recorded so far, ordered by index
+     */
+    public List<ConversionFailure> getFailures(){
+        List<ConversionFailure> sorted = new ArrayList<>(failures);
+        sorted.sort(Comparator.comparingInt(ConversionFailure::getIndex));
+        return sorted;
+    }
+
+    public int size(){
+        return failures.size();
+    }
+
+    public boolean isEmpty(){
+        return failures.isEmpty();
+    }
+}
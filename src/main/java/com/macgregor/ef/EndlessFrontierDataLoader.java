@@ -2,110 +2,1285 @@ package com.macgregor.ef;
 
 import com.macgregor.ef.converters.CanonicalModelConverter;
 import com.macgregor.ef.converters.TranslationFieldConverter;
+import com.macgregor.ef.converters.ValueConverterRegistry;
 import com.macgregor.ef.exceptions.CanonicalConversionException;
 import com.macgregor.ef.exceptions.DataLoadException;
+import com.macgregor.ef.exceptions.UncheckedDataLoadException;
+import com.macgregor.ef.incremental.FingerprintStore;
+import com.macgregor.ef.incremental.RecordFingerprinter;
+import com.macgregor.ef.incremental.SourceHashStore;
+import com.macgregor.ef.jdbc.EntityTableMapping;
+import com.macgregor.ef.jdbc.JdbcBulkLoader;
 import com.macgregor.ef.model.canonical.*;
+import com.macgregor.ef.metrics.LoadEvent;
+import com.macgregor.ef.metrics.LoadMetrics;
 import com.macgregor.ef.model.ekkor.*;
+import com.macgregor.ef.snapshot.Snapshot;
+import com.macgregor.ef.snapshot.SnapshotWriter;
+import org.hibernate.CacheMode;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
+import org.hibernate.SharedSessionContract;
+import org.hibernate.StatelessSession;
 import org.hibernate.Transaction;
+import org.hibernate.jdbc.ReturningWork;
 import org.hibernate.query.Query;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.persistence.PersistenceUnitUtil;
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.RandomAccess;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.function.IntSupplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class EndlessFrontierDataLoader {
     private static final Logger logger = LoggerFactory.getLogger(EndlessFrontierDataLoader.class);
+    private static final int STREAMING_FLUSH_INTERVAL = 100;
+    private static final int MIN_CONVERSION_CHUNK_SIZE = 32;
+    private static final int DEFAULT_PIPELINE_QUEUE_CAPACITY = 256;
+    // models gathered per translation prefetch when converting a stream of them
+    private static final int PREFETCH_CHUNK_SIZE = 500;
+    private static final String UNIT_BOOK = "src/main/resources/ef/global/1.9.5/unitbook.xml";
+    private static final String PET_BOOK = "src/main/resources/ef/global/1.9.5/petbook.xml";
+    private static final String TREASURE_BOOK = "src/main/resources/ef/global/1.9.5/treasurebook.xml";
+
+    private static final ExtractionTarget<UnitXML> UNITS = new ExtractionTarget<>("//unit", UnitXML.class);
+    private static final ExtractionTarget<UnitSkillXML> UNIT_SKILLS = new ExtractionTarget<>("//unitSkill", UnitSkillXML.class);
+    private static final ExtractionTarget<PetXML> PETS = new ExtractionTarget<>("//pet", PetXML.class);
+    private static final ExtractionTarget<PetSkillXML> PET_SKILLS = new ExtractionTarget<>("//petSkill", PetSkillXML.class);
+    private static final ExtractionTarget<ArtifactXML> ARTIFACTS = new ExtractionTarget<>("//treasure", ArtifactXML.class);
+    private static final ExtractionTarget<ArtifactSetXML> ARTIFACT_SETS = new ExtractionTarget<>("//treasureSet", ArtifactSetXML.class);
+    private static final String TRANSLATIONS = TranslationStore.TRANSLATIONS;
+
+    private static final BookTarget<UnitSkillXML, UnitSkill> UNIT_SKILL_TARGET = new BookTarget<>(UNIT_SKILLS, UnitSkill.class);
+    private static final BookTarget<UnitXML, Unit> UNIT_TARGET = new BookTarget<>(UNITS, Unit.class);
+    private static final BookTarget<PetSkillXML, PetSkill> PET_SKILL_TARGET = new BookTarget<>(PET_SKILLS, PetSkill.class);
+    private static final BookTarget<PetXML, Pet> PET_TARGET = new BookTarget<>(PETS, Pet.class);
+    private static final BookTarget<ArtifactXML, Artifact> ARTIFACT_TARGET = new BookTarget<>(ARTIFACTS, Artifact.class);
+    private static final BookTarget<ArtifactSetXML, ArtifactSet> ARTIFACT_SET_TARGET = new BookTarget<>(ARTIFACT_SETS, ArtifactSet.class);
+
     private final SessionFactory sessionFactory;
     private final CanonicalModelConverter canonicalModelConverter;
-    private final XmlPOJOExtractor extractor = new XmlPOJOExtractor();
+    private final TranslationStore translations;
+    private final Locale locale;
+    private final XmlPOJOExtractor extractor = new XmlPOJOExtractor(XmlPOJOExtractor.Mode.STREAMING);
+    private ExecutorService conversionExecutor;
+    private int persistBatchSize;
+    private boolean directPersist;
+    private int persistParallelism = 1;
+    private boolean allOrNothing;
+    private boolean pipelined;
+    private boolean incremental;
+    private final RecordFingerprinter fingerprinter = new RecordFingerprinter();
+    private final FingerprintStore fingerprintStore = new FingerprintStore();
+    private boolean skipUnchangedSources;
+    private final SourceHashStore sourceHashes = new SourceHashStore();
+    private final LoadMetrics metrics = new LoadMetrics();
+    private int pipelineQueueCapacity = DEFAULT_PIPELINE_QUEUE_CAPACITY;
 
+    /**
+     * Translates @Translate fields into English, with the books in TranslationStore.DEFAULT_BOOK_DIRECTORY. The English
+     * book is read and indexed before the constructor returns.
+     *
+     * @throws UncheckedDataLoadException if the English book cant be read
+     */
     public EndlessFrontierDataLoader(SessionFactory sessionFactory){
         this.sessionFactory = sessionFactory;
-        this.canonicalModelConverter = new CanonicalModelConverter(new TranslationFieldConverter()); //TODO: Implement database translator
+        this.locale = Locale.ENGLISH;
+        try {
+            this.translations = TranslationStore.defaults();
+            this.canonicalModelConverter = translations.getConverter(locale);
+        } catch (DataLoadException e) {
+            throw new UncheckedDataLoadException(e);
+        }
+    }
+
+    /**
+     * Translates @Translate fields with the locale's book in the store, which is read and indexed before the
+     * constructor returns. loadTranslations() loads the same book.
+     */
+    public EndlessFrontierDataLoader(SessionFactory sessionFactory, TranslationStore translations, Locale locale) throws DataLoadException {
+        this.sessionFactory = sessionFactory;
+        this.translations = translations;
+        this.locale = locale;
+        this.canonicalModelConverter = translations.getConverter(locale);
     }
 
     public EndlessFrontierDataLoader(SessionFactory sessionFactory, CanonicalModelConverter canonicalModelConverter){
         this.sessionFactory = sessionFactory;
         this.canonicalModelConverter = canonicalModelConverter;
+        this.locale = Locale.ENGLISH;
+        this.translations = new TranslationStore(extractor)
+                .register(locale, TranslationStore.DEFAULT_BOOK_DIRECTORY + "/global.1.9.5-book.en.xml");
+    }
+
+    /**
+     * @param conversionExecutor executor models are converted on in parallel, for example ForkJoinPool.commonPool(),
+     *                           or null to convert on the calling thread. Defaults to null. The loader does not shut it
+     *                           down.
+     */
+    public void setConversionExecutor(ExecutorService conversionExecutor) {
+        this.conversionExecutor = conversionExecutor;
+    }
+
+    /**
+     * @param persistBatchSize number of entities sent to the database per JDBC batch when persisting, with progress
+     *                         logged after each batch. 0, the default, persists everything through one session.
+     */
+    public void setPersistBatchSize(int persistBatchSize) {
+        if(persistBatchSize < 0){
+            throw new IllegalArgumentException("Persist batch size cannot be negative");
+        }
+        this.persistBatchSize = persistBatchSize;
+    }
+
+    /**
+     * @param directPersist whether models should be inserted with plain JDBC batches instead of through Hibernate, see
+     *                      JdbcBulkLoader. Meant for full reloads into empty tables. Entity types JdbcBulkLoader cant
+     *                      map are still persisted through Hibernate. Defaults to false.
+     */
+    public void setDirectPersist(boolean directPersist) {
+        this.directPersist = directPersist;
+    }
+
+    /**
+     * @param persistParallelism how many steps loadAll() runs at the same time, each entity type on its own connection
+     *                           and in its own transaction. 1, the default, runs them one after another.
+     */
+    public void setPersistParallelism(int persistParallelism) {
+        if(persistParallelism < 1){
+            throw new IllegalArgumentException("Persist parallelism must be at least 1");
+        }
+        this.persistParallelism = persistParallelism;
+    }
+
+    /**
+     * @param allOrNothing whether loadAll() should roll back every entity type if any of them fails. Each
+     *                     type's transaction is then held open until all types are written, so this needs a connection
+     *                     per entity type. Defaults to false, where each type commits as soon as it is written.
+     */
+    public void setAllOrNothing(boolean allOrNothing) {
+        this.allOrNothing = allOrNothing;
+    }
+
+    /**
+     * @param pipelined whether load() should run extraction, conversion and persistence at the same time, see
+     *                  loadPipelined(). Defaults to false.
+     */
+    public void setPipelined(boolean pipelined) {
+        this.pipelined = pipelined;
+    }
+
+    /**
+     * @param pipelineQueueCapacity how many records can wait between two pipeline stages before the earlier stage has
+     *                              to wait for the later one. Defaults to 256.
+     */
+    public void setPipelineQueueCapacity(int pipelineQueueCapacity) {
+        if(pipelineQueueCapacity < 1){
+            throw new IllegalArgumentException("Pipeline queue capacity must be at least 1");
+        }
+        this.pipelineQueueCapacity = pipelineQueueCapacity;
+    }
+
+    /**
+     * @param incremental whether persisting should only write what changed since the previous load, see
+     *                    persistIncrementally(). Takes precedence over the other persist modes. Defaults to false.
+     */
+    public void setIncremental(boolean incremental) {
+        this.incremental = incremental;
+    }
+
+    /**
+     * @param skipUnchangedSources whether load steps should be skipped when their source file has the same content as
+     *                             the last time the step was loaded and the rows it loaded are still there. Each step,
+     *                             a source, path expression and entity type, is tracked separately. Steps with
+     *                             translated fields also reload when the translation book or locale changes, and
+     *                             Tribes are skipped once they are there. Defaults to false.
+     */
+    public void setSkipUnchangedSources(boolean skipUnchangedSources) {
+        this.skipUnchangedSources = skipUnchangedSources;
+    }
+
+    /**
+     * @return timers and counters of every step this loader has run, see LoadMetrics.register() to expose them over JMX
+     */
+    public LoadMetrics getMetrics() {
+        return metrics;
     }
 
     public <T> List<T> loadXmlData(String uri, String rawXPath, Class<T> type) throws DataLoadException {
         logger.info(String.format("[Data Load %s Processing] - Initializing data from %s using XPath %s", type.getSimpleName(), uri, rawXPath));
 
+        long start = System.nanoTime();
         List<T> extracted = extractor.extract(uri, rawXPath, type);
+        metrics.step(type).recordParse(System.nanoTime() - start, extracted.size());
 
         logger.info(String.format("[Data Load %s Processing] - Loaded %d entities", type.getSimpleName(), extracted.size()));
 
         return extracted;
     }
 
+    public ExtractionResult loadXmlData(String uri, List<ExtractionTarget<?>> targets) throws DataLoadException {
+        logger.info(String.format("[Data Load %s Processing] - Initializing data using %s", uri, targets));
+
+        long start = System.nanoTime();
+        ExtractionResult extracted = extractor.extractAll(uri, targets);
+        long elapsed = System.nanoTime() - start;
+
+        for(ExtractionTarget<?> target : targets){
+            metrics.step(target.getType()).recordParse(elapsed, extracted.get(target).size());
+            logger.info(String.format("[Data Load %s Processing] - Loaded %d entities", target.getType().getSimpleName(), extracted.get(target).size()));
+        }
+
+        return extracted;
+    }
+
+    /**
+     * Lazy version of loadXmlData(), see XmlPOJOExtractor.stream(). The returned stream must be closed.
+     */
+    public <T> Stream<T> streamXmlData(String uri, String rawXPath, Class<T> type) throws DataLoadException {
+        logger.info(String.format("[Data Load %s Processing] - Streaming data from %s using XPath %s", type.getSimpleName(), uri, rawXPath));
+        return extractor.stream(uri, rawXPath, type);
+    }
+
     public <T, U> List<U> convertToCanonicalModels(List<T> extractedXMLModels, Class<T> xmlModelType, Class<U> canonicalModelType){
-        logger.info(String.format("[Data Load %s to %s Conversion] - Converting models", xmlModelType.getSimpleName(), canonicalModelType.getSimpleName()));
+        return convertToCanonicalModels(extractedXMLModels, xmlModelType, canonicalModelType, new ConversionFailureCollector());
+    }
 
-        List<U> convertedModels = new ArrayList<U>();
-        for(T nonCanonicalModel : extractedXMLModels){
-            try {
-                U canonicalModel = (U)canonicalModelConverter.convert(nonCanonicalModel);
-                convertedModels.add(canonicalModel);
-            } catch (CanonicalConversionException e) {
-                logger.info(String.format("[Data Load %s to %s Conversion] - Error converting %010d to canonical model", xmlModelType.getSimpleName(), canonicalModelType.getSimpleName(), System.identityHashCode(nonCanonicalModel)));
+    /**
+     * Converts models on the calling thread or, if a conversion executor is set, in parallel. Either way the converted
+     * models are returned in the same order as extractedXMLModels. Models that fail to convert are left out of the
+     * result and recorded in failures.
+     *
+     * @param failures collects the models that failed to convert and why, may be shared between calls and threads
+     */
+    public <T, U> List<U> convertToCanonicalModels(List<T> extractedXMLModels, Class<T> xmlModelType, Class<U> canonicalModelType, ConversionFailureCollector failures){
+        logger.info(String.format("[Data Load %s to %s Conversion] - Converting models", xmlModelType.getSimpleName(), canonicalModelType.getSimpleName()));
+        LoadEvent event = LoadEvent.begin(LoadEvent.Stage.CONVERSION, canonicalModelType);
+        List<U> convertedModels = Collections.emptyList();
+        try {
+            canonicalModelConverter.prefetchTranslations(extractedXMLModels);
+            if(conversionExecutor == null || extractedXMLModels.size() < 2 * MIN_CONVERSION_CHUNK_SIZE){
+                convertedModels = new ArrayList<U>();
+                int index = 0;
+                for(T nonCanonicalModel : extractedXMLModels){
+                    U canonicalModel = convertToCanonicalModel(index++, nonCanonicalModel, xmlModelType, canonicalModelType, failures);
+                    if(canonicalModel != null){
+                        convertedModels.add(canonicalModel);
+                    }
+                }
+            } else{
+                convertedModels = convertInParallel(extractedXMLModels, xmlModelType, canonicalModelType, failures);
             }
+        } finally {
+            event.end(convertedModels.size());
         }
 
         logger.info(String.format("[Data Load %s to %s Conversion] - Finished. %d successful, %d failures", xmlModelType.getSimpleName(), canonicalModelType.getSimpleName(), convertedModels.size(), extractedXMLModels.size() - convertedModels.size()));
         return convertedModels;
     }
 
-    public <T> void persistModels(List<T> canoncialModels, Class<T> type){
+    /**
+     * Splits the models into contiguous chunks converted as separate tasks on the conversion executor. Each task writes
+     * to its own slots of a shared array, so order is kept without any coordination between tasks.
+     */
+    private <T, U> List<U> convertInParallel(List<T> extractedXMLModels, Class<T> xmlModelType, Class<U> canonicalModelType, ConversionFailureCollector failures){
+        List<T> models = extractedXMLModels instanceof RandomAccess ? extractedXMLModels : new ArrayList<>(extractedXMLModels);
+        int chunks = Math.min(Runtime.getRuntime().availableProcessors() * 4, models.size() / MIN_CONVERSION_CHUNK_SIZE);
+        int chunkSize = (models.size() + chunks - 1) / chunks;
+        Object[] converted = new Object[models.size()];
+
+        List<Future<?>> tasks = new ArrayList<>(chunks);
+        for(int from = 0; from < models.size(); from += chunkSize){
+            int start = from;
+            int end = Math.min(from + chunkSize, models.size());
+            tasks.add(conversionExecutor.submit(() -> {
+                for(int i = start; i < end; i++){
+                    converted[i] = convertToCanonicalModel(i, models.get(i), xmlModelType, canonicalModelType, failures);
+                }
+            }));
+        }
+
+        try {
+            for(Future<?> task : tasks){
+                task.get();
+            }
+        } catch (InterruptedException e) {
+            tasks.forEach(task -> task.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(String.format("Interrupted converting %s models", xmlModelType.getSimpleName()), e);
+        } catch (ExecutionException e) {
+            tasks.forEach(task -> task.cancel(true));
+            if(e.getCause() instanceof RuntimeException){
+                throw (RuntimeException) e.getCause();
+            } else if(e.getCause() instanceof Error){
+                throw (Error) e.getCause();
+            }
+            throw new IllegalStateException(String.format("Error converting %s models", xmlModelType.getSimpleName()), e.getCause());
+        }
+
+        List<U> convertedModels = new ArrayList<>(converted.length);
+        for(Object canonicalModel : converted){
+            if(canonicalModel != null){
+                convertedModels.add(canonicalModelType.cast(canonicalModel));
+            }
+        }
+        return convertedModels;
+    }
+
+    /**
+     * Lazy version of convertToCanonicalModels(), each model is converted as the returned stream is consumed. Models
+     * that fail to convert are dropped from the stream. Closing the returned stream closes extractedXMLModels.
+     */
+    public <T, U> Stream<U> convertToCanonicalModels(Stream<T> extractedXMLModels, Class<T> xmlModelType, Class<U> canonicalModelType){
+        logger.info(String.format("[Data Load %s to %s Conversion] - Converting models as they are streamed", xmlModelType.getSimpleName(), canonicalModelType.getSimpleName()));
+
+        AtomicInteger index = new AtomicInteger();
+        ConversionFailureCollector failures = new ConversionFailureCollector();
+        Stream<T> models = extractedXMLModels;
+        if(canonicalModelConverter.supportsTranslationPrefetch()){
+            models = StreamSupport.stream(Spliterators.spliteratorUnknownSize(prefetching(extractedXMLModels.iterator()), Spliterator.ORDERED), false)
+                    .onClose(extractedXMLModels::close);
+        }
+        return models
+                .map(nonCanonicalModel -> convertToCanonicalModel(index.getAndIncrement(), nonCanonicalModel, xmlModelType, canonicalModelType, failures))
+                .filter(Objects::nonNull)
+                .onClose(() -> logger.info(String.format("[Data Load %s to %s Conversion] - Finished. %d successful, %d failures", xmlModelType.getSimpleName(), canonicalModelType.getSimpleName(), index.get() - failures.size(), failures.size())));
+    }
+
+    /**
+     * @return the models, read ahead PREFETCH_CHUNK_SIZE at a time so the translations of each chunk are prefetched
+     *  together, or the models as they are if the translator doesnt prefetch
+     */
+    private <T> Iterator<T> prefetching(Iterator<T> models){
+        if(!canonicalModelConverter.supportsTranslationPrefetch()){
+            return models;
+        }
+        return new Iterator<T>() {
+            private final List<T> chunk = new ArrayList<>(PREFETCH_CHUNK_SIZE);
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                if(next == chunk.size()){
+                    chunk.clear();
+                    next = 0;
+                    while(chunk.size() < PREFETCH_CHUNK_SIZE && models.hasNext()){
+                        chunk.add(models.next());
+                    }
+                    canonicalModelConverter.prefetchTranslations(chunk);
+                }
+                return next < chunk.size();
+            }
+
+            @Override
+            public T next() {
+                if(!hasNext()){
+                    throw new NoSuchElementException();
+                }
+                return chunk.get(next++);
+            }
+        };
+    }
+
+    private <T, U> U convertToCanonicalModel(int index, T nonCanonicalModel, Class<T> xmlModelType, Class<U> canonicalModelType, ConversionFailureCollector failures){
+        long start = System.nanoTime();
+        try {
+            U converted = canonicalModelType.cast(canonicalModelConverter.convert(nonCanonicalModel));
+            metrics.step(canonicalModelType).recordConversion(System.nanoTime() - start, false);
+            return converted;
+        } catch (CanonicalConversionException e) {
+            metrics.step(canonicalModelType).recordConversion(System.nanoTime() - start, true);
+            ConversionFailure failure = new ConversionFailure(index, nonCanonicalModel, e);
+            failures.add(failure);
+            logger.info(String.format("[Data Load %s to %s Conversion] - Error converting %s to canonical model", xmlModelType.getSimpleName(), canonicalModelType.getSimpleName(), failure));
+            return null;
+        }
+    }
+
+    /**
+     * @return number of models written, with incremental persists only the ones that changed or were deleted
+     */
+    public <T> int persistModels(List<T> canoncialModels, Class<T> type){
+        return persist(canoncialModels.iterator(), canoncialModels.size(), type).commit();
+    }
+
+    /**
+     * Persists models as the stream is consumed, flushing and clearing the session every STREAMING_FLUSH_INTERVAL models
+     * so persisted entities dont pile up in the session cache. Everything is still committed in one transaction, which
+     * is rolled back if the stream fails part way through. The stream is closed once consumed. If a persist batch size
+     * is set the models are persisted in batches instead, see setPersistBatchSize().
+     *
+     * @return number of models written, with incremental persists only the ones that changed or were deleted
+     */
+    public <T> int persistModels(Stream<T> canonicalModels, Class<T> type){
+        PendingPersist pending;
+        try (Stream<T> models = canonicalModels) {
+            pending = persist(models.iterator(), -1, type);
+        }
+        return pending.commit();
+    }
+
+    /**
+     * Writes the models in a new transaction using the configured persist mode, but leaves committing it to the caller.
+     * The transaction is rolled back if writing fails.
+     *
+     * @param total number of models, used for progress logging, or -1 if not known up front
+     */
+    private <T> PendingPersist persist(Iterator<T> models, int total, Class<T> type){
+        if(incremental){
+            return persistIncrementally(models, type);
+        }
+        if(isDirectPersist(type)){
+            return persistDirect(models, type);
+        }
+        if(persistBatchSize > 0){
+            return persistInBatches(models, total, type);
+        }
+
         logger.info(String.format("[Data Load %s Persist] - Persisting models", type.getSimpleName()));
+        Session session = sessionFactory.openSession();
+        return inTransaction(session, type, true, () -> {
+            int persisted = 0;
+            while(models.hasNext()){
+                session.save(models.next());
+                if(++persisted % STREAMING_FLUSH_INTERVAL == 0){
+                    flush(session, type, STREAMING_FLUSH_INTERVAL);
+                    session.clear();
+                }
+            }
+            flush(session, type, persisted % STREAMING_FLUSH_INTERVAL);
+            return persisted;
+        });
+    }
+
+    /**
+     * Differential persist. Each model is fingerprinted and compared with the fingerprint stored for its id by the
+     * previous load: new models are inserted, changed ones updated and unchanged ones skipped, and models loaded last
+     * time that are no longer there are deleted. Inserts and updates both go through merge(), so rows already in the
+     * database but loaded before fingerprints were kept are updated rather than duplicated. Fingerprints are written
+     * in the same transaction as the models.
+     */
+    private <T> PendingPersist persistIncrementally(Iterator<T> models, Class<T> type){
+        logger.info(String.format("[Data Load %s Persist] - Persisting changes since the previous load", type.getSimpleName()));
+        String entityType = type.getName();
+        PersistenceUnitUtil persistenceUnitUtil = sessionFactory.getPersistenceUnitUtil();
 
         Session session = sessionFactory.openSession();
+        session.setCacheMode(CacheMode.IGNORE);
+        return inTransaction(session, type, false, () -> {
+            Map<String, String> previous = new HashMap<>();
+            session.doWork(connection -> {
+                fingerprintStore.createTableIfMissing(connection);
+                previous.putAll(fingerprintStore.load(connection, entityType));
+            });
+
+            Map<String, String> changed = new HashMap<>();
+            Set<String> seen = new HashSet<>();
+            int inserted = 0;
+            int updated = 0;
+            int unchanged = 0;
+            while(models.hasNext()){
+                T model = models.next();
+                String id = String.valueOf(persistenceUnitUtil.getIdentifier(model));
+                String fingerprint = fingerprinter.fingerprint(model);
+                seen.add(id);
+
+                String previousFingerprint = previous.get(id);
+                if(fingerprint.equals(previousFingerprint)){
+                    unchanged++;
+                    continue;
+                }
+                session.merge(model);
+                changed.put(id, fingerprint);
+                if(previousFingerprint == null){
+                    inserted++;
+                } else{
+                    updated++;
+                }
+                if(changed.size() % STREAMING_FLUSH_INTERVAL == 0){
+                    flush(session, type, STREAMING_FLUSH_INTERVAL);
+                    session.clear();
+                }
+            }
+
+            List<String> removed = new ArrayList<>();
+            Class<?> idType = sessionFactory.getMetamodel().entity(type).getIdType().getJavaType();
+            for(String id : previous.keySet()){
+                if(!seen.contains(id)){
+                    removed.add(id);
+                    T entity = session.get(type, toIdentifier(id, idType));
+                    if(entity != null){
+                        session.delete(entity);
+                    }
+                }
+            }
+            session.flush();
+            session.doWork(connection -> {
+                fingerprintStore.put(connection, entityType, changed);
+                fingerprintStore.remove(connection, entityType, removed);
+            });
+
+            logger.info(String.format("[Data Load %s Persist] - %d inserted, %d updated, %d deleted, %d unchanged", type.getSimpleName(), inserted, updated, removed.size(), unchanged));
+            return changed.size() + removed.size();
+        });
+    }
+
+    private static Serializable toIdentifier(String id, Class<?> idType){
+        try {
+            return (Serializable) ValueConverterRegistry.defaults().convert(id, idType);
+        } catch (CanonicalConversionException e) {
+            throw new IllegalStateException(String.format("Unable to convert stored id %s to %s", id, idType.getSimpleName()), e);
+        }
+    }
+
+    private boolean isDirectPersist(Class<?> type){
+        if(!directPersist){
+            return false;
+        }
+        if(!EntityTableMapping.isSupported(type)){
+            logger.warn(String.format("[Data Load %s Persist] - Cannot insert directly, persisting through Hibernate instead", type.getSimpleName()));
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Inserts the models with JdbcBulkLoader on a connection borrowed from a stateless session.
+     */
+    private <T> PendingPersist persistDirect(Iterator<T> models, Class<T> type){
+        JdbcBulkLoader bulkLoader = persistBatchSize > 0 ? new JdbcBulkLoader(persistBatchSize) : new JdbcBulkLoader();
+        logger.info(String.format("[Data Load %s Persist] - Inserting models directly in batches of %d", type.getSimpleName(), bulkLoader.getBatchSize()));
+
+        StatelessSession session = sessionFactory.openStatelessSession();
+        return inTransaction(session, type, false, () -> {
+            AtomicInteger inserted = new AtomicInteger();
+            session.doWork(connection -> inserted.set(bulkLoader.insert(connection, models, type)));
+            return inserted.get();
+        });
+    }
+
+    /**
+     * Bulk persist used when a persist batch size is set. Entities without collections are inserted through a
+     * StatelessSession, which skips the first level cache, dirty checking and cascades altogether. A StatelessSession
+     * ignores collections though, so entities with collections are saved through a regular session flushed and
+     * cleared after every batch instead. Either way inserts are sent in JDBC batches of persistBatchSize.
+     */
+    private <T> PendingPersist persistInBatches(Iterator<T> models, int total, Class<T> type){
+        boolean stateless = sessionFactory.getMetamodel().entity(type).getPluralAttributes().isEmpty();
+        logger.info(String.format("[Data Load %s Persist] - Persisting models in batches of %d using a %s session", type.getSimpleName(), persistBatchSize, stateless ? "stateless" : "flushing"));
+
+        if(stateless){
+            StatelessSession session = sessionFactory.openStatelessSession();
+            session.setJdbcBatchSize(persistBatchSize);
+            return inTransaction(session, type, false, () -> persistInBatches(models, total, type, session::insert, batch -> {}));
+        }
+
+        Session session = sessionFactory.openSession();
+        session.setJdbcBatchSize(persistBatchSize);
+        session.setCacheMode(CacheMode.IGNORE);
+        return inTransaction(session, type, false, () -> persistInBatches(models, total, type, session::save, batch -> {
+            flush(session, type, batch);
+            session.clear();
+        }));
+    }
+
+    /**
+     * @param endOfBatch called after each batch with the number of models in it
+     */
+    private <T> int persistInBatches(Iterator<T> models, int total, Class<T> type, Consumer<T> persist, IntConsumer endOfBatch){
+        int persisted = 0;
+        int batch = 0;
+        while(models.hasNext()){
+            persist.accept(models.next());
+            if(++persisted % persistBatchSize == 0 || !models.hasNext()){
+                endOfBatch.accept(persisted - batch * persistBatchSize);
+                batch++;
+                if(total < 0){
+                    logger.info(String.format("[Data Load %s Persist] - Batch %d done, %d entities persisted", type.getSimpleName(), batch, persisted));
+                } else{
+                    logger.info(String.format("[Data Load %s Persist] - Batch %d done, %d/%d entities persisted", type.getSimpleName(), batch, persisted, total));
+                }
+            }
+        }
+        return persisted;
+    }
+
+    private static void flush(Session session, Class<?> type, int models){
+        LoadEvent event = LoadEvent.begin(LoadEvent.Stage.BATCH_FLUSH, type);
+        try {
+            session.flush();
+        } finally {
+            event.end(models);
+        }
+    }
+
+    private PendingPersist inTransaction(SharedSessionContract session, Class<?> type, boolean countAfterCommit, IntSupplier write){
+        long start = System.nanoTime();
         Transaction tx = session.beginTransaction();
-        for(T t : canoncialModels){
-            session.save(t);
+        try {
+            return new PendingPersist(type, session, tx, write.getAsInt(), countAfterCommit, start);
+        } catch (RuntimeException e) {
+            try {
+                tx.rollback();
+            } finally {
+                session.close();
+            }
+            throw e;
         }
-        tx.commit();
-        session.close();
+    }
 
-        int saveCount = count(type);
+    /**
+     * Models written to the database in a transaction that has not been committed yet. Committing or rolling back
+     * closes the session, after which the PendingPersist cant be used.
+     */
+    private final class PendingPersist {
+        private final Class<?> type;
+        private final SharedSessionContract session;
+        private final Transaction tx;
+        private final int persisted;
+        private final boolean countAfterCommit;
+        private final long startNanos;
 
-        logger.info(String.format("[Data Load %s Persist] - Finished. Counted %d entities persisted", type.getSimpleName(), saveCount));
+        private PendingPersist(Class<?> type, SharedSessionContract session, Transaction tx, int persisted, boolean countAfterCommit, long startNanos){
+            this.type = type;
+            this.session = session;
+            this.tx = tx;
+            this.persisted = persisted;
+            this.countAfterCommit = countAfterCommit;
+            this.startNanos = startNanos;
+        }
+
+        /**
+         * @return number of models written in the transaction
+         */
+        int commit(){
+            try {
+                tx.commit();
+            } catch (RuntimeException e) {
+                try {
+                    tx.rollback();
+                } catch (RuntimeException suppressed) {
+                    e.addSuppressed(suppressed);
+                }
+                throw e;
+            } finally {
+                session.close();
+            }
+            // includes waiting on extraction and conversion when models are streamed into the transaction
+            metrics.step(type).recordPersist(System.nanoTime() - startNanos, persisted);
+
+            if(countAfterCommit){
+                logger.info(String.format("[Data Load %s Persist] - Finished. Counted %d entities persisted", type.getSimpleName(), count(type)));
+            } else{
+                logger.info(String.format("[Data Load %s Persist] - Finished. Persisted %d entities", type.getSimpleName(), persisted));
+            }
+            return persisted;
+        }
+
+        void rollback(){
+            try {
+                tx.rollback();
+            } finally {
+                session.close();
+            }
+            logger.info(String.format("[Data Load %s Persist] - Rolled back %d entities", type.getSimpleName(), persisted));
+        }
+    }
+
+    /**
+     * Same as load() but records flow through extraction, conversion and persistence one at a time instead of each
+     * stage building a full list, so memory use stays flat regardless of the size of the document.
+     */
+    public <T, U> void loadStreaming(String uri, String rawXPath, Class<T> xmlModel, Class<U> canonicalModel) throws DataLoadException {
+        if(isUnchanged(uri, rawXPath, xmlModel, canonicalModel)){
+            return;
+        }
+        LoadEvent event = LoadEvent.begin(LoadEvent.Stage.STEP, canonicalModel);
+        int persisted = 0;
+        try {
+            persisted = persistModels(convertToCanonicalModels(streamXmlData(uri, rawXPath, xmlModel), xmlModel, canonicalModel), canonicalModel);
+            recordLoaded(uri, rawXPath, xmlModel, canonicalModel);
+        } catch (UncheckedDataLoadException e) {
+            throw e.getCause();
+        } finally {
+            event.end(persisted);
+        }
     }
 
     public <T, U> void load(String uri, String rawXPath, Class<T> xmlModel, Class<U> canonicalModel) throws DataLoadException {
-        List<T> extractedXMLModels = loadXmlData(uri, rawXPath, xmlModel);
+        if(pipelined){
+            loadPipelined(uri, rawXPath, xmlModel, canonicalModel);
+            return;
+        }
+        if(isUnchanged(uri, rawXPath, xmlModel, canonicalModel)){
+            return;
+        }
+        LoadEvent event = LoadEvent.begin(LoadEvent.Stage.STEP, canonicalModel);
+        int persisted = 0;
+        try {
+            List<T> extractedXMLModels = loadXmlData(uri, rawXPath, xmlModel);
+            persisted = convertAndPersist(extractedXMLModels, xmlModel, canonicalModel);
+            recordLoaded(uri, rawXPath, xmlModel, canonicalModel);
+        } finally {
+            event.end(persisted);
+        }
+    }
+
+    /**
+     * Same as load() but extraction and conversion each run on their own thread, handing records on through bounded
+     * StageQueues, while the calling thread persists them. Records are converted while the document is still being
+     * read and persisted while later ones are still being converted. A stage that falls behind fills its queue, which
+     * holds back the stages before it, so memory use is bounded by the queue capacity. Everything is persisted in one
+     * transaction which is rolled back if any stage fails.
+     *
+     * @return metrics of the queue between extraction and conversion and the queue between conversion and persistence,
+     *  or an empty list if the step was skipped because its source is unchanged
+     */
+    public <T, U> List<StageQueue.Metrics> loadPipelined(String uri, String rawXPath, Class<T> xmlModel, Class<U> canonicalModel) throws DataLoadException {
+        if(isUnchanged(uri, rawXPath, xmlModel, canonicalModel)){
+            return Collections.emptyList();
+        }
+        String name = String.format("%s to %s", xmlModel.getSimpleName(), canonicalModel.getSimpleName());
+        logger.info(String.format("[Data Load %s Pipeline] - Starting with queue capacity %d", name, pipelineQueueCapacity));
+        StageQueue<T> extracted = new StageQueue<>(String.format("extracted %s", xmlModel.getSimpleName()), pipelineQueueCapacity);
+        StageQueue<U> converted = new StageQueue<>(String.format("converted %s", canonicalModel.getSimpleName()), pipelineQueueCapacity);
+
+        LoadEvent event = LoadEvent.begin(LoadEvent.Stage.STEP, canonicalModel);
+        int persisted = 0;
+        ExecutorService stages = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> extraction = stages.submit(() -> {
+                try (Stream<T> models = streamXmlData(uri, rawXPath, xmlModel)) {
+                    Iterator<T> it = models.iterator();
+                    while(it.hasNext()){
+                        extracted.put(it.next());
+                    }
+                } finally {
+                    extracted.close();
+                }
+                return null;
+            });
+            Future<?> conversion = stages.submit(() -> {
+                ConversionFailureCollector failures = new ConversionFailureCollector();
+                int index = 0;
+                try {
+                    Iterator<T> models = prefetching(new StageQueueIterator<>(extracted));
+                    while(models.hasNext()){
+                        U canonical = convertToCanonicalModel(index++, models.next(), xmlModel, canonicalModel, failures);
+                        if(canonical != null){
+                            converted.put(canonical);
+                        }
+                    }
+                } finally {
+                    converted.close();
+                }
+                logger.info(String.format("[Data Load %s Conversion] - Finished. %d successful, %d failures", name, index - failures.size(), failures.size()));
+                return null;
+            });
+
+            PendingPersist pending = persist(new StageQueueIterator<>(converted), -1, canonicalModel);
+            // conversion has finished once its queue is closed, if it failed extraction may be stuck on a full queue
+            Throwable failure = stageFailure(conversion);
+            if(failure != null){
+                stages.shutdownNow();
+            } else{
+                failure = stageFailure(extraction);
+            }
+            if(failure != null){
+                pending.rollback();
+                if(failure instanceof DataLoadException){
+                    throw (DataLoadException) failure;
+                }
+                throw new DataLoadException(String.format("Pipeline %s failed", name), failure);
+            }
+            persisted = pending.commit();
+            recordLoaded(uri, rawXPath, xmlModel, canonicalModel);
+        } finally {
+            stages.shutdownNow();
+            event.end(persisted);
+        }
+
+        List<StageQueue.Metrics> queues = Arrays.asList(extracted.getMetrics(), converted.getMetrics());
+        for(StageQueue.Metrics queue : queues){
+            metrics.step(canonicalModel).recordQueue(queue.getMaxDepth(), queue.getProducerBlockedNanos(), queue.getConsumerBlockedNanos());
+            logger.info(String.format("[Data Load %s Pipeline] - %s", name, queue));
+        }
+        return queues;
+    }
+
+    private static Throwable stageFailure(Future<?> stage){
+        try {
+            stage.get();
+            return null;
+        } catch (ExecutionException e) {
+            return e.getCause() instanceof UncheckedDataLoadException ? e.getCause().getCause() : e.getCause();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return e;
+        }
+    }
+
+    private static class StageQueueIterator<T> implements Iterator<T> {
+        private final StageQueue<T> queue;
+        private T next;
+        private boolean done;
+
+        StageQueueIterator(StageQueue<T> queue){
+            this.queue = queue;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if(next == null && !done){
+                try {
+                    next = queue.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException(String.format("Interrupted waiting for %s models", queue.getName()), e);
+                }
+                done = next == null;
+            }
+            return next != null;
+        }
+
+        @Override
+        public T next() {
+            if(!hasNext()){
+                throw new NoSuchElementException();
+            }
+            T t = next;
+            next = null;
+            return t;
+        }
+    }
+
+    private <T, U> int convertAndPersist(List<T> extractedXMLModels, Class<T> xmlModel, Class<U> canonicalModel){
         List<U> convertedCanonicalModels = convertToCanonicalModels(extractedXMLModels, xmlModel, canonicalModel);
-        persistModels(convertedCanonicalModels, canonicalModel);
+        return persistModels(convertedCanonicalModels, canonicalModel);
     }
 
-    public void loadAll() throws DataLoadException {
+    /**
+     * Loads every book, running independent steps at the same time on persistParallelism threads. Steps only wait on
+     * what they need: translations before anything with translated fields, each book's extraction before its entity
+     * types, and skills before the units and pets that reference them. Each entity type is persisted in its own
+     * transaction. Unless allOrNothing is set each type is committed as soon as it has been written and a failing type
+     * only affects the types that depend on it. With allOrNothing the transactions are only committed once every type
+     * has been written, and all of them are rolled back if any step fails.
+     *
+     * @return timing of every step and the load's critical path
+     * @throws DataLoadException if any step failed
+     */
+    public LoadReport loadAll() throws DataLoadException {
         logger.info("==============================================");
         logger.info("=              Data Load Beginning           =");
         logger.info("==============================================");
-        loadTribes();
-        loadTranslations(); //Translations has no dependencies while other entities may rely on it to translate fields. Always load first.
-        loadUnitSkills();
-        loadPetSkills();
-        loadPets();
-        loadUnits();
-        loadArtifacts();
-        loadArtifactSets();
+        logger.info(String.format("[Data Load] - Loading on %d threads%s", persistParallelism, allOrNothing ? ", all or nothing" : ""));
+
+        Map<String, ExtractionResult> extracted = new ConcurrentHashMap<>();
+        Queue<PendingPersist> written = new ConcurrentLinkedQueue<>();
+        // with allOrNothing, steps are only recorded as loaded once everything has been committed
+        Queue<Runnable> loaded = new ConcurrentLinkedQueue<>();
+        List<LoadStep> steps = Arrays.asList(
+                new LoadStep("Tribes", () -> {
+                    if(!tribesLoaded()){
+                        written.add(persistStep(tribes(), Tribe.class));
+                    }
+                }),
+                //Translations has no dependencies while other entities may rely on it to translate fields. Always load first.
+                new LoadStep("Translations", () -> {
+                    if(!isUnchanged(translationBook(), TRANSLATIONS, Translation.class, Translation.class)){
+                        written.add(persistStep(extractTranslations(), Translation.class));
+                        whenCommitted(() -> recordLoaded(translationBook(), TRANSLATIONS, Translation.class, Translation.class), loaded);
+                    }
+                }),
+                new LoadStep(UNIT_BOOK, () -> extracted.put(UNIT_BOOK, extractChanged(UNIT_BOOK, UNIT_SKILL_TARGET, UNIT_TARGET))),
+                new LoadStep(PET_BOOK, () -> extracted.put(PET_BOOK, extractChanged(PET_BOOK, PET_SKILL_TARGET, PET_TARGET))),
+                new LoadStep(TREASURE_BOOK, () -> extracted.put(TREASURE_BOOK, extractChanged(TREASURE_BOOK, ARTIFACT_TARGET, ARTIFACT_SET_TARGET))),
+                new LoadStep("UnitSkills", () -> persistBookTarget(UNIT_BOOK, extracted.get(UNIT_BOOK), UNIT_SKILL_TARGET, written, loaded),
+                        UNIT_BOOK, "Translations"),
+                new LoadStep("Units", () -> persistBookTarget(UNIT_BOOK, extracted.get(UNIT_BOOK), UNIT_TARGET, written, loaded),
+                        UNIT_BOOK, "Translations", "Tribes", "UnitSkills"),
+                new LoadStep("PetSkills", () -> persistBookTarget(PET_BOOK, extracted.get(PET_BOOK), PET_SKILL_TARGET, written, loaded),
+                        PET_BOOK, "Translations"),
+                new LoadStep("Pets", () -> persistBookTarget(PET_BOOK, extracted.get(PET_BOOK), PET_TARGET, written, loaded),
+                        PET_BOOK, "Translations", "PetSkills"),
+                new LoadStep("Artifacts", () -> persistBookTarget(TREASURE_BOOK, extracted.get(TREASURE_BOOK), ARTIFACT_TARGET, written, loaded),
+                        TREASURE_BOOK, "Translations"),
+                new LoadStep("ArtifactSets", () -> persistBookTarget(TREASURE_BOOK, extracted.get(TREASURE_BOOK), ARTIFACT_SET_TARGET, written, loaded),
+                        TREASURE_BOOK, "Translations", "Artifacts"));
+
+        ExecutorService pool = Executors.newFixedThreadPool(persistParallelism);
+        LoadReport report;
+        try {
+            report = new LoadScheduler(pool).run(steps);
+        } finally {
+            pool.shutdown();
+        }
+        complete(report, new ArrayList<>(written));
+        loaded.forEach(Runnable::run);
+
         logger.info("==============================================");
         logger.info("=             Data Load Complete             =");
         logger.info("==============================================");
+        return report;
+    }
+
+    private <T, U> void persistBookTarget(String uri, ExtractionResult extracted, BookTarget<T, U> target, Queue<PendingPersist> written, Queue<Runnable> loaded){
+        if(!extracted.contains(target.extraction)){
+            return;
+        }
+        List<U> converted = convertToCanonicalModels(extracted.get(target.extraction), target.extraction.getType(), target.canonicalModel);
+        written.add(persistStep(converted, target.canonicalModel));
+        whenCommitted(() -> recordLoaded(uri, target.extraction.getRawXPath(), target.extraction.getType(), target.canonicalModel), loaded);
+    }
+
+    private void whenCommitted(Runnable action, Queue<Runnable> afterCommit){
+        if(allOrNothing){
+            afterCommit.add(action);
+        } else{
+            action.run();
+        }
+    }
+
+    private <T> PendingPersist persistStep(List<T> models, Class<T> type){
+        PendingPersist pending = persist(models.iterator(), models.size(), type);
+        if(!allOrNothing){
+            pending.commit();
+        }
+        return pending;
+    }
+
+    /**
+     * With allOrNothing commits every written entity type if all steps succeeded and rolls them all back otherwise. If
+     * a commit itself fails the types committed before it stay committed and the rest are rolled back.
+     *
+     * @throws DataLoadException if any step failed
+     */
+    private void complete(LoadReport report, List<PendingPersist> written) throws DataLoadException {
+        if(allOrNothing){
+            if(report.isSuccessful()){
+                for(int i = 0; i < written.size(); i++){
+                    try {
+                        written.get(i).commit();
+                    } catch (RuntimeException e) {
+                        rollbackAll(written.subList(i + 1, written.size()));
+                        throw new DataLoadException(String.format("Commit failed after %d of %d entity types were committed", i, written.size()), e);
+                    }
+                }
+            } else{
+                rollbackAll(written);
+            }
+        }
+
+        List<LoadReport.StepResult> failures = report.getFailures();
+        if(!failures.isEmpty()){
+            // skipped steps carry the failure of the step they depend on, so only failed steps are attached
+            List<Throwable> causes = failures.stream()
+                    .filter(step -> step.getStatus() == LoadReport.Status.FAILED)
+                    .map(LoadReport.StepResult::getFailure)
+                    .distinct()
+                    .collect(Collectors.toList());
+            DataLoadException e = new DataLoadException(String.format("%d of %d load steps did not succeed%s: %s",
+                    failures.size(), report.getSteps().size(), allOrNothing ? ", everything was rolled back" : "", failures),
+                    causes.get(0));
+            causes.stream().skip(1).forEach(e::addSuppressed);
+            throw e;
+        }
+    }
+
+    private void rollbackAll(List<PendingPersist> pending){
+        for(PendingPersist p : pending){
+            try {
+                p.rollback();
+            } catch (RuntimeException e) {
+                logger.error("[Data Load] - Rollback failed", e);
+            }
+        }
     }
 
     public void loadTranslations() throws DataLoadException {
-        List<Translation> extractedTranslations = loadXmlData("src/main/resources/ef/global/1.9.5/global/1.9.5/global.1.9.5-book.en.xml", "//text", Translation.class);
-        persistModels(extractedTranslations, Translation.class);
+        if(isUnchanged(translationBook(), TRANSLATIONS, Translation.class, Translation.class)){
+            return;
+        }
+        persistModels(extractTranslations(), Translation.class);
+        recordLoaded(translationBook(), TRANSLATIONS, Translation.class, Translation.class);
+    }
+
+    private List<Translation> extractTranslations() throws DataLoadException {
+        return loadXmlData(translationBook(), TRANSLATIONS, Translation.class);
+    }
+
+    private String translationBook(){
+        return translations.getBook(locale);
+    }
+
+    /**
+     * Loads UnitSkills and Units while only parsing the unit book once.
+     */
+    public void loadUnitBook() {
+        loadBook(UNIT_BOOK, UNIT_SKILL_TARGET, UNIT_TARGET);
+    }
+
+    /**
+     * Loads PetSkills and Pets while only parsing the pet book once.
+     */
+    public void loadPetBook() {
+        loadBook(PET_BOOK, PET_SKILL_TARGET, PET_TARGET);
+    }
+
+    /**
+     * Loads Artifacts and ArtifactSets while only parsing the treasure book once.
+     */
+    public void loadTreasureBook() {
+        loadBook(TREASURE_BOOK, ARTIFACT_TARGET, ARTIFACT_SET_TARGET);
+    }
+
+    private void loadBook(String uri, BookTarget<?, ?>... targets){
+        try {
+            ExtractionResult extracted = extractChanged(uri, targets);
+            for(BookTarget<?, ?> target : targets){
+                if(extracted.contains(target.extraction)){
+                    convertAndPersist(extracted, target);
+                    recordLoaded(uri, target.extraction.getRawXPath(), target.extraction.getType(), target.canonicalModel);
+                }
+            }
+        } catch (DataLoadException e) {
+            logger.error(String.format("[Data Load %s] Unable to load", uri), e);
+        }
+    }
+
+    private <T, U> void convertAndPersist(ExtractionResult extracted, BookTarget<T, U> target){
+        convertAndPersist(extracted.get(target.extraction), target.extraction.getType(), target.canonicalModel);
+    }
+
+    private <T, U> List<U> convert(ExtractionResult extracted, BookTarget<T, U> target){
+        return convertToCanonicalModels(extracted.get(target.extraction), target.extraction.getType(), target.canonicalModel);
+    }
+
+    /**
+     * Extracts and converts every canonical model from the books and writes them to a snapshot, in the order
+     * loadFromSnapshot() has to persist them in. Nothing is persisted.
+     */
+    public void writeSnapshot(Path path) throws DataLoadException {
+        ExtractionResult units = loadXmlData(UNIT_BOOK, Arrays.<ExtractionTarget<?>>asList(UNIT_SKILLS, UNITS));
+        ExtractionResult pets = loadXmlData(PET_BOOK, Arrays.<ExtractionTarget<?>>asList(PET_SKILLS, PETS));
+        ExtractionResult treasures = loadXmlData(TREASURE_BOOK, Arrays.<ExtractionTarget<?>>asList(ARTIFACTS, ARTIFACT_SETS));
+        SnapshotWriter writer = new SnapshotWriter()
+                .add(Tribe.class, tribes())
+                .add(Translation.class, extractTranslations())
+                .add(UnitSkill.class, convert(units, UNIT_SKILL_TARGET))
+                .add(Unit.class, convert(units, UNIT_TARGET))
+                .add(PetSkill.class, convert(pets, PET_SKILL_TARGET))
+                .add(Pet.class, convert(pets, PET_TARGET))
+                .add(Artifact.class, convert(treasures, ARTIFACT_TARGET))
+                .add(ArtifactSet.class, convert(treasures, ARTIFACT_SET_TARGET));
+        try {
+            writer.write(path);
+        } catch (IOException | IllegalArgumentException e) {
+            throw new DataLoadException(String.format("Unable to write snapshot %s", path), e);
+        }
+        logger.info(String.format("[Data Load Snapshot] - Wrote %s", path));
+    }
+
+    /**
+     * Persists every type in a snapshot written by writeSnapshot() without reading any XML, one at a time in the order
+     * they were written. The persist settings, like batch size, incremental or allOrNothing, apply as they do in
+     * loadAll(). If a type fails the types after it are skipped.
+     *
+     * @return the snapshot, for reading the models without going through the database
+     * @throws DataLoadException if the snapshot cant be read or was written by an incompatible version, in which case
+     *  nothing has been persisted and the books should be loaded instead, or if a type failed to persist
+     */
+    public Snapshot loadFromSnapshot(Path path) throws DataLoadException {
+        Snapshot snapshot;
+        try {
+            snapshot = Snapshot.open(path);
+        } catch (IOException e) {
+            throw new DataLoadException(String.format("Unable to open snapshot %s", path), e);
+        }
+
+        Queue<PendingPersist> written = new ConcurrentLinkedQueue<>();
+        List<LoadStep> steps = new ArrayList<>();
+        String previous = null;
+        for(Class<?> type : snapshot.getTypes()){
+            String[] dependencies = previous == null ? new String[0] : new String[]{previous};
+            steps.add(new LoadStep(type.getSimpleName(), () -> written.add(persistSnapshot(snapshot, type)), dependencies));
+            previous = type.getSimpleName();
+        }
+
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        LoadReport report;
+        try {
+            report = new LoadScheduler(pool).run(steps);
+        } finally {
+            pool.shutdown();
+        }
+        complete(report, new ArrayList<>(written));
+        return snapshot;
+    }
+
+    private <T> PendingPersist persistSnapshot(Snapshot snapshot, Class<T> type){
+        return persistStep(snapshot.get(type), type);
+    }
+
+    /**
+     * Extracts only the targets that have to be loaded, see setSkipUnchangedSources(). The document isnt parsed at all
+     * if none do.
+     */
+    private ExtractionResult extractChanged(String uri, BookTarget<?, ?>... targets) throws DataLoadException {
+        List<ExtractionTarget<?>> changed = new ArrayList<>(targets.length);
+        for(BookTarget<?, ?> target : targets){
+            if(!isUnchanged(uri, target.extraction.getRawXPath(), target.extraction.getType(), target.canonicalModel)){
+                changed.add(target.extraction);
+            }
+        }
+        return changed.isEmpty() ? new ExtractionResult(changed) : loadXmlData(uri, changed);
+    }
+
+    /**
+     * @return true if skipping unchanged sources is on, the step last loaded a source with the same content hash and
+     *  at least as many rows as it loaded are still in the database
+     */
+    private boolean isUnchanged(String uri, String rawXPath, Class<?> sourceType, Class<?> type){
+        if(!skipUnchangedSources){
+            return false;
+        }
+        try {
+            String hash = sourceHash(uri, sourceType);
+            SourceHashStore.Entry entry = withConnection(connection -> {
+                sourceHashes.createTableIfMissing(connection);
+                return sourceHashes.load(connection, uri, rawXPath, type.getName());
+            });
+            if(entry != null && entry.getHash().equals(hash)){
+                if(count(type) >= entry.getRows()){
+                    logger.info(String.format("[Data Load %s] - %s %s is unchanged since it was last loaded, skipping", type.getSimpleName(), uri, rawXPath));
+                    return true;
+                }
+                logger.info(String.format("[Data Load %s] - Rows loaded from %s %s are missing, reloading it", type.getSimpleName(), uri, rawXPath));
+                forgetFingerprints(type);
+            }
+        } catch (IOException e) {
+            logger.warn(String.format("[Data Load %s] - Unable to hash %s, loading it", type.getSimpleName(), uri), e);
+        }
+        return false;
+    }
+
+    /**
+     * Models with @Translate fields depend on the translation book and locale as much as on their own source, so
+     * those are folded into the hash and a new translation book or another locale reloads them.
+     */
+    private String sourceHash(String uri, Class<?> sourceType) throws IOException {
+        String hash = sourceHashes.hash(uri);
+        if(!TranslationFieldConverter.hasTranslatedFields(sourceType)){
+            return hash;
+        }
+        return sourceHashes.combine(hash, sourceHashes.hash(translationBook()), locale.toLanguageTag());
+    }
+
+    /**
+     * The fingerprints of an incremental load say which rows are already in the database. Once rows have gone missing
+     * they cant be trusted, an unchanged fingerprint would leave the missing row out, so the type is written in full.
+     */
+    private void forgetFingerprints(Class<?> type){
+        if(!incremental){
+            return;
+        }
+        withConnection(connection -> {
+            fingerprintStore.createTableIfMissing(connection);
+            fingerprintStore.clear(connection, type.getName());
+            return null;
+        });
+    }
+
+    private void recordLoaded(String uri, String rawXPath, Class<?> sourceType, Class<?> type){
+        if(!skipUnchangedSources){
+            return;
+        }
+        try {
+            SourceHashStore.Entry entry = new SourceHashStore.Entry(sourceHash(uri, sourceType), count(type));
+            withConnection(connection -> {
+                sourceHashes.createTableIfMissing(connection);
+                sourceHashes.put(connection, uri, rawXPath, type.getName(), entry);
+                return null;
+            });
+        } catch (IOException e) {
+            logger.warn(String.format("[Data Load %s] - Unable to hash %s, it will be loaded again next time", type.getSimpleName(), uri), e);
+        }
+    }
+
+    /**
+     * Tribes arent read from a book, so with skipping unchanged sources on they are skipped once they are all there
+     * rather than inserted again on every load.
+     */
+    private boolean tribesLoaded(){
+        if(skipUnchangedSources && count(Tribe.class) >= tribes().size()){
+            logger.info(String.format("[Data Load %s] - Already loaded, skipping", Tribe.class.getSimpleName()));
+            return true;
+        }
+        return false;
+    }
+
+    private <R> R withConnection(ReturningWork<R> work){
+        Session session = sessionFactory.openSession();
+        Transaction tx = session.beginTransaction();
+        try {
+            R result = session.doReturningWork(work);
+            tx.commit();
+            return result;
+        } catch (RuntimeException e) {
+            tx.rollback();
+            throw e;
+        } finally {
+            session.close();
+        }
+    }
+
+    /**
+     * An entity type loaded from a book: where to find it and what to convert it to.
+     */
+    private static final class BookTarget<T, U> {
+        private final ExtractionTarget<T> extraction;
+        private final Class<U> canonicalModel;
+
+        private BookTarget(ExtractionTarget<T> extraction, Class<U> canonicalModel){
+            this.extraction = extraction;
+            this.canonicalModel = canonicalModel;
+        }
     }
 
     public void loadUnits() {
         try {
-            load("src/main/resources/ef/global/1.9.5/unitbook.xml", "//unit", UnitXML.class, Unit.class);
+            load(UNIT_BOOK, "//unit", UnitXML.class, Unit.class);
         } catch (DataLoadException e) {
             logger.error(String.format("[Data Load %s] Unable to load", Unit.class.getSimpleName()), e);
         }
@@ -113,7 +1288,7 @@ public class EndlessFrontierDataLoader {
 
     public void loadUnitSkills() {
         try {
-            load("src/main/resources/ef/global/1.9.5/unitbook.xml", "//unitSkill", UnitSkillXML.class, UnitSkill.class);
+            load(UNIT_BOOK, "//unitSkill", UnitSkillXML.class, UnitSkill.class);
         } catch (DataLoadException e) {
             logger.error(String.format("[Data Load %s] Unable to load", UnitSkill.class.getSimpleName()), e);
         }
@@ -121,7 +1296,7 @@ public class EndlessFrontierDataLoader {
 
     public void loadArtifacts() {
         try {
-            load("src/main/resources/ef/global/1.9.5/treasurebook.xml", "//treasure", ArtifactXML.class, Artifact.class);
+            load(TREASURE_BOOK, "//treasure", ArtifactXML.class, Artifact.class);
         } catch (DataLoadException e) {
             logger.error(String.format("[Data Load %s] Unable to load", Artifact.class.getSimpleName()), e);
         }
@@ -129,7 +1304,7 @@ public class EndlessFrontierDataLoader {
 
     public void loadArtifactSets() {
         try {
-            load("src/main/resources/ef/global/1.9.5/treasurebook.xml", "//treasureSet", ArtifactSetXML.class, ArtifactSet.class);
+            load(TREASURE_BOOK, "//treasureSet", ArtifactSetXML.class, ArtifactSet.class);
         } catch (DataLoadException e) {
             logger.error(String.format("[Data Load %s] Unable to load", ArtifactSet.class.getSimpleName()), e);
         }
@@ -137,7 +1312,7 @@ public class EndlessFrontierDataLoader {
 
     public void loadPets() {
         try {
-            load("src/main/resources/ef/global/1.9.5/petbook.xml", "//pet", PetXML.class, Pet.class);
+            load(PET_BOOK, "//pet", PetXML.class, Pet.class);
         } catch (DataLoadException e) {
             logger.error(String.format("[Data Load %s] Unable to load", Pet.class.getSimpleName()), e);
         }
@@ -145,36 +1320,41 @@ public class EndlessFrontierDataLoader {
 
     public void loadPetSkills() {
         try {
-            load("src/main/resources/ef/global/1.9.5/petbook.xml", "//petSkill", PetSkillXML.class, PetSkill.class);
+            load(PET_BOOK, "//petSkill", PetSkillXML.class, PetSkill.class);
         } catch (DataLoadException e) {
             logger.error(String.format("[Data Load %s] Unable to load", PetSkill.class.getSimpleName()), e);
         }
     }
 
     public void loadTribes(){
-        List<Tribe> tribes = new ArrayList<>(5);
-        tribes.add(new Tribe(1, "Human"));
-        tribes.add(new Tribe(2, "Elf"));
-        tribes.add(new Tribe(3, "Undead"));
-        tribes.add(new Tribe(4, "Orc"));
-        tribes.add(new Tribe(5, "Dungeon"));
-
         Session session = sessionFactory.openSession();
         Transaction tx = session.beginTransaction();
-        for(Tribe t : tribes){
+        for(Tribe t : tribes()){
             session.save(t);
         }
         tx.commit();
         session.close();
     }
 
+    private static List<Tribe> tribes(){
+        List<Tribe> tribes = new ArrayList<>(5);
+        tribes.add(new Tribe(1, "Human"));
+        tribes.add(new Tribe(2, "Elf"));
+        tribes.add(new Tribe(3, "Undead"));
+        tribes.add(new Tribe(4, "Orc"));
+        tribes.add(new Tribe(5, "Dungeon"));
+        return tribes;
+    }
+
     private <T> int count(Class<T> type){
+        long start = System.nanoTime();
         Session session = sessionFactory.openSession();
         Transaction tx = session.beginTransaction();
         Query q = session.createQuery(String.format("select count(*) from %s", type.getSimpleName()));
         int result = ((Long)q.uniqueResult()).intValue();
         tx.commit();
         session.close();
+        metrics.step(type).recordVerification(System.nanoTime() - start);
         return result;
     }
 }
@@ -0,0 +1,42 @@
+package com.macgregor.ef;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Objects extracted from one document, grouped by the ExtractionTarget that selected them and kept in document order.
+ */
+public class ExtractionResult {
+    private final Map<ExtractionTarget<?>, List<?>> extracted = new IdentityHashMap<>();
+
+    ExtractionResult(List<ExtractionTarget<?>> targets){
+        for(ExtractionTarget<?> target : targets){
+            extracted.put(target, new ArrayList<>());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    <T> void add(ExtractionTarget<T> target, Object value){
+        ((List<Object>) extracted.get(target)).add(target.getType().cast(value));
+    }
+
+    public boolean contains(ExtractionTarget<?> target){
+        return extracted.containsKey(target);
+    }
+
+    /**
+     * @param target one of the targets passed to the extractor
+     * @return everything extracted for the target
+     * @throws IllegalArgumentException if the target was not part of the extraction
+     */
+    @SuppressWarnings("unchecked")
+    public <T> List<T> get(ExtractionTarget<T> target){
+        List<?> values = extracted.get(target);
+        if(values == null){
+            throw new IllegalArgumentException(String.format("%s was not extracted", target));
+        }
+        return (List<T>) values;
+    }
+}
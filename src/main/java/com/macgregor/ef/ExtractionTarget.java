@@ -0,0 +1,30 @@
+package com.macgregor.ef;
+
+/**
+ * A path expression and the type the nodes it selects should be mapped to. Several targets can be extracted from the
+ * same document in one pass with XmlPOJOExtractor.extractAll().
+ *
+ * @param <T> type matched nodes are mapped to
+ */
+public class ExtractionTarget<T> {
+    private final String rawXPath;
+    private final Class<T> type;
+
+    public ExtractionTarget(String rawXPath, Class<T> type){
+        this.rawXPath = rawXPath;
+        this.type = type;
+    }
+
+    public String getRawXPath() {
+        return rawXPath;
+    }
+
+    public Class<T> getType() {
+        return type;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s %s", type.getSimpleName(), rawXPath);
+    }
+}
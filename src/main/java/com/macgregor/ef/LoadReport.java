@@ -0,0 +1,125 @@
+package com.macgregor.ef;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Outcome and timing of every step in a LoadScheduler run, along with the run's critical path: the chain of dependent
+ * steps that took longest end to end. No amount of parallelism makes a run faster than its critical path, so it shows
+ * which steps are worth speeding up.
+ */
+public class LoadReport {
+    public enum Status { SUCCEEDED, FAILED, SKIPPED }
+
+    private final List<StepResult> steps;
+    private final List<StepResult> criticalPath;
+    private final long elapsedNanos;
+
+    public static class StepResult {
+        private final String name;
+        private final Status status;
+        private final long startNanos;
+        private final long durationNanos;
+        private final Throwable failure;
+
+        StepResult(String name, Status status, long startNanos, long durationNanos, Throwable failure){
+            this.name = name;
+            this.status = status;
+            this.startNanos = startNanos;
+            this.durationNanos = durationNanos;
+            this.failure = failure;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        /**
+         * @return when the step started, relative to the start of the run
+         */
+        public long getStartNanos() {
+            return startNanos;
+        }
+
+        public long getDurationNanos() {
+            return durationNanos;
+        }
+
+        /**
+         * @return why the step failed, or for a skipped step why the dependency it was waiting on failed
+         */
+        public Throwable getFailure() {
+            return failure;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s %s in %dms", name, status, TimeUnit.NANOSECONDS.toMillis(durationNanos));
+        }
+    }
+
+    LoadReport(List<StepResult> steps, List<StepResult> criticalPath, long elapsedNanos){
+        this.steps = Collections.unmodifiableList(new ArrayList<>(steps));
+        this.criticalPath = Collections.unmodifiableList(new ArrayList<>(criticalPath));
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * @return results in the order the steps were given to the scheduler
+     */
+    public List<StepResult> getSteps() {
+        return steps;
+    }
+
+    public StepResult getStep(String name){
+        return steps.stream().filter(s -> s.getName().equals(name)).findFirst().orElse(null);
+    }
+
+    /**
+     * @return the longest chain of dependent steps, first step first
+     */
+    public List<StepResult> getCriticalPath() {
+        return criticalPath;
+    }
+
+    public long getCriticalPathNanos(){
+        return criticalPath.stream().mapToLong(StepResult::getDurationNanos).sum();
+    }
+
+    /**
+     * @return wall clock time of the whole run
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * @return total time spent in steps, which divided by getElapsedNanos() gives the average parallelism of the run
+     */
+    public long getTotalStepNanos(){
+        return steps.stream().mapToLong(StepResult::getDurationNanos).sum();
+    }
+
+    public boolean isSuccessful(){
+        return steps.stream().allMatch(s -> s.getStatus() == Status.SUCCEEDED);
+    }
+
+    public List<StepResult> getFailures(){
+        return steps.stream().filter(s -> s.getStatus() != Status.SUCCEEDED).collect(Collectors.toList());
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d steps in %dms, %dms of work, critical path %dms: %s", steps.size(),
+                TimeUnit.NANOSECONDS.toMillis(elapsedNanos), TimeUnit.NANOSECONDS.toMillis(getTotalStepNanos()),
+                TimeUnit.NANOSECONDS.toMillis(getCriticalPathNanos()),
+                criticalPath.stream().map(StepResult::getName).collect(Collectors.joining(" -> ")));
+    }
+}
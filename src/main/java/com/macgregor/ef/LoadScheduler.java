@@ -0,0 +1,166 @@
+package com.macgregor.ef;
+
+import com.macgregor.ef.metrics.LoadEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs LoadSteps on an executor, starting each step as soon as all of its dependencies have finished, so independent
+ * steps run at the same time. A failed step doesnt stop the run: steps that dont depend on it still run, steps that do
+ * are skipped. Returns a LoadReport with every step's outcome and timing and the run's critical path.
+ */
+public class LoadScheduler {
+    private static final Logger logger = LoggerFactory.getLogger(LoadScheduler.class);
+
+    private final ExecutorService executor;
+
+    /**
+     * @param executor executor steps are run on. The scheduler does not shut it down.
+     */
+    public LoadScheduler(ExecutorService executor){
+        this.executor = executor;
+    }
+
+    /**
+     * Runs the steps and waits for all of them to finish.
+     *
+     * @throws IllegalArgumentException if step names arent unique, a step depends on a step that isnt given or the
+     *  dependencies form a cycle
+     */
+    public LoadReport run(List<LoadStep> steps){
+        List<LoadStep> ordered = topologicalOrder(steps);
+        logger.info(String.format("[Load Scheduler] - Running %d steps", steps.size()));
+
+        long start = System.nanoTime();
+        Map<String, CompletableFuture<LoadReport.StepResult>> futures = new HashMap<>();
+        for(LoadStep step : ordered){
+            List<CompletableFuture<LoadReport.StepResult>> dependencies = new ArrayList<>();
+            for(String dependency : step.getDependencies()){
+                dependencies.add(futures.get(dependency));
+            }
+            CompletableFuture<LoadReport.StepResult> future = CompletableFuture
+                    .allOf(dependencies.toArray(new CompletableFuture[dependencies.size()]))
+                    .thenApplyAsync(ignored -> execute(step, dependencies, start), executor);
+            futures.put(step.getName(), future);
+        }
+
+        List<LoadReport.StepResult> results = new ArrayList<>(steps.size());
+        for(LoadStep step : steps){
+            results.add(futures.get(step.getName()).join());
+        }
+        long elapsed = System.nanoTime() - start;
+
+        LoadReport report = new LoadReport(results, criticalPath(ordered, results), elapsed);
+        logger.info(String.format("[Load Scheduler] - Finished %s", report));
+        return report;
+    }
+
+    private static LoadReport.StepResult execute(LoadStep step, List<CompletableFuture<LoadReport.StepResult>> dependencies, long runStart){
+        for(CompletableFuture<LoadReport.StepResult> dependency : dependencies){
+            LoadReport.StepResult result = dependency.join();
+            if(result.getStatus() != LoadReport.Status.SUCCEEDED){
+                logger.warn(String.format("[Load Scheduler %s] - Skipped, %s did not succeed", step.getName(), result.getName()));
+                return new LoadReport.StepResult(step.getName(), LoadReport.Status.SKIPPED, System.nanoTime() - runStart, 0, result.getFailure());
+            }
+        }
+
+        long start = System.nanoTime();
+        LoadEvent event = LoadEvent.begin(LoadEvent.Stage.STEP, step.getName());
+        try {
+            step.getAction().run();
+            event.end(0);
+            long duration = System.nanoTime() - start;
+            logger.info(String.format("[Load Scheduler %s] - Finished in %dms", step.getName(), TimeUnit.NANOSECONDS.toMillis(duration)));
+            return new LoadReport.StepResult(step.getName(), LoadReport.Status.SUCCEEDED, start - runStart, duration, null);
+        } catch (Throwable e) {
+            // errors are recorded too, otherwise the run would fail without a report and callers couldnt clean up
+            event.end(0);
+            long duration = System.nanoTime() - start;
+            logger.error(String.format("[Load Scheduler %s] - Failed after %dms", step.getName(), TimeUnit.NANOSECONDS.toMillis(duration)), e);
+            return new LoadReport.StepResult(step.getName(), LoadReport.Status.FAILED, start - runStart, duration, e);
+        }
+    }
+
+    /**
+     * @return the steps ordered so every step comes after its dependencies, otherwise keeping the order they were given in
+     */
+    static List<LoadStep> topologicalOrder(List<LoadStep> steps){
+        Map<String, LoadStep> byName = new LinkedHashMap<>();
+        for(LoadStep step : steps){
+            if(byName.put(step.getName(), step) != null){
+                throw new IllegalArgumentException(String.format("Duplicate load step %s", step.getName()));
+            }
+        }
+        for(LoadStep step : steps){
+            for(String dependency : step.getDependencies()){
+                if(!byName.containsKey(dependency)){
+                    throw new IllegalArgumentException(String.format("Load step %s depends on unknown step %s", step.getName(), dependency));
+                }
+            }
+        }
+
+        List<LoadStep> ordered = new ArrayList<>(steps.size());
+        Map<String, Boolean> visiting = new HashMap<>();
+        for(LoadStep step : steps){
+            visit(step, byName, visiting, ordered);
+        }
+        return ordered;
+    }
+
+    // depth first, visiting marks steps on the current path (true) or already ordered (false)
+    private static void visit(LoadStep step, Map<String, LoadStep> byName, Map<String, Boolean> visiting, List<LoadStep> ordered){
+        Boolean state = visiting.get(step.getName());
+        if(state != null){
+            if(state){
+                throw new IllegalArgumentException(String.format("Load steps have a dependency cycle through %s", step.getName()));
+            }
+            return;
+        }
+        visiting.put(step.getName(), true);
+        for(String dependency : step.getDependencies()){
+            visit(byName.get(dependency), byName, visiting, ordered);
+        }
+        visiting.put(step.getName(), false);
+        ordered.add(step);
+    }
+
+    private static List<LoadReport.StepResult> criticalPath(List<LoadStep> ordered, List<LoadReport.StepResult> results){
+        Map<String, LoadReport.StepResult> resultsByName = new HashMap<>();
+        for(LoadReport.StepResult result : results){
+            resultsByName.put(result.getName(), result);
+        }
+
+        Map<String, Long> pathNanos = new HashMap<>();
+        Map<String, String> previous = new HashMap<>();
+        String last = null;
+        for(LoadStep step : ordered){
+            long longestDependency = 0;
+            for(String dependency : step.getDependencies()){
+                if(pathNanos.get(dependency) >= longestDependency){
+                    longestDependency = pathNanos.get(dependency);
+                    previous.put(step.getName(), dependency);
+                }
+            }
+            long nanos = longestDependency + resultsByName.get(step.getName()).getDurationNanos();
+            pathNanos.put(step.getName(), nanos);
+            if(last == null || nanos > pathNanos.get(last)){
+                last = step.getName();
+            }
+        }
+
+        List<LoadReport.StepResult> path = new ArrayList<>();
+        for(String name = last; name != null; name = previous.get(name)){
+            path.add(0, resultsByName.get(name));
+        }
+        return path;
+    }
+}
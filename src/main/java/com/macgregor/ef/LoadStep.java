@@ -0,0 +1,45 @@
+package com.macgregor.ef;
+
+import com.macgregor.ef.exceptions.DataLoadException;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A named unit of work in a load, like extracting a book or persisting an entity type, and the names of the steps
+ * that have to finish before it can start. Steps are run by a LoadScheduler.
+ */
+public class LoadStep {
+    private final String name;
+    private final Action action;
+    private final List<String> dependencies;
+
+    @FunctionalInterface
+    public interface Action {
+        void run() throws DataLoadException;
+    }
+
+    public LoadStep(String name, Action action, String... dependencies){
+        this.name = name;
+        this.action = action;
+        this.dependencies = Collections.unmodifiableList(Arrays.asList(dependencies));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Action getAction() {
+        return action;
+    }
+
+    public List<String> getDependencies() {
+        return dependencies;
+    }
+
+    @Override
+    public String toString() {
+        return dependencies.isEmpty() ? name : String.format("%s after %s", name, dependencies);
+    }
+}
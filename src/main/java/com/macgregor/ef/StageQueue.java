@@ -0,0 +1,176 @@
+package com.macgregor.ef;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded hand off between two pipeline stages, with one producer and one consumer. A full queue blocks the producer
+ * until the consumer catches up, so a slow stage holds back the stages before it instead of letting records pile up
+ * in memory. The producer calls close() once it is done, after which take() returns null.
+ *
+ * Depth and blocking time are recorded as records go through, see getMetrics(). A queue that is usually empty means
+ * its consumer is waiting on the producer, one that is usually full means the producer is waiting on the consumer.
+ */
+public class StageQueue<T> {
+    private static final Object END = new Object();
+
+    private final String name;
+    private final int capacity;
+    // the queue itself is unbounded so close() never blocks, capacity is enforced with permits instead
+    private final BlockingQueue<Object> queue = new LinkedBlockingQueue<>();
+    private final Semaphore space;
+    private final LongAdder items = new LongAdder();
+    private final LongAdder depthSum = new LongAdder();
+    private final AtomicInteger maxDepth = new AtomicInteger();
+    private final LongAdder producerBlockedNanos = new LongAdder();
+    private final LongAdder consumerBlockedNanos = new LongAdder();
+    private volatile boolean closed;
+
+    public StageQueue(String name, int capacity){
+        if(capacity < 1){
+            throw new IllegalArgumentException("Queue capacity must be at least 1");
+        }
+        this.name = name;
+        this.capacity = capacity;
+        this.space = new Semaphore(capacity);
+    }
+
+    /**
+     * Adds a record, waiting for space if the queue is full.
+     */
+    public void put(T item) throws InterruptedException {
+        if(item == null){
+            throw new NullPointerException("Stage queues dont accept null");
+        }
+        if(!space.tryAcquire()){
+            long start = System.nanoTime();
+            space.acquire();
+            producerBlockedNanos.add(System.nanoTime() - start);
+        }
+        queue.add(item);
+        items.increment();
+        int depth = capacity - space.availablePermits();
+        depthSum.add(depth);
+        maxDepth.accumulateAndGet(depth, Math::max);
+    }
+
+    /**
+     * Marks the end of the records. Doesnt block.
+     */
+    public void close(){
+        if(!closed){
+            closed = true;
+            queue.add(END);
+        }
+    }
+
+    /**
+     * @return the next record, waiting for one if the queue is empty, or null once the producer has closed the queue
+     *  and every record has been taken
+     */
+    @SuppressWarnings("unchecked")
+    public T take() throws InterruptedException {
+        Object item = queue.poll();
+        if(item == null){
+            long start = System.nanoTime();
+            item = queue.take();
+            consumerBlockedNanos.add(System.nanoTime() - start);
+        }
+        if(item == END){
+            // leave the marker for any later take()
+            queue.add(END);
+            return null;
+        }
+        space.release();
+        return (T) item;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return records currently waiting to be taken
+     */
+    public int getDepth(){
+        return capacity - space.availablePermits();
+    }
+
+    public Metrics getMetrics(){
+        long count = items.sum();
+        return new Metrics(name, capacity, count, maxDepth.get(), count == 0 ? 0 : (double) depthSum.sum() / count,
+                producerBlockedNanos.sum(), consumerBlockedNanos.sum());
+    }
+
+    /**
+     * Snapshot of a queue's metrics. Average depth is sampled every time a record is added.
+     */
+    public static class Metrics {
+        private final String name;
+        private final int capacity;
+        private final long items;
+        private final int maxDepth;
+        private final double averageDepth;
+        private final long producerBlockedNanos;
+        private final long consumerBlockedNanos;
+
+        Metrics(String name, int capacity, long items, int maxDepth, double averageDepth, long producerBlockedNanos, long consumerBlockedNanos){
+            this.name = name;
+            this.capacity = capacity;
+            this.items = items;
+            this.maxDepth = maxDepth;
+            this.averageDepth = averageDepth;
+            this.producerBlockedNanos = producerBlockedNanos;
+            this.consumerBlockedNanos = consumerBlockedNanos;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getCapacity() {
+            return capacity;
+        }
+
+        public long getItems() {
+            return items;
+        }
+
+        public int getMaxDepth() {
+            return maxDepth;
+        }
+
+        public double getAverageDepth() {
+            return averageDepth;
+        }
+
+        /**
+         * @return time the producer spent waiting for space, time its stage was held back by backpressure
+         */
+        public long getProducerBlockedNanos() {
+            return producerBlockedNanos;
+        }
+
+        /**
+         * @return time the consumer spent waiting for records, time its stage sat idle
+         */
+        public long getConsumerBlockedNanos() {
+            return consumerBlockedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: %d items, depth avg %.1f max %d of %d, producer blocked %dms, consumer blocked %dms",
+                    name, items, averageDepth, maxDepth, capacity,
+                    TimeUnit.NANOSECONDS.toMillis(producerBlockedNanos), TimeUnit.NANOSECONDS.toMillis(consumerBlockedNanos));
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.macgregor.ef;
+
+import com.macgregor.ef.converters.CanonicalModelConverter;
+import com.macgregor.ef.converters.IndexedTranslator;
+import com.macgregor.ef.converters.TranslationFieldConverter;
+import com.macgregor.ef.converters.TranslationKeyDictionary;
+import com.macgregor.ef.exceptions.DataLoadException;
+import com.macgregor.ef.model.canonical.Translation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Translation books by locale. A book is only parsed and indexed the first time its locale's translator is asked
+ * for, and then kept. All locales index their keys into one shared TranslationKeyDictionary, so keys every book has
+ * are stored once.
+ *
+ * Safe to use from several threads at once. Different locales load in parallel, callers asking for a locale that is
+ * still loading wait for it instead of parsing it again.
+ */
+public class TranslationStore {
+    private static final Logger logger = LoggerFactory.getLogger(TranslationStore.class);
+    public static final String DEFAULT_BOOK_DIRECTORY = "src/main/resources/ef/global/1.9.5";
+    public static final String TRANSLATIONS = "//text";
+    // global.1.9.5-book.en.xml
+    private static final Pattern BOOK_NAME = Pattern.compile(".*-book\\.([A-Za-z0-9-]+)\\.xml");
+
+    private final XmlPOJOExtractor extractor;
+    private final TranslationKeyDictionary dictionary = new TranslationKeyDictionary();
+    private final Map<Locale, LocaleBook> books = new ConcurrentHashMap<>();
+
+    private class LocaleBook {
+        private final Locale locale;
+        private final String uri;
+        private IndexedTranslator translator;
+
+        LocaleBook(Locale locale, String uri){
+            this.locale = locale;
+            this.uri = uri;
+        }
+
+        synchronized IndexedTranslator get() throws DataLoadException {
+            if(translator == null){
+                long start = System.nanoTime();
+                IndexedTranslator.Builder builder = IndexedTranslator.builder(dictionary);
+                for(Translation translation : extractor.extract(uri, TRANSLATIONS, Translation.class)){
+                    builder.put(translation.getId(), translation.getValue());
+                }
+                translator = builder.build();
+                logger.info(String.format("[Translations %s] - Indexed %d translations from %s in %d ms, %d keys shared by all locales",
+                        locale.toLanguageTag(), translator.size(), uri, (System.nanoTime() - start) / 1000000, dictionary.size()));
+            }
+            return translator;
+        }
+
+        synchronized boolean isLoaded(){
+            return translator != null;
+        }
+    }
+
+    public TranslationStore(){
+        this(new XmlPOJOExtractor(XmlPOJOExtractor.Mode.STREAMING));
+    }
+
+    public TranslationStore(XmlPOJOExtractor extractor){
+        this.extractor = extractor;
+    }
+
+    /**
+     * @return a store with every book in DEFAULT_BOOK_DIRECTORY registered
+     * @throws DataLoadException if the directory cant be listed
+     */
+    public static TranslationStore defaults() throws DataLoadException {
+        return new TranslationStore().registerAll(Paths.get(DEFAULT_BOOK_DIRECTORY));
+    }
+
+    /**
+     * Registers a locale's book, replacing the book registered for it before. Nothing is read until the locale's
+     * translator is asked for.
+     */
+    public TranslationStore register(Locale locale, String uri){
+        books.put(locale, new LocaleBook(locale, uri));
+        return this;
+    }
+
+    /**
+     * Registers every book in the directory named like global.1.9.5-book.en.xml, under the locale of its language tag.
+     */
+    public TranslationStore registerAll(Path directory) throws DataLoadException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for(Path file : files){
+                Matcher name = BOOK_NAME.matcher(file.getFileName().toString());
+                if(name.matches()){
+                    register(Locale.forLanguageTag(name.group(1)), file.toString());
+                }
+            }
+        } catch (IOException e) {
+            throw new DataLoadException(String.format("Unable to list translation books in %s", directory), e);
+        }
+        return this;
+    }
+
+    public Set<Locale> getLocales(){
+        return Collections.unmodifiableSet(new LinkedHashSet<>(books.keySet()));
+    }
+
+    /**
+     * @return the locale's book
+     * @throws IllegalArgumentException if no book is registered for the locale
+     */
+    public String getBook(Locale locale){
+        return book(locale).uri;
+    }
+
+    /**
+     * @return the locale's translator, parsing and indexing its book if this is the first time it is asked for
+     * @throws IllegalArgumentException if no book is registered for the locale
+     * @throws DataLoadException if the book cant be read, the next call tries again
+     */
+    public IndexedTranslator getTranslator(Locale locale) throws DataLoadException {
+        return book(locale).get();
+    }
+
+    /**
+     * @return a converter translating into the locale. Converters for different locales can run at the same time.
+     */
+    public CanonicalModelConverter getConverter(Locale locale) throws DataLoadException {
+        return new CanonicalModelConverter(new TranslationFieldConverter(getTranslator(locale)));
+    }
+
+    public boolean isLoaded(Locale locale){
+        LocaleBook book = books.get(locale);
+        return book != null && book.isLoaded();
+    }
+
+    public TranslationKeyDictionary getDictionary() {
+        return dictionary;
+    }
+
+    private LocaleBook book(Locale locale){
+        LocaleBook book = books.get(locale);
+        if(book == null){
+            throw new IllegalArgumentException(String.format("No translation book registered for %s", locale.toLanguageTag()));
+        }
+        return book;
+    }
+}
@@ -1,8 +1,9 @@
 package com.macgregor.ef;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.dataformat.xml.XmlMapper;
 import com.macgregor.ef.exceptions.DataLoadException;
+import com.macgregor.ef.exceptions.UncheckedDataLoadException;
+import com.macgregor.ef.metrics.LoadEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.w3c.dom.Document;
@@ -21,14 +22,55 @@ import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.dom.DOMSource;
 import javax.xml.transform.stream.StreamResult;
 import javax.xml.xpath.*;
+import java.io.File;
 import java.io.IOException;
 import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.StringJoiner;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class XmlPOJOExtractor {
     private static final Logger logger = LoggerFactory.getLogger(XmlPOJOExtractor.class);
-    private static final ObjectMapper XML_MAPPER = new XmlMapper();
+    private static final XmlMapper XML_MAPPER = new XmlMapper();
+
+    /**
+     * DOM builds the whole document and evaluates full XPath against it, serializing every matched node back to a String
+     * for Jackson. STREAMING walks the document once with a StAX reader and maps matched elements straight off the
+     * reader, supporting only the location paths described in XmlStreamPath.
+     */
+    public enum Mode { DOM, STREAMING }
+
+    private final Mode mode;
+
+    public XmlPOJOExtractor(){
+        this(Mode.DOM);
+    }
+
+    public XmlPOJOExtractor(Mode mode){
+        this.mode = mode;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    private Document loadXml(String uri, String entityType) throws DataLoadException {
+        LoadEvent event = LoadEvent.begin(LoadEvent.Stage.PARSE, entityType);
+        try {
+            return loadXml(uri);
+        } finally {
+            event.end(0, event.isEnabled() ? new File(uri).length() : 0);
+        }
+    }
 
     private Document loadXml(String uri) throws DataLoadException {
         DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
@@ -62,29 +104,180 @@ public class XmlPOJOExtractor {
     }
 
     public <T> List<T> extract(String uri, String rawXPath, Class<T> type) throws DataLoadException {
-        Document doc = loadXml(uri);
-        XPathExpression expr = compileXPathExpression(rawXPath);
-        try {
-            NodeList nodes = (NodeList) expr.evaluate(doc, XPathConstants.NODESET);
-            logger.debug(String.format("[%s extractor] - Matched %d nodes", type.getSimpleName(), nodes.getLength()));
-            List<T> extracted = new ArrayList<T>();
-            for(int i = 0; i < nodes.getLength(); i++){
+        ExtractionTarget<T> target = new ExtractionTarget<>(rawXPath, type);
+        return extractAll(uri, Collections.<ExtractionTarget<?>>singletonList(target)).get(target);
+    }
+
+    /**
+     * Extracts several targets from one document while only parsing it once. In STREAMING mode an element is handed to
+     * the first target (in list order) whose path selects it.
+     *
+     * @param uri document to extract from
+     * @param targets path expressions and the types their nodes map to
+     * @return extracted objects grouped by target
+     * @throws DataLoadException if the document cant be read or parsed, or a path expression is invalid
+     */
+    public ExtractionResult extractAll(String uri, List<ExtractionTarget<?>> targets) throws DataLoadException {
+        if(mode == Mode.STREAMING){
+            return extractAllStreaming(uri, targets);
+        }
+        return extractAllDom(uri, targets);
+    }
+
+    private ExtractionResult extractAllDom(String uri, List<ExtractionTarget<?>> targets) throws DataLoadException {
+        Document doc = loadXml(uri, entityTypes(targets));
+        ExtractionResult result = new ExtractionResult(targets);
+        for(ExtractionTarget<?> target : targets){
+            XPathExpression expr = compileXPathExpression(target.getRawXPath());
+            try {
+                LoadEvent event = LoadEvent.begin(LoadEvent.Stage.XPATH_MATCH, target.getType());
+                NodeList nodes = null;
                 try {
-                    T parsed = XML_MAPPER.readValue(nodeToString(nodes.item(i)), type);
-                    extracted.add(parsed);
-                } catch (IOException e) {
-                    logger.error(String.format("[%s extractor] - error attempting to map node %d", type.getSimpleName(), i), e);
-                    try{
-                        logger.error(nodeToString(nodes.item(i)));
-                    } catch (DataLoadException e2){
-                        logger.error(String.format("[%s extractor] - tried but failed to print the node to help you debug"), e2);
+                    nodes = (NodeList) expr.evaluate(doc, XPathConstants.NODESET);
+                } finally {
+                    event.end(nodes == null ? 0 : nodes.getLength());
+                }
+                mapNodes(nodes, target, result);
+            } catch (XPathExpressionException e) {
+                throw new DataLoadException("Error evaluating xpath expression against document", e);
+            }
+        }
+        return result;
+    }
+
+    private <T> void mapNodes(NodeList nodes, ExtractionTarget<T> target, ExtractionResult result) throws DataLoadException {
+        Class<T> type = target.getType();
+        logger.debug(String.format("[%s extractor] - Matched %d nodes", type.getSimpleName(), nodes.getLength()));
+        for(int i = 0; i < nodes.getLength(); i++){
+            try {
+                LoadEvent event = LoadEvent.begin(LoadEvent.Stage.NODE_MAPPING, type);
+                String xml = null;
+                T parsed = null;
+                try {
+                    xml = nodeToString(nodes.item(i));
+                    parsed = XML_MAPPER.readValue(xml, type);
+                } finally {
+                    event.end(parsed == null ? 0 : 1, event.isEnabled() && xml != null ? xml.getBytes(StandardCharsets.UTF_8).length : 0);
+                }
+                result.add(target, parsed);
+            } catch (IOException e) {
+                logger.error(String.format("[%s extractor] - error attempting to map node %d", type.getSimpleName(), i), e);
+                try{
+                    logger.error(nodeToString(nodes.item(i)));
+                } catch (DataLoadException e2){
+                    logger.error(String.format("[%s extractor] - tried but failed to print the node to help you debug"), e2);
+                }
+            }
+        }
+    }
+
+    private ExtractionResult extractAllStreaming(String uri, List<ExtractionTarget<?>> targets) throws DataLoadException {
+        List<XmlStreamPath> paths = new ArrayList<>(targets.size());
+        for(ExtractionTarget<?> target : targets){
+            paths.add(XmlStreamPath.compile(target.getRawXPath()));
+        }
+        ExtractionResult result = new ExtractionResult(targets);
+        int[] matched = new int[targets.size()];
+
+        // nodes are mapped while the document is read, so the parse event spans the whole extraction
+        LoadEvent event = LoadEvent.begin(LoadEvent.Stage.PARSE, entityTypes(targets));
+        try (XmlStreamCursor cursor = new XmlStreamCursor(uri, paths, XML_MAPPER)) {
+            int targetIndex;
+            while ((targetIndex = cursor.nextMatch()) >= 0) {
+                ExtractionTarget<?> target = targets.get(targetIndex);
+                Object parsed = cursor.read(target.getType(), matched[targetIndex]++);
+                if (parsed != null) {
+                    result.add(target, parsed);
+                }
+            }
+        } finally {
+            event.end(Arrays.stream(matched).sum(), event.isEnabled() ? new File(uri).length() : 0);
+        }
+
+        for(int i = 0; i < targets.size(); i++){
+            logger.debug(String.format("[%s extractor] - Matched %d nodes", targets.get(i).getType().getSimpleName(), matched[i]));
+        }
+        return result;
+    }
+
+    /**
+     * Lazily extracts objects from the document. Nothing is read until the stream is consumed and only the element
+     * currently being mapped is held in memory, so memory use doesnt grow with the size of the document. In DOM mode
+     * this falls back to streaming over the fully extracted list.
+     *
+     * Errors reading the document part way through are thrown as UncheckedDataLoadException. The stream holds the
+     * document open until it is closed, so consume it in a try-with-resources block.
+     *
+     * @param uri document to extract from
+     * @param rawXPath path expression selecting the nodes to map
+     * @param type type matched nodes are mapped to
+     * @return objects in document order
+     * @throws DataLoadException if the document cant be opened or the path expression is invalid
+     */
+    public <T> Stream<T> stream(String uri, String rawXPath, Class<T> type) throws DataLoadException {
+        if(mode != Mode.STREAMING){
+            return extract(uri, rawXPath, type).stream();
+        }
+
+        XmlStreamPath path = XmlStreamPath.compile(rawXPath);
+        XmlStreamIterator<T> iterator = new XmlStreamIterator<>(new XmlStreamCursor(uri, Collections.singletonList(path), XML_MAPPER), type);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(iterator::close);
+    }
+
+    private static class XmlStreamIterator<T> implements Iterator<T> {
+        private final XmlStreamCursor cursor;
+        private final Class<T> type;
+        private int matched = 0;
+        private T next;
+        private boolean done = false;
+
+        private XmlStreamIterator(XmlStreamCursor cursor, Class<T> type){
+            this.cursor = cursor;
+            this.type = type;
+        }
+
+        @Override
+        public boolean hasNext() {
+            try {
+                while (next == null && !done) {
+                    if (cursor.nextMatch() < 0) {
+                        done = true;
+                        logger.debug(String.format("[%s extractor] - Matched %d nodes", type.getSimpleName(), matched));
+                        close();
+                    } else {
+                        next = cursor.read(type, matched++);
                     }
                 }
+            } catch (DataLoadException e) {
+                done = true;
+                close();
+                throw new UncheckedDataLoadException(e);
             }
-            return extracted;
-        } catch (XPathExpressionException e) {
-            throw new DataLoadException("Error evaluating xpath expression against document", e);
+            return next != null;
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            T current = next;
+            next = null;
+            return current;
+        }
+
+        private void close(){
+            cursor.close();
+        }
+    }
+
+    private static String entityTypes(List<ExtractionTarget<?>> targets){
+        StringJoiner types = new StringJoiner(",");
+        for(ExtractionTarget<?> target : targets){
+            types.add(target.getType().getSimpleName());
         }
+        return types.toString();
     }
 
     private static String nodeToString(Node node) throws DataLoadException {
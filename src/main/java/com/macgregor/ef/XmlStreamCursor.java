@@ -0,0 +1,153 @@
+package com.macgregor.ef;
+
+import com.fasterxml.jackson.dataformat.xml.XmlMapper;
+import com.macgregor.ef.exceptions.DataLoadException;
+import com.macgregor.ef.metrics.LoadEvent;
+import org.codehaus.stax2.XMLStreamReader2;
+import org.codehaus.stax2.ri.Stax2ReaderAdapter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Forward only walk over a document with a StAX reader, stopping on each element selected by one of a set of
+ * XmlStreamPaths so it can be mapped straight off the reader. Only one element is ever held in memory at a time.
+ */
+class XmlStreamCursor implements Closeable {
+    private static final Logger logger = LoggerFactory.getLogger(XmlStreamCursor.class);
+
+    private final String uri;
+    private final List<XmlStreamPath> paths;
+    private final XmlMapper mapper;
+    private final InputStream in;
+    private final XMLStreamReader2 reader;
+    private final List<String> elementPath = new ArrayList<>();
+
+    XmlStreamCursor(String uri, List<XmlStreamPath> paths, XmlMapper mapper) throws DataLoadException {
+        this.uri = uri;
+        this.paths = paths;
+        this.mapper = mapper;
+        try {
+            this.in = openStream(uri);
+        } catch (IOException e) {
+            throw new DataLoadException("Error loading file " + uri, e);
+        }
+        try {
+            this.reader = Stax2ReaderAdapter.wrapIfNecessary(mapper.getFactory().getXMLInputFactory().createXMLStreamReader(in, "UTF-8"));
+        } catch (XMLStreamException e) {
+            closeQuietly();
+            throw new DataLoadException("Error parsing document " + uri + " make sure the file is well formed xml", e);
+        }
+    }
+
+    /**
+     * Advances to the next element selected by one of the paths.
+     *
+     * @return index of the first path selecting the element, or -1 once the end of the document is reached
+     * @throws DataLoadException if the document is not well formed
+     */
+    int nextMatch() throws DataLoadException {
+        try {
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    elementPath.add(reader.getLocalName());
+                    for (int i = 0; i < paths.size(); i++) {
+                        if (paths.get(i).matches(elementPath)) {
+                            return i;
+                        }
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    elementPath.remove(elementPath.size() - 1);
+                }
+            }
+            return -1;
+        } catch (XMLStreamException e) {
+            throw new DataLoadException("Error parsing document " + uri + " make sure the file is well formed xml", e);
+        }
+    }
+
+    /**
+     * Maps the element the cursor stopped on. On success the mapper leaves the reader on the element's END_ELEMENT.
+     * If mapping fails part way through, the rest of the element is skipped so the walk can carry on with the next one.
+     *
+     * @param type type to map the element to
+     * @param index position of the element among those matched for the type, used for logging
+     * @return the mapped object, or null if the element could not be mapped
+     * @throws DataLoadException if the document is not well formed
+     */
+    <T> T read(Class<T> type, int index) throws DataLoadException {
+        int depth = elementPath.size();
+        int line = reader.getLocation().getLineNumber();
+        LoadEvent event = LoadEvent.begin(LoadEvent.Stage.NODE_MAPPING, type);
+        long startOffset = event.isEnabled() ? reader.getLocationInfo().getStartingByteOffset() : -1;
+        try {
+            try {
+                T mapped = mapper.readValue(reader, type);
+                event.end(1, elementSize(startOffset));
+                return mapped;
+            } catch (IOException e) {
+                event.end(0);
+                logger.error(String.format("[%s extractor] - error attempting to map node %d starting on line %d", type.getSimpleName(), index, line), e);
+                while (!(reader.getEventType() == XMLStreamConstants.END_ELEMENT && reader.getDepth() == depth)) {
+                    reader.next();
+                }
+                return null;
+            } finally {
+                // the element has been consumed through its END_ELEMENT either way
+                elementPath.remove(elementPath.size() - 1);
+            }
+        } catch (XMLStreamException e) {
+            throw new DataLoadException("Error parsing document " + uri + " make sure the file is well formed xml", e);
+        }
+    }
+
+    /**
+     * @return bytes from startOffset to the end of the element the reader is on, or 0 if the reader doesnt know its
+     *  byte offsets
+     */
+    private long elementSize(long startOffset){
+        if(startOffset < 0){
+            return 0;
+        }
+        long endOffset = reader.getLocationInfo().getEndingByteOffset();
+        return endOffset < startOffset ? 0 : endOffset - startOffset;
+    }
+
+    @Override
+    public void close() {
+        try {
+            reader.close();
+        } catch (XMLStreamException e) {
+            logger.debug(String.format("Error closing reader for %s", uri), e);
+        }
+        closeQuietly();
+    }
+
+    private void closeQuietly(){
+        try {
+            in.close();
+        } catch (IOException e) {
+            logger.debug(String.format("Error closing %s", uri), e);
+        }
+    }
+
+    private static InputStream openStream(String uri) throws IOException {
+        File file = new File(uri);
+        if(file.isFile()){
+            return new BufferedInputStream(new FileInputStream(file));
+        }
+        return new URL(uri).openStream();
+    }
+}
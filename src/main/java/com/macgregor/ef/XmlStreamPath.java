@@ -0,0 +1,129 @@
+package com.macgregor.ef;
+
+import com.macgregor.ef.exceptions.DataLoadException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The subset of XPath that can be evaluated against a stream of StAX events without building a DOM: location paths made
+ * of element names (or *) joined by the child (/) and descendant (//) axes. For example:
+ *
+ * //unit
+ * /main/unitList/unit
+ * /main//treasureSet
+ *
+ * Predicates, attributes, functions and unions are not supported and fail to compile with a DataLoadException. Since
+ * a matched element is handed off whole, an element nested inside another match of the same path will not be matched
+ * again the way XPath would.
+ */
+public class XmlStreamPath {
+    private static final String WILDCARD = "*";
+
+    private final String rawPath;
+    private final List<Step> steps;
+
+    private static class Step {
+        private final String name;
+        private final boolean descendant;
+
+        private Step(String name, boolean descendant){
+            this.name = name;
+            this.descendant = descendant;
+        }
+
+        private boolean matches(String elementName){
+            return WILDCARD.equals(name) || name.equals(elementName);
+        }
+    }
+
+    private XmlStreamPath(String rawPath, List<Step> steps){
+        this.rawPath = rawPath;
+        this.steps = Collections.unmodifiableList(steps);
+    }
+
+    public static XmlStreamPath compile(String rawPath) throws DataLoadException {
+        if(rawPath == null || !rawPath.startsWith("/")){
+            throw new DataLoadException("Invalid xpath " + rawPath + ", streaming extraction requires an absolute location path");
+        }
+
+        List<Step> steps = new ArrayList<>();
+        int i = 0;
+        while(i < rawPath.length()){
+            boolean descendant = rawPath.startsWith("//", i);
+            i += descendant ? 2 : 1;
+
+            int end = rawPath.indexOf('/', i);
+            if(end < 0){
+                end = rawPath.length();
+            }
+
+            String name = rawPath.substring(i, end);
+            if(!isValidStepName(name)){
+                throw new DataLoadException(String.format("Invalid xpath %s, step '%s' is not supported by streaming extraction", rawPath, name));
+            }
+            steps.add(new Step(name, descendant));
+            i = end;
+        }
+
+        return new XmlStreamPath(rawPath, steps);
+    }
+
+    private static boolean isValidStepName(String name){
+        if(name.isEmpty()){
+            return false;
+        }
+        if(WILDCARD.equals(name)){
+            return true;
+        }
+        if(!Character.isLetter(name.charAt(0)) && name.charAt(0) != '_'){
+            return false;
+        }
+        for(int i = 1; i < name.length(); i++){
+            char c = name.charAt(i);
+            if(!Character.isLetterOrDigit(c) && c != '_' && c != '-' && c != '.'){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Tests the path against the stack of currently open elements, outermost (the document element) first.
+     *
+     * @param elementPath local names of the open elements, the last entry being the element just started
+     * @return true if the last element of the stack is selected by this path
+     */
+    public boolean matches(List<String> elementPath){
+        if(elementPath.isEmpty() || !steps.get(steps.size() - 1).matches(elementPath.get(elementPath.size() - 1))){
+            return false;
+        }
+        return matches(elementPath, 0, 0);
+    }
+
+    private boolean matches(List<String> elementPath, int stepIndex, int depth){
+        if(stepIndex == steps.size()){
+            return depth == elementPath.size();
+        }
+
+        Step step = steps.get(stepIndex);
+        if(!step.descendant){
+            return depth < elementPath.size()
+                    && step.matches(elementPath.get(depth))
+                    && matches(elementPath, stepIndex + 1, depth + 1);
+        }
+
+        for(int candidate = depth; candidate < elementPath.size(); candidate++){
+            if(step.matches(elementPath.get(candidate)) && matches(elementPath, stepIndex + 1, candidate + 1)){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return rawPath;
+    }
+}
@@ -1,108 +1,180 @@
 package com.macgregor.ef.converters;
 
 import com.macgregor.ef.exceptions.CanonicalConversionException;
-import org.apache.commons.beanutils.ConversionException;
-import org.apache.commons.beanutils.ConvertUtils;
-import org.apache.commons.beanutils.converters.*;
 
+import java.lang.reflect.Array;
 import java.util.Arrays;
 import java.util.List;
 
 /**
- * Makes use of the Apache Commons BeanUtils conversion tools. See
- * https://commons.apache.org/proper/commons-beanutils/apidocs/org/apache/commons/beanutils/converters/AbstractConverter.html
+ * Converts source model field values to the types of the canonical model fields they map to, using the converters in
+ * a ValueConverterRegistry. Unless another registry is given the shared default one is used, see
+ * ValueConverterRegistry.defaults(). Converters are safe to use from several threads at once.
  */
 public class CanonicalFieldConverter {
     public static final String[] TRUE_STRINGS = new String[]{"yes", "y", "true", "on", "1", "t"};
     public static final String[] FALSE_STRINGS = new String[]{"no", "n", "false", "off", "0", "f"};
     public static final char[] LIST_FIELD_DELIMINATORS = new char[]{',', '#', '|'};
-    public static final char[] LIST_FIELD_ALLOWED_CHARS = new char[]{'_'};
-
-    static{
-        configureBooleanConverter();
-        configureShortConverter();
-        configureIntegerConverter();
-        configureLongConverter();
-        configureFloatConverter();
-        configureDoubleConverter();
-        configureStringConverter();
-    }
 
-    public Object convert(Object field, Class<?> hint) throws CanonicalConversionException{
-        try {
-            return ConvertUtils.convert(field, hint);
-        } catch(ConversionException e){
-            throw new CanonicalConversionException(String.format("Could not convert %s to hinted type %s", field, hint.getSimpleName()));
+    // array type for each List element type, computed once per class instead of with Class.forName() on every call
+    private static final ClassValue<Class<?>> ARRAY_TYPES = new ClassValue<Class<?>>() {
+        @Override
+        protected Class<?> computeValue(Class<?> type) {
+            return Array.newInstance(type, 0).getClass();
         }
-    }
+    };
 
-    public List<Object> convertCollection(Object field, Class<?> hint) throws CanonicalConversionException {
-        try {
-            // this is a hack to get the array type of an element, which we need because CoversionUtils doesnt work with Collections
-            // https://stackoverflow.com/questions/13392160/about-java-get-string-class-from-string-class-what-if-string-class-is
-            return Arrays.asList((Object[])ConvertUtils.convert(field, Class.forName("[L" + hint.getName() + ";")));
-        } catch (ClassNotFoundException e) {
-            throw new CanonicalConversionException(String.format("Unable to determine array class from %s", hint.getSimpleName()), e);
-        }
+    private final ValueConverterRegistry registry;
+    private final boolean primitiveLists;
+    // whether the primitive methods can parse directly or have to go through a replaced converter in the registry
+    private final boolean defaultInts;
+    private final boolean defaultDoubles;
+    private final boolean defaultBooleans;
 
+    public CanonicalFieldConverter(){
+        this(ValueConverterRegistry.defaults());
     }
 
-    protected static void configureArrayConvertersFor(Class<?> clazz, AbstractConverter converter){
-        for(char delim : LIST_FIELD_DELIMINATORS){
-            ArrayConverter arrayConverter = new ArrayConverter(clazz, converter, 0);
-            arrayConverter.setDelimiter(delim);
-            arrayConverter.setAllowedChars(LIST_FIELD_ALLOWED_CHARS);
-            ConvertUtils.register(arrayConverter, clazz);
-        }
+    public CanonicalFieldConverter(ValueConverterRegistry registry){
+        this(registry, false);
     }
 
-    protected static void configureBooleanConverter(){
-        BooleanConverter booleanConverter = new BooleanConverter(TRUE_STRINGS, FALSE_STRINGS,null);
-        ConvertUtils.register(booleanConverter, Boolean.class);
-        ConvertUtils.register(booleanConverter, Boolean.TYPE);
-        configureArrayConvertersFor(Boolean[].class, booleanConverter);
+    /**
+     * @param primitiveLists whether convertCollection() should return Integer, Long and Double lists backed by
+     *                       primitive arrays (see PrimitiveLists) instead of arrays of boxed values, when every
+     *                       element parses
+     */
+    public CanonicalFieldConverter(ValueConverterRegistry registry, boolean primitiveLists){
+        this.registry = registry;
+        this.primitiveLists = primitiveLists;
+        this.defaultInts = registry.isDefault(int.class);
+        this.defaultDoubles = registry.isDefault(double.class);
+        this.defaultBooleans = registry.isDefault(boolean.class);
     }
 
-    protected static void configureShortConverter(){
-        ShortConverter shortConverter = new ShortConverter(null);
-        ConvertUtils.register(shortConverter, Short.class);
-        ConvertUtils.register(shortConverter, Short.TYPE);
-        configureArrayConvertersFor(Short[].class, shortConverter);
+    public ValueConverterRegistry getRegistry() {
+        return registry;
     }
 
-    protected static void configureIntegerConverter(){
-        IntegerConverter integerConverter = new IntegerConverter(null);
-        ConvertUtils.register(integerConverter, Integer.class);
-        ConvertUtils.register(integerConverter, Integer.TYPE);
-        configureArrayConvertersFor(Integer[].class, integerConverter);
+    public Object convert(Object field, Class<?> hint) throws CanonicalConversionException{
+        return registry.convert(field, hint);
+    }
+
+    @SuppressWarnings("unchecked")
+    public List<Object> convertCollection(Object field, Class<?> hint) throws CanonicalConversionException {
+        if(hint.isPrimitive()){
+            throw new CanonicalConversionException(String.format("Unable to determine array class from %s", hint.getSimpleName()));
+        }
+        if(primitiveLists && field instanceof CharSequence){
+            List<?> list = toPrimitiveList((CharSequence) field, hint);
+            if(list != null){
+                return (List<Object>) list;
+            }
+        }
+        return Arrays.asList((Object[])convert(field, ARRAY_TYPES.get(hint)));
     }
 
-    protected static void configureLongConverter(){
-        LongConverter longConverter = new LongConverter(null);
-        ConvertUtils.register(longConverter, Long.class);
-        ConvertUtils.register(longConverter, Long.TYPE);
-        configureArrayConvertersFor(Long[].class, longConverter);
+    /**
+     * @return a primitive backed list, or null if the element type has no primitive list or an element doesnt parse
+     *  and has to be converted to null like convert() would
+     */
+    private List<?> toPrimitiveList(CharSequence field, Class<?> hint){
+        try {
+            if(hint == Integer.class && registry.isDefault(Integer.class)){
+                return PrimitiveLists.of(DelimitedListParser.parseInts(field));
+            } else if(hint == Long.class && registry.isDefault(Long.class)){
+                return PrimitiveLists.of(DelimitedListParser.parseLongs(field));
+            } else if(hint == Double.class && registry.isDefault(Double.class)){
+                return PrimitiveLists.of(DelimitedListParser.parseDoubles(field));
+            }
+        } catch (NumberFormatException e) {
+            // fall through to element by element conversion
+        }
+        return null;
     }
 
-    protected static void configureFloatConverter(){
-        FloatConverter floatConverter = new FloatConverter(null);
-        ConvertUtils.register(floatConverter, Float.class);
-        ConvertUtils.register(floatConverter, Float.TYPE);
-        configureArrayConvertersFor(Float[].class, floatConverter);
+    /**
+     * Primitive version of convert(field, int.class) that parses Strings without boxing. Generated converters use it
+     * for int canonical fields. If the registry's int converter was replaced it is used instead.
+     *
+     * @return the converted value, or defaultValue where convert() would return null: the field is null, empty or not
+     *  an int
+     */
+    public int convertInt(Object field, int defaultValue) throws CanonicalConversionException {
+        if(!defaultInts){
+            Object converted = convert(field, int.class);
+            return converted == null ? defaultValue : (Integer) converted;
+        }
+        if(field instanceof Integer){
+            return (Integer) field;
+        }
+        if(field instanceof Number){
+            long l = ((Number) field).longValue();
+            return l < Integer.MIN_VALUE || l > Integer.MAX_VALUE ? defaultValue : (int) l;
+        }
+        if(field == null){
+            return defaultValue;
+        }
+        try {
+            return PrimitiveParsers.parseInt(asCharSequence(field));
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
     }
 
-    protected static void configureDoubleConverter(){
-        DoubleConverter doubleConverter = new DoubleConverter(null);
-        ConvertUtils.register(doubleConverter, Double.class);
-        ConvertUtils.register(doubleConverter, Double.TYPE);
-        configureArrayConvertersFor(Double[].class, doubleConverter);
+    /**
+     * Primitive version of convert(field, double.class) that parses Strings without boxing. Generated converters use
+     * it for double canonical fields. If the registry's double converter was replaced it is used instead.
+     *
+     * @return the converted value, or defaultValue if the field is null, empty or not a number
+     */
+    public double convertDouble(Object field, double defaultValue) throws CanonicalConversionException {
+        if(!defaultDoubles){
+            Object converted = convert(field, double.class);
+            return converted == null ? defaultValue : (Double) converted;
+        }
+        if(field instanceof Number){
+            return ((Number) field).doubleValue();
+        }
+        if(field == null){
+            return defaultValue;
+        }
+        try {
+            return PrimitiveParsers.parseDouble(asCharSequence(field));
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
     }
 
-    protected static void configureStringConverter(){
-        StringConverter stringConverter = new StringConverter(null);
-        ConvertUtils.register(stringConverter, Double.class);
-        ConvertUtils.register(stringConverter, Double.TYPE);
-        configureArrayConvertersFor(String[].class, stringConverter);
+    /**
+     * Primitive version of convert(field, boolean.class), accepting TRUE_STRINGS and FALSE_STRINGS such as Y and N.
+     * Generated converters use it for boolean canonical fields. If the registry's boolean converter was replaced it is
+     * used instead.
+     *
+     * @return the converted value, or defaultValue if the field is null or not one of the true or false strings
+     */
+    public boolean convertBoolean(Object field, boolean defaultValue) throws CanonicalConversionException {
+        if(!defaultBooleans){
+            Object converted = convert(field, boolean.class);
+            return converted == null ? defaultValue : (Boolean) converted;
+        }
+        if(field instanceof Boolean){
+            return (Boolean) field;
+        }
+        if(field == null){
+            return defaultValue;
+        }
+        switch(PrimitiveParsers.parseBoolean(asCharSequence(field))){
+            case PrimitiveParsers.TRUE:
+                return true;
+            case PrimitiveParsers.FALSE:
+                return false;
+            default:
+                return defaultValue;
+        }
+    }
 
+    private static CharSequence asCharSequence(Object field){
+        return field instanceof CharSequence ? (CharSequence) field : field.toString();
     }
-}
\ No newline at end of file
+}
@@ -10,76 +10,213 @@ import org.apache.commons.lang3.reflect.FieldUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.ParameterizedType;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 public class CanonicalModelConverter {
     private static final Logger logger = LoggerFactory.getLogger(CanonicalModelConverter.class);
 
     private CanonicalFieldConverter fieldConverter;
     private TranslationFieldConverter fieldTranslator;
+    private final ModelAccessorFactory accessorFactory;
+    private final ConcurrentMap<Class<?>, ConversionPlan> conversionPlans = new ConcurrentHashMap<>();
+    // empty for source classes without a generated converter, ConcurrentHashMap cant hold null values
+    private final ConcurrentMap<Class<?>, Optional<GeneratedCanonicalConverter>> generatedConverters = new ConcurrentHashMap<>();
+    private boolean useGeneratedConverters = true;
 
     public CanonicalModelConverter(TranslationFieldConverter fieldTranslator){
-        this.fieldConverter = new CanonicalFieldConverter();
+        this(fieldTranslator, new ReflectiveAccessorFactory());
+    }
+
+    /**
+     * @param fieldTranslator converter for @Translate fields
+     * @param accessorFactory how compiled conversion plans access model fields and constructors, for example
+     *                        MethodHandleAccessorFactory instead of the default ReflectiveAccessorFactory
+     */
+    public CanonicalModelConverter(TranslationFieldConverter fieldTranslator, ModelAccessorFactory accessorFactory){
+        this(new CanonicalFieldConverter(), fieldTranslator, accessorFactory);
+    }
+
+    /**
+     * @param fieldConverter converter for non translated fields, for example one with its own ValueConverterRegistry
+     *                       or with primitive backed lists enabled
+     */
+    public CanonicalModelConverter(CanonicalFieldConverter fieldConverter, TranslationFieldConverter fieldTranslator, ModelAccessorFactory accessorFactory){
+        this.fieldConverter = fieldConverter;
         this.fieldTranslator = fieldTranslator;
+        this.accessorFactory = accessorFactory;
     }
 
     public CanonicalModelConverter(Translator translator){
-        this.fieldConverter = new CanonicalFieldConverter();
-        this.fieldTranslator = new TranslationFieldConverter(translator);
+        this(new TranslationFieldConverter(translator));
     }
 
     private static void debug(Object source, String debugMessage){
-        logger.debug(String.format("[%s %010d] - %s", source.getClass().getSimpleName(), System.identityHashCode(source), debugMessage));
+        if(logger.isDebugEnabled()) {
+            logger.debug(String.format("[%s %010d] - %s", source.getClass().getSimpleName(), System.identityHashCode(source), debugMessage));
+        }
     }
 
-    public Object convert(Object source) throws CanonicalConversionException {
-        CanonicalModelConverter.debug(source, "Beginning conversion to canonical model");
+    /**
+     * @param useGeneratedConverters whether to convert with build time generated converters when they exist, see
+     *                               GeneratedCanonicalConverter. Defaults to true, set false to always use conversion plans.
+     */
+    public void setUseGeneratedConverters(boolean useGeneratedConverters) {
+        this.useGeneratedConverters = useGeneratedConverters;
+    }
 
-        Object dest = constructEmptyCanonicalModel(source);
+    public boolean isUseGeneratedConverters() {
+        return useGeneratedConverters;
+    }
 
-        List<Field> fieldsToTranslate = FieldUtils.getFieldsListWithAnnotation(source.getClass(), CanonicalField.class);
-        for(Field f : fieldsToTranslate) {
-            Field destField = getCanonicalFieldMapping(source, f, dest);
+    /**
+     * Lets the translator resolve the translation keys of a batch of sources at once, see TranslationFieldConverter.prefetch().
+     */
+    public void prefetchTranslations(Collection<?> sources){
+        fieldTranslator.prefetch(sources);
+    }
 
-            Class<?> conversionHint = getConversionHint(f, destField);
-            logger.debug(String.format("Determined conversion hint to be %s", conversionHint.getSimpleName()));
+    /**
+     * @return whether prefetchTranslations() does anything, so callers only gather batches of sources when it does
+     */
+    public boolean supportsTranslationPrefetch(){
+        return fieldTranslator.supportsPrefetch();
+    }
 
-            Object sourceFieldValue;
-            try {
-                sourceFieldValue = FieldUtils.readField(f, source, true);
-            } catch (IllegalAccessException e) {
-                throw new CanonicalConversionException(String.format("Fatal error reading field %s from source model %s field", f.getName(), source.getClass().getSimpleName()), e);
+    public Object convert(Object source) throws CanonicalConversionException {
+        CanonicalModelConverter.debug(source, "Beginning conversion to canonical model");
+
+        if(useGeneratedConverters){
+            GeneratedCanonicalConverter generated = getGeneratedConverter(source.getClass());
+            if(generated != null){
+                Object dest = generated.convert(source, this.fieldConverter, this.fieldTranslator);
+                CanonicalModelConverter.debug(source, "Finished conversion to canonical model with generated converter");
+                return dest;
             }
+        }
+
+        ConversionPlan plan = getConversionPlan(source.getClass());
+        Object dest = plan.newCanonicalModel();
 
+        for(ConversionPlan.FieldPlan f : plan.getFields()) {
             Object convertedFieldValue;
-            if(f.getAnnotation(Translate.class) == null){
-                if(List.class.isAssignableFrom(conversionHint)){
-                    convertedFieldValue = this.fieldConverter.convertCollection(sourceFieldValue, getGenericListType(destField));
-                } else if (Collection.class.isAssignableFrom(conversionHint)){
-                    throw new CanonicalConversionException(String.format("Unsupported Collection type %s. Currently only List is supported.", conversionHint));
+            if(!f.isTranslate()){
+                Object sourceFieldValue = f.read(source);
+                if(f.isList()){
+                    convertedFieldValue = this.fieldConverter.convertCollection(sourceFieldValue, f.getListElementType());
                 } else {
-                    convertedFieldValue = this.fieldConverter.convert(sourceFieldValue, conversionHint);
+                    convertedFieldValue = this.fieldConverter.convert(sourceFieldValue, f.getHint());
                 }
             } else{
-                convertedFieldValue = this.fieldTranslator.convert(source, f);
+                convertedFieldValue = this.fieldTranslator.convert(source, f.getSourceField());
             }
 
-            try {
-                FieldUtils.writeField(destField, dest, convertedFieldValue, true );
-            } catch (IllegalAccessException e) {
-                throw new CanonicalConversionException(String.format("Fatal error writing field %s to canonical model %s field %s", f.getName(), dest.getClass().getSimpleName(), destField.getName()), e);
+            if(convertedFieldValue == null && f.isPrimitive()){
+                continue;
             }
+            f.write(dest, convertedFieldValue);
         }
 
-        logger.debug(String.format("[%s %010d] - Finished conversion to canonical model", source.getClass().getSimpleName(), System.identityHashCode(source)));
+        CanonicalModelConverter.debug(source, "Finished conversion to canonical model");
 
         return dest;
     }
 
+    /**
+     * Returns the conversion plan for a @CanonicalModel annotated class, compiling and caching it the first time the
+     * class is seen.
+     *
+     * @param sourceType Non-canonical model class we are mapping from
+     * @return
+     * @throws CanonicalConversionException if the class isnt annotated or its annotations dont line up with the canonical model
+     */
+    public ConversionPlan getConversionPlan(Class<?> sourceType) throws CanonicalConversionException {
+        ConversionPlan plan = conversionPlans.get(sourceType);
+        if(plan == null){
+            ConversionPlan compiled = compileConversionPlan(sourceType);
+            plan = conversionPlans.putIfAbsent(sourceType, compiled);
+            if(plan == null){
+                plan = compiled;
+            }
+        }
+        return plan;
+    }
+
+    /**
+     * Looks up the converter CanonicalConverterProcessor generated for a source class, see
+     * GeneratedCanonicalConverter.classNameFor(). The lookup is done once per class.
+     *
+     * @param sourceType Non-canonical model class we are mapping from
+     * @return the generated converter, or null if none was generated for the class
+     */
+    public GeneratedCanonicalConverter getGeneratedConverter(Class<?> sourceType){
+        return generatedConverters.computeIfAbsent(sourceType, CanonicalModelConverter::loadGeneratedConverter).orElse(null);
+    }
+
+    private static Optional<GeneratedCanonicalConverter> loadGeneratedConverter(Class<?> sourceType){
+        String className = GeneratedCanonicalConverter.classNameFor(sourceType.getName());
+        try {
+            Class<?> converterType = Class.forName(className, true, sourceType.getClassLoader());
+            if(!GeneratedCanonicalConverter.class.isAssignableFrom(converterType)){
+                logger.warn(String.format("%s does not implement GeneratedCanonicalConverter, falling back to runtime conversion", className));
+                return Optional.empty();
+            }
+            logger.debug(String.format("Using generated converter %s for %s", className, sourceType.getSimpleName()));
+            return Optional.of((GeneratedCanonicalConverter) converterType.getDeclaredConstructor().newInstance());
+        } catch (ClassNotFoundException e) {
+            logger.debug(String.format("No generated converter for %s", sourceType.getSimpleName()));
+            return Optional.empty();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            logger.warn(String.format("Unable to load generated converter %s, falling back to runtime conversion", className), e);
+            return Optional.empty();
+        }
+    }
+
+    protected ConversionPlan compileConversionPlan(Class<?> sourceType) throws CanonicalConversionException {
+        CanonicalModel annotation = sourceType.getAnnotation(CanonicalModel.class);
+        if(annotation == null){
+            throw new CanonicalConversionException(String.format("%s is not annotated with @CanonicalModel", sourceType.getSimpleName()));
+        }
+        Class<?> canonicalType = annotation.type();
+        logger.debug(String.format("Compiling conversion plan from %s to %s", sourceType.getSimpleName(), canonicalType.getSimpleName()));
+
+        Constructor<?> constructor = ConstructorUtils.getAccessibleConstructor(canonicalType);
+        if(constructor == null){
+            String destModelName = canonicalType.getSimpleName();
+            throw new CanonicalConversionException(String.format("Fatal error instantiating canonical model %s. Be sure default constructor exists for %s", destModelName, destModelName));
+        }
+
+        List<ConversionPlan.FieldPlan> fieldPlans = new ArrayList<>();
+        for(Field f : FieldUtils.getFieldsListWithAnnotation(sourceType, CanonicalField.class)) {
+            Field destField = getCanonicalFieldMapping(sourceType, f, canonicalType);
+
+            Class<?> conversionHint = getConversionHint(f, destField);
+            logger.debug(String.format("Determined conversion hint to be %s", conversionHint.getSimpleName()));
+
+            boolean translate = f.getAnnotation(Translate.class) != null;
+            Class<?> listElementType = null;
+            if(!translate){
+                if(List.class.isAssignableFrom(conversionHint)){
+                    listElementType = getGenericListType(destField);
+                } else if (Collection.class.isAssignableFrom(conversionHint)){
+                    throw new CanonicalConversionException(String.format("Unsupported Collection type %s. Currently only List is supported.", conversionHint));
+                }
+            }
+
+            fieldPlans.add(new ConversionPlan.FieldPlan(f, destField, conversionHint, listElementType, translate,
+                    accessorFactory.getter(f), accessorFactory.setter(destField)));
+        }
+
+        return new ConversionPlan(sourceType, canonicalType, accessorFactory.instantiator(constructor), fieldPlans);
+    }
+
     /**
      * Cosntructs an empty canonical model object indicated on the source object with the @CanonicalModel annotation. For example:
      *
@@ -97,14 +234,9 @@ public class CanonicalModelConverter {
      *  is no default constructor.
      */
     public Object constructEmptyCanonicalModel(Object source) throws CanonicalConversionException {
-        CanonicalModel annotation = source.getClass().getAnnotation(CanonicalModel.class);
-        try {
-            CanonicalModelConverter.debug(source, String.format("Instantiating %s", annotation.type()));
-            return ConstructorUtils.invokeConstructor(annotation.type());
-        } catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException | InstantiationException e) {
-            String destModelName = annotation.getClass().getSimpleName();
-            throw new CanonicalConversionException(String.format("Fatal error instantiating canonical model %s. Be sure default constructor exists for %s", destModelName, destModelName), e);
-        }
+        ConversionPlan plan = getConversionPlan(source.getClass());
+        CanonicalModelConverter.debug(source, String.format("Instantiating %s", plan.getCanonicalType()));
+        return plan.newCanonicalModel();
     }
 
     /**
@@ -119,6 +251,13 @@ public class CanonicalModelConverter {
      * @throws CanonicalConversionException if we fail to find a field on the Canonical model to map to
      */
     public Field getCanonicalFieldMapping(Object source, Field sourceField, Object dest) throws CanonicalConversionException {
+        return getCanonicalFieldMapping(source.getClass(), sourceField, dest.getClass());
+    }
+
+    /**
+     * Same as getCanonicalFieldMapping(Object, Field, Object) but resolved from the model classes rather than instances.
+     */
+    public Field getCanonicalFieldMapping(Class<?> sourceType, Field sourceField, Class<?> canonicalType) throws CanonicalConversionException {
         CanonicalField canonicalFieldAnnotation = sourceField.getAnnotation(CanonicalField.class);
         String destFieldName;
         if(canonicalFieldAnnotation.mapsTo().equals(CanonicalField.MAPS_TO_DEFAULT)){
@@ -128,11 +267,14 @@ public class CanonicalModelConverter {
         }
 
         try {
-            Field destField = FieldUtils.getField(dest.getClass(), destFieldName, true);
-            CanonicalModelConverter.debug(source, String.format("Source field %s maps to canonical field %s", sourceField.getName(), destField.getName()));
+            Field destField = FieldUtils.getField(canonicalType, destFieldName, true);
+            if(destField == null){
+                throw new CanonicalConversionException(String.format("Fatal error trying to find field %s in model %s", destFieldName, canonicalType.getSimpleName()));
+            }
+            logger.debug(String.format("[%s] - Source field %s maps to canonical field %s", sourceType.getSimpleName(), sourceField.getName(), destField.getName()));
             return destField;
         } catch(IllegalArgumentException e){
-            throw new CanonicalConversionException(String.format("Fatal error trying to find field %s in model %s", destFieldName, dest.getClass().getSimpleName()), e);
+            throw new CanonicalConversionException(String.format("Fatal error trying to find field %s in model %s", destFieldName, canonicalType.getSimpleName()), e);
         }
     }
 
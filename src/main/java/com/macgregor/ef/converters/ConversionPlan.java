@@ -0,0 +1,126 @@
+package com.macgregor.ef.converters;
+
+import com.macgregor.ef.exceptions.CanonicalConversionException;
+
+import java.lang.reflect.Field;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Everything CanonicalModelConverter needs to convert instances of one @CanonicalModel annotated class: the canonical
+ * model constructor and, for each @CanonicalField, the resolved source and destination fields, conversion hint, list
+ * element type and whether the field is translated. Plans are compiled with reflection once per source class so the
+ * per object conversion only has to move values, through accessors created by a ModelAccessorFactory.
+ */
+public class ConversionPlan {
+    private final Class<?> sourceType;
+    private final Class<?> canonicalType;
+    private final ModelAccessorFactory.Instantiator instantiator;
+    private final List<FieldPlan> fields;
+
+    public static class FieldPlan {
+        private final Field sourceField;
+        private final Field destField;
+        private final Class<?> hint;
+        private final Class<?> listElementType;
+        private final boolean translate;
+        private final ModelAccessorFactory.Getter getter;
+        private final ModelAccessorFactory.Setter setter;
+
+        FieldPlan(Field sourceField, Field destField, Class<?> hint, Class<?> listElementType, boolean translate,
+                  ModelAccessorFactory.Getter getter, ModelAccessorFactory.Setter setter){
+            this.sourceField = sourceField;
+            this.destField = destField;
+            this.hint = hint;
+            this.listElementType = listElementType;
+            this.translate = translate;
+            this.getter = getter;
+            this.setter = setter;
+        }
+
+        public Field getSourceField() {
+            return sourceField;
+        }
+
+        public Field getDestField() {
+            return destField;
+        }
+
+        public Class<?> getHint() {
+            return hint;
+        }
+
+        /**
+         * @return element type of the canonical List field, or null if the field isnt a List
+         */
+        public Class<?> getListElementType() {
+            return listElementType;
+        }
+
+        public boolean isList() {
+            return listElementType != null;
+        }
+
+        public boolean isTranslate() {
+            return translate;
+        }
+
+        /**
+         * @return whether the canonical field is a primitive, which a null value leaves as the canonical model
+         *  initialized it, the same as generated converters do
+         */
+        public boolean isPrimitive() {
+            return destField.getType().isPrimitive();
+        }
+
+        public Object read(Object source) throws CanonicalConversionException {
+            try {
+                return getter.get(source);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new CanonicalConversionException(String.format("Fatal error reading field %s from source model %s field", sourceField.getName(), source.getClass().getSimpleName()), e);
+            }
+        }
+
+        public void write(Object dest, Object value) throws CanonicalConversionException {
+            try {
+                setter.set(dest, value);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new CanonicalConversionException(String.format("Fatal error writing field %s to canonical model %s field %s", sourceField.getName(), dest.getClass().getSimpleName(), destField.getName()), e);
+            }
+        }
+    }
+
+    ConversionPlan(Class<?> sourceType, Class<?> canonicalType, ModelAccessorFactory.Instantiator instantiator, List<FieldPlan> fields){
+        this.sourceType = sourceType;
+        this.canonicalType = canonicalType;
+        this.instantiator = instantiator;
+        this.fields = Collections.unmodifiableList(fields);
+    }
+
+    public Class<?> getSourceType() {
+        return sourceType;
+    }
+
+    public Class<?> getCanonicalType() {
+        return canonicalType;
+    }
+
+    public List<FieldPlan> getFields() {
+        return fields;
+    }
+
+    public Object newCanonicalModel() throws CanonicalConversionException {
+        try {
+            return instantiator.newInstance();
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            String destModelName = canonicalType.getSimpleName();
+            throw new CanonicalConversionException(String.format("Fatal error instantiating canonical model %s. Be sure default constructor exists for %s", destModelName, destModelName), e);
+        }
+    }
+}
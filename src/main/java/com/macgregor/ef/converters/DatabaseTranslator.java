@@ -0,0 +1,166 @@
+package com.macgregor.ef.converters;
+
+import com.macgregor.ef.exceptions.CanonicalConversionException;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.query.Query;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Translator backed by the Translation table. Keys are resolved in batches with one IN query per QUERY_BATCH_SIZE keys,
+ * either ahead of conversion through prefetch(), which TranslationFieldConverter.prefetch() calls with every key a
+ * batch of records needs, or one at a time for keys that werent prefetched. Resolved keys, including ones without a
+ * translation, are kept in a least recently used cache of at most cacheSize keys.
+ *
+ * Safe to use from several threads at once.
+ */
+public class DatabaseTranslator extends TranslationFieldConverter.Translator {
+    public static final int DEFAULT_CACHE_SIZE = 16384;
+    public static final int QUERY_BATCH_SIZE = 500;
+    // cached for keys without a translation, so they arent queried again
+    private static final String MISSING = new String("");
+
+    private final SessionFactory sessionFactory;
+    private final int cacheSize;
+    private final Map<String, String> cache;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong queries = new AtomicLong();
+
+    public DatabaseTranslator(SessionFactory sessionFactory){
+        this(sessionFactory, DEFAULT_CACHE_SIZE);
+    }
+
+    public DatabaseTranslator(SessionFactory sessionFactory, int cacheSize){
+        if(cacheSize <= 0){
+            throw new IllegalArgumentException("Cache size must be positive");
+        }
+        this.sessionFactory = sessionFactory;
+        this.cacheSize = cacheSize;
+        this.cache = new LinkedHashMap<String, String>(16, 0.75f, true){
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > DatabaseTranslator.this.cacheSize;
+            }
+        };
+    }
+
+    /**
+     * @throws CanonicalConversionException if there is no translation for the key
+     */
+    @Override
+    public String translate(String key) throws CanonicalConversionException {
+        String translation = cached(key);
+        if(translation != null){
+            hits.incrementAndGet();
+        } else{
+            misses.incrementAndGet();
+            translation = resolve(Collections.singleton(key)).get(key);
+        }
+        if(translation == MISSING){
+            throw new CanonicalConversionException(String.format("No translation found for %s", key));
+        }
+        return translation;
+    }
+
+    @Override
+    public boolean supportsPrefetch() {
+        return true;
+    }
+
+    /**
+     * Resolves every key that isnt cached yet, QUERY_BATCH_SIZE keys per query. Keys beyond the cache size are
+     * resolved but wont all stay cached.
+     */
+    @Override
+    public void prefetch(Collection<String> keys) {
+        Set<String> uncached = new LinkedHashSet<>();
+        synchronized (cache) {
+            for(String key : keys){
+                if(key != null && !cache.containsKey(key)){
+                    uncached.add(key);
+                }
+            }
+        }
+        if(!uncached.isEmpty()){
+            resolve(uncached);
+        }
+    }
+
+    private String cached(String key){
+        synchronized (cache) {
+            return cache.get(key);
+        }
+    }
+
+    /**
+     * @return the translation of every key, MISSING for keys without one
+     */
+    private Map<String, String> resolve(Collection<String> keys){
+        Map<String, String> resolved = new LinkedHashMap<>(keys.size() * 2);
+        for(String key : keys){
+            resolved.put(key, MISSING);
+        }
+
+        List<String> pending = new ArrayList<>(keys);
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            for(int from = 0; from < pending.size(); from += QUERY_BATCH_SIZE){
+                List<String> batch = pending.subList(from, Math.min(from + QUERY_BATCH_SIZE, pending.size()));
+                @SuppressWarnings("unchecked")
+                Query<Object[]> query = session.createQuery("select t.id, t.value from Translation t where t.id in (:keys)");
+                queries.incrementAndGet();
+                for(Object[] row : query.setParameterList("keys", batch).list()){
+                    resolved.put((String) row[0], row[1] == null ? MISSING : (String) row[1]);
+                }
+            }
+        }
+
+        synchronized (cache) {
+            cache.putAll(resolved);
+        }
+        return resolved;
+    }
+
+    public int getCacheSize() {
+        return cacheSize;
+    }
+
+    /**
+     * @return the number of keys currently cached
+     */
+    public int getCachedCount(){
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    /**
+     * @return the number of translate() calls answered from the cache
+     */
+    public long getHitCount(){
+        return hits.get();
+    }
+
+    /**
+     * @return the number of translate() calls that had to query the database
+     */
+    public long getMissCount(){
+        return misses.get();
+    }
+
+    /**
+     * @return the number of queries run, by both translate() and prefetch()
+     */
+    public long getQueryCount(){
+        return queries.get();
+    }
+}
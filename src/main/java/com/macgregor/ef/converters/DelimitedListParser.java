@@ -0,0 +1,143 @@
+package com.macgregor.ef.converters;
+
+/**
+ * Splits list valued fields like "GEM|10", "damage_O#unitUpgradeGold_A#reviveMedal" or "{1, 2, 3}" in a single scan
+ * that treats every one of CanonicalFieldConverter.LIST_FIELD_DELIMINATORS and whitespace as a separator. Enclosing
+ * braces are stripped and empty elements are skipped, so "a#b|c" and "a,,b,c" both have three elements.
+ *
+ * Tokens are handed around as start/end offsets into the original value rather than substrings. Numeric lists are
+ * parsed straight into primitive arrays, which PrimitiveLists can expose as Lists without boxing every element.
+ */
+public final class DelimitedListParser {
+    private static final boolean[] DELIMITERS = new boolean[128];
+
+    static{
+        for(char c = 0; c <= ' '; c++){
+            DELIMITERS[c] = true;
+        }
+        for(char c : CanonicalFieldConverter.LIST_FIELD_DELIMINATORS){
+            DELIMITERS[c] = true;
+        }
+    }
+
+    private DelimitedListParser(){}
+
+    public static boolean isDelimiter(char c){
+        return c < DELIMITERS.length && DELIMITERS[c];
+    }
+
+    /**
+     * @return offset where the list's elements start, after leading whitespace and an opening brace
+     */
+    public static int listStart(CharSequence s){
+        int start = PrimitiveParsers.trimStart(s, 0, s.length());
+        int end = PrimitiveParsers.trimEnd(s, start, s.length());
+        return hasBraces(s, start, end) ? start + 1 : start;
+    }
+
+    /**
+     * @return offset where the list's elements end, before trailing whitespace and a closing brace
+     */
+    public static int listEnd(CharSequence s){
+        int start = PrimitiveParsers.trimStart(s, 0, s.length());
+        int end = PrimitiveParsers.trimEnd(s, start, s.length());
+        return hasBraces(s, start, end) ? end - 1 : end;
+    }
+
+    /**
+     * @return offset of the first element at or after from, or end if there are no more elements
+     */
+    public static int nextTokenStart(CharSequence s, int from, int end){
+        while(from < end && isDelimiter(s.charAt(from))){
+            from++;
+        }
+        return from;
+    }
+
+    /**
+     * @return offset just past the end of the element starting at start
+     */
+    public static int tokenEnd(CharSequence s, int start, int end){
+        while(start < end && !isDelimiter(s.charAt(start))){
+            start++;
+        }
+        return start;
+    }
+
+    public static int countTokens(CharSequence s, int start, int end){
+        int count = 0;
+        for(int i = nextTokenStart(s, start, end); i < end; i = nextTokenStart(s, tokenEnd(s, i, end), end)){
+            count++;
+        }
+        return count;
+    }
+
+    public static int countTokens(CharSequence s){
+        return countTokens(s, listStart(s), listEnd(s));
+    }
+
+    /**
+     * @throws NumberFormatException if any element is not an int
+     */
+    public static int[] parseInts(CharSequence s){
+        int start = listStart(s);
+        int end = listEnd(s);
+        int[] values = new int[countTokens(s, start, end)];
+        int index = 0;
+        for(int i = nextTokenStart(s, start, end); i < end; ){
+            int tokenEnd = tokenEnd(s, i, end);
+            values[index++] = PrimitiveParsers.parseInt(s, i, tokenEnd);
+            i = nextTokenStart(s, tokenEnd, end);
+        }
+        return values;
+    }
+
+    /**
+     * @throws NumberFormatException if any element is not a long
+     */
+    public static long[] parseLongs(CharSequence s){
+        int start = listStart(s);
+        int end = listEnd(s);
+        long[] values = new long[countTokens(s, start, end)];
+        int index = 0;
+        for(int i = nextTokenStart(s, start, end); i < end; ){
+            int tokenEnd = tokenEnd(s, i, end);
+            values[index++] = PrimitiveParsers.parseLong(s, i, tokenEnd);
+            i = nextTokenStart(s, tokenEnd, end);
+        }
+        return values;
+    }
+
+    /**
+     * @throws NumberFormatException if any element is not a number
+     */
+    public static double[] parseDoubles(CharSequence s){
+        int start = listStart(s);
+        int end = listEnd(s);
+        double[] values = new double[countTokens(s, start, end)];
+        int index = 0;
+        for(int i = nextTokenStart(s, start, end); i < end; ){
+            int tokenEnd = tokenEnd(s, i, end);
+            values[index++] = PrimitiveParsers.parseDouble(s, i, tokenEnd);
+            i = nextTokenStart(s, tokenEnd, end);
+        }
+        return values;
+    }
+
+    public static String[] parseStrings(CharSequence s){
+        int start = listStart(s);
+        int end = listEnd(s);
+        String[] values = new String[countTokens(s, start, end)];
+        int index = 0;
+        for(int i = nextTokenStart(s, start, end); i < end; ){
+            int tokenEnd = tokenEnd(s, i, end);
+            values[index++] = s.subSequence(i, tokenEnd).toString();
+            i = nextTokenStart(s, tokenEnd, end);
+        }
+        return values;
+    }
+
+    private static boolean hasBraces(CharSequence s, int start, int end){
+        return end - start >= 2 && s.charAt(start) == '{' && s.charAt(end - 1) == '}';
+    }
+}
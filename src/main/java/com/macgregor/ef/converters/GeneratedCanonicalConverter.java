@@ -0,0 +1,26 @@
+package com.macgregor.ef.converters;
+
+import com.macgregor.ef.exceptions.CanonicalConversionException;
+
+/**
+ * Implemented by the converter classes CanonicalConverterProcessor generates at build time for @CanonicalModel
+ * annotated classes. A generated converter does the same job as a ConversionPlan with plain field access, getters and
+ * setters in place of reflection. CanonicalModelConverter dispatches to it whenever one is found next to the source
+ * class, see classNameFor().
+ */
+public interface GeneratedCanonicalConverter {
+    String CLASS_SUFFIX = "CanonicalConverter";
+
+    Object convert(Object source, CanonicalFieldConverter fieldConverter, TranslationFieldConverter fieldTranslator) throws CanonicalConversionException;
+
+    /**
+     * Name of the class generated for a source model, in the same package as the model. For example
+     * com.foo.UnitXML maps to com.foo.UnitXMLCanonicalConverter and com.foo.Outer$Inner to com.foo.Outer_InnerCanonicalConverter.
+     *
+     * @param sourceBinaryName binary name of the @CanonicalModel annotated class, as returned by Class.getName()
+     * @return binary name of the generated converter
+     */
+    static String classNameFor(String sourceBinaryName){
+        return sourceBinaryName.replace('$', '_') + CLASS_SUFFIX;
+    }
+}
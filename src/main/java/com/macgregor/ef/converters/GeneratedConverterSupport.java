@@ -0,0 +1,45 @@
+package com.macgregor.ef.converters;
+
+import com.macgregor.ef.exceptions.CanonicalConversionException;
+import org.apache.commons.lang3.reflect.FieldUtils;
+
+import java.lang.reflect.Field;
+
+/**
+ * Helpers called from generated converters. Field handles are used for translated fields, which
+ * TranslationFieldConverter identifies by Field, and for the rare model field that is neither visible nor exposed
+ * through a getter or setter.
+ */
+public final class GeneratedConverterSupport {
+
+    private GeneratedConverterSupport(){}
+
+    /**
+     * Resolves a field once, when the generated converter class is initialized.
+     *
+     * @throws IllegalStateException if the field no longer exists, meaning the converter is stale and must be regenerated
+     */
+    public static Field field(Class<?> type, String name){
+        Field field = FieldUtils.getField(type, name, true);
+        if(field == null){
+            throw new IllegalStateException(String.format("Generated converter is out of date, %s has no field %s", type.getSimpleName(), name));
+        }
+        return field;
+    }
+
+    public static Object read(Field field, Object source) throws CanonicalConversionException {
+        try {
+            return field.get(source);
+        } catch (IllegalAccessException e) {
+            throw new CanonicalConversionException(String.format("Fatal error reading field %s from source model %s field", field.getName(), source.getClass().getSimpleName()), e);
+        }
+    }
+
+    public static void write(Field field, Object dest, Object value) throws CanonicalConversionException {
+        try {
+            field.set(dest, value);
+        } catch (IllegalAccessException e) {
+            throw new CanonicalConversionException(String.format("Fatal error writing field %s to canonical model %s", field.getName(), dest.getClass().getSimpleName()), e);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.macgregor.ef.converters;
+
+import com.macgregor.ef.exceptions.CanonicalConversionException;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Translator over an immutable in-memory index of translation keys, built up front so every lookup is a single hash
+ * probe. Keys live in a TranslationKeyDictionary, which translators for several locales can share so each key is
+ * stored once, and the translator itself only keeps an array of values by key id. Equal values are shared too.
+ *
+ * Safe to use from several threads at once.
+ */
+public class IndexedTranslator extends TranslationFieldConverter.Translator {
+    private final TranslationKeyDictionary dictionary;
+    private final String[] values;
+    private final BitSet present;
+    private final int size;
+
+    public static class Builder {
+        private final TranslationKeyDictionary dictionary;
+        private final Map<String, String> translations = new LinkedHashMap<>();
+
+        private Builder(TranslationKeyDictionary dictionary){
+            this.dictionary = dictionary;
+        }
+
+        /**
+         * Adds a translation, replacing any translation already added for the key.
+         */
+        public Builder put(String key, String value){
+            if(key == null){
+                throw new IllegalArgumentException("Translation key cant be null");
+            }
+            translations.put(key, value);
+            return this;
+        }
+
+        public IndexedTranslator build(){
+            return new IndexedTranslator(dictionary, translations);
+        }
+    }
+
+    /**
+     * @return a builder for a translator with a dictionary of its own
+     */
+    public static Builder builder(){
+        return new Builder(new TranslationKeyDictionary());
+    }
+
+    /**
+     * @return a builder for a translator that adds its keys to, and looks them up in, a shared dictionary
+     */
+    public static Builder builder(TranslationKeyDictionary dictionary){
+        return new Builder(dictionary);
+    }
+
+    private IndexedTranslator(TranslationKeyDictionary dictionary, Map<String, String> translations){
+        this.dictionary = dictionary;
+        int[] ids = dictionary.intern(translations.keySet());
+        int length = 0;
+        for(int id : ids){
+            length = Math.max(length, id + 1);
+        }
+        this.values = new String[length];
+        this.present = new BitSet(length);
+        this.size = ids.length;
+
+        Map<String, String> shared = new HashMap<>();
+        int i = 0;
+        for(String value : translations.values()){
+            int id = ids[i++];
+            if(value != null){
+                String existing = shared.putIfAbsent(value, value);
+                values[id] = existing == null ? value : existing;
+            }
+            present.set(id);
+        }
+    }
+
+    /**
+     * @throws CanonicalConversionException if there is no translation for the key
+     */
+    @Override
+    public String translate(String key) throws CanonicalConversionException {
+        int id = find(key);
+        if(id < 0){
+            throw new CanonicalConversionException(String.format("No translation found for %s", key));
+        }
+        return values[id];
+    }
+
+    public boolean contains(String key){
+        return find(key) >= 0;
+    }
+
+    public int size(){
+        return size;
+    }
+
+    public TranslationKeyDictionary getDictionary() {
+        return dictionary;
+    }
+
+    /**
+     * @return the number of distinct key prefixes in the translator's dictionary
+     */
+    public int getPrefixCount(){
+        return dictionary.getPrefixCount();
+    }
+
+    private int find(String key){
+        int id = dictionary.find(key);
+        return id >= 0 && id < values.length && present.get(id) ? id : -1;
+    }
+}
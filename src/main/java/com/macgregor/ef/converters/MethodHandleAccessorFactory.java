@@ -0,0 +1,139 @@
+package com.macgregor.ef.converters;
+
+import com.macgregor.ef.exceptions.CanonicalConversionException;
+import org.apache.commons.lang3.ClassUtils;
+import org.apache.commons.lang3.StringUtils;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+/**
+ * Accessors spun at runtime with LambdaMetafactory, so each one is a small class calling the model's JavaBean getter,
+ * setter or constructor directly, much like hand written mapping code, with no reflective access checks or handle
+ * indirection per call. Like the generated converters, bean accessors are assumed to just read and write their field.
+ *
+ * LambdaMetafactory can only call methods and constructors visible to this class, so fields without a public getX/isX
+ * or setX on a public model, and non public constructors, fall back to MethodHandles resolved once per field and called
+ * with invokeExact.
+ */
+public class MethodHandleAccessorFactory implements ModelAccessorFactory {
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+    private static final MethodType INSTANTIATOR_TYPE = MethodType.methodType(Object.class);
+
+    private final MethodHandles.Lookup lookup = MethodHandles.lookup();
+
+    @Override
+    public Getter getter(Field field) throws CanonicalConversionException {
+        try {
+            Method accessor = findAccessor(field, true);
+            if(accessor != null){
+                return (Getter) spin(Getter.class, "get", GETTER_TYPE, lookup.unreflect(accessor),
+                        MethodType.methodType(ClassUtils.primitiveToWrapper(field.getType()), accessor.getDeclaringClass()));
+            }
+            field.setAccessible(true);
+            MethodHandle handle = lookup.unreflectGetter(field).asType(GETTER_TYPE);
+            return target -> (Object) handle.invokeExact(target);
+        } catch (IllegalAccessException e) {
+            throw new CanonicalConversionException(String.format("Unable to create getter for %s.%s", field.getDeclaringClass().getSimpleName(), field.getName()), e);
+        }
+    }
+
+    @Override
+    public Setter setter(Field field) throws CanonicalConversionException {
+        try {
+            Method accessor = findAccessor(field, false);
+            if(accessor != null){
+                return (Setter) spin(Setter.class, "set", SETTER_TYPE, lookup.unreflect(accessor),
+                        MethodType.methodType(void.class, accessor.getDeclaringClass(), ClassUtils.primitiveToWrapper(field.getType())));
+            }
+            field.setAccessible(true);
+            MethodHandle handle = lookup.unreflectSetter(field).asType(SETTER_TYPE);
+            return (target, value) -> {
+                handle.invokeExact(target, value);
+            };
+        } catch (IllegalAccessException e) {
+            throw new CanonicalConversionException(String.format("Unable to create setter for %s.%s", field.getDeclaringClass().getSimpleName(), field.getName()), e);
+        }
+    }
+
+    @Override
+    public Instantiator instantiator(Constructor<?> constructor) throws CanonicalConversionException {
+        Class<?> type = constructor.getDeclaringClass();
+        try {
+            MethodHandle handle = lookup.unreflectConstructor(constructor);
+            if(Modifier.isPublic(constructor.getModifiers()) && isCallable(type)){
+                return (Instantiator) spin(Instantiator.class, "newInstance", INSTANTIATOR_TYPE, handle, MethodType.methodType(type));
+            }
+            MethodHandle erased = handle.asType(INSTANTIATOR_TYPE);
+            return () -> (Object) erased.invokeExact();
+        } catch (IllegalAccessException e) {
+            throw new CanonicalConversionException(String.format("Unable to create constructor handle for %s", type.getSimpleName()), e);
+        }
+    }
+
+    /**
+     * @param erased the accessor interface's method type
+     * @param instantiated the same method with the model's own types
+     */
+    private Object spin(Class<?> accessorType, String methodName, MethodType erased, MethodHandle implementation,
+                        MethodType instantiated) throws CanonicalConversionException {
+        try {
+            CallSite site = LambdaMetafactory.metafactory(lookup, methodName, MethodType.methodType(accessorType),
+                    erased, implementation, instantiated);
+            return site.getTarget().invoke();
+        } catch (Throwable e) {
+            throw new CanonicalConversionException(String.format("Unable to spin %s for %s", accessorType.getSimpleName(), implementation), e);
+        }
+    }
+
+    /**
+     * Finds a public JavaBean getter (getX/isX) or setter (setX) for the field, or returns null if there isnt one the
+     * spun accessors can call.
+     */
+    private static Method findAccessor(Field field, boolean getter){
+        if(!isCallable(field.getDeclaringClass())){
+            return null;
+        }
+        String capitalized = StringUtils.capitalize(field.getName());
+        for(Method method : field.getDeclaringClass().getMethods()){
+            if(Modifier.isStatic(method.getModifiers()) || !isCallable(method.getDeclaringClass())){
+                continue;
+            }
+            String methodName = method.getName();
+            if(getter && (methodName.equals("get" + capitalized) || methodName.equals("is" + capitalized))
+                    && method.getParameterCount() == 0 && method.getReturnType() == field.getType()){
+                return method;
+            }
+            if(!getter && methodName.equals("set" + capitalized) && method.getParameterCount() == 1
+                    && method.getParameterTypes()[0] == field.getType() && method.getReturnType() == void.class){
+                return method;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return whether the type is public, along with any class it is nested in, and resolves to the same class from
+     *  this class's loader, which is where the spun accessors are defined
+     */
+    private static boolean isCallable(Class<?> type){
+        for(Class<?> current = type; current != null; current = current.getEnclosingClass()){
+            if(!Modifier.isPublic(current.getModifiers())){
+                return false;
+            }
+        }
+        try {
+            return Class.forName(type.getName(), false, MethodHandleAccessorFactory.class.getClassLoader()) == type;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.macgregor.ef.converters;
+
+import com.macgregor.ef.exceptions.CanonicalConversionException;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+
+/**
+ * Creates the accessors a ConversionPlan uses to read source fields, write canonical fields and instantiate canonical
+ * models. Accessors are created once per field when a plan is compiled and then shared by every conversion, see
+ * ReflectiveAccessorFactory and MethodHandleAccessorFactory.
+ */
+public interface ModelAccessorFactory {
+
+    interface Getter {
+        Object get(Object target) throws Throwable;
+    }
+
+    interface Setter {
+        void set(Object target, Object value) throws Throwable;
+    }
+
+    interface Instantiator {
+        Object newInstance() throws Throwable;
+    }
+
+    Getter getter(Field field) throws CanonicalConversionException;
+
+    Setter setter(Field field) throws CanonicalConversionException;
+
+    Instantiator instantiator(Constructor<?> constructor) throws CanonicalConversionException;
+}
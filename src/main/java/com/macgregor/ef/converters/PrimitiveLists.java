@@ -0,0 +1,178 @@
+package com.macgregor.ef.converters;
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+/**
+ * Fixed size List views over primitive arrays, like Arrays.asList() for int[], long[] and double[]. Elements are only
+ * boxed when read through the List interface, getInt()/getLong()/getDouble() read them without boxing. Like
+ * Arrays.asList() the lists support set() but not add() or remove(), and writes go through to the array.
+ */
+public final class PrimitiveLists {
+
+    private PrimitiveLists(){}
+
+    public static IntList of(int[] values){
+        return new IntList(values);
+    }
+
+    public static LongList of(long[] values){
+        return new LongList(values);
+    }
+
+    public static DoubleList of(double[] values){
+        return new DoubleList(values);
+    }
+
+    public static final class IntList extends AbstractList<Integer> implements RandomAccess, Serializable {
+        private final int[] values;
+
+        private IntList(int[] values){
+            this.values = values;
+        }
+
+        public int getInt(int index){
+            return values[index];
+        }
+
+        public int[] toIntArray(){
+            return values.clone();
+        }
+
+        @Override
+        public Integer get(int index) {
+            return values[index];
+        }
+
+        @Override
+        public Integer set(int index, Integer element) {
+            int previous = values[index];
+            values[index] = element;
+            return previous;
+        }
+
+        @Override
+        public int size() {
+            return values.length;
+        }
+
+        @Override
+        public int indexOf(Object o) {
+            if(o instanceof Integer){
+                int value = (Integer) o;
+                for(int i = 0; i < values.length; i++){
+                    if(values[i] == value){
+                        return i;
+                    }
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return indexOf(o) >= 0;
+        }
+
+        @Override
+        public String toString() {
+            return Arrays.toString(values);
+        }
+    }
+
+    public static final class LongList extends AbstractList<Long> implements RandomAccess, Serializable {
+        private final long[] values;
+
+        private LongList(long[] values){
+            this.values = values;
+        }
+
+        public long getLong(int index){
+            return values[index];
+        }
+
+        public long[] toLongArray(){
+            return values.clone();
+        }
+
+        @Override
+        public Long get(int index) {
+            return values[index];
+        }
+
+        @Override
+        public Long set(int index, Long element) {
+            long previous = values[index];
+            values[index] = element;
+            return previous;
+        }
+
+        @Override
+        public int size() {
+            return values.length;
+        }
+
+        @Override
+        public int indexOf(Object o) {
+            if(o instanceof Long){
+                long value = (Long) o;
+                for(int i = 0; i < values.length; i++){
+                    if(values[i] == value){
+                        return i;
+                    }
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return indexOf(o) >= 0;
+        }
+
+        @Override
+        public String toString() {
+            return Arrays.toString(values);
+        }
+    }
+
+    public static final class DoubleList extends AbstractList<Double> implements RandomAccess, Serializable {
+        private final double[] values;
+
+        private DoubleList(double[] values){
+            this.values = values;
+        }
+
+        public double getDouble(int index){
+            return values[index];
+        }
+
+        public double[] toDoubleArray(){
+            return values.clone();
+        }
+
+        @Override
+        public Double get(int index) {
+            return values[index];
+        }
+
+        @Override
+        public Double set(int index, Double element) {
+            double previous = values[index];
+            values[index] = element;
+            return previous;
+        }
+
+        @Override
+        public int size() {
+            return values.length;
+        }
+
+        @Override
+        public String toString() {
+            return Arrays.toString(values);
+        }
+    }
+}
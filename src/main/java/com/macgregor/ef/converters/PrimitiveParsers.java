@@ -0,0 +1,184 @@
+package com.macgregor.ef.converters;
+
+/**
+ * Parses primitives straight out of a region of a CharSequence, so a value can be converted without first copying it
+ * into its own String and without boxing. Leading and trailing whitespace in the region is ignored.
+ *
+ * Number parsers throw NumberFormatException for anything Integer.parseInt(), Long.parseLong() or
+ * Double.parseDouble() would reject.
+ */
+public final class PrimitiveParsers {
+    public static final int TRUE = 1;
+    public static final int FALSE = 0;
+    public static final int NOT_BOOLEAN = -1;
+
+    // powers of ten that are exactly representable as doubles
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+            1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+    private PrimitiveParsers(){}
+
+    public static int parseInt(CharSequence s){
+        return parseInt(s, 0, s.length());
+    }
+
+    public static int parseInt(CharSequence s, int start, int end){
+        long value = parseLong(s, start, end);
+        if(value < Integer.MIN_VALUE || value > Integer.MAX_VALUE){
+            throw invalid(s, start, end);
+        }
+        return (int) value;
+    }
+
+    public static long parseLong(CharSequence s){
+        return parseLong(s, 0, s.length());
+    }
+
+    public static long parseLong(CharSequence s, int start, int end){
+        start = trimStart(s, start, end);
+        end = trimEnd(s, start, end);
+        if(start == end){
+            throw invalid(s, start, end);
+        }
+
+        int i = start;
+        boolean negative = false;
+        char first = s.charAt(i);
+        if(first == '-' || first == '+'){
+            negative = first == '-';
+            if(++i == end){
+                throw invalid(s, start, end);
+            }
+        }
+
+        // accumulate negatively so Long.MIN_VALUE can be represented
+        long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        long result = 0;
+        for(; i < end; i++){
+            int digit = s.charAt(i) - '0';
+            if(digit < 0 || digit > 9 || result < (limit + digit) / 10){
+                throw invalid(s, start, end);
+            }
+            result = result * 10 - digit;
+        }
+        return negative ? result : -result;
+    }
+
+    public static double parseDouble(CharSequence s){
+        return parseDouble(s, 0, s.length());
+    }
+
+    /**
+     * Plain decimals with up to 15 or so significant digits, which covers every number in the data books, are parsed
+     * directly: the digits are exact as a long and dividing by an exact power of ten rounds correctly. Anything else
+     * (exponents, very long mantissas, NaN, hex) goes to Double.parseDouble().
+     */
+    public static double parseDouble(CharSequence s, int start, int end){
+        start = trimStart(s, start, end);
+        end = trimEnd(s, start, end);
+        if(start == end){
+            throw invalid(s, start, end);
+        }
+
+        int i = start;
+        boolean negative = false;
+        char first = s.charAt(i);
+        if(first == '-' || first == '+'){
+            negative = first == '-';
+            i++;
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = -1;
+        for(; i < end; i++){
+            char c = s.charAt(i);
+            if(c >= '0' && c <= '9'){
+                mantissa = mantissa * 10 + (c - '0');
+                if(fractionDigits >= 0){
+                    fractionDigits++;
+                }
+                if(++digits > 18){
+                    return slowParseDouble(s, start, end);
+                }
+            } else if(c == '.' && fractionDigits < 0){
+                fractionDigits = 0;
+            } else{
+                return slowParseDouble(s, start, end);
+            }
+        }
+
+        if(digits == 0 || mantissa >= MAX_EXACT_MANTISSA || fractionDigits >= POWERS_OF_TEN.length){
+            return slowParseDouble(s, start, end);
+        }
+        double value = fractionDigits > 0 ? mantissa / POWERS_OF_TEN[fractionDigits] : mantissa;
+        return negative ? -value : value;
+    }
+
+    /**
+     * Matches the region, ignoring case, against CanonicalFieldConverter.TRUE_STRINGS and FALSE_STRINGS.
+     *
+     * @return TRUE, FALSE or NOT_BOOLEAN
+     */
+    public static int parseBoolean(CharSequence s, int start, int end){
+        start = trimStart(s, start, end);
+        end = trimEnd(s, start, end);
+        if(matchesAny(s, start, end, CanonicalFieldConverter.TRUE_STRINGS)){
+            return TRUE;
+        }
+        if(matchesAny(s, start, end, CanonicalFieldConverter.FALSE_STRINGS)){
+            return FALSE;
+        }
+        return NOT_BOOLEAN;
+    }
+
+    public static int parseBoolean(CharSequence s){
+        return parseBoolean(s, 0, s.length());
+    }
+
+    public static boolean isBlank(CharSequence s, int start, int end){
+        return trimStart(s, start, end) == end;
+    }
+
+    static int trimStart(CharSequence s, int start, int end){
+        while(start < end && s.charAt(start) <= ' '){
+            start++;
+        }
+        return start;
+    }
+
+    static int trimEnd(CharSequence s, int start, int end){
+        while(end > start && s.charAt(end - 1) <= ' '){
+            end--;
+        }
+        return end;
+    }
+
+    private static boolean matchesAny(CharSequence s, int start, int end, String[] candidates){
+        for(String candidate : candidates){
+            if(candidate.length() == end - start && regionMatchesIgnoreCase(s, start, candidate)){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean regionMatchesIgnoreCase(CharSequence s, int start, String candidate){
+        for(int i = 0; i < candidate.length(); i++){
+            if(Character.toLowerCase(s.charAt(start + i)) != candidate.charAt(i)){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static double slowParseDouble(CharSequence s, int start, int end){
+        return Double.parseDouble(s.subSequence(start, end).toString());
+    }
+
+    private static NumberFormatException invalid(CharSequence s, int start, int end){
+        return new NumberFormatException(String.format("For input string: \"%s\"", s.subSequence(start, end)));
+    }
+}
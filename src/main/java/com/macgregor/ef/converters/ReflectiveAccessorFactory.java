@@ -0,0 +1,28 @@
+package com.macgregor.ef.converters;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+
+/**
+ * Accessors backed by plain java.lang.reflect calls. Works with anything but pays for reflective access checks and
+ * argument boxing on every call.
+ */
+public class ReflectiveAccessorFactory implements ModelAccessorFactory {
+
+    @Override
+    public Getter getter(Field field) {
+        field.setAccessible(true);
+        return field::get;
+    }
+
+    @Override
+    public Setter setter(Field field) {
+        field.setAccessible(true);
+        return field::set;
+    }
+
+    @Override
+    public Instantiator instantiator(Constructor<?> constructor) {
+        return constructor::newInstance;
+    }
+}
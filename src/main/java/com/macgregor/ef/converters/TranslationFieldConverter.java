@@ -2,21 +2,58 @@ package com.macgregor.ef.converters;
 
 import com.macgregor.ef.annotations.Translate;
 import com.macgregor.ef.exceptions.CanonicalConversionException;
+import com.macgregor.ef.metrics.LoadEvent;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.reflect.FieldUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.lang.reflect.Field;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 public class TranslationFieldConverter {
     private static final Logger logger = LoggerFactory.getLogger(TranslationFieldConverter.class);
     protected Translator translator;
 
+    // @Translate fields of each source type, found once per class
+    private static final ClassValue<List<Field>> TRANSLATED_FIELDS = new ClassValue<List<Field>>() {
+        @Override
+        protected List<Field> computeValue(Class<?> type) {
+            return FieldUtils.getFieldsListWithAnnotation(type, Translate.class);
+        }
+    };
+
+    // compiled @Translate keys of each source type, or the exception compiling an invalid key threw
+    private static final ClassValue<ConcurrentMap<String, Object>> TEMPLATES = new ClassValue<ConcurrentMap<String, Object>>() {
+        @Override
+        protected ConcurrentMap<String, Object> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
     public static abstract class Translator{
         public abstract String translate(String key) throws CanonicalConversionException;
+
+        /**
+         * Called with keys that are about to be translated, so a translator that looks keys up remotely can resolve
+         * them together instead of one translate() at a time. Does nothing by default. Only called when
+         * supportsPrefetch() is true.
+         */
+        public void prefetch(Collection<String> keys) throws CanonicalConversionException {}
+
+        /**
+         * @return whether prefetch() does anything, so keys are only collected for translators that use them. False
+         *  by default.
+         */
+        public boolean supportsPrefetch(){
+            return false;
+        }
     }
 
     public TranslationFieldConverter(){}
@@ -24,12 +61,59 @@ public class TranslationFieldConverter {
         this.translator = translator;
     }
 
+    /**
+     * @return whether sources of the type have @Translate fields, so converting them depends on the translations
+     */
+    public static boolean hasTranslatedFields(Class<?> sourceType){
+        return !TRANSLATED_FIELDS.get(sourceType).isEmpty();
+    }
+
+    /**
+     * @return whether prefetch() does anything with this converter's translator
+     */
+    public boolean supportsPrefetch(){
+        return translator != null && translator.supportsPrefetch();
+    }
+
+    /**
+     * Passes the keys of every @Translate field of the sources to the translator's prefetch(), before they are
+     * converted one by one. Does nothing if the translator doesnt support prefetching. Fields whose key cant be built
+     * are left for convert() to report.
+     */
+    public void prefetch(Collection<?> sources){
+        if(!supportsPrefetch() || sources.isEmpty()){
+            return;
+        }
+        Set<String> keys = new HashSet<>();
+        for(Object source : sources){
+            for(Field f : TRANSLATED_FIELDS.get(source.getClass())){
+                try {
+                    keys.add(getFieldKey(source, f.getAnnotation(Translate.class).key()));
+                } catch (CanonicalConversionException e) {
+                    // reported when the field is converted
+                }
+            }
+        }
+        try {
+            translator.prefetch(keys);
+        } catch (CanonicalConversionException e) {
+            logger.warn(String.format("Unable to prefetch %d translations, translating them one at a time: %s", keys.size(), e.getMessage()));
+        }
+    }
+
     public Object convert(Object obj, Field f) throws CanonicalConversionException {
         logger.debug(String.format("[%s %010d] - beginning translation of field %s", obj.getClass().getSimpleName(), System.identityHashCode(obj), f.getName()));
         String processedKey = "";
         try {
             processedKey = getFieldKey(obj, f);
-            String translation = translator.translate(processedKey);
+            LoadEvent event = LoadEvent.begin(LoadEvent.Stage.TRANSLATION_LOOKUP, obj.getClass());
+            String translation = null;
+            try {
+                translation = translator.translate(processedKey);
+            } finally {
+                // a missed lookup ends with no translation, so it is recorded with 0 records
+                event.end(translation == null ? 0 : 1, event.isEnabled() && translation != null ? translation.getBytes(StandardCharsets.UTF_8).length : 0);
+            }
             if(!StringUtils.isBlank(translation)) {
                 logger.debug(String.format("[%s %010d] - Successful translation", obj.getClass().getSimpleName(), System.identityHashCode(obj)));
                 return translation;
@@ -63,27 +147,20 @@ public class TranslationFieldConverter {
     }
 
     public String getFieldKey(Object obj, String key) throws CanonicalConversionException {
-        String processedKey = key;
-
-        Pattern fieldPattern = Pattern.compile(".*?(\\{(.*?)\\}).*?");
-        Matcher fieldMatcher = fieldPattern.matcher(key);
-        while (fieldMatcher.find()) {
-            String fieldReference = fieldMatcher.group(2);
-            Field f = FieldUtils.getField(obj.getClass(), fieldReference, true);
-            if(f == null){
-                throw new CanonicalConversionException(String.format("[%s %010d] - Invalid field reference in @Translate annotation: raw key: %s, unknown field reference: %s", obj.getClass().getSimpleName(), System.identityHashCode(obj), key, fieldReference));
-            }
-
+        Object template = TEMPLATES.get(obj.getClass()).computeIfAbsent(key, k -> {
             try {
-                String lookup = FieldUtils.readField(f, obj, true).toString();
-                processedKey = processedKey.replace(fieldMatcher.group(1), lookup);
-            } catch (IllegalAccessException e) {
-                throw new CanonicalConversionException(String.format("[%s %010d] - Unexpected error reading field %s, this probably shouldnt ever happen", obj.getClass().getSimpleName(), System.identityHashCode(obj), fieldReference), e);
-            } catch (NullPointerException e) {
-                throw new CanonicalConversionException(String.format("[%s %010d] - Error reading field %s, value is probably null", obj.getClass().getSimpleName(), System.identityHashCode(obj), fieldReference), e);
+                return TranslationKeyTemplate.compile(obj.getClass(), k);
+            } catch (CanonicalConversionException e) {
+                return e;
             }
-
+        });
+        try {
+            if(template instanceof CanonicalConversionException){
+                throw new CanonicalConversionException(((CanonicalConversionException) template).getMessage());
+            }
+            return ((TranslationKeyTemplate) template).render(obj);
+        } catch (CanonicalConversionException e) {
+            throw new CanonicalConversionException(String.format("[%s %010d] - %s", obj.getClass().getSimpleName(), System.identityHashCode(obj), e.getMessage()), e.getCause());
         }
-        return processedKey;
     }
 }
@@ -0,0 +1,165 @@
+package com.macgregor.ef.converters;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Assigns every translation key a dense int id, so translators for several locales can share one copy of the keys and
+ * keep only an array of values each, see IndexedTranslator. Keys are stored split at their last '_', like ACHIEVE_DESC_
+ * and 1, with both halves shared between keys. A book's keys mostly repeat a few hundred prefixes.
+ *
+ * Lookups are a single hash probe against the stored halves without building any strings, and never lock. Keys are
+ * added a batch at a time by copying the table and publishing the copy, so readers always see a complete table.
+ */
+public final class TranslationKeyDictionary {
+    private volatile Table table = new Table(new String[0], new int[0], new String[0], new int[0], 0, new int[2]);
+
+    // writer side state, guarded by this
+    private final Map<String, Integer> prefixIds = new HashMap<>();
+    private final Map<String, String> suffixes = new HashMap<>();
+
+    private static final class Table {
+        private final String[] prefixes;
+        private final int[] keyPrefixes;
+        private final String[] keySuffixes;
+        private final int[] keyHashes;
+        private final int size;
+        // open addressing table of key id + 1, 0 marks an empty slot
+        private final int[] slots;
+
+        Table(String[] prefixes, int[] keyPrefixes, String[] keySuffixes, int[] keyHashes, int size, int[] slots){
+            this.prefixes = prefixes;
+            this.keyPrefixes = keyPrefixes;
+            this.keySuffixes = keySuffixes;
+            this.keyHashes = keyHashes;
+            this.size = size;
+            this.slots = slots;
+        }
+
+        int find(String key){
+            int hash = key.hashCode();
+            int mask = slots.length - 1;
+            for(int slot = spread(hash) & mask; slots[slot] != 0; slot = (slot + 1) & mask){
+                int id = slots[slot] - 1;
+                if(keyHashes[id] == hash && matches(key, id)){
+                    return id;
+                }
+            }
+            return -1;
+        }
+
+        private boolean matches(String key, int id){
+            String prefix = prefixes[keyPrefixes[id]];
+            String suffix = keySuffixes[id];
+            return key.length() == prefix.length() + suffix.length()
+                    && key.startsWith(prefix)
+                    && key.regionMatches(prefix.length(), suffix, 0, suffix.length());
+        }
+    }
+
+    /**
+     * @return the key's id, or -1 if it has never been added
+     */
+    public int find(String key){
+        return key == null ? -1 : table.find(key);
+    }
+
+    /**
+     * Adds the keys that arent in the dictionary yet.
+     *
+     * @return the id of each key, in the order the keys were given
+     */
+    public synchronized int[] intern(Collection<String> keys){
+        Table current = table;
+        int capacity = current.size + keys.size();
+        List<String> prefixes = new ArrayList<>(Arrays.asList(current.prefixes));
+        int[] keyPrefixes = Arrays.copyOf(current.keyPrefixes, capacity);
+        String[] keySuffixes = Arrays.copyOf(current.keySuffixes, capacity);
+        int[] keyHashes = Arrays.copyOf(current.keyHashes, capacity);
+        int[] slots = current.slots.length >= capacity * 2 ? current.slots.clone() : new int[tableSize(capacity)];
+        boolean rehash = slots.length != current.slots.length;
+        int size = current.size;
+        if(rehash){
+            for(int id = 0; id < size; id++){
+                insert(slots, keyHashes[id], id);
+            }
+        }
+
+        int[] ids = new int[keys.size()];
+        Map<String, Integer> added = new HashMap<>();
+        int i = 0;
+        for(String key : keys){
+            if(key == null){
+                throw new IllegalArgumentException("Translation key cant be null");
+            }
+            int id = current.find(key);
+            if(id < 0){
+                Integer pending = added.get(key);
+                if(pending == null){
+                    id = size++;
+                    int split = key.lastIndexOf('_') + 1;
+                    String prefix = key.substring(0, split);
+                    Integer prefixId = prefixIds.get(prefix);
+                    if(prefixId == null){
+                        prefixId = prefixes.size();
+                        prefixIds.put(prefix, prefixId);
+                        prefixes.add(prefix);
+                    }
+                    keyPrefixes[id] = prefixId;
+                    String suffix = key.substring(split);
+                    String shared = suffixes.putIfAbsent(suffix, suffix);
+                    keySuffixes[id] = shared == null ? suffix : shared;
+                    keyHashes[id] = key.hashCode();
+                    insert(slots, keyHashes[id], id);
+                    added.put(key, id);
+                } else{
+                    id = pending;
+                }
+            }
+            ids[i++] = id;
+        }
+
+        if(size != current.size){
+            table = new Table(prefixes.toArray(new String[0]), Arrays.copyOf(keyPrefixes, size),
+                    Arrays.copyOf(keySuffixes, size), Arrays.copyOf(keyHashes, size), size, slots);
+        }
+        return ids;
+    }
+
+    public int size(){
+        return table.size;
+    }
+
+    /**
+     * @return the number of distinct key prefixes the keys share
+     */
+    public int getPrefixCount(){
+        return table.prefixes.length;
+    }
+
+    private static void insert(int[] slots, int hash, int id){
+        int mask = slots.length - 1;
+        int slot = spread(hash) & mask;
+        while(slots[slot] != 0){
+            slot = (slot + 1) & mask;
+        }
+        slots[slot] = id + 1;
+    }
+
+    // at most half full, so probe sequences stay short
+    private static int tableSize(int entries){
+        int size = 2;
+        while(size < entries * 2){
+            size <<= 1;
+        }
+        return size;
+    }
+
+    private static int spread(int hash){
+        return hash ^ (hash >>> 16);
+    }
+}
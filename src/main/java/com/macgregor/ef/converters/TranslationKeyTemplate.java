@@ -0,0 +1,93 @@
+package com.macgregor.ef.converters;
+
+import com.macgregor.ef.exceptions.CanonicalConversionException;
+import org.apache.commons.lang3.reflect.FieldUtils;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A @Translate key compiled for one source type, like "UNIT_NAME_{id}". The key is split once into literal segments
+ * and getters for the {field} references between them, so rendering a key for a record only reads those fields and
+ * appends them to a reused StringBuilder.
+ *
+ * Templates are immutable and can be rendered from several threads at once.
+ */
+public final class TranslationKeyTemplate {
+    private static final ModelAccessorFactory ACCESSORS = new MethodHandleAccessorFactory();
+    private static final ThreadLocal<StringBuilder> BUFFERS = ThreadLocal.withInitial(() -> new StringBuilder(64));
+
+    private final String key;
+    // literal text before each reference, plus a trailing literal
+    private final String[] literals;
+    private final String[] references;
+    private final ModelAccessorFactory.Getter[] getters;
+
+    private TranslationKeyTemplate(String key, List<String> literals, List<Field> fields) throws CanonicalConversionException {
+        this.key = key;
+        this.literals = literals.toArray(new String[0]);
+        this.references = new String[fields.size()];
+        this.getters = new ModelAccessorFactory.Getter[fields.size()];
+        for(int i = 0; i < fields.size(); i++){
+            references[i] = fields.get(i).getName();
+            getters[i] = ACCESSORS.getter(fields.get(i));
+        }
+    }
+
+    /**
+     * @throws CanonicalConversionException if the key references a field the type doesnt have
+     */
+    public static TranslationKeyTemplate compile(Class<?> type, String key) throws CanonicalConversionException {
+        List<String> literals = new ArrayList<>();
+        List<Field> fields = new ArrayList<>();
+        int literalStart = 0;
+        for(int open = key.indexOf('{'); open >= 0; open = key.indexOf('{', literalStart)){
+            int close = key.indexOf('}', open + 1);
+            if(close < 0){
+                break;
+            }
+            String reference = key.substring(open + 1, close);
+            Field field = reference.isEmpty() ? null : FieldUtils.getField(type, reference, true);
+            if(field == null){
+                throw new CanonicalConversionException(String.format("Invalid field reference in @Translate annotation: raw key: %s, unknown field reference: %s", key, reference));
+            }
+            literals.add(key.substring(literalStart, open));
+            fields.add(field);
+            literalStart = close + 1;
+        }
+        literals.add(key.substring(literalStart));
+        return new TranslationKeyTemplate(key, literals, fields);
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * @throws CanonicalConversionException if a referenced field is null
+     */
+    public String render(Object source) throws CanonicalConversionException {
+        if(getters.length == 0){
+            return key;
+        }
+        StringBuilder rendered = BUFFERS.get();
+        rendered.setLength(0);
+        for(int i = 0; i < getters.length; i++){
+            rendered.append(literals[i]);
+            Object value;
+            try {
+                value = getters[i].get(source);
+            } catch (Error e) {
+                throw e;
+            } catch (Throwable t) {
+                throw new CanonicalConversionException(String.format("Unexpected error reading field %s, this probably shouldnt ever happen", references[i]), t);
+            }
+            if(value == null){
+                throw new CanonicalConversionException(String.format("Error reading field %s, value is probably null", references[i]));
+            }
+            rendered.append(value);
+        }
+        return rendered.append(literals[getters.length]).toString();
+    }
+}
@@ -0,0 +1,14 @@
+package com.macgregor.ef.converters;
+
+import com.macgregor.ef.exceptions.CanonicalConversionException;
+
+/**
+ * Converts a non-null source model value to one type. Values that cant be converted should come back as null, the
+ * same as an empty value, rather than failing the whole model.
+ *
+ * @param <T> type values are converted to
+ */
+@FunctionalInterface
+public interface ValueConverter<T> {
+    T convert(Object value) throws CanonicalConversionException;
+}
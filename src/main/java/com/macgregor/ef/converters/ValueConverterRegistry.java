@@ -0,0 +1,335 @@
+package com.macgregor.ef.converters;
+
+import com.macgregor.ef.exceptions.CanonicalConversionException;
+
+import java.lang.reflect.Array;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The ValueConverters a CanonicalFieldConverter converts with, looked up by target type. A registry is immutable once
+ * built so one can be shared by any number of converters and threads. Each loader can still use its own, unlike the
+ * global BeanUtils ConvertUtils registry this replaces.
+ *
+ * Array types dont need registering, they are converted element by element with the component type's converter.
+ * Strings are split with DelimitedListParser, for example "1|2|3" or "{a#b}". Primitive arrays are parsed without
+ * boxing, with unparsable elements left as 0 or false.
+ *
+ * The default converters return null for empty or unparsable values and accept the true/false strings in
+ * CanonicalFieldConverter.TRUE_STRINGS and FALSE_STRINGS for booleans.
+ */
+public final class ValueConverterRegistry {
+    private static final ValueConverter<Boolean> BOOLEAN_CONVERTER = ValueConverterRegistry::toBoolean;
+    private static final ValueConverter<Short> SHORT_CONVERTER = ValueConverterRegistry::toShort;
+    private static final ValueConverter<Integer> INTEGER_CONVERTER = ValueConverterRegistry::toInteger;
+    private static final ValueConverter<Long> LONG_CONVERTER = ValueConverterRegistry::toLong;
+    private static final ValueConverter<Float> FLOAT_CONVERTER = ValueConverterRegistry::toFloat;
+    private static final ValueConverter<Double> DOUBLE_CONVERTER = ValueConverterRegistry::toDouble;
+    private static final ValueConverter<Character> CHARACTER_CONVERTER = ValueConverterRegistry::toCharacter;
+    private static final ValueConverter<String> STRING_CONVERTER = Object::toString;
+    private static final ValueConverter<BigInteger> BIG_INTEGER_CONVERTER = ValueConverterRegistry::toBigInteger;
+    private static final ValueConverter<BigDecimal> BIG_DECIMAL_CONVERTER = ValueConverterRegistry::toBigDecimal;
+
+    private static final ValueConverterRegistry DEFAULTS = builder().registerDefaults().build();
+
+    private final Map<Class<?>, ValueConverter<?>> converters;
+    // derived from converters, so caching them doesnt make the registry any less immutable
+    private final ConcurrentMap<Class<?>, ValueConverter<?>> arrayConverters = new ConcurrentHashMap<>();
+
+    public static class Builder {
+        private final Map<Class<?>, ValueConverter<?>> converters = new HashMap<>();
+
+        private Builder(){}
+
+        private Builder(Map<Class<?>, ValueConverter<?>> converters){
+            this.converters.putAll(converters);
+        }
+
+        /**
+         * Registers a converter for a type, replacing any converter already registered for it. Register primitive
+         * types separately from their wrappers, for example both int.class and Integer.class.
+         */
+        public <T> Builder register(Class<T> type, ValueConverter<? extends T> converter){
+            if(type.isArray()){
+                throw new IllegalArgumentException(String.format("Array type %s is converted with its component type's converter", type.getSimpleName()));
+            }
+            converters.put(type, converter);
+            return this;
+        }
+
+        public Builder registerDefaults(){
+            register(Boolean.class, BOOLEAN_CONVERTER);
+            register(boolean.class, BOOLEAN_CONVERTER);
+            register(Short.class, SHORT_CONVERTER);
+            register(short.class, SHORT_CONVERTER);
+            register(Integer.class, INTEGER_CONVERTER);
+            register(int.class, INTEGER_CONVERTER);
+            register(Long.class, LONG_CONVERTER);
+            register(long.class, LONG_CONVERTER);
+            register(Float.class, FLOAT_CONVERTER);
+            register(float.class, FLOAT_CONVERTER);
+            register(Double.class, DOUBLE_CONVERTER);
+            register(double.class, DOUBLE_CONVERTER);
+            register(Character.class, CHARACTER_CONVERTER);
+            register(char.class, CHARACTER_CONVERTER);
+            register(String.class, STRING_CONVERTER);
+            register(BigInteger.class, BIG_INTEGER_CONVERTER);
+            register(BigDecimal.class, BIG_DECIMAL_CONVERTER);
+            return this;
+        }
+
+        public ValueConverterRegistry build(){
+            return new ValueConverterRegistry(new HashMap<>(converters));
+        }
+    }
+
+    private ValueConverterRegistry(Map<Class<?>, ValueConverter<?>> converters){
+        this.converters = Collections.unmodifiableMap(converters);
+    }
+
+    /**
+     * @return the shared registry of default converters
+     */
+    public static ValueConverterRegistry defaults(){
+        return DEFAULTS;
+    }
+
+    public static Builder builder(){
+        return new Builder();
+    }
+
+    /**
+     * @return a builder starting from this registry's converters, to build a customized copy
+     */
+    public Builder toBuilder(){
+        return new Builder(converters);
+    }
+
+    /**
+     * Converts a value to the given type. Null converts to null, or to an empty array for array types. Values that are
+     * already of an unregistered type are returned as is.
+     *
+     * @throws CanonicalConversionException if no converter is registered for the type
+     */
+    public Object convert(Object value, Class<?> type) throws CanonicalConversionException {
+        ValueConverter<?> converter = lookup(type);
+        if(converter == null){
+            if(value == null || type.isInstance(value)){
+                return value;
+            }
+            throw new CanonicalConversionException(String.format("No converter registered for %s, cannot convert %s", type.getSimpleName(), value));
+        }
+        if(value == null){
+            return type.isArray() ? Array.newInstance(type.getComponentType(), 0) : null;
+        }
+        return converter.convert(value);
+    }
+
+    /**
+     * @return true if the type is converted with the same converter as in the default registry, which lets callers
+     *  safely take shortcuts that assume the default conversion rules
+     */
+    public boolean isDefault(Class<?> type){
+        ValueConverter<?> converter = converters.get(type);
+        return converter != null && converter == DEFAULTS.converters.get(type);
+    }
+
+    /**
+     * @return the converter for the type, or null if there is none
+     */
+    public ValueConverter<?> lookup(Class<?> type){
+        if(!type.isArray()){
+            return converters.get(type);
+        }
+        ValueConverter<?> converter = arrayConverters.get(type);
+        if(converter == null){
+            Class<?> componentType = type.getComponentType();
+            if(!componentType.isPrimitive() && lookup(componentType) == null){
+                return null;
+            }
+            converter = new ArrayConverter(componentType);
+            ValueConverter<?> existing = arrayConverters.putIfAbsent(type, converter);
+            if(existing != null){
+                converter = existing;
+            }
+        }
+        return converter;
+    }
+
+    private class ArrayConverter implements ValueConverter<Object> {
+        private final Class<?> componentType;
+
+        ArrayConverter(Class<?> componentType){
+            this.componentType = componentType;
+        }
+
+        @Override
+        public Object convert(Object value) throws CanonicalConversionException {
+            if(value instanceof CharSequence){
+                return fromDelimited((CharSequence) value);
+            }
+            if(value.getClass().isArray()){
+                int length = Array.getLength(value);
+                Object array = Array.newInstance(componentType, length);
+                for(int i = 0; i < length; i++){
+                    set(array, i, ValueConverterRegistry.this.convert(Array.get(value, i), componentType));
+                }
+                return array;
+            }
+            if(value instanceof Collection){
+                Collection<?> values = (Collection<?>) value;
+                Object array = Array.newInstance(componentType, values.size());
+                Iterator<?> it = values.iterator();
+                for(int i = 0; it.hasNext(); i++){
+                    set(array, i, ValueConverterRegistry.this.convert(it.next(), componentType));
+                }
+                return array;
+            }
+            return fromDelimited(value.toString());
+        }
+
+        private Object fromDelimited(CharSequence s) throws CanonicalConversionException {
+            int start = DelimitedListParser.listStart(s);
+            int end = DelimitedListParser.listEnd(s);
+            Object array = Array.newInstance(componentType, DelimitedListParser.countTokens(s, start, end));
+            int index = 0;
+            for(int i = DelimitedListParser.nextTokenStart(s, start, end); i < end; ){
+                int tokenEnd = DelimitedListParser.tokenEnd(s, i, end);
+                setParsed(array, index++, s, i, tokenEnd);
+                i = DelimitedListParser.nextTokenStart(s, tokenEnd, end);
+            }
+            return array;
+        }
+
+        private void setParsed(Object array, int index, CharSequence s, int start, int end) throws CanonicalConversionException {
+            try {
+                if(componentType == int.class){
+                    ((int[]) array)[index] = PrimitiveParsers.parseInt(s, start, end);
+                } else if(componentType == long.class){
+                    ((long[]) array)[index] = PrimitiveParsers.parseLong(s, start, end);
+                } else if(componentType == double.class){
+                    ((double[]) array)[index] = PrimitiveParsers.parseDouble(s, start, end);
+                } else if(componentType == boolean.class){
+                    ((boolean[]) array)[index] = PrimitiveParsers.parseBoolean(s, start, end) == PrimitiveParsers.TRUE;
+                } else if(componentType == Integer.class && isDefault(Integer.class)){
+                    ((Object[]) array)[index] = PrimitiveParsers.parseInt(s, start, end);
+                } else if(componentType == Double.class && isDefault(Double.class)){
+                    ((Object[]) array)[index] = PrimitiveParsers.parseDouble(s, start, end);
+                } else{
+                    set(array, index, ValueConverterRegistry.this.convert(s.subSequence(start, end).toString(), componentType));
+                }
+            } catch (NumberFormatException e) {
+                // elements that cant be parsed are left as null, or 0 in primitive arrays
+            }
+        }
+
+        private void set(Object array, int index, Object element){
+            if(element != null || !componentType.isPrimitive()){
+                Array.set(array, index, element);
+            }
+        }
+    }
+
+    private static CharSequence text(Object value){
+        return value instanceof CharSequence ? (CharSequence) value : value.toString();
+    }
+
+    private static Boolean toBoolean(Object value){
+        if(value instanceof Boolean){
+            return (Boolean) value;
+        }
+        switch(PrimitiveParsers.parseBoolean(text(value))){
+            case PrimitiveParsers.TRUE:
+                return Boolean.TRUE;
+            case PrimitiveParsers.FALSE:
+                return Boolean.FALSE;
+            default:
+                return null;
+        }
+    }
+
+    private static Short toShort(Object value){
+        Integer i = toInteger(value);
+        return i == null || i < Short.MIN_VALUE || i > Short.MAX_VALUE ? null : i.shortValue();
+    }
+
+    private static Integer toInteger(Object value){
+        if(value instanceof Integer){
+            return (Integer) value;
+        }
+        if(value instanceof Number){
+            long l = ((Number) value).longValue();
+            return l < Integer.MIN_VALUE || l > Integer.MAX_VALUE ? null : (int) l;
+        }
+        try {
+            return PrimitiveParsers.parseInt(text(value));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static Long toLong(Object value){
+        if(value instanceof Number){
+            return ((Number) value).longValue();
+        }
+        try {
+            return PrimitiveParsers.parseLong(text(value));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static Float toFloat(Object value){
+        if(value instanceof Number){
+            double d = ((Number) value).doubleValue();
+            return Math.abs(d) > Float.MAX_VALUE && !Double.isInfinite(d) ? null : (float) d;
+        }
+        try {
+            return Float.parseFloat(text(value).toString().trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static Double toDouble(Object value){
+        if(value instanceof Number){
+            return ((Number) value).doubleValue();
+        }
+        try {
+            return PrimitiveParsers.parseDouble(text(value));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static Character toCharacter(Object value){
+        if(value instanceof Character){
+            return (Character) value;
+        }
+        CharSequence s = text(value);
+        return s.length() == 0 ? null : s.charAt(0);
+    }
+
+    private static BigInteger toBigInteger(Object value){
+        try {
+            return new BigInteger(text(value).toString().trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static BigDecimal toBigDecimal(Object value){
+        try {
+            return new BigDecimal(text(value).toString().trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.macgregor.ef.exceptions;
+
+/**
+ * Carries a DataLoadException out of code that cant throw checked exceptions, like a lazily evaluated Stream.
+ */
+public class UncheckedDataLoadException extends RuntimeException {
+    public UncheckedDataLoadException(DataLoadException cause){
+        super(cause.getMessage(), cause);
+    }
+
+    @Override
+    public synchronized DataLoadException getCause() {
+        return (DataLoadException) super.getCause();
+    }
+}
@@ -0,0 +1,98 @@
+package com.macgregor.ef.incremental;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Keeps the fingerprint of every loaded record, by entity type and id, in a table next to the loaded data so the next
+ * load can tell which records changed. Uses H2's MERGE for upserts. Transactions are left to the caller, so the
+ * fingerprints are committed or rolled back together with the records they describe.
+ */
+public class FingerprintStore {
+    public static final String DEFAULT_TABLE = "load_fingerprint";
+
+    private final String table;
+
+    public FingerprintStore(){
+        this(DEFAULT_TABLE);
+    }
+
+    public FingerprintStore(String table){
+        this.table = table;
+    }
+
+    public String getTable() {
+        return table;
+    }
+
+    public void createTableIfMissing(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(String.format("create table if not exists %s (entity_type varchar(255) not null, "
+                    + "entity_id varchar(255) not null, fingerprint char(64) not null, primary key (entity_type, entity_id))", table));
+        }
+    }
+
+    /**
+     * @return fingerprint by id of every record of the entity type
+     */
+    public Map<String, String> load(Connection connection, String entityType) throws SQLException {
+        Map<String, String> fingerprints = new HashMap<>();
+        try (PreparedStatement statement = connection.prepareStatement(String.format("select entity_id, fingerprint from %s where entity_type = ?", table))) {
+            statement.setString(1, entityType);
+            try (ResultSet rs = statement.executeQuery()) {
+                while(rs.next()){
+                    fingerprints.put(rs.getString(1), rs.getString(2));
+                }
+            }
+        }
+        return fingerprints;
+    }
+
+    /**
+     * Adds or replaces fingerprints by id.
+     */
+    public void put(Connection connection, String entityType, Map<String, String> fingerprints) throws SQLException {
+        if(fingerprints.isEmpty()){
+            return;
+        }
+        try (PreparedStatement statement = connection.prepareStatement(String.format("merge into %s (entity_type, entity_id, fingerprint) key (entity_type, entity_id) values (?, ?, ?)", table))) {
+            for(Map.Entry<String, String> fingerprint : fingerprints.entrySet()){
+                statement.setString(1, entityType);
+                statement.setString(2, fingerprint.getKey());
+                statement.setString(3, fingerprint.getValue());
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        }
+    }
+
+    public void remove(Connection connection, String entityType, Collection<String> ids) throws SQLException {
+        if(ids.isEmpty()){
+            return;
+        }
+        try (PreparedStatement statement = connection.prepareStatement(String.format("delete from %s where entity_type = ? and entity_id = ?", table))) {
+            for(String id : ids){
+                statement.setString(1, entityType);
+                statement.setString(2, id);
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        }
+    }
+
+    /**
+     * Removes every fingerprint of the entity type, so the next incremental load writes all of its records again.
+     */
+    public void clear(Connection connection, String entityType) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(String.format("delete from %s where entity_type = ?", table))) {
+            statement.setString(1, entityType);
+            statement.executeUpdate();
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.macgregor.ef.incremental;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Computes a SHA-256 fingerprint of a record's field values, so a record can be compared with the one loaded last
+ * time without keeping the old record around. Two records with equal field values have the same fingerprint no matter
+ * the JVM or run. Fields are read in name order, collections and arrays element by element and other objects, like
+ * referenced entities, field by field. Static and transient fields are ignored.
+ */
+public class RecordFingerprinter {
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private static final ClassValue<List<Field>> FIELDS = new ClassValue<List<Field>>() {
+        @Override
+        protected List<Field> computeValue(Class<?> type) {
+            List<Field> fields = new ArrayList<>();
+            for(Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()){
+                for(Field field : c.getDeclaredFields()){
+                    int modifiers = field.getModifiers();
+                    if(!Modifier.isStatic(modifiers) && !Modifier.isTransient(modifiers) && !field.isSynthetic()){
+                        field.setAccessible(true);
+                        fields.add(field);
+                    }
+                }
+            }
+            fields.sort(Comparator.comparing(Field::getName).thenComparing(f -> f.getDeclaringClass().getName()));
+            return Collections.unmodifiableList(fields);
+        }
+    };
+
+    /**
+     * @return the fingerprint as 64 hex characters
+     */
+    public String fingerprint(Object record){
+        StringBuilder content = new StringBuilder(256);
+        append(content, record, Collections.newSetFromMap(new IdentityHashMap<>()));
+
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+        byte[] hash = digest.digest(content.toString().getBytes(StandardCharsets.UTF_8));
+        char[] hex = new char[hash.length * 2];
+        for(int i = 0; i < hash.length; i++){
+            hex[i * 2] = HEX[(hash[i] >> 4) & 0xf];
+            hex[i * 2 + 1] = HEX[hash[i] & 0xf];
+        }
+        return new String(hex);
+    }
+
+    private static void append(StringBuilder content, Object value, Set<Object> visiting){
+        if(value == null){
+            content.append('\u0000');
+        } else if(value instanceof CharSequence || value instanceof Number || value instanceof Boolean || value instanceof Character){
+            content.append(value).append('\u0001');
+        } else if(value instanceof Enum){
+            content.append(((Enum<?>) value).name()).append('\u0001');
+        } else if(value.getClass().isArray()){
+            content.append('[');
+            for(int i = 0; i < Array.getLength(value); i++){
+                append(content, Array.get(value, i), visiting);
+            }
+            content.append(']');
+        } else if(value instanceof Collection){
+            content.append('[');
+            for(Object element : (Collection<?>) value){
+                append(content, element, visiting);
+            }
+            content.append(']');
+        } else if(value instanceof Map){
+            content.append('{');
+            for(Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()){
+                append(content, entry.getKey(), visiting);
+                append(content, entry.getValue(), visiting);
+            }
+            content.append('}');
+        } else if(value.getClass().getName().startsWith("java.")){
+            content.append(value).append('\u0001');
+        } else if(visiting.add(value)){
+            content.append(value.getClass().getName()).append('{');
+            for(Field field : FIELDS.get(value.getClass())){
+                content.append(field.getName()).append('=');
+                try {
+                    append(content, field.get(value), visiting);
+                } catch (IllegalAccessException e) {
+                    throw new IllegalStateException(String.format("Unable to read %s.%s", value.getClass().getSimpleName(), field.getName()), e);
+                }
+            }
+            content.append('}');
+            visiting.remove(value);
+        } else{
+            // reference back to an object already being fingerprinted
+            content.append('^');
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.macgregor.ef.incremental;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Remembers the content hash of the source file each load step last read, keyed by source, path expression and
+ * entity type, along with the number of rows the step left in its table. A step whose source hashes the same as last
+ * time doesnt need to run again. Hashes are kept in a table next to the loaded data, using H2's MERGE for upserts.
+ *
+ * Hashing a file is cached until its size or modification time changes, so checking and then recording a step only
+ * reads the file once.
+ */
+public class SourceHashStore {
+    public static final String DEFAULT_TABLE = "load_source_hash";
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final String table;
+    private final ConcurrentMap<Path, CachedHash> hashes = new ConcurrentHashMap<>();
+
+    /**
+     * Hash and row count recorded for a step.
+     */
+    public static class Entry {
+        private final String hash;
+        private final int rows;
+
+        public Entry(String hash, int rows){
+            this.hash = hash;
+            this.rows = rows;
+        }
+
+        public String getHash() {
+            return hash;
+        }
+
+        public int getRows() {
+            return rows;
+        }
+    }
+
+    private static class CachedHash {
+        private final long size;
+        private final long lastModified;
+        private final String hash;
+
+        CachedHash(long size, long lastModified, String hash){
+            this.size = size;
+            this.lastModified = lastModified;
+            this.hash = hash;
+        }
+    }
+
+    public SourceHashStore(){
+        this(DEFAULT_TABLE);
+    }
+
+    public SourceHashStore(String table){
+        this.table = table;
+    }
+
+    /**
+     * @return SHA-256 of the file's content as 64 hex characters
+     */
+    public String hash(String uri) throws IOException {
+        Path path = Paths.get(uri).toAbsolutePath();
+        long size = Files.size(path);
+        long lastModified = Files.getLastModifiedTime(path).toMillis();
+        CachedHash cached = hashes.get(path);
+        if(cached != null && cached.size == size && cached.lastModified == lastModified){
+            return cached.hash;
+        }
+
+        MessageDigest digest = sha256();
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = Files.newInputStream(path)) {
+            for(int read = in.read(buffer); read >= 0; read = in.read(buffer)){
+                digest.update(buffer, 0, read);
+            }
+        }
+        String hash = hex(digest.digest());
+        hashes.put(path, new CachedHash(size, lastModified, hash));
+        return hash;
+    }
+
+    /**
+     * Combines hashes, and anything else a step's output depends on, into one 64 character hash that changes when any
+     * of them does.
+     */
+    public String combine(String... parts){
+        MessageDigest digest = sha256();
+        for(String part : parts){
+            digest.update(part.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+        }
+        return hex(digest.digest());
+    }
+
+    private static MessageDigest sha256(){
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static String hex(byte[] bytes){
+        char[] hex = new char[bytes.length * 2];
+        for(int i = 0; i < bytes.length; i++){
+            hex[i * 2] = HEX[(bytes[i] >> 4) & 0xf];
+            hex[i * 2 + 1] = HEX[bytes[i] & 0xf];
+        }
+        return new String(hex);
+    }
+
+    public void createTableIfMissing(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(String.format("create table if not exists %s (source varchar(1024) not null, path varchar(255) not null, "
+                    + "entity_type varchar(255) not null, content_hash char(64) not null, row_count int not null, "
+                    + "primary key (source, path, entity_type))", table));
+        }
+    }
+
+    /**
+     * @return what was recorded for the step, or null if nothing was
+     */
+    public Entry load(Connection connection, String source, String path, String entityType) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(String.format("select content_hash, row_count from %s where source = ? and path = ? and entity_type = ?", table))) {
+            statement.setString(1, source);
+            statement.setString(2, path);
+            statement.setString(3, entityType);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() ? new Entry(rs.getString(1), rs.getInt(2)) : null;
+            }
+        }
+    }
+
+    public void put(Connection connection, String source, String path, String entityType, Entry entry) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(String.format("merge into %s (source, path, entity_type, content_hash, row_count) key (source, path, entity_type) values (?, ?, ?, ?, ?)", table))) {
+            statement.setString(1, source);
+            statement.setString(2, path);
+            statement.setString(3, entityType);
+            statement.setString(4, entry.getHash());
+            statement.setInt(5, entry.getRows());
+            statement.executeUpdate();
+        }
+    }
+}
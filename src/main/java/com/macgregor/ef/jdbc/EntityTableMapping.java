@@ -0,0 +1,312 @@
+package com.macgregor.ef.jdbc;
+
+import javax.persistence.*;
+import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Table and column mapping of a JPA entity, read from its annotations once per type so rows can be inserted with plain
+ * JDBC. Names follow the same defaults Hibernate uses here: @Table/@Entity names or the class name for the table,
+ * @Column names or the field name for columns, and owning table + "_" + field name for @ElementCollection tables,
+ * joined on entity name + "_" + id column.
+ *
+ * Only what reference data entities need is supported: field access, assigned ids, basic columns (with @Enumerated and
+ * @Convert) and element collections of basic values. Anything else, like relationships, embeddables or generated ids,
+ * makes forType() throw an IllegalArgumentException so the caller can fall back to persisting through Hibernate.
+ */
+public final class EntityTableMapping<T> {
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+    private static final List<Class<? extends Annotation>> UNSUPPORTED = Arrays.asList(
+            OneToMany.class, ManyToOne.class, OneToOne.class, ManyToMany.class, Embedded.class, EmbeddedId.class, GeneratedValue.class);
+
+    private static final ClassValue<Object> MAPPINGS = new ClassValue<Object>() {
+        @Override
+        protected Object computeValue(Class<?> type) {
+            try {
+                return new EntityTableMapping<>(type);
+            } catch (IllegalArgumentException e) {
+                return e;
+            }
+        }
+    };
+
+    private final Class<T> type;
+    private final String tableName;
+    private final List<ColumnMapping> columns = new ArrayList<>();
+    private final List<CollectionMapping> collections = new ArrayList<>();
+    private final ColumnMapping id;
+    private final String insertSql;
+
+    /**
+     * @throws IllegalArgumentException if the type isnt an entity or uses mappings that cant be inserted directly
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> EntityTableMapping<T> forType(Class<T> type){
+        Object mapping = MAPPINGS.get(type);
+        if(mapping instanceof IllegalArgumentException){
+            throw new IllegalArgumentException(((IllegalArgumentException) mapping).getMessage());
+        }
+        return (EntityTableMapping<T>) mapping;
+    }
+
+    /**
+     * @return true if forType() can map the type
+     */
+    public static boolean isSupported(Class<?> type){
+        return !(MAPPINGS.get(type) instanceof IllegalArgumentException);
+    }
+
+    private EntityTableMapping(Class<T> type){
+        Entity entity = type.getAnnotation(Entity.class);
+        if(entity == null){
+            throw new IllegalArgumentException(String.format("%s is not an @Entity", type.getSimpleName()));
+        }
+        this.type = type;
+        String entityName = entity.name().isEmpty() ? type.getSimpleName() : entity.name();
+        Table table = type.getAnnotation(Table.class);
+        this.tableName = table == null || table.name().isEmpty() ? entityName : table.name();
+
+        ColumnMapping idColumn = null;
+        List<Field> collectionFields = new ArrayList<>();
+        for(Field field : persistentFields(type)){
+            for(Class<? extends Annotation> unsupported : UNSUPPORTED){
+                if(field.isAnnotationPresent(unsupported)){
+                    throw new IllegalArgumentException(String.format("%s.%s uses @%s which cant be inserted directly",
+                            type.getSimpleName(), field.getName(), unsupported.getSimpleName()));
+                }
+            }
+            if(field.isAnnotationPresent(ElementCollection.class)){
+                collectionFields.add(field);
+                continue;
+            }
+            if(Collection.class.isAssignableFrom(field.getType()) || Map.class.isAssignableFrom(field.getType())){
+                throw new IllegalArgumentException(String.format("%s.%s is a collection without @ElementCollection",
+                        type.getSimpleName(), field.getName()));
+            }
+            ColumnMapping column = new ColumnMapping(columnName(field), field);
+            columns.add(column);
+            if(field.isAnnotationPresent(Id.class)){
+                idColumn = column;
+            }
+        }
+        if(idColumn == null){
+            throw new IllegalArgumentException(String.format("%s has no @Id field, only field access is supported", type.getSimpleName()));
+        }
+        this.id = idColumn;
+        for(Field field : collectionFields){
+            collections.add(new CollectionMapping(entityName, field));
+        }
+        this.insertSql = insertSql(tableName, columns.stream().map(c -> c.name).collect(Collectors.toList()));
+    }
+
+    public Class<T> getType() {
+        return type;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public List<String> getColumnNames(){
+        return columns.stream().map(c -> c.name).collect(Collectors.toList());
+    }
+
+    public String getInsertSql() {
+        return insertSql;
+    }
+
+    public List<CollectionMapping> getCollections() {
+        return Collections.unmodifiableList(collections);
+    }
+
+    /**
+     * Sets the insert statement's parameters to the entity's column values.
+     */
+    public void bind(PreparedStatement statement, T entity) throws SQLException {
+        for(int i = 0; i < columns.size(); i++){
+            statement.setObject(i + 1, columns.get(i).value(entity));
+        }
+    }
+
+    /**
+     * A basic valued @ElementCollection, stored as one row per element in its own table.
+     */
+    public final class CollectionMapping {
+        private final String tableName;
+        private final String joinColumn;
+        private final String elementColumn;
+        private final String orderColumn;
+        private final MethodHandle getter;
+        private final ValueWriter writer;
+        private final String insertSql;
+
+        private CollectionMapping(String entityName, Field field){
+            Class<?> fieldType = field.getType();
+            if(!Collection.class.isAssignableFrom(fieldType)){
+                throw new IllegalArgumentException(String.format("%s.%s: only Collection valued @ElementCollections are supported",
+                        type.getSimpleName(), field.getName()));
+            }
+            CollectionTable collectionTable = field.getAnnotation(CollectionTable.class);
+            this.tableName = collectionTable == null || collectionTable.name().isEmpty()
+                    ? EntityTableMapping.this.tableName + "_" + field.getName()
+                    : collectionTable.name();
+            this.joinColumn = collectionTable == null || collectionTable.joinColumns().length == 0 || collectionTable.joinColumns()[0].name().isEmpty()
+                    ? entityName + "_" + id.name
+                    : collectionTable.joinColumns()[0].name();
+            this.elementColumn = columnName(field);
+            OrderColumn order = field.getAnnotation(OrderColumn.class);
+            this.orderColumn = order == null ? null : order.name().isEmpty() ? field.getName() + "_ORDER" : order.name();
+            this.getter = getter(field);
+            this.writer = writer(field);
+
+            List<String> names = new ArrayList<>(Arrays.asList(joinColumn, elementColumn));
+            if(orderColumn != null){
+                names.add(orderColumn);
+            }
+            this.insertSql = EntityTableMapping.insertSql(tableName, names);
+        }
+
+        public String getTableName() {
+            return tableName;
+        }
+
+        public String getInsertSql() {
+            return insertSql;
+        }
+
+        /**
+         * Adds a batch row for every element of the entity's collection.
+         *
+         * @return the number of rows added
+         */
+        public int addBatch(PreparedStatement statement, T entity) throws SQLException {
+            Collection<?> elements = (Collection<?>) invoke(getter, entity);
+            if(elements == null){
+                return 0;
+            }
+            Object ownerId = id.value(entity);
+            int index = 0;
+            for(Object element : elements){
+                statement.setObject(1, ownerId);
+                statement.setObject(2, writer.write(element));
+                if(orderColumn != null){
+                    statement.setInt(3, index);
+                }
+                statement.addBatch();
+                index++;
+            }
+            return index;
+        }
+    }
+
+    private static class ColumnMapping {
+        private final String name;
+        private final MethodHandle getter;
+        private final ValueWriter writer;
+
+        ColumnMapping(String name, Field field){
+            this.name = name;
+            this.getter = getter(field);
+            this.writer = writer(field);
+        }
+
+        Object value(Object entity){
+            return writer.write(invoke(getter, entity));
+        }
+    }
+
+    @FunctionalInterface
+    private interface ValueWriter {
+        Object write(Object value);
+    }
+
+    private static List<Field> persistentFields(Class<?> type){
+        Deque<Class<?>> hierarchy = new ArrayDeque<>();
+        for(Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()){
+            if(c == type || c.isAnnotationPresent(MappedSuperclass.class) || c.isAnnotationPresent(Entity.class)){
+                hierarchy.addFirst(c);
+            }
+        }
+
+        List<Field> fields = new ArrayList<>();
+        for(Class<?> c : hierarchy){
+            for(Method method : c.getDeclaredMethods()){
+                if(method.isAnnotationPresent(Id.class)){
+                    throw new IllegalArgumentException(String.format("%s uses property access, only field access is supported", type.getSimpleName()));
+                }
+            }
+            for(Field field : c.getDeclaredFields()){
+                int modifiers = field.getModifiers();
+                if(!Modifier.isStatic(modifiers) && !Modifier.isTransient(modifiers) && !field.isSynthetic()
+                        && !field.isAnnotationPresent(Transient.class)){
+                    fields.add(field);
+                }
+            }
+        }
+        return fields;
+    }
+
+    private static String columnName(Field field){
+        Column column = field.getAnnotation(Column.class);
+        return column == null || column.name().isEmpty() ? field.getName() : column.name();
+    }
+
+    private static String insertSql(String table, List<String> columns){
+        StringBuilder sql = new StringBuilder("insert into ").append(table).append(" (");
+        sql.append(String.join(", ", columns));
+        sql.append(") values (");
+        for(int i = 0; i < columns.size(); i++){
+            sql.append(i == 0 ? "?" : ", ?");
+        }
+        return sql.append(")").toString();
+    }
+
+    private static MethodHandle getter(Field field){
+        field.setAccessible(true);
+        try {
+            return MethodHandles.lookup().unreflectGetter(field).asType(GETTER_TYPE);
+        } catch (IllegalAccessException e) {
+            throw new IllegalArgumentException(String.format("Unable to create getter for %s.%s", field.getDeclaringClass().getSimpleName(), field.getName()), e);
+        }
+    }
+
+    private static Object invoke(MethodHandle getter, Object entity){
+        try {
+            return (Object) getter.invokeExact(entity);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new IllegalStateException(t);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ValueWriter writer(Field field){
+        Convert convert = field.getAnnotation(Convert.class);
+        if(convert != null && !convert.disableConversion() && convert.converter() != void.class){
+            AttributeConverter<Object, Object> converter;
+            try {
+                converter = (AttributeConverter<Object, Object>) convert.converter().getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalArgumentException(String.format("Unable to create converter %s for %s.%s",
+                        convert.converter().getSimpleName(), field.getDeclaringClass().getSimpleName(), field.getName()), e);
+            }
+            return converter::convertToDatabaseColumn;
+        }
+
+        Enumerated enumerated = field.getAnnotation(Enumerated.class);
+        if(enumerated != null && enumerated.value() == EnumType.STRING){
+            return value -> value == null ? null : ((Enum<?>) value).name();
+        }
+        return value -> value instanceof Enum ? ((Enum<?>) value).ordinal() : value;
+    }
+}
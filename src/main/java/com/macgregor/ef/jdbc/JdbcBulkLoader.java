@@ -0,0 +1,89 @@
+package com.macgregor.ef.jdbc;
+
+import com.macgregor.ef.metrics.LoadEvent;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Inserts entities with plain JDBC batches using their EntityTableMapping, skipping the ORM entity lifecycle entirely:
+ * no persistence context, no dirty checking, no cascades and no id generation. Meant for full reloads of reference
+ * data into empty tables. Transactions are left to the caller, so a failed load can be rolled back as a whole.
+ */
+public class JdbcBulkLoader {
+    public static final int DEFAULT_BATCH_SIZE = 500;
+
+    private final int batchSize;
+
+    public JdbcBulkLoader(){
+        this(DEFAULT_BATCH_SIZE);
+    }
+
+    public JdbcBulkLoader(int batchSize){
+        if(batchSize <= 0){
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+        this.batchSize = batchSize;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Inserts every entity, and the rows of its element collections, executing a batch every batchSize entities.
+     *
+     * @return the number of entities inserted
+     * @throws IllegalArgumentException if the type cant be mapped, see EntityTableMapping.forType()
+     */
+    public <T> int insert(Connection connection, Iterator<? extends T> entities, Class<T> type) throws SQLException {
+        EntityTableMapping<T> mapping = EntityTableMapping.forType(type);
+        List<EntityTableMapping<T>.CollectionMapping> collections = mapping.getCollections();
+
+        List<PreparedStatement> statements = new ArrayList<>(collections.size() + 1);
+        try {
+            PreparedStatement insert = connection.prepareStatement(mapping.getInsertSql());
+            statements.add(insert);
+            for(EntityTableMapping<T>.CollectionMapping collection : collections){
+                statements.add(connection.prepareStatement(collection.getInsertSql()));
+            }
+
+            int inserted = 0;
+            while(entities.hasNext()){
+                T entity = entities.next();
+                mapping.bind(insert, entity);
+                insert.addBatch();
+                for(int i = 0; i < collections.size(); i++){
+                    collections.get(i).addBatch(statements.get(i + 1), entity);
+                }
+                if(++inserted % batchSize == 0){
+                    executeBatches(statements, type, batchSize);
+                }
+            }
+            if(inserted % batchSize != 0){
+                executeBatches(statements, type, inserted % batchSize);
+            }
+            return inserted;
+        } finally {
+            for(PreparedStatement statement : statements){
+                statement.close();
+            }
+        }
+    }
+
+    // entity rows go first so collection rows never reference an owner that hasnt been inserted yet
+    private static void executeBatches(List<PreparedStatement> statements, Class<?> type, int entities) throws SQLException {
+        LoadEvent event = LoadEvent.begin(LoadEvent.Stage.BATCH_FLUSH, type);
+        try {
+            for(PreparedStatement statement : statements){
+                statement.executeBatch();
+            }
+        } finally {
+            event.end(entities);
+        }
+    }
+}
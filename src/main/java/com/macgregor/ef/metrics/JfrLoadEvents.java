@@ -0,0 +1,127 @@
+package com.macgregor.ef.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * LoadEvents backed by JFR. Only loaded by LoadEvent after checking jdk.jfr is there.
+ */
+final class JfrLoadEvents implements LoadEvent.Factory {
+
+    static boolean isAvailable(){
+        return FlightRecorder.isAvailable();
+    }
+
+    @Override
+    public LoadEvent begin(LoadEvent.Stage stage, String entityType) {
+        StageEvent event = create(stage);
+        if(!event.isEnabled()){
+            return LoadEvent.DISABLED;
+        }
+        event.entityType = entityType;
+        event.begin();
+        return new RecordedLoadEvent(event);
+    }
+
+    private static StageEvent create(LoadEvent.Stage stage){
+        switch (stage){
+            case STEP:
+                return new StepEvent();
+            case PARSE:
+                return new ParseEvent();
+            case XPATH_MATCH:
+                return new XPathMatchEvent();
+            case NODE_MAPPING:
+                return new NodeMappingEvent();
+            case CONVERSION:
+                return new ConversionEvent();
+            case TRANSLATION_LOOKUP:
+                return new TranslationLookupEvent();
+            case BATCH_FLUSH:
+                return new BatchFlushEvent();
+            default:
+                throw new IllegalArgumentException(String.format("No event for stage %s", stage));
+        }
+    }
+
+    private static final class RecordedLoadEvent extends LoadEvent {
+        private final StageEvent event;
+
+        private RecordedLoadEvent(StageEvent event){
+            this.event = event;
+        }
+
+        @Override
+        public boolean isEnabled() {
+            return true;
+        }
+
+        @Override
+        public void end(long records, long bytes) {
+            event.end();
+            if(event.shouldCommit()){
+                event.records = records;
+                event.bytes = bytes;
+                event.commit();
+            }
+        }
+    }
+
+    @Category({"Endless Frontier", "Data Load"})
+    @StackTrace(false)
+    abstract static class StageEvent extends Event {
+        @Label("Entity Type")
+        String entityType;
+
+        @Label("Records")
+        long records;
+
+        @Label("Size")
+        @DataAmount
+        long bytes;
+    }
+
+    @Name("com.macgregor.ef.Step")
+    @Label("Load Step")
+    @Description("A whole load step, one entity type or one LoadScheduler step")
+    static final class StepEvent extends StageEvent {}
+
+    @Name("com.macgregor.ef.Parse")
+    @Label("Parse")
+    @Description("Reading a document, records are the nodes matched")
+    static final class ParseEvent extends StageEvent {}
+
+    @Name("com.macgregor.ef.XPathMatch")
+    @Label("XPath Match")
+    @Description("Evaluating an XPath expression against a parsed document")
+    static final class XPathMatchEvent extends StageEvent {}
+
+    @Name("com.macgregor.ef.NodeMapping")
+    @Label("Node Mapping")
+    @Description("Mapping a matched node to an XML model")
+    @Threshold("1 ms")
+    static final class NodeMappingEvent extends StageEvent {}
+
+    @Name("com.macgregor.ef.Conversion")
+    @Label("Conversion")
+    @Description("Converting XML models to canonical models")
+    static final class ConversionEvent extends StageEvent {}
+
+    @Name("com.macgregor.ef.TranslationLookup")
+    @Label("Translation Lookup")
+    @Description("Translating a @Translate field, size is the length of the translation")
+    @Threshold("1 ms")
+    static final class TranslationLookupEvent extends StageEvent {}
+
+    @Name("com.macgregor.ef.BatchFlush")
+    @Label("Batch Flush")
+    @Description("Flushing a batch of persisted models to the database")
+    static final class BatchFlushEvent extends StageEvent {}
+}
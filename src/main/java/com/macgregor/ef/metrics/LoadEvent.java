@@ -0,0 +1,100 @@
+package com.macgregor.ef.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A Java Flight Recorder event spanning one stage of a load, so recordings of production loads show where time goes
+ * and which stage was running during a GC pause, without any logging. Begin an event before the stage and end it after:
+ *
+ * LoadEvent event = LoadEvent.begin(LoadEvent.Stage.PARSE, UnitXML.class);
+ * ...
+ * event.end(records, bytes);
+ *
+ * Events are recorded under com.macgregor.ef.[stage], e.g. com.macgregor.ef.Parse, and can be enabled and thresholded
+ * like any other JFR event. Per record stages (node mapping and translation lookups) are only recorded when they take
+ * longer than 1 ms by default. Building needs a JDK with jdk.jfr, 8u262 or later, which the pom enforces. When JFR isnt
+ * available at runtime, as on Java 8 runtimes before 8u262, or the event isnt enabled in the running recording, begin()
+ * returns a shared no-op event, so instrumentation costs next to nothing.
+ */
+public abstract class LoadEvent {
+    private static final Logger logger = LoggerFactory.getLogger(LoadEvent.class);
+
+    public enum Stage {
+        /** a whole load step, one entity type or one LoadScheduler step */
+        STEP,
+        /** reading the document, records are the nodes matched and bytes the size of the document */
+        PARSE,
+        /** evaluating one XPath expression against a parsed document */
+        XPATH_MATCH,
+        /** mapping one matched node to an XML model, bytes is the size of the node */
+        NODE_MAPPING,
+        /** converting a list of XML models to canonical models */
+        CONVERSION,
+        /** translating one @Translate field, bytes is the length of the translation */
+        TRANSLATION_LOOKUP,
+        /** flushing one batch of persisted models to the database */
+        BATCH_FLUSH
+    }
+
+    static final LoadEvent DISABLED = new LoadEvent() {
+        @Override
+        public boolean isEnabled() {
+            return false;
+        }
+
+        @Override
+        public void end(long records, long bytes) {}
+    };
+
+    interface Factory {
+        LoadEvent begin(Stage stage, String entityType);
+    }
+
+    // JfrLoadEvents is only touched once jdk.jfr is known to be there, otherwise it would fail to link
+    private static final Factory FACTORY = factory();
+    private static final boolean AVAILABLE = FACTORY != null;
+
+    private static Factory factory(){
+        try {
+            Class.forName("jdk.jfr.Event");
+            if(JfrLoadEvents.isAvailable()){
+                return new JfrLoadEvents();
+            }
+        } catch (ClassNotFoundException | LinkageError e) {
+            logger.debug("Java Flight Recorder is not available, load events will not be recorded");
+        }
+        return null;
+    }
+
+    /**
+     * @return whether load events can be recorded in this JVM
+     */
+    public static boolean isAvailable(){
+        return AVAILABLE;
+    }
+
+    public static LoadEvent begin(Stage stage, String entityType){
+        return AVAILABLE ? FACTORY.begin(stage, entityType) : DISABLED;
+    }
+
+    public static LoadEvent begin(Stage stage, Class<?> entityType){
+        return AVAILABLE ? FACTORY.begin(stage, entityType.getSimpleName()) : DISABLED;
+    }
+
+    /**
+     * @return whether the event is being recorded, to skip working out sizes that would only be thrown away
+     */
+    public abstract boolean isEnabled();
+
+    /**
+     * Ends the stage and commits the event.
+     *
+     * @param bytes size of the input the stage handled, or 0 where it isnt known
+     */
+    public abstract void end(long records, long bytes);
+
+    public void end(long records){
+        end(records, 0);
+    }
+}
@@ -0,0 +1,75 @@
+package com.macgregor.ef.metrics;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Per step timers and counters of a loader, covering extraction, conversion, persisting and the count() queries
+ * used to verify what was persisted. Steps are named after the type they handle: extraction is recorded under the
+ * extracted XML model and everything after it under the canonical model. When several types are extracted from a
+ * book in one pass, each of them is charged the whole pass.
+ *
+ * Recording never locks, so it is cheap enough to leave on. register() exposes the metrics over JMX.
+ */
+public class LoadMetrics implements LoadMetricsMXBean {
+    public static final String DOMAIN = "com.macgregor.ef";
+
+    private final ConcurrentMap<String, StepMetrics> steps = new ConcurrentHashMap<>();
+
+    public StepMetrics step(String name){
+        return steps.computeIfAbsent(name, StepMetrics::new);
+    }
+
+    public StepMetrics step(Class<?> type){
+        return step(type.getSimpleName());
+    }
+
+    @Override
+    public List<StepSnapshot> getSteps(){
+        List<StepSnapshot> snapshots = new ArrayList<>(steps.size());
+        for(StepMetrics step : steps.values()){
+            snapshots.add(step.snapshot());
+        }
+        snapshots.sort(Comparator.comparing(StepSnapshot::getName));
+        return snapshots;
+    }
+
+    @Override
+    public StepSnapshot getStep(String name){
+        StepMetrics step = steps.get(name);
+        return step == null ? null : step.snapshot();
+    }
+
+    @Override
+    public long getTotalRowsPersisted(){
+        return getSteps().stream().mapToLong(StepSnapshot::getRowsPersisted).sum();
+    }
+
+    @Override
+    public long getTotalConversionFailures(){
+        return getSteps().stream().mapToLong(StepSnapshot::getConversionFailures).sum();
+    }
+
+    @Override
+    public void reset(){
+        steps.values().forEach(StepMetrics::reset);
+    }
+
+    /**
+     * Registers the metrics as com.macgregor.ef:type=LoadMetrics,name=[name], for example with
+     * ManagementFactory.getPlatformMBeanServer().
+     *
+     * @return the name the metrics were registered under, to unregister them with
+     */
+    public ObjectName register(MBeanServer server, String name) throws JMException {
+        ObjectName objectName = new ObjectName(String.format("%s:type=LoadMetrics,name=%s", DOMAIN, ObjectName.quote(name)));
+        server.registerMBean(this, objectName);
+        return objectName;
+    }
+}
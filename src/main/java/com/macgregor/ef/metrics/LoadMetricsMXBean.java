@@ -0,0 +1,28 @@
+package com.macgregor.ef.metrics;
+
+import java.util.List;
+
+/**
+ * JMX view of a loader's LoadMetrics, see LoadMetrics.register().
+ */
+public interface LoadMetricsMXBean {
+
+    /**
+     * @return a snapshot of every step that has recorded anything, sorted by name
+     */
+    List<StepSnapshot> getSteps();
+
+    /**
+     * @return a snapshot of the step, or null if it hasnt recorded anything
+     */
+    StepSnapshot getStep(String name);
+
+    long getTotalRowsPersisted();
+
+    long getTotalConversionFailures();
+
+    /**
+     * Sets every total back to zero.
+     */
+    void reset();
+}
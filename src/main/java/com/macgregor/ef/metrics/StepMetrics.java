@@ -0,0 +1,100 @@
+package com.macgregor.ef.metrics;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Running totals for one load step, updated from any number of threads without locking. Times are summed across
+ * threads, so conversion time on a parallel conversion executor is CPU time rather than wall time.
+ */
+public final class StepMetrics {
+    private final String name;
+    private final LongAdder parseNanos = new LongAdder();
+    private final LongAdder parses = new LongAdder();
+    private final LongAdder recordsMatched = new LongAdder();
+    private final LongAdder conversionNanos = new LongAdder();
+    private final LongAdder converted = new LongAdder();
+    private final LongAdder conversionFailures = new LongAdder();
+    private final LongAdder persistNanos = new LongAdder();
+    private final LongAdder rowsPersisted = new LongAdder();
+    private final LongAdder verificationNanos = new LongAdder();
+    private final LongAdder verificationQueries = new LongAdder();
+    private final LongAccumulator maxQueueDepth = new LongAccumulator(Math::max, 0);
+    private final LongAdder queueFullNanos = new LongAdder();
+    private final LongAdder queueEmptyNanos = new LongAdder();
+
+    StepMetrics(String name){
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @param records the number of records the path expression matched
+     */
+    public void recordParse(long nanos, int records){
+        parseNanos.add(nanos);
+        parses.increment();
+        recordsMatched.add(records);
+    }
+
+    public void recordConversion(long nanos, boolean failed){
+        conversionNanos.add(nanos);
+        if(failed){
+            conversionFailures.increment();
+        } else{
+            converted.increment();
+        }
+    }
+
+    /**
+     * @param nanos time from opening the transaction to committing it
+     */
+    public void recordPersist(long nanos, int rows){
+        persistNanos.add(nanos);
+        rowsPersisted.add(rows);
+    }
+
+    /**
+     * Records a count() query run to verify or report what was persisted.
+     */
+    public void recordVerification(long nanos){
+        verificationNanos.add(nanos);
+        verificationQueries.increment();
+    }
+
+    /**
+     * Records one of the queues between the stages of a pipelined load.
+     *
+     * @param fullNanos time the stage before the queue waited for space
+     * @param emptyNanos time the stage after the queue waited for records
+     */
+    public void recordQueue(int maxDepth, long fullNanos, long emptyNanos){
+        maxQueueDepth.accumulate(maxDepth);
+        queueFullNanos.add(fullNanos);
+        queueEmptyNanos.add(emptyNanos);
+    }
+
+    public StepSnapshot snapshot(){
+        return new StepSnapshot(name, parses.sum(), parseNanos.sum() / 1000000, recordsMatched.sum(),
+                conversionNanos.sum() / 1000000, converted.sum(), conversionFailures.sum(),
+                persistNanos.sum() / 1000000, rowsPersisted.sum(), rowsPerSecond(rowsPersisted.sum(), persistNanos.sum()),
+                verificationQueries.sum(), verificationNanos.sum() / 1000000,
+                maxQueueDepth.get(), queueFullNanos.sum() / 1000000, queueEmptyNanos.sum() / 1000000);
+    }
+
+    void reset(){
+        for(LongAdder adder : new LongAdder[]{parseNanos, parses, recordsMatched, conversionNanos, converted,
+                conversionFailures, persistNanos, rowsPersisted, verificationNanos, verificationQueries, queueFullNanos,
+                queueEmptyNanos}){
+            adder.reset();
+        }
+        maxQueueDepth.reset();
+    }
+
+    private static double rowsPerSecond(long rows, long nanos){
+        return nanos == 0 ? 0 : rows * 1e9 / nanos;
+    }
+}
@@ -0,0 +1,131 @@
+package com.macgregor.ef.metrics;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * Totals of a StepMetrics at one point in time. Exposed over JMX as CompositeData, see LoadMetricsMXBean.
+ */
+public final class StepSnapshot {
+    private final String name;
+    private final long parses;
+    private final long parseMillis;
+    private final long recordsMatched;
+    private final long conversionMillis;
+    private final long converted;
+    private final long conversionFailures;
+    private final long persistMillis;
+    private final long rowsPersisted;
+    private final double rowsPerSecond;
+    private final long verificationQueries;
+    private final long verificationMillis;
+    private final long maxQueueDepth;
+    private final long queueFullMillis;
+    private final long queueEmptyMillis;
+
+    @ConstructorProperties({"name", "parses", "parseMillis", "recordsMatched", "conversionMillis", "converted",
+            "conversionFailures", "persistMillis", "rowsPersisted", "rowsPerSecond", "verificationQueries", "verificationMillis",
+            "maxQueueDepth", "queueFullMillis", "queueEmptyMillis"})
+    public StepSnapshot(String name, long parses, long parseMillis, long recordsMatched, long conversionMillis, long converted,
+                        long conversionFailures, long persistMillis, long rowsPersisted, double rowsPerSecond,
+                        long verificationQueries, long verificationMillis, long maxQueueDepth, long queueFullMillis,
+                        long queueEmptyMillis){
+        this.name = name;
+        this.parses = parses;
+        this.parseMillis = parseMillis;
+        this.recordsMatched = recordsMatched;
+        this.conversionMillis = conversionMillis;
+        this.converted = converted;
+        this.conversionFailures = conversionFailures;
+        this.persistMillis = persistMillis;
+        this.rowsPersisted = rowsPersisted;
+        this.rowsPerSecond = rowsPerSecond;
+        this.verificationQueries = verificationQueries;
+        this.verificationMillis = verificationMillis;
+        this.maxQueueDepth = maxQueueDepth;
+        this.queueFullMillis = queueFullMillis;
+        this.queueEmptyMillis = queueEmptyMillis;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return the number of times the step's records were extracted from a document
+     */
+    public long getParses() {
+        return parses;
+    }
+
+    public long getParseMillis() {
+        return parseMillis;
+    }
+
+    public long getRecordsMatched() {
+        return recordsMatched;
+    }
+
+    public long getConversionMillis() {
+        return conversionMillis;
+    }
+
+    public long getConverted() {
+        return converted;
+    }
+
+    public long getConversionFailures() {
+        return conversionFailures;
+    }
+
+    public long getPersistMillis() {
+        return persistMillis;
+    }
+
+    public long getRowsPersisted() {
+        return rowsPersisted;
+    }
+
+    /**
+     * @return rows persisted per second of persist time
+     */
+    public double getRowsPerSecond() {
+        return rowsPerSecond;
+    }
+
+    public long getVerificationQueries() {
+        return verificationQueries;
+    }
+
+    public long getVerificationMillis() {
+        return verificationMillis;
+    }
+
+    /**
+     * @return the most records waiting in any of the queues of a pipelined load, 0 if the step wasnt pipelined
+     */
+    public long getMaxQueueDepth() {
+        return maxQueueDepth;
+    }
+
+    /**
+     * @return time pipeline stages spent waiting for space in a full queue, held back by the stage after them
+     */
+    public long getQueueFullMillis() {
+        return queueFullMillis;
+    }
+
+    /**
+     * @return time pipeline stages spent waiting for records from an empty queue, idle while the stage before them caught up
+     */
+    public long getQueueEmptyMillis() {
+        return queueEmptyMillis;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: parsed %d records in %dms, converted %d (%d failures) in %dms, persisted %d rows in %dms (%.0f rows/s), %d count queries in %dms, queue depth max %d, full %dms, empty %dms",
+                name, recordsMatched, parseMillis, converted, conversionFailures, conversionMillis, rowsPersisted,
+                persistMillis, rowsPerSecond, verificationQueries, verificationMillis, maxQueueDepth, queueFullMillis,
+                queueEmptyMillis);
+    }
+}
@@ -0,0 +1,155 @@
+package com.macgregor.ef.processor;
+
+import com.macgregor.ef.converters.GeneratedCanonicalConverter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Runs CanonicalConverterProcessor over already compiled model classes and compiles what it generates. The ekkor
+ * models are compiled in the endlessfrontier_model jar, so this is run during the process-classes phase (see the
+ * exec-maven-plugin execution in the pom) rather than as part of compiling this module.
+ *
+ * Usage: CanonicalConverterGenerator &lt;package&gt; &lt;generated sources directory&gt; &lt;classes directory&gt;
+ *
+ * Every top level and nested class in the package found on the classpath is handed to the processor, which only acts
+ * on those annotated with @CanonicalModel. Mapping errors fail the build.
+ */
+public class CanonicalConverterGenerator {
+    private static final Logger logger = LoggerFactory.getLogger(CanonicalConverterGenerator.class);
+    // converters are compiled for the same Java version as the rest of the project, whatever JDK runs the build
+    public static final String TARGET_PROPERTY = "ef.converters.target";
+    public static final String DEFAULT_TARGET = "1.8";
+
+    public static void main(String[] args) throws IOException {
+        if(args.length != 3){
+            System.err.println("Usage: CanonicalConverterGenerator <package> <generated sources directory> <classes directory>");
+            System.exit(2);
+        }
+        if(!generate(args[0], Paths.get(args[1]), Paths.get(args[2]), System.getProperty("java.class.path"))){
+            System.exit(1);
+        }
+    }
+
+    /**
+     * @param packageName package containing the @CanonicalModel classes
+     * @param sourcesDir where generated converter sources are written
+     * @param classesDir where generated converters are compiled to
+     * @param classpath classpath containing the models, their canonical models and this project
+     * @return true if the converters were generated and compiled without errors
+     */
+    public static boolean generate(String packageName, Path sourcesDir, Path classesDir, String classpath) throws IOException {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if(compiler == null){
+            throw new IllegalStateException("No system java compiler available, converters must be generated with a JDK");
+        }
+
+        List<String> classNames = findClasses(packageName, classpath);
+        if(classNames.isEmpty()){
+            logger.warn(String.format("No classes found in package %s, nothing to generate", packageName));
+            return true;
+        }
+
+        Files.createDirectories(sourcesDir);
+        Files.createDirectories(classesDir);
+        List<String> processOptions = Arrays.asList(
+                "-proc:only",
+                "-classpath", classpath,
+                "-s", sourcesDir.toString(),
+                "-implicit:none");
+        JavaCompiler.CompilationTask process = compiler.getTask(null, null, null, processOptions, classNames, null);
+        process.setProcessors(Collections.singletonList(new CanonicalConverterProcessor()));
+        if(!process.call()){
+            return false;
+        }
+
+        List<File> generatedSources;
+        try(Stream<Path> files = Files.walk(sourcesDir)){
+            generatedSources = files.filter(p -> p.toString().endsWith(".java"))
+                    .map(Path::toFile)
+                    .collect(Collectors.toList());
+        }
+        if(generatedSources.isEmpty()){
+            logger.warn(String.format("No @CanonicalModel classes found in package %s", packageName));
+            return true;
+        }
+
+        try(StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, null)){
+            Iterable<? extends JavaFileObject> units = fileManager.getJavaFileObjectsFromFiles(generatedSources);
+            String target = System.getProperty(TARGET_PROPERTY, DEFAULT_TARGET);
+            List<String> compileOptions = Arrays.asList(
+                    "-proc:none",
+                    "-source", target,
+                    "-target", target,
+                    "-classpath", classpath,
+                    "-d", classesDir.toString());
+            boolean compiled = compiler.getTask(null, fileManager, null, compileOptions, null, units).call();
+            if(compiled){
+                logger.info(String.format("Generated %d canonical converters for package %s", generatedSources.size(), packageName));
+            }
+            return compiled;
+        }
+    }
+
+    /**
+     * Binary names of all classes in the package, not its subpackages, in the classpath's directories and jars.
+     */
+    static List<String> findClasses(String packageName, String classpath) throws IOException {
+        String packagePath = packageName.replace('.', '/');
+        TreeSet<String> classNames = new TreeSet<>();
+        for(String entry : classpath.split(File.pathSeparator)){
+            File file = new File(entry);
+            if(file.isDirectory()){
+                File[] classFiles = new File(file, packagePath).listFiles((dir, name) -> name.endsWith(".class"));
+                if(classFiles != null){
+                    for(File classFile : classFiles){
+                        classNames.add(toClassName(packagePath + "/" + classFile.getName()));
+                    }
+                }
+            } else if(file.isFile() && entry.endsWith(".jar")){
+                try(JarFile jar = new JarFile(file)){
+                    Enumeration<JarEntry> entries = jar.entries();
+                    while(entries.hasMoreElements()){
+                        String name = entries.nextElement().getName();
+                        if(name.endsWith(".class") && name.startsWith(packagePath + "/") && name.indexOf('/', packagePath.length() + 1) < 0){
+                            classNames.add(toClassName(name));
+                        }
+                    }
+                }
+            }
+        }
+        // javac takes canonical names, nested classes are reached through their top level class. Converters generated
+        // by an earlier build are skipped, handing them back to javac would stop them from being regenerated.
+        List<String> topLevel = new ArrayList<>();
+        for(String className : classNames){
+            if(className.indexOf('$') < 0 && !className.endsWith("package-info")
+                    && !className.endsWith(GeneratedCanonicalConverter.CLASS_SUFFIX)){
+                topLevel.add(className);
+            }
+        }
+        return topLevel;
+    }
+
+    private static String toClassName(String classFilePath){
+        return classFilePath.substring(0, classFilePath.length() - ".class".length()).replace('/', '.');
+    }
+}
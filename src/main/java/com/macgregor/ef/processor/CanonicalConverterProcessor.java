@@ -0,0 +1,472 @@
+package com.macgregor.ef.processor;
+
+import com.macgregor.ef.annotations.CanonicalField;
+import com.macgregor.ef.annotations.CanonicalModel;
+import com.macgregor.ef.annotations.Translate;
+import com.macgregor.ef.converters.GeneratedCanonicalConverter;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.*;
+
+/**
+ * Generates a GeneratedCanonicalConverter for every @CanonicalModel annotated class, doing at build time what
+ * CanonicalModelConverter.compileConversionPlan() does at runtime. Mapping problems that would otherwise only show up
+ * as a CanonicalConversionException during a load, like a mapsTo naming a field the canonical model doesnt have, are
+ * reported as compile errors.
+ *
+ * Generated code reads source fields directly when they are visible from the source model's package and through a
+ * getter otherwise. Canonical fields are written directly when public and through a setter otherwise. Fields with
+ * neither fall back to a Field handle resolved once per class. int, double and boolean canonical fields are parsed
+ * without boxing, see CanonicalFieldConverter.convertInt().
+ *
+ * The models this project loads come from a jar, so CanonicalConverterGenerator runs this processor over their class
+ * files as part of the build. It works just as well on sources by adding it to a module's annotation processor path.
+ */
+@SupportedAnnotationTypes("com.macgregor.ef.annotations.CanonicalModel")
+public class CanonicalConverterProcessor extends AbstractProcessor {
+    private static final String CONVERTERS_PACKAGE = "com.macgregor.ef.converters";
+
+    private final Set<String> generated = new HashSet<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for(TypeElement source : ElementFilter.typesIn(roundEnv.getElementsAnnotatedWith(CanonicalModel.class))){
+            String converterName = GeneratedCanonicalConverter.classNameFor(elements().getBinaryName(source).toString());
+            if(!generated.add(converterName)){
+                continue;
+            }
+
+            ConverterModel model = analyze(source, converterName);
+            if(model != null){
+                try {
+                    write(model);
+                } catch (IOException e) {
+                    error(source, String.format("Unable to write %s: %s", converterName, e.getMessage()));
+                }
+            }
+        }
+        return false;
+    }
+
+    private static class FieldMapping {
+        private String sourceName;
+        private String readExpression;
+        private String conversionExpression;
+        private String writeStatement;
+    }
+
+    private static class ConverterModel {
+        private String packageName;
+        private String simpleName;
+        private String sourceType;
+        private String canonicalType;
+        private final List<String> fieldConstants = new ArrayList<>();
+        private final List<FieldMapping> mappings = new ArrayList<>();
+    }
+
+    /**
+     * @return the converter to generate, or null if errors were reported or the source model cant be referenced from
+     *  generated code
+     */
+    private ConverterModel analyze(TypeElement source, String converterName){
+        if(!isReferenceable(source)){
+            note(source, String.format("%s is not visible to generated code, it will be converted at runtime", source.getQualifiedName()));
+            return null;
+        }
+
+        TypeElement canonical = canonicalType(source);
+        if(canonical == null){
+            error(source, "@CanonicalModel type must be a class");
+            return null;
+        }
+        if(!isPublicType(canonical) || !hasPublicNoArgConstructor(canonical)){
+            error(source, String.format("Canonical model %s must be a public class with a public no argument constructor", canonical.getQualifiedName()));
+            return null;
+        }
+
+        ConverterModel model = new ConverterModel();
+        String packageName = elements().getPackageOf(source).getQualifiedName().toString();
+        model.packageName = packageName;
+        model.simpleName = converterName.substring(converterName.lastIndexOf('.') + 1);
+        model.sourceType = typeName(source.asType());
+        model.canonicalType = typeName(canonical.asType());
+
+        boolean valid = true;
+        for(VariableElement sourceField : annotatedFields(source)){
+            FieldMapping mapping = mapField(model, source, sourceField, canonical, packageName);
+            if(mapping == null){
+                valid = false;
+            } else{
+                model.mappings.add(mapping);
+            }
+        }
+        return valid ? model : null;
+    }
+
+    private FieldMapping mapField(ConverterModel model, TypeElement source, VariableElement sourceField, TypeElement canonical, String packageName){
+        CanonicalField annotation = sourceField.getAnnotation(CanonicalField.class);
+        String name = sourceField.getSimpleName().toString();
+        String destName = CanonicalField.MAPS_TO_DEFAULT.equals(annotation.mapsTo()) ? name : annotation.mapsTo();
+
+        VariableElement destField = findField(canonical, destName);
+        if(destField == null){
+            error(sourceField, String.format("Field %s maps to %s but canonical model %s has no such field", name, destName, canonical.getSimpleName()));
+            return null;
+        }
+
+        TypeMirror destType = destField.asType();
+        TypeMirror hint = hint(sourceField);
+        if(hint == null){
+            hint = destType;
+        }
+
+        FieldMapping mapping = new FieldMapping();
+        mapping.sourceName = name;
+
+        if(sourceField.getAnnotation(Translate.class) != null){
+            String constant = "TRANSLATE_" + name;
+            model.fieldConstants.add(fieldConstant(constant, model.sourceType, name));
+            mapping.conversionExpression = String.format("fieldTranslator.convert(source, %s)", constant);
+        } else{
+            mapping.readExpression = readExpression(model, source, sourceField, packageName);
+            if(isAssignableTo(hint, "java.util.List")){
+                TypeMirror elementType = listElementType(destType);
+                if(elementType == null){
+                    error(sourceField, String.format("Canonical field %s.%s must declare its List element type", canonical.getSimpleName(), destName));
+                    return null;
+                }
+                mapping.conversionExpression = String.format("fieldConverter.convertCollection(%s, %s.class)", mapping.readExpression, typeName(elementType));
+            } else if(isAssignableTo(hint, "java.util.Collection")){
+                error(sourceField, String.format("Unsupported Collection type %s. Currently only List is supported.", hint));
+                return null;
+            } else{
+                String primitive = primitiveWriteStatement(canonical, destField, hint, mapping.readExpression, packageName);
+                if(primitive != null){
+                    mapping.writeStatement = primitive;
+                    return mapping;
+                }
+                mapping.conversionExpression = String.format("fieldConverter.convert(%s, %s.class)", mapping.readExpression, typeName(hint));
+            }
+        }
+
+        mapping.writeStatement = writeStatement(model, canonical, destField, mapping.conversionExpression, packageName);
+        return mapping;
+    }
+
+    /**
+     * int, double and boolean canonical fields are converted with CanonicalFieldConverter's primitive methods, which
+     * parse without boxing. A value that is empty or doesnt parse leaves the field as the canonical model initialized
+     * it, so the field has to be readable as well as writable.
+     *
+     * @return the write statement, or null if the field isnt one of those types, has a different hint or cant be read
+     *  back
+     */
+    private String primitiveWriteStatement(TypeElement canonical, VariableElement field, TypeMirror hint, String value, String packageName){
+        String method = primitiveConversion(field.asType().getKind());
+        if(method == null || !types().isSameType(hint, field.asType())){
+            return null;
+        }
+        String name = field.getSimpleName().toString();
+        if(isAccessible(field, packageName)){
+            return String.format("dest.%s = fieldConverter.%s(%s, dest.%s);", name, method, value, name);
+        }
+        ExecutableElement setter = findAccessor(canonical, field, packageName, false);
+        ExecutableElement getter = findAccessor(canonical, field, packageName, true);
+        if(setter != null && getter != null){
+            return String.format("dest.%s(fieldConverter.%s(%s, dest.%s()));", setter.getSimpleName(), method, value, getter.getSimpleName());
+        }
+        return null;
+    }
+
+    private String readExpression(ConverterModel model, TypeElement source, VariableElement field, String packageName){
+        String name = field.getSimpleName().toString();
+        if(isAccessible(field, packageName)){
+            return "source." + name;
+        }
+
+        ExecutableElement getter = findAccessor(source, field, packageName, true);
+        if(getter != null){
+            return String.format("source.%s()", getter.getSimpleName());
+        }
+
+        String constant = "READ_" + name;
+        model.fieldConstants.add(fieldConstant(constant, model.sourceType, name));
+        return String.format("GeneratedConverterSupport.read(%s, source)", constant);
+    }
+
+    private String writeStatement(ConverterModel model, TypeElement canonical, VariableElement field, String value, String packageName){
+        String name = field.getSimpleName().toString();
+        String cast = typeName(boxed(field.asType()));
+        if(isAccessible(field, packageName)){
+            return String.format("dest.%s = (%s) %s;", name, cast, value);
+        }
+
+        ExecutableElement setter = findAccessor(canonical, field, packageName, false);
+        if(setter != null){
+            return String.format("dest.%s((%s) %s);", setter.getSimpleName(), cast, value);
+        }
+
+        String constant = "WRITE_" + name;
+        model.fieldConstants.add(fieldConstant(constant, model.canonicalType, name));
+        return String.format("GeneratedConverterSupport.write(%s, dest, %s);", constant, value);
+    }
+
+    private void write(ConverterModel model) throws IOException {
+        String qualifiedName = model.packageName.isEmpty() ? model.simpleName : model.packageName + "." + model.simpleName;
+        JavaFileObject file = processingEnv.getFiler().createSourceFile(qualifiedName);
+        try(Writer out = file.openWriter()){
+            if(!model.packageName.isEmpty()){
+                out.write(String.format("package %s;%n%n", model.packageName));
+            }
+            out.write(String.format("import %s.CanonicalFieldConverter;%n", CONVERTERS_PACKAGE));
+            out.write(String.format("import %s.GeneratedCanonicalConverter;%n", CONVERTERS_PACKAGE));
+            out.write(String.format("import %s.GeneratedConverterSupport;%n", CONVERTERS_PACKAGE));
+            out.write(String.format("import %s.TranslationFieldConverter;%n", CONVERTERS_PACKAGE));
+            out.write(String.format("import com.macgregor.ef.exceptions.CanonicalConversionException;%n%n"));
+            out.write(String.format("/**%n * Generated by %s from %s, do not edit.%n */%n", getClass().getSimpleName(), model.sourceType));
+            out.write(String.format("public final class %s implements GeneratedCanonicalConverter {%n", model.simpleName));
+            for(String constant : new LinkedHashSet<>(model.fieldConstants)){
+                out.write(String.format("    %s%n", constant));
+            }
+            out.write(String.format("%n    @Override%n"));
+            out.write(String.format("    @SuppressWarnings({\"unchecked\", \"rawtypes\"})%n"));
+            out.write(String.format("    public Object convert(Object sourceModel, CanonicalFieldConverter fieldConverter, TranslationFieldConverter fieldTranslator) throws CanonicalConversionException {%n"));
+            out.write(String.format("        %s source = (%s) sourceModel;%n", model.sourceType, model.sourceType));
+            out.write(String.format("        %s dest = new %s();%n", model.canonicalType, model.canonicalType));
+            for(FieldMapping mapping : model.mappings){
+                out.write(String.format("        // %s%n", mapping.sourceName));
+                out.write(String.format("        %s%n", mapping.writeStatement));
+            }
+            out.write(String.format("        return dest;%n"));
+            out.write(String.format("    }%n"));
+            out.write(String.format("}%n"));
+        }
+    }
+
+    private static String fieldConstant(String constant, String type, String fieldName){
+        return String.format("private static final java.lang.reflect.Field %s = GeneratedConverterSupport.field(%s.class, \"%s\");", constant, type, fieldName);
+    }
+
+    /**
+     * Same order as FieldUtils.getFieldsListWithAnnotation(): the class' own fields, then its superclasses'.
+     */
+    private List<VariableElement> annotatedFields(TypeElement type){
+        List<VariableElement> fields = new ArrayList<>();
+        for(TypeElement current = type; current != null; current = superclass(current)){
+            for(VariableElement field : ElementFilter.fieldsIn(current.getEnclosedElements())){
+                if(field.getAnnotation(CanonicalField.class) != null){
+                    fields.add(field);
+                }
+            }
+        }
+        return fields;
+    }
+
+    private VariableElement findField(TypeElement type, String name){
+        for(TypeElement current = type; current != null; current = superclass(current)){
+            for(VariableElement field : ElementFilter.fieldsIn(current.getEnclosedElements())){
+                if(field.getSimpleName().contentEquals(name) && !field.getModifiers().contains(Modifier.STATIC)){
+                    return field;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the CanonicalFieldConverter method converting to the primitive type without boxing, or null if it has none
+     */
+    private static String primitiveConversion(TypeKind kind){
+        switch (kind){
+            case INT:
+                return "convertInt";
+            case DOUBLE:
+                return "convertDouble";
+            case BOOLEAN:
+                return "convertBoolean";
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Finds a JavaBean getter (getX/isX) or setter (setX) for the field that generated code in the package can call.
+     */
+    private ExecutableElement findAccessor(TypeElement type, VariableElement field, String packageName, boolean getter){
+        String name = field.getSimpleName().toString();
+        String capitalized = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+        for(ExecutableElement method : ElementFilter.methodsIn(elements().getAllMembers(type))){
+            String methodName = method.getSimpleName().toString();
+            if(method.getModifiers().contains(Modifier.STATIC) || !isAccessible(method, packageName)){
+                continue;
+            }
+            if(getter && (methodName.equals("get" + capitalized) || methodName.equals("is" + capitalized))
+                    && method.getParameters().isEmpty()
+                    && types().isSameType(method.getReturnType(), field.asType())){
+                return method;
+            }
+            if(!getter && methodName.equals("set" + capitalized)
+                    && method.getParameters().size() == 1
+                    && types().isSameType(method.getParameters().get(0).asType(), field.asType())){
+                return method;
+            }
+        }
+        return null;
+    }
+
+    private boolean isAccessible(Element member, String packageName){
+        Set<Modifier> modifiers = member.getModifiers();
+        if(modifiers.contains(Modifier.PRIVATE)){
+            return false;
+        }
+        TypeElement declaringType = (TypeElement) member.getEnclosingElement();
+        if(modifiers.contains(Modifier.PUBLIC) && isPublicType(declaringType)){
+            return true;
+        }
+        return elements().getPackageOf(member).getQualifiedName().contentEquals(packageName);
+    }
+
+    private boolean isReferenceable(TypeElement type){
+        for(Element current = type; current instanceof TypeElement; current = current.getEnclosingElement()){
+            if(current.getModifiers().contains(Modifier.PRIVATE)){
+                return false;
+            }
+            if(current != type && !current.getModifiers().contains(Modifier.STATIC) && current.getEnclosingElement() instanceof TypeElement){
+                return false;
+            }
+        }
+        return type.getNestingKind() == NestingKind.TOP_LEVEL || type.getModifiers().contains(Modifier.STATIC);
+    }
+
+    private static boolean isPublicType(TypeElement type){
+        for(Element current = type; current instanceof TypeElement; current = current.getEnclosingElement()){
+            if(!current.getModifiers().contains(Modifier.PUBLIC)){
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean hasPublicNoArgConstructor(TypeElement type){
+        if(type.getModifiers().contains(Modifier.ABSTRACT)){
+            return false;
+        }
+        for(ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements())){
+            if(constructor.getParameters().isEmpty() && constructor.getModifiers().contains(Modifier.PUBLIC)){
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private TypeElement canonicalType(TypeElement source){
+        TypeMirror type = annotationClassValue(source, CanonicalModel.class.getName(), "type");
+        if(type == null || type.getKind() != TypeKind.DECLARED){
+            return null;
+        }
+        return (TypeElement) types().asElement(type);
+    }
+
+    /**
+     * @return the hint from @CanonicalField(hint=...), or null if it wasnt set
+     */
+    private TypeMirror hint(VariableElement field){
+        TypeMirror hint = annotationClassValue(field, CanonicalField.class.getName(), "hint");
+        if(hint == null || isSameErasure(hint, Void.class.getName())){
+            return null;
+        }
+        return hint;
+    }
+
+    /**
+     * Class valued annotation members cant be read through getAnnotation() during processing, so read the mirror.
+     */
+    private TypeMirror annotationClassValue(Element element, String annotationType, String member){
+        for(AnnotationMirror annotation : element.getAnnotationMirrors()){
+            TypeElement annotationElement = (TypeElement) annotation.getAnnotationType().asElement();
+            if(!annotationElement.getQualifiedName().contentEquals(annotationType)){
+                continue;
+            }
+            for(Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> value : annotation.getElementValues().entrySet()){
+                if(value.getKey().getSimpleName().contentEquals(member) && value.getValue().getValue() instanceof TypeMirror){
+                    return (TypeMirror) value.getValue().getValue();
+                }
+            }
+        }
+        return null;
+    }
+
+    private TypeMirror listElementType(TypeMirror listType){
+        if(listType.getKind() != TypeKind.DECLARED){
+            return null;
+        }
+        List<? extends TypeMirror> arguments = ((DeclaredType) listType).getTypeArguments();
+        if(arguments.size() != 1 || arguments.get(0).getKind() != TypeKind.DECLARED){
+            return null;
+        }
+        return arguments.get(0);
+    }
+
+    private boolean isAssignableTo(TypeMirror type, String className){
+        TypeElement target = elements().getTypeElement(className);
+        return target != null && type.getKind() == TypeKind.DECLARED
+                && types().isAssignable(types().erasure(type), types().erasure(target.asType()));
+    }
+
+    private boolean isSameErasure(TypeMirror type, String className){
+        TypeElement target = elements().getTypeElement(className);
+        return target != null && types().isSameType(types().erasure(type), types().erasure(target.asType()));
+    }
+
+    private TypeMirror boxed(TypeMirror type){
+        return type.getKind().isPrimitive() ? types().boxedClass(types().getPrimitiveType(type.getKind())).asType() : type;
+    }
+
+    private String typeName(TypeMirror type){
+        return types().erasure(type).toString();
+    }
+
+    private TypeElement superclass(TypeElement type){
+        TypeMirror superclass = type.getSuperclass();
+        if(superclass.getKind() != TypeKind.DECLARED){
+            return null;
+        }
+        TypeElement element = (TypeElement) types().asElement(superclass);
+        return element.getQualifiedName().contentEquals(Object.class.getName()) ? null : element;
+    }
+
+    private Elements elements(){
+        return processingEnv.getElementUtils();
+    }
+
+    private Types types(){
+        return processingEnv.getTypeUtils();
+    }
+
+    private void error(Element element, String message){
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+
+    private void note(Element element, String message){
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE, message, element);
+    }
+}
@@ -0,0 +1,346 @@
+package com.macgregor.ef.snapshot;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Binary encoding of records for snapshots. A record is written as its field values in field name order, each value
+ * prefixed with a one byte tag. Collections, maps and arrays are written element by element and other objects, like
+ * referenced entities, field by field along with their class name and schema. Static and transient fields are
+ * skipped, the same fields RecordFingerprinter reads.
+ *
+ * A type's schema is a hash of its field names and types, so records are never decoded into a class whose fields
+ * changed since they were written. Decoding creates records with their no-arg constructor, which JPA entities have.
+ */
+final class RecordCodec {
+    private static final byte NULL = 0;
+    private static final byte TRUE = 1;
+    private static final byte FALSE = 2;
+    private static final byte BYTE = 3;
+    private static final byte SHORT = 4;
+    private static final byte INT = 5;
+    private static final byte LONG = 6;
+    private static final byte FLOAT = 7;
+    private static final byte DOUBLE = 8;
+    private static final byte CHAR = 9;
+    private static final byte STRING = 10;
+    private static final byte ENUM = 11;
+    private static final byte BIG_INTEGER = 12;
+    private static final byte BIG_DECIMAL = 13;
+    private static final byte ARRAY = 14;
+    private static final byte LIST = 15;
+    private static final byte SET = 16;
+    private static final byte MAP = 17;
+    private static final byte OBJECT = 18;
+
+    private static final ClassValue<Layout> LAYOUTS = new ClassValue<Layout>() {
+        @Override
+        protected Layout computeValue(Class<?> type) {
+            return new Layout(type);
+        }
+    };
+
+    private final ConcurrentMap<String, Class<?>> classes = new ConcurrentHashMap<>();
+    private final ClassLoader classLoader;
+
+    RecordCodec(ClassLoader classLoader){
+        this.classLoader = classLoader;
+    }
+
+    private static class Layout {
+        private final List<Field> fields;
+        private final Constructor<?> constructor;
+        private final long schema;
+
+        Layout(Class<?> type){
+            List<Field> fields = new ArrayList<>();
+            for(Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()){
+                for(Field field : c.getDeclaredFields()){
+                    int modifiers = field.getModifiers();
+                    if(!Modifier.isStatic(modifiers) && !Modifier.isTransient(modifiers) && !field.isSynthetic()){
+                        field.setAccessible(true);
+                        fields.add(field);
+                    }
+                }
+            }
+            fields.sort(Comparator.comparing(Field::getName).thenComparing(f -> f.getDeclaringClass().getName()));
+            this.fields = Collections.unmodifiableList(fields);
+
+            Constructor<?> constructor = null;
+            try {
+                constructor = type.getDeclaredConstructor();
+                constructor.setAccessible(true);
+            } catch (NoSuchMethodException e) {
+                // only a problem if a record of this type is written, see checkDecodable()
+            }
+            this.constructor = constructor;
+
+            StringBuilder signature = new StringBuilder(type.getName());
+            for(Field field : fields){
+                signature.append(';').append(field.getName()).append(':').append(field.getGenericType().getTypeName());
+            }
+            this.schema = fnv1a(signature);
+        }
+
+        void checkDecodable(Class<?> type){
+            if(constructor == null){
+                throw new IllegalArgumentException(String.format("%s has no no-arg constructor to decode it with", type.getName()));
+            }
+        }
+    }
+
+    /**
+     * @return the hash of the type's field names and types
+     */
+    static long schema(Class<?> type){
+        return LAYOUTS.get(type).schema;
+    }
+
+    /**
+     * Writes the record's fields, without its class name, which the reader has to know.
+     *
+     * @throws IllegalArgumentException if the record, or an object it references, cant be decoded again
+     */
+    void writeRecord(DataOutputStream out, Object record) throws IOException {
+        writeFields(out, record, Collections.newSetFromMap(new IdentityHashMap<>()));
+    }
+
+    <T> T readRecord(ByteBuffer in, Class<T> type){
+        return type.cast(readFields(in, type));
+    }
+
+    private void writeFields(DataOutputStream out, Object record, Set<Object> writing) throws IOException {
+        Layout layout = LAYOUTS.get(record.getClass());
+        layout.checkDecodable(record.getClass());
+        if(!writing.add(record)){
+            throw new IllegalArgumentException(String.format("%s references itself, cycles cant be written to a snapshot", record.getClass().getName()));
+        }
+        for(Field field : layout.fields){
+            try {
+                write(out, field.get(record), writing);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(String.format("Unable to read %s.%s", record.getClass().getSimpleName(), field.getName()), e);
+            }
+        }
+        writing.remove(record);
+    }
+
+    private void write(DataOutputStream out, Object value, Set<Object> writing) throws IOException {
+        if(value == null){
+            out.writeByte(NULL);
+        } else if(value instanceof String){
+            out.writeByte(STRING);
+            writeString(out, (String) value);
+        } else if(value instanceof Integer){
+            out.writeByte(INT);
+            out.writeInt((Integer) value);
+        } else if(value instanceof Boolean){
+            out.writeByte((Boolean) value ? TRUE : FALSE);
+        } else if(value instanceof Double){
+            out.writeByte(DOUBLE);
+            out.writeDouble((Double) value);
+        } else if(value instanceof Long){
+            out.writeByte(LONG);
+            out.writeLong((Long) value);
+        } else if(value instanceof Float){
+            out.writeByte(FLOAT);
+            out.writeFloat((Float) value);
+        } else if(value instanceof Short){
+            out.writeByte(SHORT);
+            out.writeShort((Short) value);
+        } else if(value instanceof Byte){
+            out.writeByte(BYTE);
+            out.writeByte((Byte) value);
+        } else if(value instanceof Character){
+            out.writeByte(CHAR);
+            out.writeChar((Character) value);
+        } else if(value instanceof Enum){
+            out.writeByte(ENUM);
+            writeString(out, ((Enum<?>) value).getDeclaringClass().getName());
+            writeString(out, ((Enum<?>) value).name());
+        } else if(value instanceof BigInteger){
+            out.writeByte(BIG_INTEGER);
+            writeString(out, value.toString());
+        } else if(value instanceof BigDecimal){
+            out.writeByte(BIG_DECIMAL);
+            writeString(out, value.toString());
+        } else if(value.getClass().isArray()){
+            out.writeByte(ARRAY);
+            writeString(out, value.getClass().getName());
+            int length = Array.getLength(value);
+            out.writeInt(length);
+            for(int i = 0; i < length; i++){
+                write(out, Array.get(value, i), writing);
+            }
+        } else if(value instanceof Collection){
+            out.writeByte(value instanceof Set ? SET : LIST);
+            out.writeInt(((Collection<?>) value).size());
+            for(Object element : (Collection<?>) value){
+                write(out, element, writing);
+            }
+        } else if(value instanceof Map){
+            out.writeByte(MAP);
+            out.writeInt(((Map<?, ?>) value).size());
+            for(Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()){
+                write(out, entry.getKey(), writing);
+                write(out, entry.getValue(), writing);
+            }
+        } else if(value.getClass().getName().startsWith("java.")){
+            throw new IllegalArgumentException(String.format("%s values cant be written to a snapshot", value.getClass().getName()));
+        } else{
+            out.writeByte(OBJECT);
+            writeString(out, value.getClass().getName());
+            out.writeLong(schema(value.getClass()));
+            writeFields(out, value, writing);
+        }
+    }
+
+    private Object readFields(ByteBuffer in, Class<?> type){
+        Layout layout = LAYOUTS.get(type);
+        layout.checkDecodable(type);
+        Object record;
+        try {
+            record = layout.constructor.newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(String.format("Unable to create %s", type.getName()), e);
+        }
+        for(Field field : layout.fields){
+            Object value = read(in);
+            try {
+                if(value != null || !field.getType().isPrimitive()){
+                    field.set(record, value);
+                }
+            } catch (IllegalAccessException | IllegalArgumentException e) {
+                throw new IllegalStateException(String.format("Unable to set %s.%s", type.getSimpleName(), field.getName()), e);
+            }
+        }
+        return record;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Object read(ByteBuffer in){
+        byte tag = in.get();
+        switch(tag){
+            case NULL:
+                return null;
+            case TRUE:
+                return Boolean.TRUE;
+            case FALSE:
+                return Boolean.FALSE;
+            case BYTE:
+                return in.get();
+            case SHORT:
+                return in.getShort();
+            case INT:
+                return in.getInt();
+            case LONG:
+                return in.getLong();
+            case FLOAT:
+                return in.getFloat();
+            case DOUBLE:
+                return in.getDouble();
+            case CHAR:
+                return in.getChar();
+            case STRING:
+                return readString(in);
+            case ENUM:
+                return Enum.valueOf((Class<Enum>) type(readString(in)), readString(in));
+            case BIG_INTEGER:
+                return new BigInteger(readString(in));
+            case BIG_DECIMAL:
+                return new BigDecimal(readString(in));
+            case ARRAY: {
+                Class<?> arrayType = type(readString(in));
+                int length = in.getInt();
+                Object array = Array.newInstance(arrayType.getComponentType(), length);
+                for(int i = 0; i < length; i++){
+                    Object element = read(in);
+                    if(element != null || !arrayType.getComponentType().isPrimitive()){
+                        Array.set(array, i, element);
+                    }
+                }
+                return array;
+            }
+            case LIST:
+            case SET: {
+                int size = in.getInt();
+                Collection<Object> collection = tag == LIST ? new ArrayList<>(size) : new LinkedHashSet<>(size * 2);
+                for(int i = 0; i < size; i++){
+                    collection.add(read(in));
+                }
+                return collection;
+            }
+            case MAP: {
+                int size = in.getInt();
+                Map<Object, Object> map = new LinkedHashMap<>(size * 2);
+                for(int i = 0; i < size; i++){
+                    map.put(read(in), read(in));
+                }
+                return map;
+            }
+            case OBJECT: {
+                Class<?> type = type(readString(in));
+                if(in.getLong() != schema(type)){
+                    throw new IllegalStateException(String.format("%s was written with a different schema", type.getName()));
+                }
+                return readFields(in, type);
+            }
+            default:
+                throw new IllegalStateException(String.format("Unknown value tag %d at %d", tag, in.position() - 1));
+        }
+    }
+
+    Class<?> type(String name){
+        Class<?> type = classes.get(name);
+        if(type == null){
+            try {
+                type = Class.forName(name, false, classLoader);
+            } catch (ClassNotFoundException e) {
+                throw new IllegalStateException(String.format("Unknown type %s", name), e);
+            }
+            classes.putIfAbsent(name, type);
+        }
+        return type;
+    }
+
+    static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(ByteBuffer in){
+        byte[] bytes = new byte[in.getInt()];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static long fnv1a(CharSequence s){
+        long hash = 0xcbf29ce484222325L;
+        for(int i = 0; i < s.length(); i++){
+            hash ^= s.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,138 @@
+package com.macgregor.ef.snapshot;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * A snapshot written by SnapshotWriter, memory mapped so opening it only reads the header and directory. Records are
+ * decoded when they are read from the list get() returns, so nothing is decoded that isnt used.
+ *
+ * A snapshot can be read from any number of threads. It stays mapped until it is garbage collected.
+ */
+public final class Snapshot {
+    private final Path path;
+    private final ByteBuffer buffer;
+    private final RecordCodec codec;
+    private final Map<Class<?>, Section> sections = new LinkedHashMap<>();
+
+    private static class Section {
+        private final int count;
+        private final int offsets;
+
+        Section(int count, int offsets){
+            this.count = count;
+            this.offsets = offsets;
+        }
+    }
+
+    private Snapshot(Path path, ByteBuffer buffer, ClassLoader classLoader){
+        this.path = path;
+        this.buffer = buffer;
+        this.codec = new RecordCodec(classLoader);
+    }
+
+    /**
+     * @throws IOException if the file cant be read, isnt a snapshot, is of another format version or was written with
+     *  different versions of the record classes
+     */
+    public static Snapshot open(Path path) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if(channel.size() > Integer.MAX_VALUE){
+                throw new IOException(String.format("%s is too large to be a snapshot", path));
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        Snapshot snapshot = new Snapshot(path, buffer, Snapshot.class.getClassLoader());
+        snapshot.readDirectory();
+        return snapshot;
+    }
+
+    private void readDirectory() throws IOException {
+        if(buffer.limit() < 12 || buffer.getInt(0) != SnapshotWriter.MAGIC){
+            throw new IOException(String.format("%s is not a snapshot", path));
+        }
+        int version = buffer.getInt(4);
+        if(version != SnapshotWriter.VERSION){
+            throw new IOException(String.format("%s is format version %d, expected %d", path, version, SnapshotWriter.VERSION));
+        }
+
+        ByteBuffer in = buffer.duplicate();
+        try {
+            in.position(buffer.getInt(buffer.limit() - 4));
+            int count = in.getInt();
+            for(int i = 0; i < count; i++){
+                String name = RecordCodec.readString(in);
+                long schema = in.getLong();
+                Section section = new Section(in.getInt(), in.getInt());
+                Class<?> type = codec.type(name);
+                if(schema != RecordCodec.schema(type)){
+                    throw new IOException(String.format("%s was written with a different version of %s", path, name));
+                }
+                sections.put(type, section);
+            }
+        } catch (IllegalStateException | IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new IOException(String.format("%s is corrupt", path), e);
+        }
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * @return the types in the snapshot, in the order they were added to the writer
+     */
+    public List<Class<?>> getTypes(){
+        return Collections.unmodifiableList(new ArrayList<>(sections.keySet()));
+    }
+
+    public boolean contains(Class<?> type){
+        return sections.containsKey(type);
+    }
+
+    /**
+     * @return a read only view of the type's records, empty if there are none. Every get() decodes a new copy of the
+     *  record, so copy the list to keep the decoded records around.
+     */
+    public <T> List<T> get(Class<T> type){
+        Section section = sections.get(type);
+        return section == null ? Collections.<T>emptyList() : new RecordList<>(type, section);
+    }
+
+    private class RecordList<T> extends AbstractList<T> implements RandomAccess {
+        private final Class<T> type;
+        private final Section section;
+
+        RecordList(Class<T> type, Section section){
+            this.type = type;
+            this.section = section;
+        }
+
+        @Override
+        public T get(int index) {
+            if(index < 0 || index >= section.count){
+                throw new IndexOutOfBoundsException(String.format("Index: %d, Size: %d", index, section.count));
+            }
+            ByteBuffer in = buffer.duplicate();
+            in.position(buffer.getInt(section.offsets + index * 4));
+            return codec.readRecord(in, type);
+        }
+
+        @Override
+        public int size() {
+            return section.count;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.macgregor.ef.snapshot;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Writes records to a snapshot file that Snapshot.open() can read back. Sections are written in the order they were
+ * added, which is also the order Snapshot.getTypes() returns them in.
+ *
+ * Layout, all numbers big endian:
+ * <pre>
+ *   header:    int MAGIC, int VERSION
+ *   sections:  records, then int[count + 1] offsets of each record and the end of the last one
+ *   directory: int section count, then per section: type name, long schema, int record count, int offsets position
+ *   trailer:   int directory position
+ * </pre>
+ * Strings are an int byte length followed by UTF-8. The file is written next to the target and moved over it once
+ * complete, so a reader never maps a partly written snapshot.
+ */
+public class SnapshotWriter {
+    static final int MAGIC = 0x45465350; // EFSP
+    static final int VERSION = 1;
+
+    private final Map<Class<?>, Collection<?>> sections = new LinkedHashMap<>();
+    private final RecordCodec codec = new RecordCodec(getClass().getClassLoader());
+
+    /**
+     * Adds a section of records, replacing any records already added for the type.
+     */
+    public <T> SnapshotWriter add(Class<T> type, Collection<? extends T> records){
+        sections.remove(type);
+        sections.put(type, records);
+        return this;
+    }
+
+    /**
+     * @throws IllegalArgumentException if a record cant be written, see RecordCodec
+     */
+    public void write(Path path) throws IOException {
+        Path absolute = path.toAbsolutePath();
+        Path tmp = Files.createTempFile(absolute.getParent(), absolute.getFileName().toString(), ".tmp");
+        try {
+            CountingOutputStream counter = new CountingOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), 64 * 1024));
+            try (DataOutputStream out = new DataOutputStream(counter)) {
+                write(out, counter);
+            }
+            Files.move(tmp, absolute, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private void write(DataOutputStream out, CountingOutputStream counter) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+
+        int[] tables = new int[sections.size()];
+        int section = 0;
+        for(Map.Entry<Class<?>, Collection<?>> entry : sections.entrySet()){
+            int[] offsets = new int[entry.getValue().size() + 1];
+            int record = 0;
+            for(Object value : entry.getValue()){
+                if(!entry.getKey().isInstance(value)){
+                    throw new IllegalArgumentException(String.format("%s section contains a %s", entry.getKey().getName(), value == null ? null : value.getClass().getName()));
+                }
+                offsets[record++] = counter.position();
+                codec.writeRecord(out, value);
+            }
+            offsets[record] = counter.position();
+            tables[section++] = counter.position();
+            for(int offset : offsets){
+                out.writeInt(offset);
+            }
+        }
+
+        int directory = counter.position();
+        out.writeInt(sections.size());
+        section = 0;
+        for(Map.Entry<Class<?>, Collection<?>> entry : sections.entrySet()){
+            RecordCodec.writeString(out, entry.getKey().getName());
+            out.writeLong(RecordCodec.schema(entry.getKey()));
+            out.writeInt(entry.getValue().size());
+            out.writeInt(tables[section++]);
+        }
+        out.writeInt(directory);
+    }
+
+    /**
+     * Counts bytes in a long, DataOutputStream.size() stops counting at Integer.MAX_VALUE.
+     */
+    static final class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        CountingOutputStream(OutputStream out){
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        long getCount() {
+            return count;
+        }
+
+        /**
+         * @return bytes written so far as an offset into the snapshot
+         * @throws IOException if the snapshot has outgrown the int offsets it is read with
+         */
+        int position() throws IOException {
+            if(count > Integer.MAX_VALUE){
+                throw new IOException("Snapshots are limited to 2 GB");
+            }
+            return (int) count;
+        }
+    }
+}
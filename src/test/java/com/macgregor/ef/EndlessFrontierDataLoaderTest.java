@@ -1,18 +1,41 @@
 package com.macgregor.ef;
 
 import com.macgregor.ef.converters.CanonicalModelConverter;
+import com.macgregor.ef.exceptions.CanonicalConversionException;
 import com.macgregor.ef.exceptions.DataLoadException;
+import com.macgregor.ef.metrics.StepSnapshot;
 import com.macgregor.ef.model.canonical.*;
+import com.macgregor.ef.model.ekkor.PetSkillXML;
+import com.macgregor.ef.model.ekkor.PetXML;
+import com.macgregor.ef.model.ekkor.UnitXML;
+import com.macgregor.ef.snapshot.Snapshot;
 import com.macgregor.ef.test_util.CanonicalTestModels;
 import com.macgregor.ef.test_util.MockTranslationFieldConverter;
 import io.dropwizard.testing.junit.DAOTestRule;
 import org.hibernate.Session;
+import org.hibernate.Transaction;
 import org.hibernate.query.Query;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.Serializable;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 public class EndlessFrontierDataLoaderTest {
 
@@ -25,8 +48,12 @@ public class EndlessFrontierDataLoaderTest {
             .addEntityClass(Pet.class)
             .addEntityClass(PetSkill.class)
             .addEntityClass(Translation.class)
+            .addEntityClass(Tribe.class)
             .build();
 
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
     private EndlessFrontierDataLoader dataLoader;
 
     @Before
@@ -89,19 +116,390 @@ public class EndlessFrontierDataLoaderTest {
         assertEquals(expected, find(PetSkill.class, expected.getId()));
     }
 
+    @Test
+    public void testLoadStreamingExtractsUnits() throws DataLoadException {
+        dataLoader.loadStreaming("src/main/resources/ef/global/1.9.5/unitbook.xml", "//unit", UnitXML.class, Unit.class);
+        assertEquals(218, count(Unit.class));
+
+        Unit unit = CanonicalTestModels.getTranslatedUnit();
+        assertEquals(unit, find(Unit.class, unit.getId()));
+    }
+
+    @Test
+    public void testLoadStreamingExtractsPetSkills() throws DataLoadException {
+        dataLoader.loadStreaming("src/main/resources/ef/global/1.9.5/petbook.xml", "//petSkill", PetSkillXML.class, PetSkill.class);
+        assertEquals(456, count(PetSkill.class));
+
+        PetSkill expected = CanonicalTestModels.getTranslatedPetSkill();
+        assertEquals(expected, find(PetSkill.class, expected.getId()));
+    }
+
+    @Test
+    public void testLoadUnitBookExtractsUnitsAndUnitSkills() throws DataLoadException {
+        dataLoader.loadUnitBook();
+        assertEquals(218, count(Unit.class));
+        assertEquals(65, count(UnitSkill.class));
+
+        Unit unit = CanonicalTestModels.getTranslatedUnit();
+        assertEquals(unit, find(Unit.class, unit.getId()));
+    }
+
+    @Test
+    public void testLoadPetBookExtractsPetsAndPetSkills() throws DataLoadException {
+        dataLoader.loadPetBook();
+        assertEquals(157, count(Pet.class));
+        assertEquals(456, count(PetSkill.class));
+    }
+
+    @Test
+    public void testLoadTreasureBookExtractsArtifactsAndArtifactSets() throws DataLoadException {
+        dataLoader.loadTreasureBook();
+        assertEquals(189, count(Artifact.class));
+        assertEquals(50, count(ArtifactSet.class));
+    }
+
     @Test
     public void testLoadDataExtractsTranslations() throws DataLoadException {
         dataLoader.loadTranslations();
         assertEquals(2044, count(Translation.class));
     }
 
+    @Test
+    public void testBatchedPersistExtractsUnits() throws DataLoadException {
+        dataLoader.setPersistBatchSize(50);
+        dataLoader.loadUnits();
+        assertEquals(218, count(Unit.class));
+
+        Unit unit = CanonicalTestModels.getTranslatedUnit();
+        assertEquals(unit, find(Unit.class, unit.getId()));
+    }
+
+    @Test
+    public void testBatchedPersistStreamingExtractsPetSkills() throws DataLoadException {
+        dataLoader.setPersistBatchSize(50);
+        dataLoader.loadStreaming("src/main/resources/ef/global/1.9.5/petbook.xml", "//petSkill", PetSkillXML.class, PetSkill.class);
+        assertEquals(456, count(PetSkill.class));
+
+        PetSkill expected = CanonicalTestModels.getTranslatedPetSkill();
+        assertEquals(expected, find(PetSkill.class, expected.getId()));
+    }
+
+    @Test
+    public void testDirectPersistExtractsUnits() throws DataLoadException {
+        dataLoader.setDirectPersist(true);
+        dataLoader.loadUnits();
+        assertEquals(218, count(Unit.class));
+
+        Unit unit = CanonicalTestModels.getTranslatedUnit();
+        assertEquals(unit, find(Unit.class, unit.getId()));
+    }
+
+    @Test
+    public void testDirectPersistStreamingExtractsPetSkills() throws DataLoadException {
+        dataLoader.setDirectPersist(true);
+        dataLoader.loadStreaming("src/main/resources/ef/global/1.9.5/petbook.xml", "//petSkill", PetSkillXML.class, PetSkill.class);
+        assertEquals(456, count(PetSkill.class));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativePersistBatchSizeIsRejected() {
+        dataLoader.setPersistBatchSize(-1);
+    }
+
+    @Test
+    public void testPipelinedLoadExtractsUnits() throws DataLoadException {
+        dataLoader.setPipelineQueueCapacity(16);
+        List<StageQueue.Metrics> metrics = dataLoader.loadPipelined("src/main/resources/ef/global/1.9.5/unitbook.xml", "//unit", UnitXML.class, Unit.class);
+        assertEquals(218, count(Unit.class));
+        assertEquals(2, metrics.size());
+        assertEquals(218, metrics.get(0).getItems());
+        assertEquals(218, metrics.get(1).getItems());
+        assertTrue(metrics.get(0).getMaxDepth() <= 16);
+
+        StepSnapshot step = dataLoader.getMetrics().getStep("Unit");
+        assertEquals(Math.max(metrics.get(0).getMaxDepth(), metrics.get(1).getMaxDepth()), step.getMaxQueueDepth());
+        assertEquals(TimeUnit.NANOSECONDS.toMillis(metrics.get(0).getProducerBlockedNanos() + metrics.get(1).getProducerBlockedNanos()),
+                step.getQueueFullMillis());
+
+        Unit unit = CanonicalTestModels.getTranslatedUnit();
+        assertEquals(unit, find(Unit.class, unit.getId()));
+    }
+
+    @Test
+    public void testPipelinedModeIsUsedByLoad() throws DataLoadException {
+        dataLoader.setPipelined(true);
+        dataLoader.loadPetSkills();
+        assertEquals(456, count(PetSkill.class));
+    }
+
+    @Test
+    public void testPipelinedLoadRollsBackWhenConversionFails() {
+        AtomicInteger converted = new AtomicInteger();
+        dataLoader = new EndlessFrontierDataLoader(database.getSessionFactory(),
+                failingConverter(source -> converted.incrementAndGet() == 100, new IllegalStateException("bad unit")));
+        dataLoader.setPipelineQueueCapacity(4);
+
+        try {
+            dataLoader.loadPipelined("src/main/resources/ef/global/1.9.5/unitbook.xml", "//unit", UnitXML.class, Unit.class);
+            fail("Expected the pipeline to fail");
+        } catch (DataLoadException e) {
+            assertEquals("bad unit", e.getCause().getMessage());
+        }
+        assertEquals(0, count(Unit.class));
+    }
+
+    @Test
+    public void testIncrementalLoadDoesNotDuplicateRows() throws DataLoadException {
+        dataLoader.setIncremental(true);
+        dataLoader.loadUnits();
+        dataLoader.loadUnits();
+        assertEquals(218, count(Unit.class));
+
+        Unit unit = CanonicalTestModels.getTranslatedUnit();
+        assertEquals(unit, find(Unit.class, unit.getId()));
+    }
+
+    @Test
+    public void testSkipUnchangedSourcesDoesNotReload() throws DataLoadException {
+        dataLoader.setSkipUnchangedSources(true);
+        dataLoader.loadUnits();
+        dataLoader.loadUnits();
+        assertEquals(218, count(Unit.class));
+    }
+
+    @Test
+    public void testSkipUnchangedSourcesReloadsMissingRows() throws DataLoadException {
+        dataLoader.setSkipUnchangedSources(true);
+        dataLoader.setIncremental(true);
+        dataLoader.loadUnits();
+        Session session = database.getSessionFactory().openSession();
+        Transaction tx = session.beginTransaction();
+        session.delete(session.get(Unit.class, 1));
+        tx.commit();
+        session.close();
+
+        dataLoader.loadUnits();
+        assertEquals(218, count(Unit.class));
+        assertEquals(Integer.valueOf(1), find(Unit.class, 1).getId());
+    }
+
+    @Test
+    public void testSkipUnchangedSourcesRerunsLoadAll() throws DataLoadException {
+        dataLoader.setSkipUnchangedSources(true);
+        dataLoader.loadAll();
+        LoadReport report = dataLoader.loadAll();
+        assertTrue(report.isSuccessful());
+        assertEquals(5, count(Tribe.class));
+        assertEquals(218, count(Unit.class));
+    }
+
+    @Test
+    public void testIncrementalLoadWritesOnlyChanges() {
+        dataLoader.setIncremental(true);
+        dataLoader.persistModels(Arrays.asList(translation("a", "1"), translation("b", "2"), translation("c", "3")), Translation.class);
+        dataLoader.persistModels(Arrays.asList(translation("a", "1"), translation("b", "changed"), translation("d", "4")), Translation.class);
+
+        assertEquals(3, count(Translation.class));
+        assertEquals("1", find(Translation.class, "a").getValue());
+        assertEquals("changed", find(Translation.class, "b").getValue());
+        assertNull(find(Translation.class, "c"));
+        assertEquals("4", find(Translation.class, "d").getValue());
+    }
+
+    @Test
+    public void testLoadFromSnapshotLoadsEveryEntityType() throws DataLoadException {
+        Path path = folder.getRoot().toPath().resolve("models.snapshot");
+        dataLoader.writeSnapshot(path);
+        assertEquals(0, count(Unit.class));
+
+        Snapshot snapshot = dataLoader.loadFromSnapshot(path);
+        assertEquals(218, snapshot.get(Unit.class).size());
+        assertEquals(5, count(Tribe.class));
+        assertEquals(2044, count(Translation.class));
+        assertEquals(218, count(Unit.class));
+        assertEquals(65, count(UnitSkill.class));
+        assertEquals(157, count(Pet.class));
+        assertEquals(456, count(PetSkill.class));
+        assertEquals(189, count(Artifact.class));
+        assertEquals(50, count(ArtifactSet.class));
+
+        Unit unit = snapshot.get(Unit.class).get(0);
+        assertEquals(unit, find(Unit.class, unit.getId()));
+    }
+
+    @Test
+    public void testLoadFromSnapshotAllOrNothingRollsBackEveryType() throws DataLoadException {
+        Path path = folder.getRoot().toPath().resolve("models.snapshot");
+        dataLoader.writeSnapshot(path);
+        // already there, so persisting the snapshot's translations fails
+        dataLoader.persistModels(Collections.singletonList(translation("ACHIEVE_DESC_1", "existing")), Translation.class);
+        dataLoader.setAllOrNothing(true);
+
+        try {
+            dataLoader.loadFromSnapshot(path);
+            fail("Expected the load to fail");
+        } catch (DataLoadException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("everything was rolled back"));
+        }
+        assertEquals(0, count(Tribe.class));
+        assertEquals(1, count(Translation.class));
+        assertEquals(0, count(Unit.class));
+    }
+
+    @Test
+    public void testLoadRecordsStepMetrics() throws DataLoadException {
+        dataLoader.loadUnits();
+        StepSnapshot extracted = dataLoader.getMetrics().getStep("UnitXML");
+        assertEquals(218, extracted.getRecordsMatched());
+        StepSnapshot units = dataLoader.getMetrics().getStep("Unit");
+        assertEquals(218, units.getConverted());
+        assertEquals(0, units.getConversionFailures());
+        assertEquals(218, units.getRowsPersisted());
+        assertTrue(units.getRowsPerSecond() > 0);
+    }
+
+    @Test
+    public void testConcurrentLoadAllLoadsEveryEntityType() throws DataLoadException {
+        dataLoader.setPersistParallelism(4);
+        LoadReport report = dataLoader.loadAll();
+        assertTrue(report.isSuccessful());
+        assertEquals(11, report.getSteps().size());
+        assertFalse(report.getCriticalPath().isEmpty());
+        assertEquals(5, count(Tribe.class));
+        assertEquals(2044, count(Translation.class));
+        assertEquals(218, count(Unit.class));
+        assertEquals(65, count(UnitSkill.class));
+        assertEquals(157, count(Pet.class));
+        assertEquals(456, count(PetSkill.class));
+        assertEquals(189, count(Artifact.class));
+        assertEquals(50, count(ArtifactSet.class));
+    }
+
+    @Test
+    public void testConcurrentLoadAllRollsBackEverythingWhenAllOrNothing() {
+        dataLoader = new EndlessFrontierDataLoader(database.getSessionFactory(),
+                failingConverter(source -> source instanceof PetXML, new IllegalStateException("bad pet")));
+        dataLoader.setPersistParallelism(8);
+        dataLoader.setAllOrNothing(true);
+
+        try {
+            dataLoader.loadAll();
+            fail("Expected the load to fail");
+        } catch (DataLoadException e) {
+            assertEquals("bad pet", e.getCause().getMessage());
+        }
+        assertEquals(0, count(Tribe.class));
+        assertEquals(0, count(Unit.class));
+        assertEquals(0, count(PetSkill.class));
+        assertEquals(0, count(Pet.class));
+    }
+
+    @Test
+    public void testConcurrentLoadAllKeepsOtherEntityTypesWithoutAllOrNothing() {
+        dataLoader = new EndlessFrontierDataLoader(database.getSessionFactory(),
+                failingConverter(source -> source instanceof PetXML, new IllegalStateException("bad pet")));
+        dataLoader.setPersistParallelism(4);
+
+        try {
+            dataLoader.loadAll();
+            fail("Expected the load to fail");
+        } catch (DataLoadException e) {
+            assertEquals("bad pet", e.getCause().getMessage());
+        }
+        assertEquals(218, count(Unit.class));
+        assertEquals(456, count(PetSkill.class));
+        assertEquals(0, count(Pet.class));
+    }
+
+    @Test
+    public void testLoadAllOnlyReportsFailedSteps() {
+        dataLoader = new EndlessFrontierDataLoader(database.getSessionFactory(),
+                failingConverter(source -> source instanceof PetSkillXML, new IllegalStateException("bad pet skill")));
+
+        try {
+            dataLoader.loadAll();
+            fail("Expected the load to fail");
+        } catch (DataLoadException e) {
+            // Pets is skipped with the same failure, which must not be attached again
+            assertEquals("bad pet skill", e.getCause().getMessage());
+            assertEquals(0, e.getSuppressed().length);
+        }
+    }
+
+    @Test
+    public void testParallelConversionPreservesOrder() throws DataLoadException {
+        List<UnitXML> units = dataLoader.loadXmlData("src/main/resources/ef/global/1.9.5/unitbook.xml", "//unit", UnitXML.class);
+        List<Unit> sequential = dataLoader.convertToCanonicalModels(units, UnitXML.class, Unit.class);
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            dataLoader.setConversionExecutor(pool);
+            assertEquals(sequential, dataLoader.convertToCanonicalModels(units, UnitXML.class, Unit.class));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testParallelConversionCollectsFailures() throws DataLoadException {
+        List<UnitXML> units = dataLoader.loadXmlData("src/main/resources/ef/global/1.9.5/unitbook.xml", "//unit", UnitXML.class);
+        UnitXML first = units.get(3);
+        UnitXML second = units.get(100);
+        dataLoader = new EndlessFrontierDataLoader(database.getSessionFactory(),
+                failingConverter(source -> source == first || source == second, new CanonicalConversionException("bad unit")));
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            dataLoader.setConversionExecutor(pool);
+            ConversionFailureCollector failures = new ConversionFailureCollector();
+            List<Unit> converted = dataLoader.convertToCanonicalModels(units, UnitXML.class, Unit.class, failures);
+
+            assertEquals(216, converted.size());
+            List<ConversionFailure> failed = failures.getFailures();
+            assertEquals(2, failed.size());
+            assertEquals(3, failed.get(0).getIndex());
+            assertSame(first, failed.get(0).getModel());
+            assertEquals("bad unit", failed.get(0).getCause().getMessage());
+            assertEquals(100, failed.get(1).getIndex());
+            assertSame(second, failed.get(1).getModel());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * @param failure thrown for every source fails matches, a CanonicalConversionException is collected and the model
+     *                skipped, a RuntimeException fails the load
+     */
+    private static CanonicalModelConverter failingConverter(Predicate<Object> fails, Exception failure){
+        return new CanonicalModelConverter(new MockTranslationFieldConverter()){
+            @Override
+            public Object convert(Object source) throws CanonicalConversionException {
+                if(fails.test(source)){
+                    if(failure instanceof CanonicalConversionException){
+                        throw (CanonicalConversionException) failure;
+                    }
+                    throw (RuntimeException) failure;
+                }
+                return super.convert(source);
+            }
+        };
+    }
+
+    private static Translation translation(String id, String value){
+        Translation translation = new Translation();
+        translation.setId(id);
+        translation.setValue(value);
+        return translation;
+    }
+
     private <T> int count(Class<T> type){
         Session session = database.getSessionFactory().getCurrentSession();
         Query q = session.createQuery(String.format("select count(*) from %s", type.getSimpleName()));
         return ((Long)q.uniqueResult()).intValue();
     }
 
-    private <T> T find(Class<T> type, Integer id){
+    private <T> T find(Class<T> type, Serializable id){
         Session session = database.getSessionFactory().getCurrentSession();
         T t = session.get(type, id);
         return t;
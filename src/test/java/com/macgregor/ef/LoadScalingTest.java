@@ -0,0 +1,227 @@
+package com.macgregor.ef;
+
+import com.macgregor.ef.model.canonical.*;
+import com.macgregor.ef.model.ekkor.*;
+import com.macgregor.ef.test_util.ScaledBookGenerator;
+import io.dropwizard.testing.junit.DAOTestRule;
+import org.hibernate.Session;
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Loads the global books scaled up by ScaledBookGenerator and logs the time and peak heap of each stage at each scale,
+ * warning about stages whose time per record grows with the amount of data. Too slow to run with every build, so it
+ * only runs when the scale factors are given, for example:
+ *
+ * mvn test -Dtest=LoadScalingTest -Def.scaling.factors=1,10,100
+ *
+ * totbattlebook.xml is scaled along with the other books but isnt loaded, there is no canonical model for it.
+ */
+public class LoadScalingTest {
+    private static final Logger logger = LoggerFactory.getLogger(LoadScalingTest.class);
+    public static final String FACTORS_PROPERTY = "ef.scaling.factors";
+    // time per record can grow this much from the smallest scale before it is reported as super-linear
+    private static final double SUPER_LINEAR_TOLERANCE = 2.0;
+
+    private static final List<Target<?, ?>> TARGETS = Arrays.asList(
+            new Target<>(ScaledBookGenerator.UNIT_BOOK, "//unitSkill", UnitSkillXML.class, UnitSkill.class),
+            new Target<>(ScaledBookGenerator.UNIT_BOOK, "//unit", UnitXML.class, Unit.class),
+            new Target<>(ScaledBookGenerator.PET_BOOK, "//petSkill", PetSkillXML.class, PetSkill.class),
+            new Target<>(ScaledBookGenerator.PET_BOOK, "//pet", PetXML.class, Pet.class),
+            new Target<>(ScaledBookGenerator.TREASURE_BOOK, "//treasure", ArtifactXML.class, Artifact.class),
+            new Target<>(ScaledBookGenerator.TREASURE_BOOK, "//treasureSet", ArtifactSetXML.class, ArtifactSet.class));
+
+    @Rule
+    public DAOTestRule database = DAOTestRule.newBuilder()
+            .addEntityClass(Unit.class)
+            .addEntityClass(UnitSkill.class)
+            .addEntityClass(Artifact.class)
+            .addEntityClass(ArtifactSet.class)
+            .addEntityClass(Pet.class)
+            .addEntityClass(PetSkill.class)
+            .addEntityClass(Translation.class)
+            .addEntityClass(Tribe.class)
+            .build();
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final List<MemoryPoolMXBean> heapPools = new ArrayList<>();
+
+    @Test
+    public void testLoadScaling() throws Exception {
+        String factors = System.getProperty(FACTORS_PROPERTY);
+        Assume.assumeTrue(String.format("Set -D%s to run", FACTORS_PROPERTY), factors != null);
+        for(MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()){
+            if(pool.getType() == MemoryType.HEAP){
+                heapPools.add(pool);
+            }
+        }
+
+        ScaledBookGenerator generator = new ScaledBookGenerator(Paths.get(TranslationStore.DEFAULT_BOOK_DIRECTORY));
+        Map<String, List<StageResult>> results = new LinkedHashMap<>();
+        for(String factor : factors.split(",")){
+            Path books = folder.newFolder("x" + factor.trim()).toPath();
+            generator.generate(books, Integer.parseInt(factor.trim()));
+            for(StageResult result : load(books, Integer.parseInt(factor.trim()))){
+                results.computeIfAbsent(result.stage, stage -> new ArrayList<>()).add(result);
+                logger.info(result.toString());
+            }
+            emptyTables();
+        }
+        report(results);
+    }
+
+    private List<StageResult> load(Path books, int factor) throws Exception {
+        List<StageResult> results = new ArrayList<>();
+        TranslationStore translations = new TranslationStore()
+                .register(Locale.ENGLISH, books.resolve(ScaledBookGenerator.TEXT_BOOK).toString());
+        EndlessFrontierDataLoader[] dataLoader = new EndlessFrontierDataLoader[1];
+        results.add(measure("translations", factor, () -> {
+            dataLoader[0] = new EndlessFrontierDataLoader(database.getSessionFactory(), translations, Locale.ENGLISH);
+            return translations.getTranslator(Locale.ENGLISH).size();
+        }));
+        for(Target<?, ?> target : TARGETS){
+            load(dataLoader[0], books, target, factor, results);
+        }
+        return results;
+    }
+
+    private <T, U> void load(EndlessFrontierDataLoader dataLoader, Path books, Target<T, U> target, int factor,
+                             List<StageResult> results) throws Exception {
+        String uri = books.resolve(target.book).toString();
+        List<List<T>> extracted = new ArrayList<>(1);
+        results.add(measure(target.xmlModel.getSimpleName() + " extraction", factor, () -> {
+            extracted.add(dataLoader.loadXmlData(uri, target.xpath, target.xmlModel));
+            return extracted.get(0).size();
+        }));
+        List<List<U>> converted = new ArrayList<>(1);
+        results.add(measure(target.canonicalModel.getSimpleName() + " conversion", factor, () -> {
+            converted.add(dataLoader.convertToCanonicalModels(extracted.get(0), target.xmlModel, target.canonicalModel));
+            return converted.get(0).size();
+        }));
+        extracted.clear();
+        results.add(measure(target.canonicalModel.getSimpleName() + " persist", factor, () -> {
+            dataLoader.persistModels(converted.get(0), target.canonicalModel);
+            return converted.get(0).size();
+        }));
+        assertEquals(target.canonicalModel.getSimpleName(), converted.get(0).size(), count(target.canonicalModel));
+    }
+
+    /**
+     * Runs the stage after a GC, so its peak heap is what the stage needed on top of whatever is still reachable. The
+     * peak is the sum of the peaks of each heap pool, which can overstate it a little as pools may peak at different
+     * times.
+     *
+     * @param stage returns the number of records it handled
+     */
+    private StageResult measure(String name, int factor, Callable<Integer> stage) throws Exception {
+        System.gc();
+        heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+        long start = System.nanoTime();
+        int records = stage.call();
+        long nanos = System.nanoTime() - start;
+        long peakHeap = 0;
+        for(MemoryPoolMXBean pool : heapPools){
+            peakHeap += pool.getPeakUsage().getUsed();
+        }
+        return new StageResult(name, factor, records, nanos, peakHeap);
+    }
+
+    private void report(Map<String, List<StageResult>> results){
+        for(List<StageResult> stage : results.values()){
+            StageResult base = stage.get(0);
+            if(base.records == 0){
+                continue;
+            }
+            for(StageResult result : stage.subList(1, stage.size())){
+                double growth = result.nanosPerRecord() / base.nanosPerRecord();
+                if(growth > SUPER_LINEAR_TOLERANCE){
+                    logger.warn(String.format("[Load Scaling] - %s is super-linear: %.0fns per record at %dx, %.0fns at %dx (%.1f times)",
+                            result.stage, result.nanosPerRecord(), result.factor, base.nanosPerRecord(), base.factor, growth));
+                }
+            }
+        }
+    }
+
+    private void emptyTables(){
+        Session session = database.getSessionFactory().openSession();
+        try {
+            session.beginTransaction();
+            for(Target<?, ?> target : TARGETS){
+                session.createQuery(String.format("delete from %s", target.canonicalModel.getSimpleName())).executeUpdate();
+            }
+            session.getTransaction().commit();
+        } finally {
+            session.close();
+        }
+    }
+
+    private int count(Class<?> type){
+        Session session = database.getSessionFactory().openSession();
+        try {
+            return ((Long) session.createQuery(String.format("select count(*) from %s", type.getSimpleName())).uniqueResult()).intValue();
+        } finally {
+            session.close();
+        }
+    }
+
+    private static final class Target<T, U> {
+        private final String book;
+        private final String xpath;
+        private final Class<T> xmlModel;
+        private final Class<U> canonicalModel;
+
+        Target(String book, String xpath, Class<T> xmlModel, Class<U> canonicalModel){
+            this.book = book;
+            this.xpath = xpath;
+            this.xmlModel = xmlModel;
+            this.canonicalModel = canonicalModel;
+        }
+    }
+
+    private static final class StageResult {
+        private final String stage;
+        private final int factor;
+        private final int records;
+        private final long nanos;
+        private final long peakHeap;
+
+        StageResult(String stage, int factor, int records, long nanos, long peakHeap){
+            this.stage = stage;
+            this.factor = factor;
+            this.records = records;
+            this.nanos = nanos;
+            this.peakHeap = peakHeap;
+        }
+
+        double nanosPerRecord(){
+            return records == 0 ? 0 : (double) nanos / records;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("[Load Scaling %dx] - %s: %d records in %dms (%.0fns per record), peak heap %dMB",
+                    factor, stage, records, nanos / 1000000, nanosPerRecord(), peakHeap / (1024 * 1024));
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.macgregor.ef;
+
+import com.macgregor.ef.exceptions.DataLoadException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class LoadSchedulerTest {
+    private ExecutorService pool;
+    private LoadScheduler scheduler;
+
+    @Before
+    public void setUp() {
+        pool = Executors.newFixedThreadPool(4);
+        scheduler = new LoadScheduler(pool);
+    }
+
+    @After
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    public void testDependenciesRunFirst() {
+        Queue<String> finished = new ConcurrentLinkedQueue<>();
+        LoadReport report = scheduler.run(Arrays.asList(
+                new LoadStep("units", () -> finished.add("units"), "skills", "translations"),
+                new LoadStep("skills", () -> finished.add("skills"), "translations"),
+                new LoadStep("translations", () -> finished.add("translations"))));
+
+        assertTrue(report.isSuccessful());
+        assertEquals(Arrays.asList("translations", "skills", "units"), Arrays.asList(finished.toArray()));
+        assertEquals(Arrays.asList("units", "skills", "translations"),
+                report.getSteps().stream().map(LoadReport.StepResult::getName).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void testIndependentStepsRunConcurrently() throws InterruptedException {
+        CountDownLatch bothStarted = new CountDownLatch(2);
+        LoadStep.Action waitForOther = () -> {
+            bothStarted.countDown();
+            try {
+                if(!bothStarted.await(5, TimeUnit.SECONDS)){
+                    throw new DataLoadException("Steps did not run concurrently");
+                }
+            } catch (InterruptedException e) {
+                throw new DataLoadException("Interrupted", e);
+            }
+        };
+
+        LoadReport report = scheduler.run(Arrays.asList(new LoadStep("a", waitForOther), new LoadStep("b", waitForOther)));
+        assertTrue(report.isSuccessful());
+    }
+
+    @Test
+    public void testDependentsOfFailedStepAreSkipped() {
+        DataLoadException failure = new DataLoadException("bad book");
+        LoadReport report = scheduler.run(Arrays.asList(
+                new LoadStep("book", () -> { throw failure; }),
+                new LoadStep("units", () -> {}, "book"),
+                new LoadStep("tribes", () -> {})));
+
+        assertFalse(report.isSuccessful());
+        assertEquals(LoadReport.Status.FAILED, report.getStep("book").getStatus());
+        assertSame(failure, report.getStep("book").getFailure());
+        assertEquals(LoadReport.Status.SKIPPED, report.getStep("units").getStatus());
+        assertSame(failure, report.getStep("units").getFailure());
+        assertEquals(LoadReport.Status.SUCCEEDED, report.getStep("tribes").getStatus());
+        assertEquals(2, report.getFailures().size());
+    }
+
+    @Test
+    public void testErrorsAreRecordedAsFailures() {
+        AssertionError failure = new AssertionError("broken step");
+        LoadReport report = scheduler.run(Arrays.asList(
+                new LoadStep("book", () -> { throw failure; }),
+                new LoadStep("units", () -> {}, "book")));
+
+        assertEquals(LoadReport.Status.FAILED, report.getStep("book").getStatus());
+        assertSame(failure, report.getStep("book").getFailure());
+        assertEquals(LoadReport.Status.SKIPPED, report.getStep("units").getStatus());
+    }
+
+    @Test
+    public void testCriticalPathIsLongestChain() {
+        LoadReport report = scheduler.run(Arrays.asList(
+                new LoadStep("translations", () -> sleep(50)),
+                new LoadStep("book", () -> sleep(10)),
+                new LoadStep("skills", () -> sleep(10), "book"),
+                new LoadStep("units", () -> sleep(10), "skills", "translations")));
+
+        assertEquals(Arrays.asList("translations", "units"),
+                report.getCriticalPath().stream().map(LoadReport.StepResult::getName).collect(Collectors.toList()));
+        assertTrue(report.getCriticalPathNanos() >= TimeUnit.MILLISECONDS.toNanos(60));
+        assertTrue(report.getElapsedNanos() >= report.getCriticalPathNanos());
+    }
+
+    @Test
+    public void testEmptyRun() {
+        LoadReport report = scheduler.run(Collections.<LoadStep>emptyList());
+        assertTrue(report.isSuccessful());
+        assertTrue(report.getCriticalPath().isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCyclesAreRejected() {
+        scheduler.run(Arrays.asList(new LoadStep("a", () -> {}, "b"), new LoadStep("b", () -> {}, "a")));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownDependenciesAreRejected() {
+        scheduler.run(Collections.singletonList(new LoadStep("a", () -> {}, "missing")));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDuplicateNamesAreRejected() {
+        scheduler.run(Arrays.asList(new LoadStep("a", () -> {}), new LoadStep("a", () -> {})));
+    }
+
+    @Test
+    public void testTopologicalOrderKeepsGivenOrderOtherwise() {
+        List<LoadStep> ordered = LoadScheduler.topologicalOrder(Arrays.asList(
+                new LoadStep("c", () -> {}), new LoadStep("a", () -> {}, "b"), new LoadStep("b", () -> {})));
+        assertEquals(Arrays.asList("c", "b", "a"), ordered.stream().map(LoadStep::getName).collect(Collectors.toList()));
+    }
+
+    private static void sleep(long millis) throws DataLoadException {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            throw new DataLoadException("Interrupted", e);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.macgregor.ef;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class StageQueueTest {
+
+    @Test
+    public void testRecordsAreTakenInOrderUntilClosed() throws InterruptedException {
+        StageQueue<Integer> queue = new StageQueue<>("test", 4);
+        queue.put(1);
+        queue.put(2);
+        queue.close();
+
+        assertEquals(1, (int) queue.take());
+        assertEquals(2, (int) queue.take());
+        assertNull(queue.take());
+        assertNull(queue.take());
+    }
+
+    @Test
+    public void testFullQueueBlocksProducer() throws Exception {
+        StageQueue<Integer> queue = new StageQueue<>("test", 2);
+        ExecutorService producer = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> puts = producer.submit(() -> {
+                for(int i = 0; i < 3; i++){
+                    queue.put(i);
+                }
+                queue.close();
+                return null;
+            });
+
+            try {
+                puts.get(100, TimeUnit.MILLISECONDS);
+                fail("Producer should be blocked on a full queue");
+            } catch (TimeoutException e) {
+                assertEquals(2, queue.getDepth());
+            }
+
+            List<Integer> taken = new ArrayList<>();
+            for(Integer i = queue.take(); i != null; i = queue.take()){
+                taken.add(i);
+            }
+            puts.get(1, TimeUnit.SECONDS);
+            assertEquals(3, taken.size());
+
+            StageQueue.Metrics metrics = queue.getMetrics();
+            assertEquals(3, metrics.getItems());
+            assertEquals(2, metrics.getMaxDepth());
+            assertTrue(metrics.getProducerBlockedNanos() >= TimeUnit.MILLISECONDS.toNanos(50));
+        } finally {
+            producer.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testCloseDoesntBlockOnFullQueue() throws InterruptedException {
+        StageQueue<Integer> queue = new StageQueue<>("test", 1);
+        queue.put(1);
+        queue.close();
+        assertEquals(1, queue.getDepth());
+        assertEquals(1, (int) queue.take());
+        assertNull(queue.take());
+        assertEquals(0, queue.getDepth());
+    }
+
+    @Test
+    public void testEmptyQueueRecordsConsumerWait() throws Exception {
+        StageQueue<Integer> queue = new StageQueue<>("test", 1);
+        ExecutorService producer = Executors.newSingleThreadExecutor();
+        try {
+            producer.submit(() -> {
+                Thread.sleep(50);
+                queue.close();
+                return null;
+            });
+            assertNull(queue.take());
+            assertTrue(queue.getMetrics().getConsumerBlockedNanos() >= TimeUnit.MILLISECONDS.toNanos(25));
+        } finally {
+            producer.shutdownNow();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testCapacityMustBePositive() {
+        new StageQueue<Integer>("test", 0);
+    }
+}
@@ -0,0 +1,95 @@
+package com.macgregor.ef;
+
+import com.macgregor.ef.converters.IndexedTranslator;
+import com.macgregor.ef.exceptions.CanonicalConversionException;
+import com.macgregor.ef.exceptions.DataLoadException;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class TranslationStoreTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private TranslationStore store;
+
+    @Before
+    public void setUp() throws IOException, DataLoadException {
+        book("global.1.9.5-book.en.xml", "ACHIEVE_NAME_1", "Conqueror", "ACHIEVE_NAME_2", "Strong Troops");
+        book("global.1.9.5-book.ko.xml", "ACHIEVE_NAME_1", "Jeongbokja", "ACHIEVE_NAME_3", "Sujipga");
+        folder.newFile("unitbook.xml");
+        store = new TranslationStore().registerAll(folder.getRoot().toPath());
+    }
+
+    private void book(String name, String... entries) throws IOException {
+        StringBuilder xml = new StringBuilder("<main><textList>");
+        for(int i = 0; i < entries.length; i += 2){
+            xml.append("<text><id>").append(entries[i]).append("</id><value><![CDATA[").append(entries[i + 1]).append("]]></value></text>");
+        }
+        xml.append("</textList></main>");
+        File book = folder.newFile(name);
+        Files.write(book.toPath(), xml.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testRegisterAllFindsLocaleBooks() {
+        assertEquals(new HashSet<>(Arrays.asList(Locale.ENGLISH, Locale.KOREAN)), store.getLocales());
+        assertTrue(store.getBook(Locale.KOREAN).endsWith("global.1.9.5-book.ko.xml"));
+    }
+
+    @Test
+    public void testBooksAreLoadedLazilyOnce() throws DataLoadException, CanonicalConversionException {
+        assertFalse(store.isLoaded(Locale.ENGLISH));
+        IndexedTranslator english = store.getTranslator(Locale.ENGLISH);
+        assertTrue(store.isLoaded(Locale.ENGLISH));
+        assertFalse(store.isLoaded(Locale.KOREAN));
+        assertSame(english, store.getTranslator(Locale.ENGLISH));
+        assertEquals("Conqueror", english.translate("ACHIEVE_NAME_1"));
+    }
+
+    @Test
+    public void testLocalesShareKeys() throws DataLoadException, CanonicalConversionException {
+        IndexedTranslator english = store.getTranslator(Locale.ENGLISH);
+        IndexedTranslator korean = store.getTranslator(Locale.KOREAN);
+        assertEquals(3, store.getDictionary().size());
+        assertEquals("Jeongbokja", korean.translate("ACHIEVE_NAME_1"));
+        assertFalse(korean.contains("ACHIEVE_NAME_2"));
+        assertFalse(english.contains("ACHIEVE_NAME_3"));
+    }
+
+    @Test
+    public void testLocalesLoadConcurrently() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            Future<IndexedTranslator> first = pool.submit(() -> store.getTranslator(Locale.KOREAN));
+            Future<IndexedTranslator> second = pool.submit(() -> store.getTranslator(Locale.KOREAN));
+            Future<IndexedTranslator> english = pool.submit(() -> store.getTranslator(Locale.ENGLISH));
+            assertSame(first.get(), second.get());
+            assertEquals("Conqueror", english.get().translate("ACHIEVE_NAME_1"));
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnregisteredLocale() throws DataLoadException {
+        store.getTranslator(Locale.FRENCH);
+    }
+}
@@ -1,25 +1,33 @@
 package com.macgregor.ef;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.dataformat.xml.annotation.JacksonXmlProperty;
 import com.fasterxml.jackson.dataformat.xml.annotation.JacksonXmlRootElement;
 import com.macgregor.ef.exceptions.DataLoadException;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 
 public class XmlPOJOExtractorTest {
 
     private static final String testFile = "src/test/resources/dataloader/test_model.xml";
     private XmlPOJOExtractor extractor;
+    private XmlPOJOExtractor streamingExtractor;
     private TestModel tm1;
     private TestModel tm2;
 
     @Before
     public void setUp(){
         extractor = new XmlPOJOExtractor();
+        streamingExtractor = new XmlPOJOExtractor(XmlPOJOExtractor.Mode.STREAMING);
         tm1 = new TestModel();
         tm1.id = 1;
         tm1.name = "foo";
@@ -73,6 +81,123 @@ public class XmlPOJOExtractorTest {
         assertEquals(tm2, extracted.get(1));
     }
 
+    @Test(expected = DataLoadException.class)
+    public void streamingShouldThrowDataLoadExceptionWhenFileNotFound() throws DataLoadException {
+        streamingExtractor.extract("", "//TestModel", TestModel.class);
+    }
+
+    @Test(expected = DataLoadException.class)
+    public void streamingShouldThrowDataLoadExceptionWithInvalidXPath() throws DataLoadException {
+        streamingExtractor.extract(testFile, "", TestModel.class);
+    }
+
+    @Test(expected = DataLoadException.class)
+    public void streamingShouldThrowDataLoadExceptionWithUnsupportedXPath() throws DataLoadException {
+        streamingExtractor.extract(testFile, "//TestModel[id=1]", TestModel.class);
+    }
+
+    @Test
+    public void streamingShouldExtractListOfTestModels() throws DataLoadException {
+        List<TestModel> extracted = streamingExtractor.extract(testFile, "//TestModel", TestModel.class);
+        assertEquals(2, extracted.size());
+        assertEquals(tm1, extracted.get(0));
+        assertEquals(tm2, extracted.get(1));
+    }
+
+    @Test
+    public void streamingShouldExtractListOfTestModelsWithAbsolutePath() throws DataLoadException {
+        List<TestModel> extracted = streamingExtractor.extract(testFile, "/TestModels/TestModel", TestModel.class);
+        assertEquals(2, extracted.size());
+        assertEquals(tm1, extracted.get(0));
+        assertEquals(tm2, extracted.get(1));
+    }
+
+    @Test
+    public void streamingShouldContinueWhenFailingToParseNodeInList() throws DataLoadException {
+        List<TestModel> extracted = streamingExtractor.extract("src/test/resources/dataloader/test_model_with_bad_node.xml", "//TestModel", TestModel.class);
+        assertEquals(2, extracted.size());
+        assertEquals(tm1, extracted.get(0));
+        assertEquals(tm2, extracted.get(1));
+    }
+
+    @Test
+    public void streamingShouldExtractEmptyFieldsAsNull() throws DataLoadException {
+        List<TestModel> extracted = streamingExtractor.extract("src/test/resources/dataloader/test_model_with_empty_field.xml", "//TestModel", TestModel.class);
+        tm1.name = null;
+        tm2.name = null;
+
+        assertEquals(2, extracted.size());
+        assertEquals(tm1, extracted.get(0));
+        assertEquals(tm2, extracted.get(1));
+    }
+
+    @Test
+    public void streamingShouldMatchDomExtraction() throws DataLoadException {
+        String unitBook = "src/main/resources/ef/global/1.9.5/unitbook.xml";
+        List<LenientTestModel> dom = extractor.extract(unitBook, "//unitSkill", LenientTestModel.class);
+        List<LenientTestModel> streamed = streamingExtractor.extract(unitBook, "//unitSkill", LenientTestModel.class);
+        assertEquals(65, streamed.size());
+        assertEquals(dom, streamed);
+    }
+
+    @Test
+    public void shouldExtractMultipleTargetsInOnePass() throws DataLoadException {
+        testExtractMultipleTargets(extractor);
+    }
+
+    @Test
+    public void streamingShouldExtractMultipleTargetsInOnePass() throws DataLoadException {
+        testExtractMultipleTargets(streamingExtractor);
+    }
+
+    @Test
+    public void streamShouldLazilyExtractTestModels() throws DataLoadException {
+        try (Stream<TestModel> stream = streamingExtractor.stream(testFile, "//TestModel", TestModel.class)) {
+            Iterator<TestModel> extracted = stream.iterator();
+            assertEquals(tm1, extracted.next());
+            assertEquals(tm2, extracted.next());
+            assertFalse(extracted.hasNext());
+        }
+    }
+
+    @Test
+    public void streamShouldSkipNodesThatFailToParse() throws DataLoadException {
+        try (Stream<TestModel> stream = streamingExtractor.stream("src/test/resources/dataloader/test_model_with_bad_node.xml", "//TestModel", TestModel.class)) {
+            assertEquals(Arrays.asList(tm1, tm2), stream.collect(Collectors.toList()));
+        }
+    }
+
+    @Test
+    public void streamShouldMatchExtract() throws DataLoadException {
+        String unitBook = "src/main/resources/ef/global/1.9.5/unitbook.xml";
+        List<LenientTestModel> extracted = extractor.extract(unitBook, "//unitSkill", LenientTestModel.class);
+        try (Stream<LenientTestModel> stream = streamingExtractor.stream(unitBook, "//unitSkill", LenientTestModel.class)) {
+            assertEquals(extracted, stream.collect(Collectors.toList()));
+        }
+    }
+
+    @Test(expected = DataLoadException.class)
+    public void streamShouldThrowDataLoadExceptionWhenFileNotFound() throws DataLoadException {
+        streamingExtractor.stream("", "//TestModel", TestModel.class);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectTargetThatWasNotExtracted() throws DataLoadException {
+        ExtractionTarget<TestModel> models = new ExtractionTarget<>("//TestModel", TestModel.class);
+        ExtractionResult result = streamingExtractor.extractAll(testFile, Arrays.<ExtractionTarget<?>>asList(models));
+        result.get(new ExtractionTarget<>("//TestModel", TestModel.class));
+    }
+
+    private void testExtractMultipleTargets(XmlPOJOExtractor extractor) throws DataLoadException {
+        ExtractionTarget<LenientTestModel> units = new ExtractionTarget<>("//unit", LenientTestModel.class);
+        ExtractionTarget<LenientTestModel> unitSkills = new ExtractionTarget<>("//unitSkill", LenientTestModel.class);
+        ExtractionResult result = extractor.extractAll("src/main/resources/ef/global/1.9.5/unitbook.xml",
+                Arrays.<ExtractionTarget<?>>asList(units, unitSkills));
+
+        assertEquals(218, result.get(units).size());
+        assertEquals(65, result.get(unitSkills).size());
+        assertEquals(Integer.valueOf(1), result.get(unitSkills).get(0).id);
+    }
 
     @JacksonXmlRootElement(localName = "TestModel")
     static class TestModel{
@@ -109,4 +234,7 @@ public class XmlPOJOExtractorTest {
                     '}';
         }
     }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    static class LenientTestModel extends TestModel{ }
 }
@@ -0,0 +1,62 @@
+package com.macgregor.ef;
+
+import com.macgregor.ef.exceptions.DataLoadException;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class XmlStreamPathTest {
+
+    @Test
+    public void testDescendantPathMatchesAtAnyDepth() throws DataLoadException {
+        XmlStreamPath path = XmlStreamPath.compile("//unit");
+        assertTrue(path.matches(Arrays.asList("unit")));
+        assertTrue(path.matches(Arrays.asList("main", "unitList", "unit")));
+        assertFalse(path.matches(Arrays.asList("main", "unitList")));
+        assertFalse(path.matches(Arrays.asList("main", "unitList", "unitSkill")));
+    }
+
+    @Test
+    public void testChildPathOnlyMatchesExactPath() throws DataLoadException {
+        XmlStreamPath path = XmlStreamPath.compile("/main/unitList/unit");
+        assertTrue(path.matches(Arrays.asList("main", "unitList", "unit")));
+        assertFalse(path.matches(Arrays.asList("main", "unit")));
+        assertFalse(path.matches(Arrays.asList("root", "main", "unitList", "unit")));
+    }
+
+    @Test
+    public void testMixedAxesAndWildcards() throws DataLoadException {
+        XmlStreamPath path = XmlStreamPath.compile("/main//*/treasureSet");
+        assertTrue(path.matches(Arrays.asList("main", "treasureSetList", "treasureSet")));
+        assertTrue(path.matches(Arrays.asList("main", "a", "b", "treasureSet")));
+        assertFalse(path.matches(Arrays.asList("main", "treasureSet")));
+    }
+
+    @Test(expected = DataLoadException.class)
+    public void testEmptyPathIsRejected() throws DataLoadException {
+        XmlStreamPath.compile("");
+    }
+
+    @Test(expected = DataLoadException.class)
+    public void testRelativePathIsRejected() throws DataLoadException {
+        XmlStreamPath.compile("unit");
+    }
+
+    @Test(expected = DataLoadException.class)
+    public void testPredicateIsRejected() throws DataLoadException {
+        XmlStreamPath.compile("//unit[kindNum=1]");
+    }
+
+    @Test(expected = DataLoadException.class)
+    public void testAttributeIsRejected() throws DataLoadException {
+        XmlStreamPath.compile("//unit/@id");
+    }
+
+    @Test(expected = DataLoadException.class)
+    public void testTrailingSlashIsRejected() throws DataLoadException {
+        XmlStreamPath.compile("//unit/");
+    }
+}
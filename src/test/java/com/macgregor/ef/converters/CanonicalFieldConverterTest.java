@@ -98,6 +98,105 @@ public class CanonicalFieldConverterTest {
         assertArrayEquals(expected, (String[]) converter.convert("questGoldGain_A#attackSpeed_A", String[].class));
     }
 
+    @Test
+    public void testDoubleConversion() throws CanonicalConversionException {
+        assertEquals(27.25, converter.convert("27.25", Double.class));
+        assertEquals(27.25, converter.convert("27.25", double.class));
+    }
+
+    @Test
+    public void testDoubleConversionDefaultsNull() throws CanonicalConversionException {
+        assertEquals(null, converter.convert("", Double.class));
+        assertEquals(null, converter.convert("abc", Double.class));
+    }
+
+    @Test
+    public void testIntegerConversionUnparsableDefaultsNull() throws CanonicalConversionException {
+        assertEquals(null, converter.convert("1.5", Integer.class));
+        assertEquals(null, converter.convert("abc", Integer.class));
+    }
+
+    @Test
+    public void testBooleanConversionUpperCase() throws CanonicalConversionException {
+        assertEquals(true, converter.convert("Y", Boolean.class));
+        assertEquals(false, converter.convert("N", Boolean.class));
+        assertEquals(null, converter.convert("maybe", Boolean.class));
+    }
+
+    @Test
+    public void testPrimitiveConversions() throws CanonicalConversionException {
+        assertEquals(42, converter.convertInt("42", -1));
+        assertEquals(-1, converter.convertInt("", -1));
+        assertEquals(-1, converter.convertInt(null, -1));
+        assertEquals(-1, converter.convertInt(5000000000L, -1));
+        assertEquals(0.4, converter.convertDouble("0.4", 0), 0);
+        assertEquals(-1, converter.convertDouble("abc", -1), 0);
+        assertTrue(converter.convertBoolean("Y", false));
+        assertFalse(converter.convertBoolean("N", true));
+        assertTrue(converter.convertBoolean("maybe", true));
+    }
+
+    @Test
+    public void testDoubleArrayConversion() throws CanonicalConversionException {
+        assertArrayEquals(new double[]{0.4, 0.8, 1.2}, (double[]) converter.convert("0.4|0.8|1.2", double[].class), 0);
+        assertArrayEquals(new Double[]{0.4, 0.8, 1.2}, (Double[]) converter.convert("0.4|0.8|1.2", Double[].class));
+    }
+
+    @Test
+    public void testNestedDelimitersAreFlattened() throws CanonicalConversionException {
+        assertArrayEquals(new String[]{"attackSpeed_A", "questOpenGold_A", "questGoldGain_A"},
+                (String[]) converter.convert("attackSpeed_A#questOpenGold_A|questGoldGain_A", String[].class));
+    }
+
+    @Test
+    public void testConvertersAreIndependent() throws CanonicalConversionException {
+        CanonicalFieldConverter custom = new CanonicalFieldConverter(ValueConverterRegistry.defaults().toBuilder()
+                .register(Integer.class, value -> -1)
+                .build());
+        assertEquals(-1, custom.convert("1", Integer.class));
+        assertEquals(1, converter.convert("1", Integer.class));
+    }
+
+    @Test
+    public void testPrimitiveBackedLists() throws CanonicalConversionException {
+        CanonicalFieldConverter primitive = new CanonicalFieldConverter(ValueConverterRegistry.defaults(), true);
+
+        List<?> ints = primitive.convertCollection("1|2|3", Integer.class);
+        assertTrue(ints instanceof PrimitiveLists.IntList);
+        assertEquals(Arrays.asList(1, 2, 3), ints);
+
+        List<?> doubles = primitive.convertCollection("0.4|0.8", Double.class);
+        assertTrue(doubles instanceof PrimitiveLists.DoubleList);
+        assertEquals(Arrays.asList(0.4, 0.8), doubles);
+
+        assertEquals(converter.convertCollection("", Integer.class), primitive.convertCollection("", Integer.class));
+    }
+
+    @Test
+    public void testPrimitiveBackedListsFallBackForUnparsableElements() throws CanonicalConversionException {
+        CanonicalFieldConverter primitive = new CanonicalFieldConverter(ValueConverterRegistry.defaults(), true);
+        assertEquals(Arrays.asList(1, null, 3), primitive.convertCollection("1|x|3", Integer.class));
+    }
+
+    @Test
+    public void testPrimitiveBackedListsRespectCustomConverters() throws CanonicalConversionException {
+        CanonicalFieldConverter custom = new CanonicalFieldConverter(ValueConverterRegistry.defaults().toBuilder()
+                .register(Integer.class, value -> -1)
+                .build(), true);
+        assertEquals(Arrays.asList(-1, -1), custom.convertCollection("1|2", Integer.class));
+    }
+
+    @Test
+    public void testPrimitiveConversionsRespectCustomConverters() throws CanonicalConversionException {
+        CanonicalFieldConverter custom = new CanonicalFieldConverter(ValueConverterRegistry.defaults().toBuilder()
+                .register(int.class, value -> 7)
+                .register(boolean.class, value -> null)
+                .build());
+        assertEquals(7, custom.convertInt("1", -1));
+        assertTrue(custom.convertBoolean("N", true));
+        assertEquals(0.5, custom.convertDouble("0.5", 0), 0);
+    }
+
     private void testArrayConversion(Object[] expected, Class<?> clazz) throws CanonicalConversionException{
         for(char c : CanonicalFieldConverter.LIST_FIELD_DELIMINATORS){
             String stringList = StringUtils.join(expected, c);
@@ -14,9 +14,13 @@ import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Arrays;
 import java.util.List;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 public class CanonicalModelConverterTest {
     private static final Logger logger = LoggerFactory.getLogger(CanonicalModelConverter.class);
@@ -64,6 +68,13 @@ public class CanonicalModelConverterTest {
         public void setPrivateId(Integer id) { this.p_id = id; }
     }
 
+    @CanonicalModel(type=CanonicalTestModel.class)
+    public static class InvalidMappingTestModel{
+
+        @CanonicalField(mapsTo="doesntexist")
+        public String name;
+    }
+
     @Before
     public void setup(){
         this.converter = new CanonicalModelConverter(new MockTranslationFieldConverter());
@@ -148,4 +159,68 @@ public class CanonicalModelConverterTest {
 
         assertEquals(expected, actual);
     }
+
+    @Test
+    public void testConversionPlanIsCompiledOncePerClass() throws CanonicalConversionException {
+        ConversionPlan plan = converter.getConversionPlan(NonCanonicalTestModel.class);
+        converter.convert(unconverted);
+        assertSame(plan, converter.getConversionPlan(NonCanonicalTestModel.class));
+    }
+
+    @Test
+    public void testConversionPlanResolvesFields() throws CanonicalConversionException {
+        ConversionPlan plan = converter.getConversionPlan(NonCanonicalTestModel.class);
+        assertEquals(CanonicalTestModel.class, plan.getCanonicalType());
+        assertEquals(6, plan.getFields().size());
+
+        for(ConversionPlan.FieldPlan f : plan.getFields()){
+            switch(f.getSourceField().getName()){
+                case "name":
+                    assertEquals("canonicalName", f.getDestField().getName());
+                    break;
+                case "convertBool":
+                    assertEquals(Boolean.class, f.getHint());
+                    break;
+                case "convertList":
+                    assertTrue(f.isList());
+                    assertEquals(String.class, f.getListElementType());
+                    break;
+                case "translate":
+                    assertTrue(f.isTranslate());
+                    break;
+                default:
+                    assertFalse(f.isList());
+                    assertFalse(f.isTranslate());
+            }
+        }
+    }
+
+    @Test(expected = CanonicalConversionException.class)
+    public void testConversionPlanFailsOnInvalidMapping() throws CanonicalConversionException {
+        converter.getConversionPlan(InvalidMappingTestModel.class);
+    }
+
+    @Test(expected = CanonicalConversionException.class)
+    public void testConversionPlanFailsWithoutCanonicalModelAnnotation() throws CanonicalConversionException {
+        converter.convert(new CanonicalTestModel());
+    }
+
+    @Test
+    public void testMethodHandleAccessorsConvertFields() throws CanonicalConversionException {
+        CanonicalModelConverter methodHandleConverter = new CanonicalModelConverter(new MockTranslationFieldConverter(), new MethodHandleAccessorFactory());
+        CanonicalTestModel converted = (CanonicalTestModel) methodHandleConverter.convert(unconverted);
+        assertEquals(1, (int)converted.id);
+        assertEquals(unconverted.getPrivateId(), converted.getPrivateId());
+        assertEquals("foobar", converted.canonicalName);
+        assertEquals(true, converted.convertBool);
+        assertEquals("success", converted.translate);
+        assertEquals(Arrays.asList("foo", "bar", "baz"), converted.convertList);
+    }
+
+    @Test
+    public void testMethodHandleAccessorsMatchReflectiveAccessors() throws CanonicalConversionException {
+        CanonicalModelConverter methodHandleConverter = new CanonicalModelConverter(new MockTranslationFieldConverter(), new MethodHandleAccessorFactory());
+        ArtifactXML artifactXML = EkkorTestModels.getArtifact();
+        assertEquals(converter.convert(artifactXML), methodHandleConverter.convert(artifactXML));
+    }
 }
@@ -0,0 +1,100 @@
+package com.macgregor.ef.converters;
+
+import com.macgregor.ef.exceptions.CanonicalConversionException;
+import com.macgregor.ef.model.canonical.Translation;
+import io.dropwizard.testing.junit.DAOTestRule;
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class DatabaseTranslatorTest {
+
+    @Rule
+    public DAOTestRule database = DAOTestRule.newBuilder()
+            .addEntityClass(Translation.class)
+            .build();
+
+    @Before
+    public void setUp() {
+        Session session = database.getSessionFactory().openSession();
+        Transaction tx = session.beginTransaction();
+        for(int i = 0; i < 1200; i++){
+            Translation translation = new Translation();
+            translation.setId("UNIT_NAME_" + i);
+            translation.setValue("Unit " + i);
+            session.save(translation);
+        }
+        tx.commit();
+        session.close();
+    }
+
+    @Test
+    public void testPrefetchResolvesKeysInBatches() throws CanonicalConversionException {
+        DatabaseTranslator translator = new DatabaseTranslator(database.getSessionFactory());
+        List<String> keys = new ArrayList<>();
+        for(int i = 0; i < 1200; i++){
+            keys.add("UNIT_NAME_" + i);
+        }
+        assertTrue(translator.supportsPrefetch());
+        translator.prefetch(keys);
+        assertEquals(3, translator.getQueryCount());
+
+        assertEquals("Unit 0", translator.translate("UNIT_NAME_0"));
+        assertEquals("Unit 1199", translator.translate("UNIT_NAME_1199"));
+        assertEquals(2, translator.getHitCount());
+        assertEquals(0, translator.getMissCount());
+        assertEquals(3, translator.getQueryCount());
+
+        translator.prefetch(keys);
+        assertEquals(3, translator.getQueryCount());
+    }
+
+    @Test
+    public void testTranslateQueriesUncachedKeysOnce() throws CanonicalConversionException {
+        DatabaseTranslator translator = new DatabaseTranslator(database.getSessionFactory());
+        assertEquals("Unit 7", translator.translate("UNIT_NAME_7"));
+        assertEquals("Unit 7", translator.translate("UNIT_NAME_7"));
+        assertEquals(1, translator.getMissCount());
+        assertEquals(1, translator.getHitCount());
+        assertEquals(1, translator.getQueryCount());
+    }
+
+    @Test
+    public void testMissingKeysAreCached() {
+        DatabaseTranslator translator = new DatabaseTranslator(database.getSessionFactory());
+        for(int i = 0; i < 2; i++){
+            try {
+                translator.translate("DOES_NOT_EXIST");
+                fail("expected CanonicalConversionException");
+            } catch (CanonicalConversionException e) {
+                // expected
+            }
+        }
+        assertEquals(1, translator.getQueryCount());
+        assertEquals(1, translator.getHitCount());
+    }
+
+    @Test
+    public void testCacheEvictsLeastRecentlyUsed() throws CanonicalConversionException {
+        DatabaseTranslator translator = new DatabaseTranslator(database.getSessionFactory(), 2);
+        translator.prefetch(Arrays.asList("UNIT_NAME_1", "UNIT_NAME_2"));
+        translator.translate("UNIT_NAME_1");
+        translator.prefetch(Arrays.asList("UNIT_NAME_3"));
+        assertEquals(2, translator.getCachedCount());
+
+        translator.translate("UNIT_NAME_1");
+        assertEquals(2, translator.getHitCount());
+        translator.translate("UNIT_NAME_2");
+        assertEquals(1, translator.getMissCount());
+    }
+}
@@ -0,0 +1,58 @@
+package com.macgregor.ef.converters;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class DelimitedListParserTest {
+
+    @Test
+    public void testAllDelimitersInOneScan() {
+        assertArrayEquals(new String[]{"attackSpeed_A", "questOpenGold_A", "questGoldGain_A", "unitUpgradeGold_A"},
+                DelimitedListParser.parseStrings("attackSpeed_A#questOpenGold_A|questGoldGain_A,unitUpgradeGold_A"));
+    }
+
+    @Test
+    public void testEmptyElementsAndWhitespaceAreSkipped() {
+        assertArrayEquals(new String[]{"a", "b", "c"}, DelimitedListParser.parseStrings(" a,,b |\n c "));
+        assertEquals(0, DelimitedListParser.countTokens(""));
+        assertEquals(0, DelimitedListParser.countTokens(" | "));
+    }
+
+    @Test
+    public void testBracesAreStripped() {
+        assertArrayEquals(new int[]{1, 2, 3}, DelimitedListParser.parseInts("{1, 2, 3}"));
+        assertArrayEquals(new String[]{}, DelimitedListParser.parseStrings("{}"));
+    }
+
+    @Test
+    public void testParseInts() {
+        assertArrayEquals(new int[]{7, 14, 21, 28, 35}, DelimitedListParser.parseInts("7|14|21|28|35"));
+    }
+
+    @Test
+    public void testParseLongs() {
+        assertArrayEquals(new long[]{0, 0, 5000000000L, 5000000000L, 0}, DelimitedListParser.parseLongs("0|0|5000000000|5000000000|0"));
+    }
+
+    @Test
+    public void testParseDoubles() {
+        assertArrayEquals(new double[]{0.4, 0.8, 1.2, 1.6, 2}, DelimitedListParser.parseDoubles("0.4|0.8|1.2|1.6|2"), 0);
+        assertArrayEquals(new double[]{2.5E10, 1}, DelimitedListParser.parseDoubles("2.5E+10|1"), 0);
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void testParseIntsRejectsNonNumbers() {
+        DelimitedListParser.parseInts("GEM|10");
+    }
+
+    @Test
+    public void testMixedList() {
+        String reward = "GEM|10";
+        int start = DelimitedListParser.listStart(reward);
+        int end = DelimitedListParser.listEnd(reward);
+        int second = DelimitedListParser.nextTokenStart(reward, DelimitedListParser.tokenEnd(reward, start, end), end);
+        assertEquals(10, PrimitiveParsers.parseInt(reward, second, DelimitedListParser.tokenEnd(reward, second, end)));
+    }
+}
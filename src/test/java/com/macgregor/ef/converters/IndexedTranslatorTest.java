@@ -0,0 +1,88 @@
+package com.macgregor.ef.converters;
+
+import com.macgregor.ef.exceptions.CanonicalConversionException;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class IndexedTranslatorTest {
+    private final IndexedTranslator translator = IndexedTranslator.builder()
+            .put("ACHIEVE_DESC_1", "The Highest Revival Level")
+            .put("ACHIEVE_DESC_2", "Maximum Unit Number")
+            .put("ACHIEVE_NAME_1", "Conqueror")
+            .put("ACHIEVE_NAME_2", "old")
+            .put("ACHIEVE_NAME_2", "Strong Troops")
+            .put("NOUNDERSCORE", "plain")
+            .put("TRAILING_", "trailing")
+            .put("EMPTY_1", null)
+            .build();
+
+    @Test
+    public void testTranslate() throws CanonicalConversionException {
+        assertEquals("The Highest Revival Level", translator.translate("ACHIEVE_DESC_1"));
+        assertEquals("Maximum Unit Number", translator.translate("ACHIEVE_DESC_2"));
+        assertEquals("Conqueror", translator.translate("ACHIEVE_NAME_1"));
+        assertEquals("Strong Troops", translator.translate("ACHIEVE_NAME_2"));
+        assertEquals("plain", translator.translate("NOUNDERSCORE"));
+        assertEquals("trailing", translator.translate("TRAILING_"));
+        assertNull(translator.translate("EMPTY_1"));
+    }
+
+    @Test
+    public void testKeysSharePrefixes() {
+        assertEquals(7, translator.size());
+        assertEquals(5, translator.getPrefixCount());
+    }
+
+    @Test
+    public void testMissingKeys() {
+        assertFalse(translator.contains("ACHIEVE_DESC_3"));
+        assertFalse(translator.contains("ACHIEVE_DESC_"));
+        assertFalse(translator.contains("ACHIEVE_DESC_11"));
+        assertFalse(translator.contains("XACHIEVE_DESC_1"));
+        assertFalse(translator.contains(null));
+        assertTrue(translator.contains("ACHIEVE_DESC_1"));
+    }
+
+    @Test(expected = CanonicalConversionException.class)
+    public void testTranslateMissingKeyThrows() throws CanonicalConversionException {
+        translator.translate("ACHIEVE_DESC_3");
+    }
+
+    @Test
+    public void testManyKeys() throws CanonicalConversionException {
+        IndexedTranslator.Builder builder = IndexedTranslator.builder();
+        for(int i = 0; i < 20000; i++){
+            builder.put("UNIT_NAME_" + i, "Unit " + i);
+        }
+        IndexedTranslator many = builder.build();
+        for(int i = 0; i < 20000; i++){
+            assertEquals("Unit " + i, many.translate("UNIT_NAME_" + i));
+        }
+        assertEquals(1, many.getPrefixCount());
+        assertFalse(many.contains("UNIT_NAME_20000"));
+    }
+
+    @Test
+    public void testTranslatorsShareDictionary() throws CanonicalConversionException {
+        TranslationKeyDictionary dictionary = new TranslationKeyDictionary();
+        IndexedTranslator english = IndexedTranslator.builder(dictionary)
+                .put("ACHIEVE_NAME_1", "Conqueror")
+                .put("ACHIEVE_NAME_2", "Strong Troops")
+                .build();
+        IndexedTranslator korean = IndexedTranslator.builder(dictionary)
+                .put("ACHIEVE_NAME_2", "Gang-gun")
+                .put("ACHIEVE_NAME_3", "Sujipga")
+                .build();
+
+        assertEquals(3, dictionary.size());
+        assertEquals("Strong Troops", english.translate("ACHIEVE_NAME_2"));
+        assertEquals("Gang-gun", korean.translate("ACHIEVE_NAME_2"));
+        assertFalse(english.contains("ACHIEVE_NAME_3"));
+        assertFalse(korean.contains("ACHIEVE_NAME_1"));
+        assertEquals(2, korean.size());
+    }
+}
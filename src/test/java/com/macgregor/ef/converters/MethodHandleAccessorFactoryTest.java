@@ -0,0 +1,65 @@
+package com.macgregor.ef.converters;
+
+import com.macgregor.ef.converters.ModelAccessorFactory.Getter;
+import com.macgregor.ef.converters.ModelAccessorFactory.Setter;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MethodHandleAccessorFactoryTest {
+    private final MethodHandleAccessorFactory factory = new MethodHandleAccessorFactory();
+
+    public static class BeanModel {
+        private int level;
+        private String name;
+        private String unmapped;
+        private boolean setterCalled;
+
+        public int getLevel(){ return level; }
+        public void setLevel(int level) {
+            this.level = level;
+            this.setterCalled = true;
+        }
+
+        public String getName(){ return name; }
+        public void setName(String name) { this.name = name; }
+    }
+
+    static class HiddenModel {
+        private String name;
+
+        HiddenModel(){}
+    }
+
+    @Test
+    public void testSpunAccessorsCallBeanMethods() throws Throwable {
+        BeanModel model = new BeanModel();
+        Setter setter = factory.setter(BeanModel.class.getDeclaredField("level"));
+        setter.set(model, 7);
+        assertTrue(model.setterCalled);
+
+        Getter getter = factory.getter(BeanModel.class.getDeclaredField("level"));
+        assertEquals(7, getter.get(model));
+    }
+
+    @Test
+    public void testFieldsWithoutAccessorsFallBackToHandles() throws Throwable {
+        BeanModel model = new BeanModel();
+        factory.setter(BeanModel.class.getDeclaredField("unmapped")).set(model, "value");
+        assertEquals("value", factory.getter(BeanModel.class.getDeclaredField("unmapped")).get(model));
+    }
+
+    @Test
+    public void testSpunInstantiator() throws Throwable {
+        Object created = factory.instantiator(BeanModel.class.getConstructor()).newInstance();
+        assertEquals(BeanModel.class, created.getClass());
+    }
+
+    @Test
+    public void testNonPublicModelsFallBackToHandles() throws Throwable {
+        HiddenModel model = (HiddenModel) factory.instantiator(HiddenModel.class.getDeclaredConstructor()).newInstance();
+        factory.setter(HiddenModel.class.getDeclaredField("name")).set(model, "hidden");
+        assertEquals("hidden", factory.getter(HiddenModel.class.getDeclaredField("name")).get(model));
+    }
+}
@@ -0,0 +1,45 @@
+package com.macgregor.ef.converters;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PrimitiveListsTest {
+
+    @Test
+    public void testIntListEqualsBoxedList() {
+        List<Integer> list = PrimitiveLists.of(new int[]{1, 2, 3});
+        assertEquals(Arrays.asList(1, 2, 3), list);
+        assertEquals(list, Arrays.asList(1, 2, 3));
+        assertEquals(Arrays.asList(1, 2, 3).hashCode(), list.hashCode());
+        assertTrue(list.contains(2));
+        assertFalse(list.contains(2L));
+    }
+
+    @Test
+    public void testSetWritesThrough() {
+        int[] values = new int[]{1, 2, 3};
+        PrimitiveLists.IntList list = PrimitiveLists.of(values);
+        assertEquals(2, (int) list.set(1, 5));
+        assertEquals(5, values[1]);
+        assertEquals(5, list.getInt(1));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testFixedSize() {
+        PrimitiveLists.of(new long[]{1}).add(2L);
+    }
+
+    @Test
+    public void testDoubleList() {
+        PrimitiveLists.DoubleList list = PrimitiveLists.of(new double[]{0.5, 1.5});
+        assertEquals(Arrays.asList(0.5, 1.5), list);
+        assertArrayEquals(new double[]{0.5, 1.5}, list.toDoubleArray(), 0);
+    }
+}
@@ -0,0 +1,71 @@
+package com.macgregor.ef.converters;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class PrimitiveParsersTest {
+
+    @Test
+    public void testParseInt() {
+        assertEquals(123, PrimitiveParsers.parseInt("123"));
+        assertEquals(-123, PrimitiveParsers.parseInt(" -123 "));
+        assertEquals(5, PrimitiveParsers.parseInt("+5"));
+        assertEquals(Integer.MAX_VALUE, PrimitiveParsers.parseInt(String.valueOf(Integer.MAX_VALUE)));
+        assertEquals(Integer.MIN_VALUE, PrimitiveParsers.parseInt(String.valueOf(Integer.MIN_VALUE)));
+    }
+
+    @Test
+    public void testParseIntRegion() {
+        assertEquals(10, PrimitiveParsers.parseInt("GEM|10", 4, 6));
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void testParseIntOverflow() {
+        PrimitiveParsers.parseInt("2147483648");
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void testParseIntRejectsDecimals() {
+        PrimitiveParsers.parseInt("1.5");
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void testParseIntRejectsBlank() {
+        PrimitiveParsers.parseInt("  ");
+    }
+
+    @Test
+    public void testParseLong() {
+        assertEquals(5000000000L, PrimitiveParsers.parseLong("5000000000"));
+        assertEquals(Long.MIN_VALUE, PrimitiveParsers.parseLong(String.valueOf(Long.MIN_VALUE)));
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void testParseLongOverflow() {
+        PrimitiveParsers.parseLong("9223372036854775808");
+    }
+
+    @Test
+    public void testParseDoubleMatchesDoubleParseDouble() {
+        for(String s : new String[]{"0", "-0", "1", "27.25", "0.1", "0.4", "1.2", "7.5", ".5", "1.", "-12.125",
+                "123456789012.345", "1234567890123456789", "1e10", "2.5E+10", "NaN", "-Infinity", "0.30000000000000004"}){
+            assertEquals(s, Double.parseDouble(s), PrimitiveParsers.parseDouble(s), 0);
+        }
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void testParseDoubleRejectsGarbage() {
+        PrimitiveParsers.parseDouble("1.2.3");
+    }
+
+    @Test
+    public void testParseBoolean() {
+        assertEquals(PrimitiveParsers.TRUE, PrimitiveParsers.parseBoolean("Y"));
+        assertEquals(PrimitiveParsers.TRUE, PrimitiveParsers.parseBoolean(" true "));
+        assertEquals(PrimitiveParsers.FALSE, PrimitiveParsers.parseBoolean("N"));
+        assertEquals(PrimitiveParsers.FALSE, PrimitiveParsers.parseBoolean("Off"));
+        assertEquals(PrimitiveParsers.NOT_BOOLEAN, PrimitiveParsers.parseBoolean("maybe"));
+        assertEquals(PrimitiveParsers.NOT_BOOLEAN, PrimitiveParsers.parseBoolean(""));
+    }
+}
@@ -12,8 +12,14 @@ import org.slf4j.LoggerFactory;
 
 import java.io.Serializable;
 import java.lang.reflect.Field;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 public class TranslationFieldConverterTest {
 
@@ -158,4 +164,52 @@ public class TranslationFieldConverterTest {
         String translated = (String)translationFieldConverter.convert(testModel, f);
         assertEquals(null, translated);
     }
+
+    @Test
+    public void testPrefetchPassesEveryResolvableKey() {
+        Set<String> prefetched = new HashSet<>();
+        ((MockTranslationFieldConverter) translationFieldConverter).setTranslator(new Translator() {
+            @Override
+            public String translate(String key) {
+                return "success";
+            }
+
+            @Override
+            public void prefetch(Collection<String> keys) {
+                prefetched.addAll(keys);
+            }
+
+            @Override
+            public boolean supportsPrefetch() {
+                return true;
+            }
+        });
+        FieldTranslationConverterTestModel other = new FieldTranslationConverterTestModel();
+        other.id = 5;
+        other.id2 = 2;
+        other.setPrivateId(3);
+
+        translationFieldConverter.prefetch(Arrays.asList(testModel, other));
+        assertEquals(new HashSet<>(Arrays.asList("KEY", "KEY_1", "KEY_5", "KEY_1_2", "KEY_5_2", "KEY_1_1", "KEY_5_5", "KEY_3")), prefetched);
+    }
+
+    @Test
+    public void testPrefetchSkippedWithoutSupport() {
+        Set<String> prefetched = new HashSet<>();
+        ((MockTranslationFieldConverter) translationFieldConverter).setTranslator(new Translator() {
+            @Override
+            public String translate(String key) {
+                return "success";
+            }
+
+            @Override
+            public void prefetch(Collection<String> keys) {
+                prefetched.addAll(keys);
+            }
+        });
+
+        assertFalse(translationFieldConverter.supportsPrefetch());
+        translationFieldConverter.prefetch(Arrays.asList(testModel));
+        assertTrue(prefetched.isEmpty());
+    }
 }
@@ -0,0 +1,44 @@
+package com.macgregor.ef.converters;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public class TranslationKeyDictionaryTest {
+
+    @Test
+    public void testInternAssignsDenseIds() {
+        TranslationKeyDictionary dictionary = new TranslationKeyDictionary();
+        assertArrayEquals(new int[]{0, 1, 0, 2}, dictionary.intern(Arrays.asList("ACHIEVE_DESC_1", "ACHIEVE_DESC_2", "ACHIEVE_DESC_1", "ACHIEVE_NAME_1")));
+        assertArrayEquals(new int[]{2, 3}, dictionary.intern(Arrays.asList("ACHIEVE_NAME_1", "PLAIN")));
+        assertEquals(4, dictionary.size());
+        assertEquals(3, dictionary.getPrefixCount());
+
+        assertEquals(1, dictionary.find("ACHIEVE_DESC_2"));
+        assertEquals(3, dictionary.find("PLAIN"));
+        assertEquals(-1, dictionary.find("ACHIEVE_DESC_3"));
+        assertEquals(-1, dictionary.find("ACHIEVE_DESC_"));
+        assertEquals(-1, dictionary.find(null));
+    }
+
+    @Test
+    public void testInternGrowsTable() {
+        TranslationKeyDictionary dictionary = new TranslationKeyDictionary();
+        for(int batch = 0; batch < 10; batch++){
+            List<String> keys = new ArrayList<>();
+            for(int i = 0; i < 1000; i++){
+                keys.add("UNIT_NAME_" + (batch * 1000 + i));
+            }
+            dictionary.intern(keys);
+        }
+        assertEquals(10000, dictionary.size());
+        for(int i = 0; i < 10000; i++){
+            assertEquals(i, dictionary.find("UNIT_NAME_" + i));
+        }
+    }
+}
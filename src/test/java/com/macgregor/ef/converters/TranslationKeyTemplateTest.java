@@ -0,0 +1,52 @@
+package com.macgregor.ef.converters;
+
+import com.macgregor.ef.exceptions.CanonicalConversionException;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class TranslationKeyTemplateTest {
+
+    public static class Base {
+        private Integer id = 7;
+    }
+
+    public static class Model extends Base {
+        public String grade = "S";
+        public Integer missing;
+    }
+
+    @Test
+    public void testRenderReplacesReferences() throws CanonicalConversionException {
+        Model model = new Model();
+        assertEquals("UNIT_NAME_7", TranslationKeyTemplate.compile(Model.class, "UNIT_NAME_{id}").render(model));
+        assertEquals("7_S_7", TranslationKeyTemplate.compile(Model.class, "{id}_{grade}_{id}").render(model));
+        assertEquals("KEY", TranslationKeyTemplate.compile(Model.class, "KEY").render(model));
+    }
+
+    @Test
+    public void testUnclosedReferenceIsLiteral() throws CanonicalConversionException {
+        assertEquals("KEY_7_{grade", TranslationKeyTemplate.compile(Model.class, "KEY_{id}_{grade").render(new Model()));
+    }
+
+    @Test
+    public void testRenderReusesNothingBetweenCalls() throws CanonicalConversionException {
+        TranslationKeyTemplate template = TranslationKeyTemplate.compile(Model.class, "A_{grade}");
+        Model first = new Model();
+        Model second = new Model();
+        second.grade = "SS";
+        String rendered = template.render(first);
+        assertEquals("A_SS", template.render(second));
+        assertEquals("A_S", rendered);
+    }
+
+    @Test(expected = CanonicalConversionException.class)
+    public void testCompileRejectsUnknownField() throws CanonicalConversionException {
+        TranslationKeyTemplate.compile(Model.class, "KEY_{doesntexist}");
+    }
+
+    @Test(expected = CanonicalConversionException.class)
+    public void testRenderRejectsNullField() throws CanonicalConversionException {
+        TranslationKeyTemplate.compile(Model.class, "KEY_{missing}").render(new Model());
+    }
+}
@@ -0,0 +1,68 @@
+package com.macgregor.ef.converters;
+
+import com.macgregor.ef.exceptions.CanonicalConversionException;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Date;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class ValueConverterRegistryTest {
+
+    @Test
+    public void testBuiltRegistryIsUnaffectedByLaterRegistrations() throws CanonicalConversionException {
+        ValueConverterRegistry.Builder builder = ValueConverterRegistry.builder().registerDefaults();
+        ValueConverterRegistry registry = builder.build();
+        builder.register(Integer.class, value -> -1);
+
+        assertEquals(1, registry.convert("1", Integer.class));
+        assertEquals(-1, builder.build().convert("1", Integer.class));
+    }
+
+    @Test
+    public void testArrayConvertersUseRegisteredComponentConverter() throws CanonicalConversionException {
+        ValueConverterRegistry registry = ValueConverterRegistry.defaults().toBuilder()
+                .register(Integer.class, value -> value.toString().length())
+                .build();
+        assertArrayEquals(new Integer[]{3, 1}, (Integer[]) registry.convert("GEM|1", Integer[].class));
+    }
+
+    @Test
+    public void testArrayConversionFromCollection() throws CanonicalConversionException {
+        assertArrayEquals(new int[]{1, 2, 3}, (int[]) ValueConverterRegistry.defaults().convert(Arrays.asList("1", "2", "3"), int[].class));
+    }
+
+    @Test
+    public void testPrimitiveArrayDefaultsUnparsableElements() throws CanonicalConversionException {
+        assertArrayEquals(new int[]{1, 0, 3}, (int[]) ValueConverterRegistry.defaults().convert("1|x|3", int[].class));
+    }
+
+    @Test
+    public void testBracesAreStripped() throws CanonicalConversionException {
+        assertArrayEquals(new String[]{"a", "b"}, (String[]) ValueConverterRegistry.defaults().convert(" {a, b} ", String[].class));
+    }
+
+    @Test
+    public void testNullConvertsToEmptyArray() throws CanonicalConversionException {
+        assertArrayEquals(new Integer[]{}, (Integer[]) ValueConverterRegistry.defaults().convert(null, Integer[].class));
+    }
+
+    @Test
+    public void testValueOfUnregisteredTypeIsReturnedAsIs() throws CanonicalConversionException {
+        Date date = new Date();
+        assertSame(date, ValueConverterRegistry.defaults().convert(date, Date.class));
+    }
+
+    @Test(expected = CanonicalConversionException.class)
+    public void testUnregisteredTypeFails() throws CanonicalConversionException {
+        ValueConverterRegistry.defaults().convert("2018-01-01", Date.class);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testArrayTypesCantBeRegistered() {
+        ValueConverterRegistry.builder().register(String[].class, value -> new String[0]);
+    }
+}
@@ -0,0 +1,57 @@
+package com.macgregor.ef.incremental;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class FingerprintStoreTest {
+    private Connection connection;
+    private FingerprintStore store = new FingerprintStore();
+
+    @Before
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:fingerprints");
+        store.createTableIfMissing(connection);
+        store.createTableIfMissing(connection);
+    }
+
+    @After
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Test
+    public void testPutReplacesAndRemoveDeletes() throws SQLException {
+        Map<String, String> fingerprints = new HashMap<>();
+        fingerprints.put("1", "aaa");
+        fingerprints.put("2", "bbb");
+        store.put(connection, "Unit", fingerprints);
+        store.put(connection, "Pet", Collections.singletonMap("1", "ccc"));
+        store.put(connection, "Unit", Collections.singletonMap("2", "ddd"));
+        store.remove(connection, "Unit", Collections.singletonList("1"));
+
+        assertEquals(Collections.singletonMap("2", "ddd"), store.load(connection, "Unit"));
+        assertEquals(Collections.singletonMap("1", "ccc"), store.load(connection, "Pet"));
+        assertTrue(store.load(connection, "Artifact").isEmpty());
+    }
+
+    @Test
+    public void testClearOnlyRemovesEntityType() throws SQLException {
+        store.put(connection, "Unit", Collections.singletonMap("1", "aaa"));
+        store.put(connection, "Pet", Collections.singletonMap("1", "bbb"));
+        store.clear(connection, "Unit");
+
+        assertTrue(store.load(connection, "Unit").isEmpty());
+        assertEquals(Collections.singletonMap("1", "bbb"), store.load(connection, "Pet"));
+    }
+}
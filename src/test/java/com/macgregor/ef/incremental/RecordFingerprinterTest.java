@@ -0,0 +1,96 @@
+package com.macgregor.ef.incremental;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+public class RecordFingerprinterTest {
+    private final RecordFingerprinter fingerprinter = new RecordFingerprinter();
+
+    public static class Skill {
+        private Integer id;
+        private String name;
+
+        public Skill(Integer id, String name){
+            this.id = id;
+            this.name = name;
+        }
+    }
+
+    public static class Hero {
+        public static int instances;
+
+        private Integer id;
+        private String name;
+        private double[] stats;
+        private List<String> tags;
+        private Skill skill;
+        private Hero rival;
+        private transient String cached;
+
+        public Hero(Integer id, String name, double[] stats, List<String> tags, Skill skill){
+            this.id = id;
+            this.name = name;
+            this.stats = stats;
+            this.tags = tags;
+            this.skill = skill;
+            instances++;
+        }
+    }
+
+    private Hero hero(){
+        return new Hero(1, "Knight", new double[]{1.5, 2}, Arrays.asList("a", "b"), new Skill(7, "Slash"));
+    }
+
+    @Test
+    public void testEqualRecordsHaveEqualFingerprints() {
+        Hero first = hero();
+        Hero second = hero();
+        second.cached = "ignored";
+        assertEquals(fingerprinter.fingerprint(first), fingerprinter.fingerprint(second));
+        assertEquals(64, fingerprinter.fingerprint(first).length());
+    }
+
+    @Test
+    public void testChangedFieldsChangeFingerprint() {
+        String original = fingerprinter.fingerprint(hero());
+
+        Hero renamed = hero();
+        renamed.name = "Knight2";
+        assertNotEquals(original, fingerprinter.fingerprint(renamed));
+
+        Hero restatted = hero();
+        restatted.stats[1] = 3;
+        assertNotEquals(original, fingerprinter.fingerprint(restatted));
+
+        Hero retagged = hero();
+        retagged.tags = Arrays.asList("a", "c");
+        assertNotEquals(original, fingerprinter.fingerprint(retagged));
+
+        Hero reskilled = hero();
+        reskilled.skill = new Skill(7, "Stab");
+        assertNotEquals(original, fingerprinter.fingerprint(reskilled));
+    }
+
+    @Test
+    public void testNullsAndEmptyValuesDiffer() {
+        Hero nullName = hero();
+        nullName.name = null;
+        Hero emptyName = hero();
+        emptyName.name = "";
+        assertNotEquals(fingerprinter.fingerprint(nullName), fingerprinter.fingerprint(emptyName));
+    }
+
+    @Test
+    public void testCyclesAreHandled() {
+        Hero first = hero();
+        Hero second = hero();
+        first.rival = second;
+        second.rival = first;
+        assertEquals(fingerprinter.fingerprint(first), fingerprinter.fingerprint(second));
+    }
+}
@@ -0,0 +1,74 @@
+package com.macgregor.ef.incremental;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+
+public class SourceHashStoreTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Connection connection;
+    private SourceHashStore store = new SourceHashStore();
+
+    @Before
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:source_hashes");
+        store.createTableIfMissing(connection);
+        store.createTableIfMissing(connection);
+    }
+
+    @After
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Test
+    public void testHashChangesWithContent() throws IOException {
+        File book = folder.newFile("book.xml");
+        Files.write(book.toPath(), "<units/>".getBytes(StandardCharsets.UTF_8));
+        String first = store.hash(book.getPath());
+        assertEquals(64, first.length());
+        assertEquals(first, store.hash(book.getPath()));
+
+        Files.write(book.toPath(), "<units><unit/></units>".getBytes(StandardCharsets.UTF_8));
+        assertNotEquals(first, store.hash(book.getPath()));
+    }
+
+    @Test
+    public void testCombineChangesWithAnyPart() {
+        String combined = store.combine("aaa", "bbb", "en");
+        assertEquals(64, combined.length());
+        assertEquals(combined, store.combine("aaa", "bbb", "en"));
+        assertNotEquals(combined, store.combine("aaa", "bbb", "de"));
+        assertNotEquals(combined, store.combine("aaa", "ccc", "en"));
+        assertNotEquals(store.combine("ab", "c"), store.combine("a", "bc"));
+    }
+
+    @Test
+    public void testPutReplacesEntryPerStep() throws SQLException {
+        store.put(connection, "unit.xml", "//unit", "Unit", new SourceHashStore.Entry("aaa", 10));
+        store.put(connection, "unit.xml", "//skill", "UnitSkill", new SourceHashStore.Entry("aaa", 5));
+        store.put(connection, "unit.xml", "//unit", "Unit", new SourceHashStore.Entry("bbb", 12));
+
+        SourceHashStore.Entry units = store.load(connection, "unit.xml", "//unit", "Unit");
+        assertEquals("bbb", units.getHash());
+        assertEquals(12, units.getRows());
+        assertEquals(5, store.load(connection, "unit.xml", "//skill", "UnitSkill").getRows());
+        assertNull(store.load(connection, "pet.xml", "//unit", "Unit"));
+    }
+}
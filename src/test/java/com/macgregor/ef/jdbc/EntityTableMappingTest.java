@@ -0,0 +1,137 @@
+package com.macgregor.ef.jdbc;
+
+import org.junit.Test;
+
+import javax.persistence.*;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class EntityTableMappingTest {
+
+    public enum Rarity { COMMON, RARE }
+
+    @MappedSuperclass
+    public static class Versioned {
+        @Column(name = "version")
+        private String version = "1.9.5";
+    }
+
+    @Entity
+    @Table(name = "hero")
+    public static class Hero extends Versioned {
+        public static final String IGNORED_CONSTANT = "ignored";
+
+        @Id
+        private Integer id;
+
+        @Column(name = "hero_name", nullable = false)
+        private String name;
+
+        @Enumerated(EnumType.STRING)
+        private Rarity rarity;
+
+        private Rarity defaultRarity;
+
+        @Transient
+        private String cached;
+
+        private transient String alsoCached;
+
+        @ElementCollection
+        private List<String> tags;
+
+        @ElementCollection
+        @CollectionTable(name = "hero_stats", joinColumns = @JoinColumn(name = "hero"))
+        @Column(name = "stat")
+        @OrderColumn
+        private List<Integer> stats;
+
+        public Hero(){}
+
+        public Hero(Integer id, String name, List<String> tags, List<Integer> stats){
+            this.id = id;
+            this.name = name;
+            this.rarity = Rarity.RARE;
+            this.defaultRarity = Rarity.RARE;
+            this.tags = tags;
+            this.stats = stats;
+        }
+    }
+
+    @Entity(name = "Sidekick")
+    public static class SidekickEntity {
+        @Id
+        private String id;
+    }
+
+    @Entity
+    public static class Owner {
+        @Id
+        private Integer id;
+
+        @OneToMany
+        private List<SidekickEntity> sidekicks;
+    }
+
+    @Entity
+    public static class Generated {
+        @Id
+        @GeneratedValue
+        private Integer id;
+    }
+
+    @Entity
+    public static class NoId {
+        private Integer value;
+    }
+
+    public static class NotAnEntity {
+        @Id
+        private Integer id;
+    }
+
+    @Test
+    public void testTableAndColumnNames() {
+        EntityTableMapping<Hero> mapping = EntityTableMapping.forType(Hero.class);
+        assertEquals("hero", mapping.getTableName());
+        assertEquals(Arrays.asList("version", "id", "hero_name", "rarity", "defaultRarity"), mapping.getColumnNames());
+        assertEquals("insert into hero (version, id, hero_name, rarity, defaultRarity) values (?, ?, ?, ?, ?)", mapping.getInsertSql());
+    }
+
+    @Test
+    public void testEntityNameIsDefaultTableName() {
+        assertEquals("Sidekick", EntityTableMapping.forType(SidekickEntity.class).getTableName());
+    }
+
+    @Test
+    public void testElementCollectionTables() {
+        List<EntityTableMapping<Hero>.CollectionMapping> collections = EntityTableMapping.forType(Hero.class).getCollections();
+        assertEquals(2, collections.size());
+        assertEquals("hero_tags", collections.get(0).getTableName());
+        assertEquals("insert into hero_tags (Hero_id, tags) values (?, ?)", collections.get(0).getInsertSql());
+        assertEquals("insert into hero_stats (hero, stat, stats_ORDER) values (?, ?, ?)", collections.get(1).getInsertSql());
+    }
+
+    @Test
+    public void testMappingIsCached() {
+        assertTrue(EntityTableMapping.forType(Hero.class) == EntityTableMapping.forType(Hero.class));
+    }
+
+    @Test
+    public void testUnsupportedMappings() {
+        assertTrue(EntityTableMapping.isSupported(Hero.class));
+        assertFalse(EntityTableMapping.isSupported(Owner.class));
+        assertFalse(EntityTableMapping.isSupported(Generated.class));
+        assertFalse(EntityTableMapping.isSupported(NoId.class));
+        assertFalse(EntityTableMapping.isSupported(NotAnEntity.class));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRelationshipsAreRejected() {
+        EntityTableMapping.forType(Owner.class);
+    }
+}
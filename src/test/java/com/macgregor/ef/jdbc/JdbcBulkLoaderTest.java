@@ -0,0 +1,66 @@
+package com.macgregor.ef.jdbc;
+
+import com.macgregor.ef.jdbc.EntityTableMappingTest.Hero;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class JdbcBulkLoaderTest {
+    private Connection connection;
+
+    @Before
+    public void setUp() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:bulk");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("create table hero (id integer primary key, version varchar(16), hero_name varchar(64) not null, rarity varchar(16), defaultRarity integer)");
+            statement.execute("create table hero_tags (hero_id integer not null, tags varchar(64))");
+            statement.execute("create table hero_stats (hero integer not null, stat integer, stats_ORDER integer not null)");
+        }
+    }
+
+    @After
+    public void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Test
+    public void testInsertsEntitiesAndCollections() throws SQLException {
+        List<Hero> heroes = new ArrayList<>();
+        for(int i = 0; i < 7; i++){
+            heroes.add(new Hero(i, "hero" + i, Arrays.asList("a", "b"), Arrays.asList(i, i * 10, i * 100)));
+        }
+        heroes.add(new Hero(7, "loner", null, Collections.emptyList()));
+
+        assertEquals(8, new JdbcBulkLoader(3).insert(connection, heroes.iterator(), Hero.class));
+
+        assertEquals(8, count("select count(*) from hero"));
+        assertEquals(14, count("select count(*) from hero_tags"));
+        assertEquals(21, count("select count(*) from hero_stats"));
+        assertEquals(200, count("select stat from hero_stats where hero = 2 and stats_ORDER = 2"));
+        assertEquals(1, count("select count(*) from hero where hero_name = 'hero3' and rarity = 'RARE' and defaultRarity = 1 and version = '1.9.5'"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNonPositiveBatchSizeIsRejected() {
+        new JdbcBulkLoader(0);
+    }
+
+    private int count(String sql) throws SQLException {
+        try (Statement statement = connection.createStatement(); ResultSet rs = statement.executeQuery(sql)) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+}
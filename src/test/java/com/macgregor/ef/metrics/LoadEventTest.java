@@ -0,0 +1,135 @@
+package com.macgregor.ef.metrics;
+
+import com.macgregor.ef.annotations.Translate;
+import com.macgregor.ef.converters.TranslationFieldConverter;
+import com.macgregor.ef.exceptions.CanonicalConversionException;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class LoadEventTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Before
+    public void setUp() {
+        Assume.assumeTrue(LoadEvent.isAvailable());
+    }
+
+    @Test
+    public void testNotRecordingReturnsDisabledEvent() {
+        LoadEvent event = LoadEvent.begin(LoadEvent.Stage.PARSE, Integer.class);
+        assertFalse(event.isEnabled());
+        assertSame(LoadEvent.DISABLED, event);
+        event.end(1, 1);
+    }
+
+    @Test
+    public void testStageEventsAreRecorded() throws Exception {
+        List<RecordedEvent> events;
+        try (Recording recording = new Recording()) {
+            recording.enable("com.macgregor.ef.Parse");
+            recording.enable("com.macgregor.ef.BatchFlush");
+            recording.disable("com.macgregor.ef.Conversion");
+            recording.start();
+
+            LoadEvent parse = LoadEvent.begin(LoadEvent.Stage.PARSE, "UnitXML,UnitSkillXML");
+            assertTrue(parse.isEnabled());
+            parse.end(283, 1801816);
+            LoadEvent.begin(LoadEvent.Stage.BATCH_FLUSH, Integer.class).end(50);
+            LoadEvent conversion = LoadEvent.begin(LoadEvent.Stage.CONVERSION, Integer.class);
+            assertFalse(conversion.isEnabled());
+            conversion.end(10);
+
+            recording.stop();
+            events = read(recording);
+        }
+
+        assertEquals(2, events.size());
+        RecordedEvent parse = events.get(0);
+        assertEquals("com.macgregor.ef.Parse", parse.getEventType().getName());
+        assertEquals("UnitXML,UnitSkillXML", parse.getString("entityType"));
+        assertEquals(283, parse.getLong("records"));
+        assertEquals(1801816, parse.getLong("bytes"));
+
+        RecordedEvent flush = events.get(1);
+        assertEquals("com.macgregor.ef.BatchFlush", flush.getEventType().getName());
+        assertEquals("Integer", flush.getString("entityType"));
+        assertEquals(50, flush.getLong("records"));
+        assertEquals(0, flush.getLong("bytes"));
+    }
+
+    @Test
+    public void testPerRecordEventsOnlyRecordedOverThreshold() throws Exception {
+        List<RecordedEvent> events;
+        try (Recording recording = new Recording()) {
+            recording.enable("com.macgregor.ef.TranslationLookup");
+            recording.start();
+            LoadEvent.begin(LoadEvent.Stage.TRANSLATION_LOOKUP, Integer.class).end(1, 8);
+            recording.stop();
+            events = read(recording);
+        }
+        assertTrue(events.isEmpty());
+
+        try (Recording recording = new Recording()) {
+            recording.enable("com.macgregor.ef.TranslationLookup").withThreshold(Duration.ZERO);
+            recording.start();
+            LoadEvent.begin(LoadEvent.Stage.TRANSLATION_LOOKUP, Integer.class).end(1, 8);
+            recording.stop();
+            events = read(recording);
+        }
+        assertEquals(1, events.size());
+        assertEquals(8, events.get(0).getLong("bytes"));
+    }
+
+    @Test
+    public void testMissedTranslationLookupsAreRecorded() throws Exception {
+        TranslationFieldConverter converter = new TranslationFieldConverter(new TranslationFieldConverter.Translator() {
+            @Override
+            public String translate(String key) throws CanonicalConversionException {
+                throw new CanonicalConversionException(String.format("No translation for %s", key));
+            }
+        });
+        TranslatedModel model = new TranslatedModel();
+        List<RecordedEvent> events;
+        try (Recording recording = new Recording()) {
+            recording.enable("com.macgregor.ef.TranslationLookup").withThreshold(Duration.ZERO);
+            recording.start();
+            assertEquals("untranslated", converter.convert(model, TranslatedModel.class.getField("name")));
+            recording.stop();
+            events = read(recording);
+        }
+        assertEquals(1, events.size());
+        assertEquals("TranslatedModel", events.get(0).getString("entityType"));
+        assertEquals(0, events.get(0).getLong("records"));
+    }
+
+    public static class TranslatedModel {
+        @Translate(key="NAME")
+        public String name = "untranslated";
+    }
+
+    private List<RecordedEvent> read(Recording recording) throws Exception {
+        Path file = folder.newFile("recording.jfr").toPath();
+        recording.dump(file);
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        events.removeIf(event -> !event.getEventType().getName().startsWith("com.macgregor.ef."));
+        events.sort((a, b) -> a.getStartTime().compareTo(b.getStartTime()));
+        return events;
+    }
+}
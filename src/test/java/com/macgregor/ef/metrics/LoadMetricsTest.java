@@ -0,0 +1,83 @@
+package com.macgregor.ef.metrics;
+
+import org.junit.Test;
+
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class LoadMetricsTest {
+    private final LoadMetrics metrics = new LoadMetrics();
+
+    @Test
+    public void testStepTotals() {
+        metrics.step("UnitXML").recordParse(3000000, 218);
+        metrics.step("Unit").recordConversion(1000000, false);
+        metrics.step("Unit").recordConversion(1000000, false);
+        metrics.step("Unit").recordConversion(2000000, true);
+        metrics.step("Unit").recordPersist(500000000, 218);
+        metrics.step("Unit").recordVerification(2000000);
+
+        StepSnapshot parse = metrics.getStep("UnitXML");
+        assertEquals(1, parse.getParses());
+        assertEquals(218, parse.getRecordsMatched());
+        assertEquals(3, parse.getParseMillis());
+
+        StepSnapshot unit = metrics.getStep("Unit");
+        assertEquals(2, unit.getConverted());
+        assertEquals(1, unit.getConversionFailures());
+        assertEquals(4, unit.getConversionMillis());
+        assertEquals(218, unit.getRowsPersisted());
+        assertEquals(436.0, unit.getRowsPerSecond(), 0.001);
+        assertEquals(1, unit.getVerificationQueries());
+        assertEquals(218, metrics.getTotalRowsPersisted());
+        assertEquals(1, metrics.getTotalConversionFailures());
+
+        assertEquals(2, metrics.getSteps().size());
+        assertEquals("Unit", metrics.getSteps().get(0).getName());
+        assertNull(metrics.getStep("Pet"));
+    }
+
+    @Test
+    public void testQueueTotals() {
+        metrics.step("Unit").recordQueue(16, 3000000, 1000000);
+        metrics.step("Unit").recordQueue(4, 2000000, 5000000);
+
+        StepSnapshot unit = metrics.getStep("Unit");
+        assertEquals(16, unit.getMaxQueueDepth());
+        assertEquals(5, unit.getQueueFullMillis());
+        assertEquals(6, unit.getQueueEmptyMillis());
+
+        metrics.reset();
+        assertEquals(0, metrics.getStep("Unit").getMaxQueueDepth());
+    }
+
+    @Test
+    public void testReset() {
+        metrics.step("Unit").recordPersist(1000, 5);
+        metrics.reset();
+        assertEquals(0, metrics.getStep("Unit").getRowsPersisted());
+        assertEquals(0.0, metrics.getStep("Unit").getRowsPerSecond(), 0);
+    }
+
+    @Test
+    public void testRegisteredAsMXBean() throws Exception {
+        MBeanServer server = MBeanServerFactory.newMBeanServer();
+        metrics.step(Integer.class).recordPersist(1000000000, 10);
+        ObjectName name = metrics.register(server, "test loader");
+
+        CompositeData[] steps = (CompositeData[]) server.getAttribute(name, "Steps");
+        assertEquals(1, steps.length);
+        assertEquals("Integer", steps[0].get("name"));
+        assertEquals(10L, steps[0].get("rowsPersisted"));
+        assertEquals(0L, steps[0].get("maxQueueDepth"));
+        assertEquals(10L, server.getAttribute(name, "TotalRowsPersisted"));
+
+        server.invoke(name, "reset", new Object[0], new String[0]);
+        assertEquals(0L, server.getAttribute(name, "TotalRowsPersisted"));
+    }
+}
@@ -0,0 +1,258 @@
+package com.macgregor.ef.processor;
+
+import com.macgregor.ef.annotations.CanonicalModel;
+import com.macgregor.ef.converters.CanonicalModelConverter;
+import com.macgregor.ef.converters.GeneratedCanonicalConverter;
+import com.macgregor.ef.exceptions.CanonicalConversionException;
+import com.macgregor.ef.test_util.MockTranslationFieldConverter;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeNotNull;
+
+public class CanonicalConverterProcessorTest {
+    private static final String CANONICAL_SOURCE = String.join("\n",
+            "package test.models;",
+            "import java.util.List;",
+            "public class CanonicalFoo {",
+            "    public Integer id;",
+            "    private String displayName;",
+            "    public Boolean enabled;",
+            "    public List<Integer> levels;",
+            "    public String title;",
+            "    private Integer hidden;",
+            "    public String getDisplayName(){ return displayName; }",
+            "    public void setDisplayName(String displayName){ this.displayName = displayName; }",
+            "    public Integer getHiddenValue(){ return hidden; }",
+            "}");
+
+    private static final String SOURCE = String.join("\n",
+            "package test.models;",
+            "import com.macgregor.ef.annotations.*;",
+            "@CanonicalModel(type=CanonicalFoo.class)",
+            "public class FooXML {",
+            "    @CanonicalField public String id;",
+            "    @CanonicalField(mapsTo=\"displayName\") private String name;",
+            "    @CanonicalField public String enabled;",
+            "    @CanonicalField public String levels;",
+            "    @CanonicalField @Translate(key=\"FOO_TITLE_%s\") public String title;",
+            "    @CanonicalField private String hidden;",
+            "    public String getName(){ return name; }",
+            "    public void setName(String name){ this.name = name; }",
+            "    public void setHidden(String hidden){ this.hidden = hidden; }",
+            "}");
+
+    private static final String PRIMITIVE_CANONICAL_SOURCE = String.join("\n",
+            "package test.models;",
+            "public class CanonicalBar {",
+            "    public int count = -1;",
+            "    private double ratio = 0.5;",
+            "    public boolean active;",
+            "    public double getRatio(){ return ratio; }",
+            "    public void setRatio(double ratio){ this.ratio = ratio; }",
+            "}");
+
+    private static final String PRIMITIVE_SOURCE = String.join("\n",
+            "package test.models;",
+            "import com.macgregor.ef.annotations.*;",
+            "@CanonicalModel(type=CanonicalBar.class)",
+            "public class BarXML {",
+            "    @CanonicalField public String count;",
+            "    @CanonicalField public String ratio;",
+            "    @CanonicalField public String active;",
+            "}");
+
+    private static final String INVALID_SOURCE = String.join("\n",
+            "package test.models;",
+            "import com.macgregor.ef.annotations.*;",
+            "@CanonicalModel(type=CanonicalFoo.class)",
+            "public class InvalidFooXML {",
+            "    @CanonicalField(mapsTo=\"doesntexist\") public String name;",
+            "}");
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private JavaCompiler compiler;
+    private DiagnosticCollector<JavaFileObject> diagnostics;
+    private File classes;
+
+    private static class StringSource extends SimpleJavaFileObject {
+        private final String source;
+
+        StringSource(String className, String source){
+            super(URI.create("string:///" + className.replace('.', '/') + Kind.SOURCE.extension), Kind.SOURCE);
+            this.source = source;
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors){
+            return source;
+        }
+    }
+
+    @Before
+    public void setup() throws Exception {
+        compiler = ToolProvider.getSystemJavaCompiler();
+        assumeNotNull(compiler);
+        diagnostics = new DiagnosticCollector<>();
+        classes = folder.newFolder("classes");
+    }
+
+    private boolean compile(StringSource... sources) throws Exception {
+        String classpath = String.join(File.pathSeparator,
+                new File(CanonicalModel.class.getProtectionDomain().getCodeSource().getLocation().toURI()).getPath(),
+                new File(CanonicalModelConverter.class.getProtectionDomain().getCodeSource().getLocation().toURI()).getPath());
+        List<String> options = Arrays.asList("-classpath", classpath, "-d", classes.getPath(), "-s", folder.newFolder("generated").getPath());
+        JavaCompiler.CompilationTask task = compiler.getTask(null, null, diagnostics, options, null, Arrays.asList(sources));
+        task.setProcessors(Collections.singletonList(new CanonicalConverterProcessor()));
+        return task.call();
+    }
+
+    private List<String> errors(){
+        List<String> errors = new ArrayList<>();
+        for(Diagnostic<? extends JavaFileObject> d : diagnostics.getDiagnostics()){
+            if(d.getKind() == Diagnostic.Kind.ERROR){
+                errors.add(d.getMessage(null));
+            }
+        }
+        return errors;
+    }
+
+    @Test
+    public void testGeneratedConverterConvertsModel() throws Exception {
+        assertTrue(errors().toString(), compile(
+                new StringSource("test.models.CanonicalFoo", CANONICAL_SOURCE),
+                new StringSource("test.models.FooXML", SOURCE)));
+        assertTrue(new File(classes, "test/models/FooXMLCanonicalConverter.class").isFile());
+
+        try(URLClassLoader loader = new URLClassLoader(new URL[]{classes.toURI().toURL()}, getClass().getClassLoader())){
+            Class<?> sourceType = loader.loadClass("test.models.FooXML");
+            Object source = sourceType.getDeclaredConstructor().newInstance();
+            sourceType.getField("id").set(source, "7");
+            sourceType.getMethod("setName", String.class).invoke(source, "foo");
+            sourceType.getField("enabled").set(source, "true");
+            sourceType.getField("levels").set(source, "1,2,3");
+            sourceType.getField("title").set(source, "untranslated");
+            sourceType.getMethod("setHidden", String.class).invoke(source, "42");
+
+            CanonicalModelConverter converter = new CanonicalModelConverter(new MockTranslationFieldConverter());
+            GeneratedCanonicalConverter generated = converter.getGeneratedConverter(sourceType);
+            assertNotNull(generated);
+
+            Object dest = converter.convert(source);
+            Class<?> canonicalType = dest.getClass();
+            assertEquals("test.models.CanonicalFoo", canonicalType.getName());
+            assertEquals(7, canonicalType.getField("id").get(dest));
+            assertEquals("foo", canonicalType.getMethod("getDisplayName").invoke(dest));
+            assertEquals(true, canonicalType.getField("enabled").get(dest));
+            assertEquals(Arrays.asList(1, 2, 3), canonicalType.getField("levels").get(dest));
+            assertEquals("success", canonicalType.getField("title").get(dest));
+            assertEquals(42, canonicalType.getMethod("getHiddenValue").invoke(dest));
+        }
+    }
+
+    @Test
+    public void testGeneratedConverterMatchesRuntimeConversion() throws Exception {
+        assertTrue(errors().toString(), compile(
+                new StringSource("test.models.CanonicalFoo", CANONICAL_SOURCE),
+                new StringSource("test.models.FooXML", SOURCE)));
+
+        try(URLClassLoader loader = new URLClassLoader(new URL[]{classes.toURI().toURL()}, getClass().getClassLoader())){
+            Class<?> sourceType = loader.loadClass("test.models.FooXML");
+            Object source = sourceType.getDeclaredConstructor().newInstance();
+            sourceType.getField("id").set(source, "7");
+            sourceType.getField("levels").set(source, "");
+
+            CanonicalModelConverter generated = new CanonicalModelConverter(new MockTranslationFieldConverter());
+            CanonicalModelConverter runtime = new CanonicalModelConverter(new MockTranslationFieldConverter());
+            runtime.setUseGeneratedConverters(false);
+
+            Object fromGenerated = generated.convert(source);
+            Object fromRuntime = runtime.convert(source);
+            for(String field : Arrays.asList("id", "enabled", "levels", "title")){
+                assertEquals(field, fromRuntime.getClass().getField(field).get(fromRuntime), fromGenerated.getClass().getField(field).get(fromGenerated));
+            }
+        }
+    }
+
+    @Test
+    public void testPrimitiveFieldsConvertWithoutBoxing() throws Exception {
+        assertTrue(errors().toString(), compile(
+                new StringSource("test.models.CanonicalBar", PRIMITIVE_CANONICAL_SOURCE),
+                new StringSource("test.models.BarXML", PRIMITIVE_SOURCE)));
+        String generatedSource = new String(Files.readAllBytes(
+                new File(folder.getRoot(), "generated/test/models/BarXMLCanonicalConverter.java").toPath()), StandardCharsets.UTF_8);
+        assertTrue(generatedSource, generatedSource.contains("dest.count = fieldConverter.convertInt(source.count, dest.count);"));
+        assertTrue(generatedSource, generatedSource.contains("dest.setRatio(fieldConverter.convertDouble(source.ratio, dest.getRatio()));"));
+        assertTrue(generatedSource, generatedSource.contains("fieldConverter.convertBoolean("));
+
+        try(URLClassLoader loader = new URLClassLoader(new URL[]{classes.toURI().toURL()}, getClass().getClassLoader())){
+            Class<?> sourceType = loader.loadClass("test.models.BarXML");
+            CanonicalModelConverter generated = new CanonicalModelConverter(new MockTranslationFieldConverter());
+            CanonicalModelConverter runtime = new CanonicalModelConverter(new MockTranslationFieldConverter());
+            runtime.setUseGeneratedConverters(false);
+            assertNotNull(generated.getGeneratedConverter(sourceType));
+
+            Object parsed = sourceType.getDeclaredConstructor().newInstance();
+            sourceType.getField("count").set(parsed, "7");
+            sourceType.getField("ratio").set(parsed, "0.25");
+            sourceType.getField("active").set(parsed, "Y");
+            // empty and unparsable values leave the canonical model's defaults
+            Object unparsed = sourceType.getDeclaredConstructor().newInstance();
+            sourceType.getField("ratio").set(unparsed, "abc");
+
+            for(CanonicalModelConverter converter : Arrays.asList(generated, runtime)){
+                Object dest = converter.convert(parsed);
+                assertEquals(7, dest.getClass().getField("count").get(dest));
+                assertEquals(0.25, dest.getClass().getMethod("getRatio").invoke(dest));
+                assertEquals(true, dest.getClass().getField("active").get(dest));
+
+                dest = converter.convert(unparsed);
+                assertEquals(-1, dest.getClass().getField("count").get(dest));
+                assertEquals(0.5, dest.getClass().getMethod("getRatio").invoke(dest));
+                assertEquals(false, dest.getClass().getField("active").get(dest));
+            }
+        }
+    }
+
+    @Test
+    public void testInvalidMappingFailsCompilation() throws Exception {
+        assertFalse(compile(
+                new StringSource("test.models.CanonicalFoo", CANONICAL_SOURCE),
+                new StringSource("test.models.InvalidFooXML", INVALID_SOURCE)));
+        List<String> errors = errors();
+        assertEquals(1, errors.size());
+        assertTrue(errors.get(0), errors.get(0).contains("doesntexist"));
+        assertFalse(new File(classes, "test/models/InvalidFooXMLCanonicalConverter.class").exists());
+    }
+
+    @Test
+    public void testNoGeneratedConverterFallsBackToRuntimeConversion() throws CanonicalConversionException {
+        CanonicalModelConverter converter = new CanonicalModelConverter(new MockTranslationFieldConverter());
+        assertEquals(null, converter.getGeneratedConverter(CanonicalConverterProcessorTest.class));
+    }
+}
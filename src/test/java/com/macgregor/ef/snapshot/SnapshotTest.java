@@ -0,0 +1,184 @@
+package com.macgregor.ef.snapshot;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SnapshotTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    public enum Element { FIRE, WATER }
+
+    public static class Skill {
+        private Integer id;
+        private String name;
+
+        protected Skill(){}
+
+        public Skill(Integer id, String name){
+            this.id = id;
+            this.name = name;
+        }
+    }
+
+    public static class Hero {
+        private Integer id;
+        private String name;
+        private int level;
+        private double[] stats;
+        private List<String> tags;
+        private Element element;
+        private BigDecimal cost;
+        private Skill skill;
+        private transient String cached;
+
+        protected Hero(){}
+
+        public Hero(Integer id, String name, int level, double[] stats, List<String> tags, Element element, Skill skill){
+            this.id = id;
+            this.name = name;
+            this.level = level;
+            this.stats = stats;
+            this.tags = tags;
+            this.element = element;
+            this.cost = new BigDecimal("12.50");
+            this.skill = skill;
+        }
+    }
+
+    public static class NoDefaultConstructor {
+        private Integer id;
+
+        public NoDefaultConstructor(Integer id){
+            this.id = id;
+        }
+    }
+
+    private Path write(List<Hero> heroes, List<Skill> skills) throws IOException {
+        Path path = folder.getRoot().toPath().resolve("models.snapshot");
+        new SnapshotWriter()
+                .add(Skill.class, skills)
+                .add(Hero.class, heroes)
+                .write(path);
+        return path;
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        Hero knight = new Hero(1, "Knight", 3, new double[]{1.5, 2}, Arrays.asList("a", "b"), Element.FIRE, new Skill(7, "Slash"));
+        knight.cached = "not written";
+        Hero nameless = new Hero(2, null, 0, new double[0], Collections.<String>emptyList(), null, null);
+        Snapshot snapshot = Snapshot.open(write(Arrays.asList(knight, nameless), Arrays.asList(new Skill(7, "Slash"), new Skill(8, "Heal"))));
+
+        assertEquals(Arrays.asList(Skill.class, Hero.class), snapshot.getTypes());
+        assertEquals(2, snapshot.get(Skill.class).size());
+        assertEquals("Heal", snapshot.get(Skill.class).get(1).name);
+
+        Hero read = snapshot.get(Hero.class).get(0);
+        assertEquals(Integer.valueOf(1), read.id);
+        assertEquals("Knight", read.name);
+        assertEquals(3, read.level);
+        assertArrayEquals(new double[]{1.5, 2}, read.stats, 0);
+        assertEquals(Arrays.asList("a", "b"), read.tags);
+        assertEquals(Element.FIRE, read.element);
+        assertEquals(new BigDecimal("12.50"), read.cost);
+        assertEquals("Slash", read.skill.name);
+        assertNull(read.cached);
+
+        Hero empty = snapshot.get(Hero.class).get(1);
+        assertNull(empty.name);
+        assertNull(empty.element);
+        assertNull(empty.skill);
+        assertTrue(empty.tags.isEmpty());
+    }
+
+    @Test
+    public void testRecordsAreDecodedOnEveryRead() throws IOException {
+        Snapshot snapshot = Snapshot.open(write(Collections.<Hero>emptyList(), Collections.singletonList(new Skill(7, "Slash"))));
+        assertNotSame(snapshot.get(Skill.class).get(0), snapshot.get(Skill.class).get(0));
+        assertTrue(snapshot.get(Hero.class).isEmpty());
+        assertFalse(snapshot.contains(String.class));
+        assertTrue(snapshot.get(String.class).isEmpty());
+    }
+
+    @Test
+    public void testRewriteReplacesSnapshot() throws IOException {
+        write(Collections.<Hero>emptyList(), Collections.singletonList(new Skill(7, "Slash")));
+        Path path = write(Collections.<Hero>emptyList(), Arrays.asList(new Skill(7, "Slash"), new Skill(8, "Heal")));
+        assertEquals(2, Snapshot.open(path).get(Skill.class).size());
+        assertEquals(1, Files.list(folder.getRoot().toPath()).count());
+    }
+
+    @Test
+    public void testOpenRejectsOtherFilesAndVersions() throws IOException {
+        Path notSnapshot = folder.newFile("units.xml").toPath();
+        Files.write(notSnapshot, "<units></units>".getBytes("UTF-8"));
+        try {
+            Snapshot.open(notSnapshot);
+            fail("expected IOException");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains("not a snapshot"));
+        }
+
+        Path path = write(Collections.<Hero>emptyList(), Collections.<Skill>emptyList());
+        byte[] bytes = Files.readAllBytes(path);
+        bytes[7] = (byte) (SnapshotWriter.VERSION + 1);
+        Files.write(path, bytes);
+        try {
+            Snapshot.open(path);
+            fail("expected IOException");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains("format version"));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWriteRejectsRecordsThatCantBeDecoded() throws IOException {
+        new SnapshotWriter()
+                .add(NoDefaultConstructor.class, Collections.singletonList(new NoDefaultConstructor(1)))
+                .write(folder.getRoot().toPath().resolve("bad.snapshot"));
+    }
+
+    @Test
+    public void testPositionsPastIntRangeAreRejected() throws IOException {
+        SnapshotWriter.CountingOutputStream counter = new SnapshotWriter.CountingOutputStream(new OutputStream() {
+            @Override
+            public void write(int b) {}
+
+            @Override
+            public void write(byte[] b, int off, int len) {}
+        });
+        byte[] megabyte = new byte[1024 * 1024];
+        for(int i = 0; i < 2047; i++){
+            counter.write(megabyte);
+        }
+        assertEquals(2047L * megabyte.length, counter.position());
+
+        counter.write(megabyte);
+        assertEquals(2048L * megabyte.length, counter.getCount());
+        try {
+            counter.position();
+            fail("Expected positions past 2 GB to be rejected");
+        } catch (IOException e) {
+            assertTrue(e.getMessage().contains("2 GB"));
+        }
+    }
+}
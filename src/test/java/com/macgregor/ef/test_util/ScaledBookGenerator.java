@@ -0,0 +1,332 @@
+package com.macgregor.ef.test_util;
+
+import org.w3c.dom.Attr;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Writes copies of the global books with every record repeated factor times, for seeing how loading scales with the
+ * amount of data. Copy n of a record has its ids, the ids it references in other records (in the same or another book)
+ * and the text book keys of those ids all shifted by n times the stride of the id space, a power of ten above its
+ * largest id. So unit 22 of copy 3 is unit 30022, named by UNIT_NAME_30022, and evolves into unit 30023. Zero and
+ * negative ids mean "none" in the books and are left alone, as is everything that isnt a record of a scaled type,
+ * which is written once.
+ */
+public class ScaledBookGenerator {
+    public static final String UNIT_BOOK = "unitbook.xml";
+    public static final String TREASURE_BOOK = "treasurebook.xml";
+    public static final String PET_BOOK = "petbook.xml";
+    public static final String TOT_BATTLE_BOOK = "totbattlebook.xml";
+    public static final String TEXT_BOOK = "global.1.9.5-book.en.xml";
+
+    public enum IdSpace { UNIT, UNIT_SKILL, PET, PET_SKILL, TREASURE, TREASURE_SET, BATTLE }
+
+    private static final Pattern ID = Pattern.compile("-?\\d+");
+    private static final Pattern KEY = Pattern.compile("(.*_)(\\d+)");
+
+    private static final Map<String, BookSpec> BOOKS = new LinkedHashMap<>();
+    static {
+        BOOKS.put(UNIT_BOOK, new BookSpec("unit", "unitSkill")
+                .field("unit/kindNum", IdSpace.UNIT)
+                .field("unit/evolKindNum", IdSpace.UNIT)
+                .field("unit/passiveSkill", IdSpace.UNIT_SKILL)
+                .field("unitSkill/id", IdSpace.UNIT_SKILL));
+        BOOKS.put(TREASURE_BOOK, new BookSpec("treasure", "treasureSet")
+                .field("treasure/kindNum", IdSpace.TREASURE)
+                .field("treasureSet/kindNum", IdSpace.TREASURE_SET)
+                .field("treasureSet/itemList", IdSpace.TREASURE));
+        BOOKS.put(PET_BOOK, new BookSpec("pet", "petSkill")
+                .field("pet/kindNum", IdSpace.PET)
+                .field("pet/couple", IdSpace.PET)
+                .field("pet/skill1", IdSpace.PET_SKILL)
+                .field("pet/skill2", IdSpace.PET_SKILL)
+                .field("pet/masterSkill", IdSpace.PET_SKILL)
+                .field("pet/treasure", IdSpace.TREASURE)
+                .field("petSkill/kindNum", IdSpace.PET_SKILL));
+        BOOKS.put(TOT_BATTLE_BOOK, new BookSpec("battleList")
+                .field("battleList/kindNum", IdSpace.BATTLE)
+                .field("unit/kindNum", IdSpace.UNIT));
+        BOOKS.put(TEXT_BOOK, new BookSpec("text")
+                .key("text/id", "UNIT_NAME_", IdSpace.UNIT)
+                .key("text/id", "UNIT_DESC_", IdSpace.UNIT)
+                .key("text/id", "UNITSKILL_DESC_", IdSpace.UNIT_SKILL)
+                .key("text/id", "PET_NAME_", IdSpace.PET)
+                .key("text/id", "PET_SKILL_DESC_", IdSpace.PET_SKILL)
+                .key("text/id", "RELIC_NAME_", IdSpace.TREASURE)
+                .key("text/id", "RELIC_DESC_", IdSpace.TREASURE)
+                .key("text/id", "RELIC_SET_NAME_", IdSpace.TREASURE_SET)
+                .key("text/id", "RELIC_SET_DESC_", IdSpace.TREASURE_SET));
+    }
+
+    private final Map<String, Document> books = new LinkedHashMap<>();
+    private final Map<IdSpace, Integer> strides = new EnumMap<>(IdSpace.class);
+
+    /**
+     * Parses the books in sourceDirectory and works out the stride of each id space from the largest id in them.
+     */
+    public ScaledBookGenerator(Path sourceDirectory) throws IOException {
+        Map<IdSpace, Integer> maxIds = new EnumMap<>(IdSpace.class);
+        for(Map.Entry<String, BookSpec> book : BOOKS.entrySet()){
+            Document document = parse(sourceDirectory.resolve(book.getKey()));
+            books.put(book.getKey(), document);
+            collectMaxIds(document.getDocumentElement(), book.getValue(), maxIds);
+        }
+        for(IdSpace space : IdSpace.values()){
+            int stride = 10;
+            while(stride <= maxIds.getOrDefault(space, 0)){
+                stride *= 10;
+            }
+            strides.put(space, stride);
+        }
+    }
+
+    public static Set<String> getBooks(){
+        return BOOKS.keySet();
+    }
+
+    public int getStride(IdSpace space){
+        return strides.get(space);
+    }
+
+    /**
+     * @return id shifted into copy n of its id space
+     */
+    public int shift(IdSpace space, int id, int copy){
+        return id > 0 ? id + copy * strides.get(space) : id;
+    }
+
+    /**
+     * Writes every book into targetDirectory with the same file name, each record repeated factor times.
+     */
+    public void generate(Path targetDirectory, int factor) throws IOException {
+        if(factor < 1){
+            throw new IllegalArgumentException("Scale factor must be at least 1");
+        }
+        Files.createDirectories(targetDirectory);
+        for(Map.Entry<String, Document> book : books.entrySet()){
+            try (OutputStream out = Files.newOutputStream(targetDirectory.resolve(book.getKey()))) {
+                XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(out, "UTF-8");
+                writer.writeStartDocument("UTF-8", "1.0");
+                writer.writeCharacters("\n");
+                new BookWriter(writer, BOOKS.get(book.getKey()), factor).write(book.getValue().getDocumentElement(), "", 0);
+                writer.writeEndDocument();
+                writer.close();
+            } catch (XMLStreamException e) {
+                throw new IOException(String.format("Unable to write scaled %s", book.getKey()), e);
+            }
+        }
+    }
+
+    private static Document parse(Path book) throws IOException {
+        try {
+            DocumentBuilder builder = DocumentBuilderFactory.newInstance().newDocumentBuilder();
+            return builder.parse(book.toFile());
+        } catch (ParserConfigurationException | SAXException e) {
+            throw new IOException(String.format("Unable to parse %s", book), e);
+        }
+    }
+
+    private static void collectMaxIds(Element element, BookSpec spec, Map<IdSpace, Integer> maxIds){
+        for(Element child : childElements(element)){
+            String path = element.getTagName() + "/" + child.getTagName();
+            if(spec.fields.containsKey(path)){
+                Matcher ids = ID.matcher(child.getTextContent());
+                while(ids.find()){
+                    maxIds.merge(spec.fields.get(path), Integer.parseInt(ids.group()), Math::max);
+                }
+            } else if(spec.keys.containsKey(path)){
+                Matcher key = KEY.matcher(child.getTextContent().trim());
+                if(key.matches() && spec.keys.get(path).containsKey(key.group(1))){
+                    maxIds.merge(spec.keys.get(path).get(key.group(1)), Integer.parseInt(key.group(2)), Math::max);
+                }
+            } else{
+                collectMaxIds(child, spec, maxIds);
+            }
+        }
+    }
+
+    private static Iterable<Element> childElements(Element element){
+        NodeList children = element.getChildNodes();
+        Element[] elements = new Element[children.getLength()];
+        int count = 0;
+        for(int i = 0; i < children.getLength(); i++){
+            if(children.item(i).getNodeType() == Node.ELEMENT_NODE){
+                elements[count++] = (Element) children.item(i);
+            }
+        }
+        return Arrays.asList(elements).subList(0, count);
+    }
+
+    /**
+     * Which elements of a book are records to repeat, and which fields of them hold ids (numbers, or lists of numbers
+     * separated by |) or text book keys ending in an id.
+     */
+    private static final class BookSpec {
+        private final Set<String> records;
+        private final Map<String, IdSpace> fields = new HashMap<>();
+        private final Map<String, Map<String, IdSpace>> keys = new HashMap<>();
+
+        BookSpec(String... records){
+            this.records = new HashSet<>(Arrays.asList(records));
+        }
+
+        BookSpec field(String path, IdSpace space){
+            fields.put(path, space);
+            return this;
+        }
+
+        BookSpec key(String path, String prefix, IdSpace space){
+            keys.computeIfAbsent(path, p -> new HashMap<>()).put(prefix, space);
+            return this;
+        }
+    }
+
+    private final class BookWriter {
+        private final XMLStreamWriter writer;
+        private final BookSpec spec;
+        private final int factor;
+
+        BookWriter(XMLStreamWriter writer, BookSpec spec, int factor){
+            this.writer = writer;
+            this.spec = spec;
+            this.factor = factor;
+        }
+
+        /**
+         * Writes element as copy n. The extra copies of records are written right after the last original record of
+         * their parent.
+         */
+        void write(Element element, String parent, int copy) throws XMLStreamException {
+            writer.writeStartElement(element.getTagName());
+            NamedNodeMap attributes = element.getAttributes();
+            for(int i = 0; i < attributes.getLength(); i++){
+                Attr attribute = (Attr) attributes.item(i);
+                writer.writeAttribute(attribute.getName(), attribute.getValue());
+            }
+
+            String path = parent + "/" + element.getTagName();
+            if(spec.fields.containsKey(path) || spec.keys.containsKey(path)){
+                writeValue(element, rewrite(path, element.getTextContent(), copy));
+            } else{
+                NodeList children = element.getChildNodes();
+                int lastRecord = -1;
+                for(int i = 0; i < children.getLength(); i++){
+                    if(isRecord(children.item(i))){
+                        lastRecord = i;
+                    }
+                }
+                for(int i = 0; i < children.getLength(); i++){
+                    writeNode(children.item(i), element.getTagName(), copy);
+                    if(i == lastRecord){
+                        writeCopies(children, element.getTagName());
+                    }
+                }
+            }
+            writer.writeEndElement();
+        }
+
+        private void writeCopies(NodeList children, String parent) throws XMLStreamException {
+            for(int copy = 1; copy < factor; copy++){
+                for(int i = 0; i < children.getLength(); i++){
+                    if(isRecord(children.item(i)) && hasIds((Element) children.item(i))){
+                        if(i > 0 && children.item(i - 1).getNodeType() == Node.TEXT_NODE){
+                            writer.writeCharacters(children.item(i - 1).getNodeValue());
+                        }
+                        write((Element) children.item(i), parent, copy);
+                    }
+                }
+            }
+        }
+
+        private void writeNode(Node node, String parent, int copy) throws XMLStreamException {
+            switch (node.getNodeType()){
+                case Node.ELEMENT_NODE:
+                    write((Element) node, parent, copy);
+                    break;
+                case Node.CDATA_SECTION_NODE:
+                    writer.writeCData(node.getNodeValue());
+                    break;
+                case Node.TEXT_NODE:
+                    writer.writeCharacters(node.getNodeValue());
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        private void writeValue(Element field, String value) throws XMLStreamException {
+            if(field.getFirstChild() != null && field.getFirstChild().getNodeType() == Node.CDATA_SECTION_NODE){
+                writer.writeCData(value);
+            } else{
+                writer.writeCharacters(value);
+            }
+        }
+
+        private boolean isRecord(Node node){
+            return node.getNodeType() == Node.ELEMENT_NODE && spec.records.contains(((Element) node).getTagName());
+        }
+
+        /**
+         * @return whether any field of the record would be shifted in another copy, records without one, like text
+         *  book entries that arent keyed by an id, would just be duplicates
+         */
+        private boolean hasIds(Element record){
+            for(Element child : childElements(record)){
+                String path = record.getTagName() + "/" + child.getTagName();
+                if(spec.fields.containsKey(path) || spec.keys.containsKey(path)){
+                    if(!rewrite(path, child.getTextContent(), 1).equals(child.getTextContent())){
+                        return true;
+                    }
+                } else if(hasIds(child)){
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private String rewrite(String path, String value, int copy){
+            if(copy == 0){
+                return value;
+            }
+            if(spec.keys.containsKey(path)){
+                Matcher key = KEY.matcher(value.trim());
+                if(key.matches() && spec.keys.get(path).containsKey(key.group(1))){
+                    return key.group(1) + shift(spec.keys.get(path).get(key.group(1)), Integer.parseInt(key.group(2)), copy);
+                }
+                return value;
+            }
+            IdSpace space = spec.fields.get(path);
+            StringBuffer rewritten = new StringBuffer();
+            Matcher ids = ID.matcher(value);
+            while(ids.find()){
+                ids.appendReplacement(rewritten, Integer.toString(shift(space, Integer.parseInt(ids.group()), copy)));
+            }
+            ids.appendTail(rewritten);
+            return rewritten.toString();
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.macgregor.ef.test_util;
+
+import com.macgregor.ef.TranslationStore;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.w3c.dom.Document;
+import org.w3c.dom.NodeList;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.xpath.XPathConstants;
+import javax.xml.xpath.XPathFactory;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ScaledBookGeneratorTest {
+    private static final Path SOURCE = Paths.get(TranslationStore.DEFAULT_BOOK_DIRECTORY);
+
+    private static ScaledBookGenerator generator;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        generator = new ScaledBookGenerator(SOURCE);
+    }
+
+    @Test
+    public void testStridesAreAboveLargestId() {
+        assertEquals(10000, generator.getStride(ScaledBookGenerator.IdSpace.UNIT));
+        assertEquals(30022, generator.shift(ScaledBookGenerator.IdSpace.UNIT, 22, 3));
+        assertEquals(-1, generator.shift(ScaledBookGenerator.IdSpace.UNIT, -1, 3));
+        assertEquals(0, generator.shift(ScaledBookGenerator.IdSpace.PET, 0, 3));
+    }
+
+    @Test
+    public void testFactorOneKeepsEveryRecord() throws Exception {
+        Path target = folder.getRoot().toPath();
+        generator.generate(target, 1);
+        for(String book : ScaledBookGenerator.getBooks()){
+            assertEquals(book, values(SOURCE, book, "count(//*)"), values(target, book, "count(//*)"));
+        }
+    }
+
+    @Test
+    public void testRecordsAreRepeatedWithUniqueIds() throws Exception {
+        Path target = folder.getRoot().toPath();
+        generator.generate(target, 3);
+
+        assertScaled(target, ScaledBookGenerator.UNIT_BOOK, "//unitList/unit/kindNum");
+        assertScaled(target, ScaledBookGenerator.UNIT_BOOK, "//unitSkill/id");
+        assertScaled(target, ScaledBookGenerator.PET_BOOK, "//pet/kindNum");
+        assertScaled(target, ScaledBookGenerator.PET_BOOK, "//petSkill/kindNum");
+        assertScaled(target, ScaledBookGenerator.TREASURE_BOOK, "//treasure/kindNum");
+        assertScaled(target, ScaledBookGenerator.TREASURE_BOOK, "//treasureSet/kindNum");
+        assertScaled(target, ScaledBookGenerator.TOT_BATTLE_BOOK, "//battleList/kindNum");
+
+        Set<String> keys = new HashSet<>(values(target, ScaledBookGenerator.TEXT_BOOK, "//text/id"));
+        assertEquals(values(target, ScaledBookGenerator.TEXT_BOOK, "//text/id").size(), keys.size());
+        assertTrue(keys.contains("UNIT_NAME_20022"));
+        assertTrue(keys.contains("ACHIEVE_NAME_1"));
+    }
+
+    @Test
+    public void testReferencesPointIntoTheSameCopy() throws Exception {
+        Path target = folder.getRoot().toPath();
+        generator.generate(target, 3);
+
+        assertReferences(target, ScaledBookGenerator.IdSpace.UNIT,
+                ScaledBookGenerator.UNIT_BOOK, "//unitList/unit/kindNum",
+                ScaledBookGenerator.UNIT_BOOK, "//unitList/unit/evolKindNum");
+        assertReferences(target, ScaledBookGenerator.IdSpace.UNIT,
+                ScaledBookGenerator.UNIT_BOOK, "//unitList/unit/kindNum",
+                ScaledBookGenerator.TOT_BATTLE_BOOK, "//battle/unit/kindNum");
+        assertReferences(target, ScaledBookGenerator.IdSpace.PET,
+                ScaledBookGenerator.PET_BOOK, "//pet/kindNum",
+                ScaledBookGenerator.PET_BOOK, "//pet/couple");
+        assertReferences(target, ScaledBookGenerator.IdSpace.TREASURE,
+                ScaledBookGenerator.TREASURE_BOOK, "//treasure/kindNum",
+                ScaledBookGenerator.TREASURE_BOOK, "//treasureSet/itemList");
+
+        Set<String> keys = new HashSet<>(values(target, ScaledBookGenerator.TEXT_BOOK, "//text/id"));
+        for(String unit : values(SOURCE, ScaledBookGenerator.UNIT_BOOK, "//unitList/unit/kindNum")){
+            if(keys.contains("UNIT_NAME_" + unit)){
+                assertTrue(keys.contains("UNIT_NAME_" + generator.shift(ScaledBookGenerator.IdSpace.UNIT, Integer.parseInt(unit), 2)));
+            }
+        }
+    }
+
+    private void assertScaled(Path target, String book, String ids) throws Exception {
+        List<String> original = values(SOURCE, book, ids);
+        List<String> scaled = values(target, book, ids);
+        assertEquals(ids, original.size() * 3, scaled.size());
+        assertEquals(ids, scaled.size(), new HashSet<>(scaled).size());
+    }
+
+    /**
+     * Asserts every reference that resolves in the source books resolves to the same copy in the scaled ones. Some
+     * references in the source books are dangling, those are left dangling.
+     */
+    private void assertReferences(Path target, ScaledBookGenerator.IdSpace space, String idBook, String ids,
+                                  String referenceBook, String references) throws Exception {
+        Set<String> sourceIds = new HashSet<>(values(SOURCE, idBook, ids));
+        Set<String> scaledIds = new HashSet<>(values(target, idBook, ids));
+        int resolved = 0;
+        for(String reference : split(values(SOURCE, referenceBook, references))){
+            if(sourceIds.contains(reference)){
+                for(int copy = 0; copy < 3; copy++){
+                    String shifted = Integer.toString(generator.shift(space, Integer.parseInt(reference), copy));
+                    assertTrue(references + " " + shifted, scaledIds.contains(shifted));
+                }
+                resolved++;
+            }
+        }
+        assertTrue(references, resolved > 0);
+        assertEquals(references, split(values(SOURCE, referenceBook, references)).size() * 3,
+                split(values(target, referenceBook, references)).size());
+    }
+
+    private List<String> split(List<String> lists) {
+        List<String> values = new ArrayList<>();
+        for(String list : lists){
+            for(String value : list.split("\\|")){
+                values.add(value.trim());
+            }
+        }
+        return values;
+    }
+
+    private List<String> values(Path directory, String book, String expression) throws Exception {
+        Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(directory.resolve(book).toFile());
+        List<String> values = new ArrayList<>();
+        if(expression.startsWith("count(")){
+            values.add(XPathFactory.newInstance().newXPath().evaluate(expression, document));
+            return values;
+        }
+        NodeList nodes = (NodeList) XPathFactory.newInstance().newXPath().evaluate(expression, document, XPathConstants.NODESET);
+        for(int i = 0; i < nodes.getLength(); i++){
+            values.add(nodes.item(i).getTextContent().trim());
+        }
+        return values;
+    }
+}